@@ -221,6 +221,12 @@ xsi:schemaLocation=""http://maven.apache.org/POM/4.0.0 http://maven.apache.org/x
         /// </summary>
         internal static readonly string PrtSetElementAtMethodName = "prt.values.SetIndexing.elementAt";
 
+        /// <summary>
+        /// The fully-qualified class name of the Java P runtime's LinkedHashSet that supports
+        /// positional access, which P sets are constructed as.
+        /// </summary>
+        internal static readonly string PrtIndexedSetClass = "prt.values.IndexedSet";
+
         /// <summary>
         /// The fully-qualified class name of the Java P runtime's PValue class.
         /// </summary>
@@ -243,17 +243,26 @@ namespace Plang.Compiler.Backend.Java
 
             internal class JSet : JType
             {
+                private readonly JType _t;
+
                 internal JSet(JType t)
                 {
+                    _t = t;
                     _unboxedType = $"LinkedHashSet<{t.ReferenceTypeName}>";
                 }
 
                 internal override bool IsPrimitive => false;
 
+                /// <summary>
+                /// Sets are constructed as IndexedSets, a LinkedHashSet that the runtime can index
+                /// into without walking an iterator.
+                /// </summary>
+                internal override string DefaultValue => $"new {Constants.PrtIndexedSetClass}<{_t.ReferenceTypeName}>()";
+
                 // Note: There's no AccessorMethodName for a JSet because, unfortunately,
                 // we have to build a bit more mechanism in order to "index" into a
                 // LinkedHashSet that the C# set datatype gives us directly.  For this,
-                // the code generator emits a call to setElementAt(LinkedHashSet, int) in
+                // the code generator emits a call to SetIndexing.elementAt(LinkedHashSet, long) in
                 // the Java PRT runtime.
 
                 internal override string ContainsMethodName => "contains";
@@ -0,0 +1,127 @@
+package prt.benchmarks;
+
+import java.util.List;
+import org.openjdk.jmh.infra.Blackhole;
+import prt.Monitor;
+import prt.State;
+import prt.events.PEvent;
+
+/**
+ * Monitors shaped like the ones of MonitorTest, processing an event without a transition, with a
+ * transition (with or without a payload), or by raising another event.
+ */
+public class BenchmarkMonitors {
+
+    enum SingleState { INIT_STATE }
+
+    enum ABCState { A_STATE, B_STATE, C_STATE }
+
+    public static class AddEvent extends PEvent<Integer> {
+        private final Integer payload;
+        public AddEvent(int payload) { this.payload = payload; }
+        public Integer getPayload() { return payload; }
+    }
+
+    public static class StepEvent extends PEvent<Void> {
+        public Void getPayload() { return null; }
+    }
+
+    /**
+     * Increments a counter on every event, like MonitorTest's CounterMonitor.
+     */
+    public static class CounterMonitor extends Monitor<SingleState> {
+        public int count;
+
+        public CounterMonitor() {
+            super();
+            addState(new State.Builder<>(SingleState.INIT_STATE)
+                    .isInitialState(true)
+                    .withEvent(AddEvent.class, i -> count += i)
+                    .build());
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() { return List.of(AddEvent.class); }
+    }
+
+    /**
+     * Counts events like CounterMonitor, but also spends a fixed amount of work on each of them.
+     */
+    public static class WorkMonitor extends Monitor<SingleState> {
+        public int count;
+
+        public WorkMonitor(int work) {
+            super();
+            addState(new State.Builder<>(SingleState.INIT_STATE)
+                    .isInitialState(true)
+                    .withEvent(AddEvent.class, i -> {
+                        Blackhole.consumeCPU(work);
+                        count += i;
+                    })
+                    .build());
+            ready();
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() { return List.of(AddEvent.class); }
+    }
+
+    /**
+     * Moves to the next of three states on every event, running exit and entry handlers like
+     * MonitorTest's ChainedEntryHandlerMonitor, optionally passing a payload to the entry handler.
+     */
+    public static class CycleMonitor extends Monitor<ABCState> {
+        public int count;
+
+        public CycleMonitor(boolean withPayload) {
+            super();
+            addState(cycleState(ABCState.A_STATE, ABCState.B_STATE, withPayload).isInitialState(true).build());
+            addState(cycleState(ABCState.B_STATE, ABCState.C_STATE, withPayload).build());
+            addState(cycleState(ABCState.C_STATE, ABCState.A_STATE, withPayload).build());
+        }
+
+        private State.Builder<ABCState> cycleState(ABCState key, ABCState next, boolean withPayload) {
+            State.Builder<ABCState> builder = new State.Builder<>(key).withExit(() -> count++);
+            if (withPayload) {
+                return builder
+                        .withEvent(StepEvent.class, __ -> gotoState(next, key))
+                        .withEntry((Object from) -> count++);
+            }
+            return builder
+                    .withEvent(StepEvent.class, __ -> gotoState(next))
+                    .withEntry(() -> count++);
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() { return List.of(StepEvent.class); }
+    }
+
+    /**
+     * Raises another event from the handler of every event, like MonitorTest's RaiseEventMonitor.
+     */
+    public static class RaiseEventMonitor extends Monitor<SingleState> {
+        public int count;
+
+        public RaiseEventMonitor() {
+            super();
+            AddEvent raised = new AddEvent(1);
+            addState(new State.Builder<>(SingleState.INIT_STATE)
+                    .isInitialState(true)
+                    .withEvent(StepEvent.class, __ -> {
+                        tryRaiseEvent(raised);
+                        throw new RuntimeException("tryRaiseEvent must terminate executing the current event");
+                    })
+                    .withEvent(AddEvent.class, i -> count += i)
+                    .build());
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() {
+            return List.of(StepEvent.class, AddEvent.class);
+        }
+    }
+}
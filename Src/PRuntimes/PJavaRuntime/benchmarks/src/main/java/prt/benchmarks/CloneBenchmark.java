@@ -0,0 +1,61 @@
+package prt.benchmarks;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import prt.values.Clone;
+import prt.values.PersistentMap;
+import prt.values.PersistentSet;
+
+/**
+ * Benchmarks sending a map of sets, i.e. deep cloning it and then updating one of its sets: as a
+ * HashMap of LinkedHashSets, against a persistent map of persistent sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloneBenchmark {
+    @Param({"16", "1024"})
+    public int numKeys;
+
+    @Param({"16"})
+    public int setSize;
+
+    private HashMap<Long, LinkedHashSet<Long>> map;
+    private PersistentMap<Long, PersistentSet<Long>> persistentMap;
+    private long next;
+
+    @Setup
+    public void setup() {
+        map = new HashMap<>();
+        persistentMap = new PersistentMap<>();
+        for (long k = 0; k < numKeys; k++) {
+            LinkedHashSet<Long> s = new LinkedHashSet<>();
+            PersistentSet<Long> ps = new PersistentSet<>();
+            for (long v = 0; v < setSize; v++) {
+                s.add(v);
+                ps.add(v);
+            }
+            map.put(k, s);
+            persistentMap.put(k, ps);
+        }
+    }
+
+    @Benchmark
+    public Object javaCollections() {
+        HashMap<Long, LinkedHashSet<Long>> m = Clone.deepClone(map);
+        m.get(next++ % numKeys).add(-1L);
+        return m;
+    }
+
+    @Benchmark
+    public Object persistentCollections() {
+        PersistentMap<Long, PersistentSet<Long>> m = Clone.deepClone(persistentMap);
+        m.get(next++ % numKeys).add(-1L);
+        return m;
+    }
+}
@@ -0,0 +1,59 @@
+package prt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import prt.exceptions.TransitionException;
+
+/**
+ * Benchmarks the control-flow signals that event handlers throw to transition, thrown from a
+ * handler that is some calls deep: a new exception that captures its stack trace, which is how
+ * prt.Monitor used to signal transitions, against the preallocated stackless TransitionException
+ * that it reuses now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControlFlowBenchmark {
+    @Param({"1", "16"})
+    public int depth;
+
+    private final TransitionException signal =
+            new TransitionException(new prt.State.Builder<>(BenchmarkMonitors.SingleState.INIT_STATE).build());
+
+    private static class StackTraceSignal extends Exception {}
+
+    private int throwAllocated(int d) throws StackTraceSignal {
+        if (d <= 1) {
+            throw new StackTraceSignal();
+        }
+        return throwAllocated(d - 1) + 1;
+    }
+
+    private int throwPreallocated(int d) throws TransitionException {
+        if (d <= 1) {
+            throw signal;
+        }
+        return throwPreallocated(d - 1) + 1;
+    }
+
+    @Benchmark
+    public Object allocated() {
+        try {
+            return throwAllocated(depth);
+        } catch (StackTraceSignal e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object preallocated() {
+        try {
+            return throwPreallocated(depth);
+        } catch (TransitionException e) {
+            return e.getTargetState();
+        }
+    }
+}
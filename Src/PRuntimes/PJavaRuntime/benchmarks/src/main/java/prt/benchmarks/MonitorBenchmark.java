@@ -0,0 +1,71 @@
+package prt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks processing a batch of events by a monitor, for each kind of event handler of
+ * {@link BenchmarkMonitors}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(MonitorBenchmark.EVENTS)
+public class MonitorBenchmark {
+    static final int EVENTS = 1024;
+
+    private final BenchmarkMonitors.AddEvent add = new BenchmarkMonitors.AddEvent(1);
+    private final BenchmarkMonitors.StepEvent step = new BenchmarkMonitors.StepEvent();
+
+    private BenchmarkMonitors.CounterMonitor counter;
+    private BenchmarkMonitors.CycleMonitor cycle;
+    private BenchmarkMonitors.CycleMonitor cycleWithPayload;
+    private BenchmarkMonitors.RaiseEventMonitor raise;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        counter = new BenchmarkMonitors.CounterMonitor();
+        counter.ready();
+        cycle = new BenchmarkMonitors.CycleMonitor(false);
+        cycle.ready();
+        cycleWithPayload = new BenchmarkMonitors.CycleMonitor(true);
+        cycleWithPayload.ready(BenchmarkMonitors.ABCState.C_STATE);
+        raise = new BenchmarkMonitors.RaiseEventMonitor();
+        raise.ready();
+    }
+
+    @Benchmark
+    public int handle() {
+        for (int i = 0; i < EVENTS; i++) {
+            counter.accept(add);
+        }
+        return counter.count;
+    }
+
+    @Benchmark
+    public int transition() {
+        for (int i = 0; i < EVENTS; i++) {
+            cycle.accept(step);
+        }
+        return cycle.count;
+    }
+
+    @Benchmark
+    public int transitionWithPayload() {
+        for (int i = 0; i < EVENTS; i++) {
+            cycleWithPayload.accept(step);
+        }
+        return cycleWithPayload.count;
+    }
+
+    @Benchmark
+    public int raiseEvent() {
+        for (int i = 0; i < EVENTS; i++) {
+            raise.accept(step);
+        }
+        return raise.count;
+    }
+}
@@ -0,0 +1,69 @@
+package prt.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import prt.Monitor;
+import prt.MonitorHub;
+import prt.events.PEvent;
+
+/**
+ * Benchmarks feeding batches of events to several independent monitors through a
+ * {@link MonitorHub}, with a varying number of threads.  Every monitor subscribes to all events,
+ * and spends a fixed amount of work on each of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(MonitorHubBenchmark.EVENTS)
+public class MonitorHubBenchmark {
+    static final int EVENTS = 4096;
+    static final int BATCH = 256;
+
+    @Param({"16"})
+    public int monitors;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"100"})
+    public int work;
+
+    private MonitorHub hub;
+    private List<List<PEvent<?>>> batches;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Monitor<?>> ms = new ArrayList<>();
+        for (int i = 0; i < monitors; i++) {
+            ms.add(new BenchmarkMonitors.WorkMonitor(work));
+        }
+        hub = new MonitorHub(ms, threads);
+        batches = new ArrayList<>();
+        for (int i = 0; i < EVENTS / BATCH; i++) {
+            List<PEvent<?>> batch = new ArrayList<>();
+            for (int j = 0; j < BATCH; j++) {
+                batch.add(new BenchmarkMonitors.AddEvent(1));
+            }
+            batches.add(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hub.close();
+    }
+
+    @Benchmark
+    public MonitorHub process() throws InterruptedException {
+        for (List<PEvent<?>> batch : batches) {
+            hub.acceptBatch(batch);
+        }
+        hub.flush();
+        return hub;
+    }
+}
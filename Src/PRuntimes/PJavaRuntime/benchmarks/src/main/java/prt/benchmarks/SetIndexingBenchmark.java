@@ -0,0 +1,47 @@
+package prt.benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import prt.values.IndexedSet;
+import prt.values.SetIndexing;
+
+/**
+ * Benchmarks random accesses to the elements of a set, as a P `choose` does: walking the iterator
+ * of a LinkedHashSet, against indexing an IndexedSet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetIndexingBenchmark {
+    @Param({"64", "4096"})
+    public int size;
+
+    private LinkedHashSet<Long> set;
+    private IndexedSet<Long> indexedSet;
+    private final Random random = new Random(0);
+
+    @Setup
+    public void setup() {
+        set = new LinkedHashSet<>();
+        indexedSet = new IndexedSet<>();
+        for (long i = 0; i < size; i++) {
+            set.add(i);
+            indexedSet.add(i);
+        }
+    }
+
+    @Benchmark
+    public Long linkedHashSet() {
+        return SetIndexing.elementAt(set, random.nextInt(size));
+    }
+
+    @Benchmark
+    public Long indexedSet() {
+        return SetIndexing.elementAt(indexedSet, random.nextInt(size));
+    }
+}
@@ -0,0 +1,68 @@
+package prt.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import parsers.PTraceParserUtils;
+import parsers.PTraceTokenizer;
+
+/**
+ * Benchmarks reading the fields of the SendLog events of a trace: line by line with the regex and
+ * the Conversions of parsers.PTraceParserUtils, against the streaming parsers.PTraceTokenizer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceParserBenchmark {
+    @Param({"10000"})
+    public int numLines;
+
+    private List<String> lines;
+    private String trace;
+
+    @Setup
+    public void setup() {
+        lines = new ArrayList<>(numLines);
+        for (int i = 0; i < numLines; i++) {
+            if (i % 4 == 3) {
+                lines.add("<DequeueLog> 'BankServer(3)' dequeued event 'eReadQuery with payload (<accountId:0, >)' in state 'WaitForWithdrawRequests'.");
+            } else {
+                lines.add(String.format("<SendLog> 'Client(%d)' in state 'WithdrawMoney' sent event "
+                        + "'eWithDrawReq with payload (<source:Client(%d), accountId:%d, amount:%d, rId:%d, >)' to 'BankServer(3)'.",
+                        i % 16, i % 16, i % 7, i % 100, i));
+            }
+        }
+        trace = String.join("\n", lines);
+    }
+
+    @Benchmark
+    public void conversions(Blackhole bh) {
+        PTraceParserUtils.FilterSendLogs(lines.stream()).forEach(line -> {
+            Matcher m = PTraceParserUtils.evtPattern.matcher(line);
+            m.find();
+            List<String> kvs = PTraceParserUtils.Conversions.namedTupleToKVPairs(m.group(2));
+            bh.consume(PTraceParserUtils.Conversions.kvPairToMachineId(kvs.get(0)));
+            bh.consume(PTraceParserUtils.Conversions.kvPairToInt(kvs.get(1)));
+            bh.consume(PTraceParserUtils.Conversions.kvPairToInt(kvs.get(2)));
+            bh.consume(PTraceParserUtils.Conversions.kvPairToInt(kvs.get(3)));
+        });
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole bh) {
+        PTraceTokenizer t = new PTraceTokenizer(trace);
+        while (t.nextSendLog()) {
+            t.beginNamedTuple();
+            bh.consume(t.nextMachineId());
+            bh.consume(t.nextInt());
+            bh.consume(t.nextInt());
+            bh.consume(t.nextInt());
+        }
+    }
+}
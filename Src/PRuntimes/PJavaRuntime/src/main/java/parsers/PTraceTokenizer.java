@@ -0,0 +1,557 @@
+package parsers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A streaming tokenizer of P traces, which reads the SendLog lines of a trace and the fields of
+ * their event payloads in place, without regular expressions or intermediate Strings.
+ *
+ * The trace is either an in-memory `CharSequence` (e.g. a `CharBuffer` or a `String`), or a file
+ * that is memory-mapped a chunk at a time.  A typical loop over a trace looks like:
+ *
+ * <pre>
+ *     try (PTraceTokenizer t = PTraceTokenizer.open(path)) {
+ *         while (t.nextSendLog()) {
+ *             if (t.eventNameEquals("eWithDrawReq")) {
+ *                 t.beginNamedTuple();
+ *                 long source = t.nextMachineId();
+ *                 int accountId = t.nextInt();
+ *                 ...
+ *             }
+ *         }
+ *     }
+ * </pre>
+ *
+ * The field readers follow the semantics of the corresponding `PTraceParserUtils.Conversions`
+ * functions on each element of `namedTupleToKVPairs` (or `tupleToValues`) of the payload.
+ */
+public class PTraceTokenizer implements AutoCloseable {
+    private static final String PREFIX = "<SendLog>";
+    private static final String EVENT_START = "sent event '";
+    private static final String PAYLOAD_START = " with payload (";
+    private static final String PAYLOAD_END = ")' to";
+
+    /* Files are mapped in chunks of at most this many bytes, since a mapped buffer is int-indexed. */
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private long chunkOffset;
+    private CharSequence input;
+
+    /* Bounds of the current line, and start of the next one */
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private int next = 0;
+
+    /* Bounds of the event name and payload of the current SendLog line */
+    private int nameStart;
+    private int nameEnd;
+    private int payloadStart;
+    private int payloadEnd;
+
+    /* Cursor over the elements of the current tuple */
+    private int pos;
+    private int tupleEnd;
+    private boolean named;
+
+    /**
+     * Instantiates a new tokenizer over the lines of an in-memory trace.
+     *
+     * @param input The trace.
+     */
+    public PTraceTokenizer(CharSequence input) {
+        this.channel = null;
+        this.fileSize = input.length();
+        this.chunkOffset = 0;
+        this.input = input;
+    }
+
+    private PTraceTokenizer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.chunkOffset = 0;
+        mapChunk(0);
+    }
+
+    /**
+     * Instantiates a new tokenizer over the lines of a trace file, which is memory-mapped rather
+     * than read.  The file must be encoded in UTF-8 (or ASCII).
+     *
+     * @param path The trace file.
+     * @return the tokenizer, which must be closed after use.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static PTraceTokenizer open(Path path) throws IOException {
+        return new PTraceTokenizer(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    private void mapChunk(long offset) throws IOException {
+        long size = Math.min(CHUNK_SIZE, fileSize - offset);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        chunkOffset = offset;
+        input = new ByteBufferCharSequence(buffer, 0, (int) size);
+        next = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Advances to the next line of the trace.
+     *
+     * @return whether there was a next line.
+     */
+    public boolean nextLine() {
+        while (true) {
+            int length = input.length();
+            if (next < length) {
+                lineStart = next;
+                int newline = indexOf('\n', lineStart, length);
+                if (newline >= 0) {
+                    lineEnd = newline;
+                    next = newline + 1;
+                } else if (chunkOffset + length < fileSize) {
+                    // the line continues in the next chunk
+                    if (lineStart == 0) {
+                        throw new RuntimeException("Line longer than " + CHUNK_SIZE + " bytes at offset " + chunkOffset);
+                    }
+                    remap(chunkOffset + lineStart);
+                    continue;
+                } else {
+                    lineEnd = length;
+                    next = length;
+                }
+                if (lineEnd > lineStart && input.charAt(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                return true;
+            }
+            if (chunkOffset + length >= fileSize) {
+                return false;
+            }
+            remap(chunkOffset + length);
+        }
+    }
+
+    private void remap(long offset) {
+        try {
+            mapChunk(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Advances to the next SendLog line of the trace that sends an event with a payload, skipping
+     * all other lines, and starts reading its payload.
+     *
+     * @return whether there was such a line.
+     */
+    public boolean nextSendLog() {
+        while (nextLine()) {
+            if (regionMatches(lineStart, lineEnd, PREFIX) && findEvent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the event name and payload in the current line, like `PTraceParserUtils.evtPattern`.
+     */
+    private boolean findEvent() {
+        int start = indexOf(EVENT_START, lineStart, lineEnd);
+        if (start < 0) {
+            return false;
+        }
+        nameStart = start + EVENT_START.length();
+        nameEnd = nameStart;
+        while (nameEnd < lineEnd && isWordChar(input.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart || !regionMatches(nameEnd, lineEnd, PAYLOAD_START)) {
+            return false;
+        }
+        payloadStart = nameEnd + PAYLOAD_START.length();
+        payloadEnd = lastIndexOf(PAYLOAD_END, payloadStart, lineEnd);
+        if (payloadEnd <= payloadStart) {
+            return false;
+        }
+        pos = payloadStart;
+        tupleEnd = payloadEnd;
+        named = false;
+        return true;
+    }
+
+    /**
+     * @return the current line, as a new String.
+     */
+    public String line() {
+        return input.subSequence(lineStart, lineEnd).toString();
+    }
+
+    /**
+     * @return the event name of the current SendLog line, as a new String.
+     */
+    public String eventName() {
+        return input.subSequence(nameStart, nameEnd).toString();
+    }
+
+    /**
+     * Returns whether the event name of the current SendLog line is the given one, without
+     * allocating.
+     *
+     * @param name The event name.
+     * @return whether it is the event name.
+     */
+    public boolean eventNameEquals(String name) {
+        return nameEnd - nameStart == name.length() && regionMatches(nameStart, nameEnd, name);
+    }
+
+    /**
+     * @return the payload of the current SendLog line, as a new String.
+     */
+    public String payload() {
+        return input.subSequence(payloadStart, payloadEnd).toString();
+    }
+
+    /**
+     * Starts reading the payload as a named tuple of the form `<k1:v1, k2:v2, ... kn:vn, >`.
+     * The following field readers read the values v1 ... vn.
+     */
+    public void beginNamedTuple() {
+        beginTuple(", >");
+        named = true;
+    }
+
+    /**
+     * Starts reading the payload as a tuple of the form `<v1,v2,v3...vn,>`.  The following field
+     * readers read the values v1 ... vn.
+     */
+    public void beginTuple() {
+        beginTuple(",>");
+        named = false;
+    }
+
+    private void beginTuple(String end) {
+        if (payloadEnd - payloadStart < end.length() + 1
+                || input.charAt(payloadStart) != '<'
+                || !regionMatches(payloadEnd - end.length(), payloadEnd, end)) {
+            throw new RuntimeException(String.format("Token \"%s\" does not appear to be a %stuple?",
+                    payload(), end.length() == 3 ? "named " : ""));
+        }
+        pos = payloadStart + 1;
+        tupleEnd = payloadEnd - end.length();
+    }
+
+    /**
+     * @return whether the current tuple has more fields to read.
+     */
+    public boolean hasNextField() {
+        return pos < tupleEnd;
+    }
+
+    /**
+     * Finds the end of the current field, which ends at the next delimiter outside a quoted string,
+     * like `PTraceParserUtils.Conversions.splitCommasOutsideStrings`.
+     */
+    private int fieldEnd() {
+        if (pos >= tupleEnd) {
+            throw new RuntimeException("No more fields in payload \"" + payload() + "\"");
+        }
+        char delimiter = ',';
+        boolean inQuotedString = input.charAt(pos) == '"';
+        for (int i = pos + 1; i < tupleEnd; i++) {
+            char curr = input.charAt(i);
+            if (!inQuotedString && curr == delimiter && (!named || (i + 1 < tupleEnd && input.charAt(i + 1) == ' '))) {
+                return i;
+            }
+            if (curr == '"' && input.charAt(i - 1) != '\\') {
+                inQuotedString = !inQuotedString;
+            }
+        }
+        return tupleEnd;
+    }
+
+    /**
+     * Advances the cursor past the given field end and its delimiter.
+     */
+    private void advance(int end) {
+        pos = (end < tupleEnd) ? end + (named ? 2 : 1) : tupleEnd;
+    }
+
+    /**
+     * Returns the start of the value of a field, which is after the key of named tuple fields.
+     */
+    private int valueStart(int end) {
+        if (!named) {
+            return pos;
+        }
+        int colon = indexOf(':', pos, end);
+        if (colon < 0) {
+            throw new ArrayIndexOutOfBoundsException("Field \"" + input.subSequence(pos, end) + "\" has no value");
+        }
+        return colon + 1;
+    }
+
+    /**
+     * Returns the end of the value of a field, which is before any further colon, like the
+     * `kv.split(":")[1]` of the conversion functions.
+     */
+    private int valueEnd(int start, int end) {
+        if (!named) {
+            return end;
+        }
+        int colon = indexOf(':', start, end);
+        return colon < 0 ? end : colon;
+    }
+
+    /**
+     * Reads the next field as a long.
+     *
+     * @return the value.
+     */
+    public long nextLong() {
+        int end = fieldEnd();
+        int start = valueStart(end);
+        long v = parseLong(start, valueEnd(start, end), Long.MIN_VALUE, Long.MAX_VALUE);
+        advance(end);
+        return v;
+    }
+
+    /**
+     * Reads the next field as an int.
+     *
+     * @return the value.
+     */
+    public int nextInt() {
+        int end = fieldEnd();
+        int start = valueStart(end);
+        int v = (int) parseLong(start, valueEnd(start, end), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        advance(end);
+        return v;
+    }
+
+    /**
+     * Reads the next field as an enumerated value, whose integer representation is in the trace.
+     *
+     * @return the value.
+     */
+    public int nextEnum() {
+        return nextInt();
+    }
+
+    /**
+     * Reads the next field as a float.
+     *
+     * @return the value.
+     */
+    public float nextFloat() {
+        int end = fieldEnd();
+        int start = valueStart(end);
+        float v = parseFloat(start, valueEnd(start, end));
+        advance(end);
+        return v;
+    }
+
+    /**
+     * Reads the next field of the form `MachineName(id)` as the machine id.
+     *
+     * @return the machine id.
+     */
+    public long nextMachineId() {
+        int end = fieldEnd();
+        int openParen = indexOf('(', pos, end);
+        int closeParen = indexOf(')', pos, end);
+        if (openParen < 0 || closeParen < 0) {
+            throw new StringIndexOutOfBoundsException("Field \"" + input.subSequence(pos, end) + "\" is not a machine id");
+        }
+        long v = parseLong(openParen + 1, closeParen, Long.MIN_VALUE, Long.MAX_VALUE);
+        advance(end);
+        return v;
+    }
+
+    /**
+     * Reads the next field as a String, including any quotes.
+     *
+     * @return the value.
+     */
+    public String nextString() {
+        int end = fieldEnd();
+        String v = input.subSequence(valueStart(end), end).toString();
+        advance(end);
+        return v;
+    }
+
+    /**
+     * Skips the next field.
+     */
+    public void skipField() {
+        advance(fieldEnd());
+    }
+
+    /**
+     * Parses a decimal integer like Long.parseLong, with an optional sign, and checks its range.
+     */
+    private long parseLong(int start, int end, long min, long max) {
+        if (start >= end) {
+            throw numberFormatError(start, end);
+        }
+        boolean negative = false;
+        int i = start;
+        char first = input.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = (first == '-');
+            if (++i == end) {
+                throw numberFormatError(start, end);
+            }
+        }
+        // accumulate negatively, since the negative range is larger
+        long limit = negative ? min : -max;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = input.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < (limit + digit) / 10) {
+                throw numberFormatError(start, end);
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static final float[] POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    /**
+     * Parses a float like Float.parseFloat.  Plain decimals with a few significant digits are
+     * parsed in place, where a single float division is exact up to rounding; anything else falls
+     * back to Float.parseFloat.
+     */
+    private float parseFloat(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+            negative = input.charAt(i) == '-';
+            i++;
+        }
+        int mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9' && mantissa < (1 << 24) / 10) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && fractionDigits < POWERS_OF_TEN.length) {
+            float v = (fractionDigits > 0) ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -v : v;
+        }
+        return Float.parseFloat(input.subSequence(start, end).toString());
+    }
+
+    private NumberFormatException numberFormatError(int start, int end) {
+        return new NumberFormatException("For input string: \"" + input.subSequence(start, end) + "\"");
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (input.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(String s, int from, int to) {
+        for (int i = from; i + s.length() <= to; i++) {
+            if (regionMatches(i, to, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(String s, int from, int to) {
+        for (int i = to - s.length(); i >= from; i--) {
+            if (regionMatches(i, to, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int at, int to, String s) {
+        if (at < 0 || at + s.length() > to) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (input.charAt(at + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A view of the bytes of a buffer as characters, which are only decoded (as UTF-8) when
+     * converted to a String.  The trace syntax is ASCII, so it can be tokenized on the raw bytes.
+     */
+    private static final class ByteBufferCharSequence implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        private ByteBufferCharSequence(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteBufferCharSequence(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(offset);
+            dup.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -26,6 +26,10 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
     private transient EnumMap<StateKey, State<StateKey>> states; // All registered states
     private StateKey[] stateUniverse;                  // all possible states
 
+    // Control-flow signals thrown by gotoState() and tryRaiseEvent(), allocated once per monitor
+    private transient TransitionException transitionSignal;
+    private transient RaiseEventException raiseSignal;
+
     /**
      * If the prt.Monitor is running, new states must not be able to be added.
      * If the monitor is not running, events must not be able to be processed and states can't be transitioned.
@@ -91,7 +95,10 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
     @SuppressWarnings(value = "unchecked")
     public <P> void tryRaiseEvent(PEvent<P> ev) throws RaiseEventException
     {
-        throw new RaiseEventException((PEvent<Object>) ev);
+        if (raiseSignal == null) {
+            raiseSignal = new RaiseEventException((PEvent<Object>) ev);
+        }
+        throw raiseSignal.retarget((PEvent<Object>) ev);
     }
 
     /**
@@ -104,10 +111,7 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
     public void gotoState(StateKey k) throws TransitionException {
         Objects.requireNonNull(k);
 
-        if (!states.containsKey(k)) {
-            throw new RuntimeException("prt.State not present");
-        }
-        throw new TransitionException(states.get(k));
+        throw transitionTo(k, null);
     }
 
     /**
@@ -122,10 +126,18 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
         Objects.requireNonNull(k);
         Objects.requireNonNull(payload);
 
-        if (!states.containsKey(k)) {
+        throw transitionTo(k, payload);
+    }
+
+    private TransitionException transitionTo(StateKey k, Object payload) {
+        State<StateKey> s = states.get(k);
+        if (s == null) {
             throw new RuntimeException("prt.State not present");
         }
-        throw new TransitionException(states.get(k), payload);
+        if (transitionSignal == null) {
+            transitionSignal = new TransitionException(s);
+        }
+        return transitionSignal.retarget(s, payload);
     }
 
     /**
@@ -134,7 +146,6 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
      * @param p the pEvent.
      * @throws UnhandledEventException if the pEvent's type has no associated handler.
      */
-    @SuppressWarnings(value = "unchecked")
     public void accept(PEvent<?> p) throws UnhandledEventException {
         Objects.requireNonNull(p);
 
@@ -144,24 +155,36 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
 
         //logger.info(PROCESSING_MARKER, new StringMapMessage().with("event", p));
 
+        invokeWithTrampoline(getHandler(p), p.getPayload());
+    }
+
+    /**
+     * Looks up the current state's handler for the given event.
+     * @param p the pEvent.
+     * @return The handler.
+     * @throws UnhandledEventException if the pEvent's type has no associated handler.
+     */
+    @SuppressWarnings(value = "unchecked")
+    private State.TransitionableConsumer<Object> getHandler(PEvent<?> p) throws UnhandledEventException {
         // XXX: We can technically avoid this downcast, but to fulfill the interface for Consumer<T>
         // this method cannot accept a type parameter, so this can't be a TransitionableConsumer<P>.
         State<StateKey> currentState = states.get(currentStateKey);
-        Optional<State.TransitionableConsumer<Object>> oc = currentState.getHandler(p.getClass());
-        if (oc.isEmpty()) {
+        State.TransitionableConsumer<Object> handler =
+                currentState.getHandlerOrNull((Class<PEvent<Object>>) p.getClass());
+        if (handler == null) {
             logger.atFatal().log(currentState + " missing event handler for " + p.getClass().getSimpleName());
             throw new UnhandledEventException(currentState, p.getClass());
         }
-
-        invokeWithTrampoline(oc.get(), p.getPayload());
+        return handler;
     }
 
     /**
-     * Transitions to `s` by invoking the current state's exit handler and the new state's
-     * entry handler, and updating internal bookkeeping.
+     * Transitions to `s` by invoking the current state's exit handler, and updating internal
+     * bookkeeping.
      * @param s The new state.
+     * @return The new state's entry handler, or null if it has none.
      */
-    private <P> void handleTransition(State<StateKey> s, P payload) {
+    private State.TransitionableConsumer<Object> handleTransition(State<StateKey> s) {
         if (!isRunning) {
             throw new RuntimeException("prt.Monitor is not running (did you call ready()?)");
         }
@@ -169,33 +192,40 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
         //logger.info(TRANSITIONING_MARKER, new StringMapMessage().with("state", s));
 
         State<StateKey> currentState = states.get(currentStateKey);
-        currentState.getOnExit().ifPresent(Runnable::run);
-        currentState = s;
+        Optional<Runnable> onExit = currentState.getOnExit();
+        if (onExit.isPresent()) {
+            onExit.get().run();
+        }
         currentStateKey = s.getKey();
 
-        currentState.getOnEntry().ifPresent(handler -> {
-            invokeWithTrampoline(handler, payload);
-        });
+        return s.getOnEntry().orElse(null);
     }
 
     /**
-     * Invokes a given Consumer, handling all its checked exceptions.
-     * @param handler The TransitionableConsumer to be invoked.
+     * Invokes a given Consumer, handling all its checked exceptions.  State transitions and raised
+     * events run the next handler in a loop rather than recursively, so that chains of transitions
+     * do not grow the stack.
+     * @param handler The TransitionableConsumer to be invoked, or null for none.
      * @param o The argument to handler.
-     * @param <P> The type to be consumed by the handler.
      */
-    private <P> void invokeWithTrampoline(State.TransitionableConsumer<P> handler, P o)
+    private void invokeWithTrampoline(State.TransitionableConsumer<Object> handler, Object o)
     {
-        try {
-            // Run the event handler, knowing that it might cause:
-            handler.accept(o);
-        } catch (TransitionException e) {
-            // ...A state transition: if it does, run the exit handler, context-switch, and run
-            // the new state's entry handler.
-            handleTransition(e.getTargetState(), e.getPayload());
-        } catch (RaiseEventException e) {
-            // ...An event to be raised.  If it does, process the event in the current state.
-            accept(e.getEvent());
+        while (handler != null) {
+            try {
+                // Run the event handler, knowing that it might cause:
+                handler.accept(o);
+                return;
+            } catch (TransitionException e) {
+                // ...A state transition: if it does, run the exit handler, context-switch, and run
+                // the new state's entry handler.
+                o = e.getPayload();
+                handler = handleTransition(e.getTargetState());
+            } catch (RaiseEventException e) {
+                // ...An event to be raised.  If it does, process the event in the current state.
+                PEvent<Object> ev = e.getEvent();
+                handler = getHandler(ev);
+                o = ev.getPayload();
+            }
         }
     }
 
@@ -232,9 +262,7 @@ public abstract class Monitor<StateKey extends Enum<StateKey>> implements Consum
         currentStateKey = startStateKey;
         State<StateKey> currentState = states.get(currentStateKey);
 
-        currentState.getOnEntry().ifPresent(handler -> {
-            invokeWithTrampoline(handler, payload);
-        });
+        invokeWithTrampoline(currentState.getOnEntry().orElse(null), payload);
     }
 
     /**
@@ -0,0 +1,262 @@
+package prt;
+
+import prt.events.PEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A prt.MonitorHub feeds one stream of events to several independent monitors.
+ *
+ * Each event is only delivered to the monitors that subscribe to its type through
+ * `getEventTypes()`.  Every monitor processes its events in the order they were given to the hub,
+ * one at a time, but different monitors process their events in parallel on the hub's executor.
+ *
+ * The first exception thrown by a monitor (e.g. a `PAssertionFailureException`) stops event
+ * delivery to that monitor, and is rethrown by `flush()`.  So does the executor rejecting a
+ * monitor's task, e.g. after `close()`, and `close()` dropping the events still pending.
+ */
+public class MonitorHub implements Consumer<PEvent<?>>, AutoCloseable {
+
+    /**
+     * The events pending for one monitor, drained by at most one task at a time.
+     */
+    private class Lane implements Runnable {
+        private final Monitor monitor;
+        private final Queue<List<PEvent<?>>> batches = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean failed = false;
+
+        private Lane(Monitor monitor) {
+            this.monitor = monitor;
+        }
+
+        private void submit(List<PEvent<?>> batch) {
+            batches.add(batch);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    cancel(ex);
+                }
+            }
+        }
+
+        /**
+         * Fails the monitor, and drops its pending batches here so that flush() returns.
+         */
+        private void cancel(Throwable t) {
+            failed = true;
+            failure.compareAndSet(null, t);
+            run();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                List<PEvent<?>> batch;
+                while ((batch = batches.poll()) != null) {
+                    process(batch);
+                }
+                scheduled.set(false);
+                // a batch may have been added after the last poll but before the flag was cleared
+                if (batches.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void process(List<PEvent<?>> batch) {
+            if (!failed) {
+                try {
+                    for (PEvent<?> e : batch) {
+                        monitor.accept(e);
+                    }
+                } catch (Throwable t) {
+                    failed = true;
+                    failure.compareAndSet(null, t);
+                }
+            }
+            finishBatch();
+        }
+    }
+
+    private final List<Lane> lanes;
+    private final Map<Class<?>, Lane[]> routes;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object idle = new Object();
+    private long pendingBatches = 0;
+
+    /**
+     * Instantiates a new prt.MonitorHub running on its own pool of threads, one per core.
+     *
+     * @param monitors The monitors to feed events to, which must already be ready()ied.
+     */
+    public MonitorHub(List<? extends Monitor> monitors) {
+        this(monitors, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiates a new prt.MonitorHub running on its own pool of threads.
+     *
+     * @param monitors The monitors to feed events to, which must already be ready()ied.
+     * @param numThreads The number of threads of the pool.
+     */
+    public MonitorHub(List<? extends Monitor> monitors, int numThreads) {
+        this(monitors, newDaemonPool(Math.max(1, Math.min(numThreads, monitors.size()))), true);
+    }
+
+    /**
+     * Creates a pool of daemon threads, so that a hub that is never closed doesn't keep the JVM alive.
+     */
+    private static ExecutorService newDaemonPool(int numThreads) {
+        return Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "prt-monitor-hub");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Instantiates a new prt.MonitorHub running on the given executor, which it does not shut down.
+     *
+     * @param monitors The monitors to feed events to, which must already be ready()ied.
+     * @param executor The executor to process events on.
+     */
+    public MonitorHub(List<? extends Monitor> monitors, ExecutorService executor) {
+        this(monitors, executor, false);
+    }
+
+    private MonitorHub(List<? extends Monitor> monitors, ExecutorService executor, boolean ownsExecutor) {
+        Objects.requireNonNull(monitors);
+        Objects.requireNonNull(executor);
+
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.lanes = new ArrayList<>(monitors.size());
+
+        Map<Class<?>, List<Lane>> subscribers = new HashMap<>();
+        for (Monitor m : monitors) {
+            Lane lane = new Lane(m);
+            lanes.add(lane);
+            // generated monitors extend the raw prt.Monitor, so their event types are untyped here
+            for (Object c : new LinkedHashSet<>(m.getEventTypes())) {
+                subscribers.computeIfAbsent((Class<?>) c, k -> new ArrayList<>()).add(lane);
+            }
+        }
+        this.routes = new HashMap<>();
+        for (Map.Entry<Class<?>, List<Lane>> entry : subscribers.entrySet()) {
+            routes.put(entry.getKey(), entry.getValue().toArray(new Lane[0]));
+        }
+    }
+
+    /**
+     * Asynchronously processes one event by all monitors subscribed to its type.
+     *
+     * @param e the pEvent.
+     */
+    @Override
+    public void accept(PEvent<?> e) {
+        acceptBatch(List.of(e));
+    }
+
+    /**
+     * Asynchronously processes a batch of events, in order, by all monitors subscribed to their types.
+     * Events that no monitor subscribes to are dropped.
+     *
+     * @param events the pEvents.
+     */
+    public void acceptBatch(List<? extends PEvent<?>> events) {
+        Objects.requireNonNull(events);
+
+        Map<Lane, List<PEvent<?>>> batches = new IdentityHashMap<>();
+        for (PEvent<?> e : events) {
+            Lane[] subscribed = routes.get(e.getClass());
+            if (subscribed == null) {
+                continue;
+            }
+            for (Lane lane : subscribed) {
+                batches.computeIfAbsent(lane, k -> new ArrayList<>()).add(e);
+            }
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        synchronized (idle) {
+            pendingBatches += batches.size();
+        }
+        // submit in the order of the monitors, so that runs are easier to reproduce
+        for (Lane lane : lanes) {
+            List<PEvent<?>> batch = batches.get(lane);
+            if (batch != null) {
+                lane.submit(batch);
+            }
+        }
+    }
+
+    private void finishBatch() {
+        synchronized (idle) {
+            pendingBatches--;
+            if (pendingBatches == 0) {
+                idle.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all events given to the hub so far are processed by all monitors.
+     *
+     * @throws RuntimeException the first exception thrown by a monitor, if any.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (idle) {
+            while (pendingBatches > 0) {
+                idle.wait();
+            }
+        }
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * Returns the first exception thrown by a monitor so far, if any.
+     *
+     * @return the exception.
+     */
+    public Optional<Throwable> getFailure() {
+        return Optional.ofNullable(failure.get());
+    }
+
+    /**
+     * Shuts down the hub's thread pool, if it created one.  Events that are still pending may be
+     * dropped, which fails their monitors, so that a later `flush()` throws; call `flush()` first
+     * to process them.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            IllegalStateException closed = new IllegalStateException("MonitorHub closed with events pending");
+            for (Runnable r : executor.shutdownNow()) {
+                // the pool only ever runs lanes
+                ((Lane) r).cancel(closed);
+            }
+        }
+    }
+}
@@ -114,13 +114,21 @@ public class State<K extends Enum<K>> {
      * @param clazz the Java Class whose handler we're looking up.
      * @return the handler that a `P` can be called with.
      */
-    @SuppressWarnings(value = "unchecked")
     public <P, PE extends PEvent<P>> Optional<TransitionableConsumer<P>> getHandler(Class<PE> clazz) {
-        if (!dispatch.containsKey(clazz)) {
-            return Optional.empty();
-        }
-        TransitionableConsumer<P> handler = (TransitionableConsumer<P>) dispatch.get(clazz);
-        return Optional.of(handler);
+        return Optional.ofNullable(getHandlerOrNull(clazz));
+    }
+
+    /**
+     * Returns the handler for a Payload of some given class, like `getHandler`, but without wrapping
+     * it in an Optional, since this is called for every event that a prt.Monitor processes.
+     *
+     * @param <P>   the subclass of `Event.Payload` whose handler we're looking up.
+     * @param clazz the Java Class whose handler we're looking up.
+     * @return the handler that a `P` can be called with, or null if there is none.
+     */
+    @SuppressWarnings(value = "unchecked")
+    public <P, PE extends PEvent<P>> TransitionableConsumer<P> getHandlerOrNull(Class<PE> clazz) {
+        return (TransitionableConsumer<P>) dispatch.get(clazz);
     }
 
     /**
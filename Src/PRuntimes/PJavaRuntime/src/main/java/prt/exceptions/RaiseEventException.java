@@ -5,14 +5,29 @@ import prt.events.PEvent;
 /**
  * Thrown by an event handler when execution of the handler should be interrupted
  * and restarted with a new event.
+ *
+ * Since it is only used for control flow, the exception does not capture a stack trace, and a
+ * prt.Monitor reuses a single instance for all of its raised events (see `retarget`).
  */
 public class RaiseEventException extends Exception {
     // XXX: We downcast to an Object since a Throwable cannot take type parameters.
-    private final PEvent<Object> ev;
+    private PEvent<Object> ev;
 
     public PEvent<Object> getEvent() { return ev; }
 
     public RaiseEventException(PEvent<Object> event) {
+        super(null, null, false, false);
         ev = event;
     }
+
+    /**
+     * Points this exception to a new event, so that it can be thrown again.
+     *
+     * @param event The event to raise.
+     * @return this exception.
+     */
+    public RaiseEventException retarget(PEvent<Object> event) {
+        ev = event;
+        return this;
+    }
 }
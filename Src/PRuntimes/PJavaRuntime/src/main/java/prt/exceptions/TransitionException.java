@@ -13,31 +13,51 @@ import java.util.Optional;
  * which I didn't know until just now!  For the moment, we are doing some unchecked casts
  * to get around the fact that we can't specify the StateKey type.  I wonder if that bit
  * of polymorphism is more trouble than it's worth and we should simply use String keys.
+ *
+ * Since it is only used for control flow, the exception does not capture a stack trace, and a
+ * prt.Monitor reuses a single instance for all of its transitions (see `retarget`).
  */
 public class TransitionException extends Exception {
     private State targetState;
-    private Optional<Object> payload;
+    private Object payload;
 
     public State getTargetState() {
         return targetState;
     }
 
     public Optional<Object> getPayload() {
-        return payload;
+        return Optional.ofNullable(payload);
     }
 
     public TransitionException(State s) {
+        super(null, null, false, false);
         Objects.requireNonNull(s);
 
         this.targetState = s;
-        this.payload = Optional.empty();
+        this.payload = null;
     }
 
     public TransitionException(State s, Object payload) {
+        super(null, null, false, false);
         Objects.requireNonNull(s);
         Objects.requireNonNull(payload);
 
         this.targetState = s;
-        this.payload = Optional.of(payload);
+        this.payload = payload;
+    }
+
+    /**
+     * Points this exception to a new transition, so that it can be thrown again.
+     *
+     * @param s The state to transition to.
+     * @param payload The payload to hand to the state entry handler, or null for none.
+     * @return this exception.
+     */
+    public TransitionException retarget(State s, Object payload) {
+        Objects.requireNonNull(s);
+
+        this.targetState = s;
+        this.payload = payload;
+        return this;
     }
 }
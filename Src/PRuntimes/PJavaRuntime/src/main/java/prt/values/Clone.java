@@ -46,6 +46,7 @@ public class Clone {
     public static <T> LinkedHashSet<T> deepClone(LinkedHashSet<T> s)
     {
         if (s == null) return null;
+        if (s instanceof IndexedSet) return ((IndexedSet<T>) s).deepClone();
 
         LinkedHashSet<T> cloned = new LinkedHashSet<>();
         for (T val : s) {
@@ -67,6 +68,26 @@ public class Clone {
         return cloned;
     }
 
+    public static <T> PersistentSeq<T> deepClone(PersistentSeq<T> a) {
+        if (a == null) return null;
+        return a.deepClone(); // O(1), since the structure is shared copy-on-write.
+    }
+
+    public static <T> IndexedSet<T> deepClone(IndexedSet<T> s) {
+        if (s == null) return null;
+        return s.deepClone();
+    }
+
+    public static <T> PersistentSet<T> deepClone(PersistentSet<T> s) {
+        if (s == null) return null;
+        return s.deepClone(); // O(1), since the structure is shared copy-on-write.
+    }
+
+    public static <T,U> PersistentMap<T, U> deepClone(PersistentMap<T, U> m) {
+        if (m == null) return null;
+        return m.deepClone(); // O(1), since the structure is shared copy-on-write.
+    }
+
     /**
      * Performs a deep copy of a P program value by dispatching on the Object type.
      * (The performance difference between a hand-rolled deep copy and using serializers
@@ -105,6 +126,14 @@ public class Clone {
             return (T) deepClone((HashMap<?, ?>) o);
         if (clazz == LinkedHashSet.class)
             return (T) deepClone((LinkedHashSet<?>) o);
+        if (clazz == IndexedSet.class)
+            return (T) deepClone((IndexedSet<?>) o);
+        if (clazz == PersistentSeq.class)
+            return (T) deepClone((PersistentSeq<?>) o);
+        if (clazz == PersistentMap.class)
+            return (T) deepClone((PersistentMap<?, ?>) o);
+        if (clazz == PersistentSet.class)
+            return (T) deepClone((PersistentSet<?>) o);
 
         throw new UncloneableValueException(clazz);
     }
@@ -23,18 +23,33 @@ public class Equality {
         return ret;
     }
 
-    private static <T1, T2> boolean deepLinkedHashSetEquals(LinkedHashSet<T1> a1, LinkedHashSet<T2> a2) {
+    /* P seqs, maps and sets are either Java collections or their persistent counterparts, which
+     * compare equal to each other. */
+    private static boolean isSeq(Class<?> c) {
+        return c == ArrayList.class || c == PersistentSeq.class;
+    }
+
+    private static boolean isMap(Class<?> c) {
+        return c == HashMap.class || c == PersistentMap.class;
+    }
+
+    private static boolean isSet(Class<?> c) {
+        return c == LinkedHashSet.class || c == IndexedSet.class || c == PersistentSet.class;
+    }
+
+    private static <T1, T2> boolean deepLinkedHashSetEquals(Set<T1> a1, Set<T2> a2) {
         // A direct equality call matches the behaviour of Plang.CSharpRuntime.Values.PrtSet.Equals .
         return a1.equals(a2);
     }
 
-    private static <T1, T2> boolean deepArrayEquals(ArrayList<T1> a1, ArrayList<T2> a2) {
+    private static <T1, T2> boolean deepArrayEquals(List<T1> a1, List<T2> a2) {
         if (a1.size() != a2.size()) {
             return false;
         }
-        for (int i = 0; i < a1.size(); i++) {
-            T1 v1 = a1.get(i);
-            T2 v2 = a2.get(i);
+        // Iterators, rather than `get()`, don't claim the elements of persistent seqs.
+        Iterator<T2> it2 = a2.iterator();
+        for (T1 v1 : a1) {
+            T2 v2 = it2.next();
             if (v1.getClass() != v2.getClass()) {
                 return false;
             }
@@ -45,14 +60,18 @@ public class Equality {
         return true;
     }
 
+    private static <K, V> V peek(Map<K, V> m, Object k) {
+        // `get()` would claim the value of a persistent map.
+        return (m instanceof PersistentMap) ? ((PersistentMap<K, V>) m).peek(k) : m.get(k);
+    }
 
-    private static <K1, V1, K2, V2> boolean deepHashMapEquals(HashMap<K1, V1> m1, HashMap<K2, V2> m2) {
+    private static <K1, V1, K2, V2> boolean deepHashMapEquals(Map<K1, V1> m1, Map<K2, V2> m2) {
         if (!m1.keySet().equals(m2.keySet())) {
             return false;
         }
-        for (K1 k : m1.keySet()) {
-            V1 v1 = m1.get(k);
-            V2 v2 = m2.get(k);
+        for (Map.Entry<K1, V1> e : m1.entrySet()) {
+            V1 v1 = e.getValue();
+            V2 v2 = peek(m2, e.getKey());
             if (!deepEquals(v1, v2)) {
                 return false;
             }
@@ -102,12 +121,12 @@ public class Equality {
                 return compare((Float) o1, (Float) o2) == 0;
             if (c1 == String.class && c2 == String.class)
                 return compare((String) o1, (String) o2) == 0;
-            if (c1 == ArrayList.class && c2 == ArrayList.class)
-                return deepArrayEquals((ArrayList<?>) o1, (ArrayList<?>) o2);
-            if (c1 == HashMap.class && c2 == HashMap.class)
-                return deepHashMapEquals((HashMap<?, ?>) o1, (HashMap<?, ?>) o2);
-            if (c1 == LinkedHashSet.class && c2 == LinkedHashSet.class)
-                return deepLinkedHashSetEquals((LinkedHashSet<?>) o1, (LinkedHashSet<?>) o2);
+            if (isSeq(c1) && isSeq(c2))
+                return deepArrayEquals((List<?>) o1, (List<?>) o2);
+            if (isMap(c1) && isMap(c2))
+                return deepHashMapEquals((Map<?, ?>) o1, (Map<?, ?>) o2);
+            if (isSet(c1) && isSet(c2))
+                return deepLinkedHashSetEquals((Set<?>) o1, (Set<?>) o2);
 
             if (Enum.class.isAssignableFrom(c1)) {
                 if (c1 == c2) {
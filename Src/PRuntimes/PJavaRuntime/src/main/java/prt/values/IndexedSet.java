@@ -0,0 +1,355 @@
+package prt.values;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.*;
+
+/**
+ * A LinkedHashSet that can also access its `i`th element without walking an iterator.  Generated
+ * code types P sets as LinkedHashSets, and constructs them as IndexedSets.
+ *
+ * The elements are kept in insertion order in a dense array, with a hash map from each element to
+ * its slot.  Removing an element leaves a tombstone in its slot, and a Fenwick tree over the live
+ * slots finds the `i`th live element in O(log n); while there are no tombstones, it is simply the
+ * element in the `i`th slot.  Tombstones are compacted away once they outnumber the live elements,
+ * or when the array grows.
+ *
+ * The set keeps none of its elements in the storage it inherits from LinkedHashSet, so it overrides
+ * every method that would read it.  The JDK 21 `reversed()` view is the exception, as it cannot be
+ * overridden from Java 11; P code never takes it.
+ */
+public class IndexedSet<T> extends LinkedHashSet<T> implements PositionalSet<T> {
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 8;
+
+    private Object[] elements;
+    private HashMap<Object, Integer> slots;
+    /* Fenwick tree over the slots, counting the live ones; only maintained while there are tombstones. */
+    private int[] live;
+    /* Number of slots in use, including tombstones */
+    private int end;
+    private int size;
+    private transient int modCount;
+
+    /**
+     * Instantiates a new empty set.
+     */
+    public IndexedSet() {
+        super(0);
+        this.elements = new Object[MIN_CAPACITY];
+        this.slots = new HashMap<>();
+        this.live = null;
+        this.end = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Instantiates a new set with the elements of a collection, in iteration order.
+     *
+     * @param c The elements.
+     */
+    public IndexedSet(Collection<? extends T> c) {
+        this();
+        addAll(c);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return slots.containsKey(o);
+    }
+
+    @Override
+    public T elementAt(long i) throws NoSuchElementException {
+        PositionalSet.checkIndex(i, size);
+        return elementIn((live == null) ? (int) i : findSlot((int) i));
+    }
+
+    /**
+     * Returns the element in a slot, which only ever holds a T unless it is a tombstone.
+     */
+    @SuppressWarnings("unchecked")
+    private T elementIn(int slot) {
+        return (T) elements[slot];
+    }
+
+    /**
+     * Returns whether positional accesses are O(1), i.e. there are no tombstones to skip over.
+     */
+    boolean isDense() {
+        return live == null;
+    }
+
+    @Override
+    public boolean add(T val) {
+        if (slots.containsKey(val)) {
+            return false;
+        }
+        if (end == elements.length) {
+            compact(Math.max(MIN_CAPACITY, 2 * size));
+        }
+        slots.put(val, end);
+        elements[end] = val;
+        if (live != null) {
+            updateLive(end, 1);
+        }
+        end++;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Integer slot = slots.remove(o);
+        if (slot == null) {
+            return false;
+        }
+        size--;
+        modCount++;
+        if (slot == end - 1 && live == null) {
+            elements[--end] = null;
+            return true;
+        }
+        if (live == null) {
+            buildLive();
+        }
+        elements[slot] = TOMBSTONE;
+        updateLive(slot, -1);
+        if (end - size > Math.max(MIN_CAPACITY, size)) {
+            compact(Math.max(MIN_CAPACITY, elements.length));
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[MIN_CAPACITY];
+        slots.clear();
+        live = null;
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Moves the live elements to the front of an array of the given capacity, dropping tombstones.
+     */
+    private void compact(int capacity) {
+        Object[] compacted = new Object[capacity];
+        int j = 0;
+        for (int i = 0; i < end; i++) {
+            Object val = elements[i];
+            if (val != TOMBSTONE) {
+                if (i != j) {
+                    slots.put(val, j);
+                }
+                compacted[j++] = val;
+            }
+        }
+        elements = compacted;
+        end = j;
+        live = null;
+    }
+
+    /**
+     * Builds the Fenwick tree over the slots in O(n), when the first tombstone appears.
+     */
+    private void buildLive() {
+        live = new int[elements.length + 1];
+        for (int i = 1; i <= elements.length; i++) {
+            if (i <= end) {
+                live[i] += 1;
+            }
+            int parent = i + (i & -i);
+            if (parent <= elements.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    private void updateLive(int slot, int delta) {
+        for (int i = slot + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    /**
+     * Finds the slot of the `i`th live element, by descending the Fenwick tree.
+     */
+    private int findSlot(int i) {
+        int pos = 0;
+        int remaining = i + 1;
+        for (int step = Integer.highestOneBit(live.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < live.length && live[next] < remaining) {
+                pos = next;
+                remaining -= live[next];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Returns an iterator over the elements in insertion order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = skipTombstones(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            private int skipTombstones(int i) {
+                while (i < end && elements[i] == TOMBSTONE) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = skipTombstones(next + 1);
+                return elementIn(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                Object val = elements[last];
+                // keep the removed slot as a tombstone, so that compaction doesn't move the cursor
+                if (live == null) {
+                    buildLive();
+                }
+                slots.remove(val);
+                elements[last] = TOMBSTONE;
+                updateLive(last, -1);
+                size--;
+                modCount++;
+                expectedModCount = modCount;
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] vals = new Object[size];
+        int j = 0;
+        for (int i = 0; i < end; i++) {
+            if (elements[i] != TOMBSTONE) {
+                vals[j++] = elements[i];
+            }
+        }
+        return vals;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // the copy has the runtime component type of `a`
+    public <U> U[] toArray(U[] a) {
+        Object[] vals = toArray();
+        if (a.length < size) {
+            return (U[]) Arrays.copyOf(vals, size, a.getClass());
+        }
+        System.arraycopy(vals, 0, a, 0, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * Returns a shallow copy of the set, without tombstones.
+     */
+    @Override
+    public Object clone() {
+        return new IndexedSet<>(this);
+    }
+
+    /* The SequencedCollection methods of JDK 21, which LinkedHashSet would answer from its own storage. */
+
+    public T getFirst() {
+        return elementAt(0);
+    }
+
+    public T getLast() {
+        return elementAt(size - 1);
+    }
+
+    public T removeFirst() {
+        T val = getFirst();
+        remove(val);
+        return val;
+    }
+
+    public T removeLast() {
+        T val = getLast();
+        remove(val);
+        return val;
+    }
+
+    public void addFirst(T val) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void addLast(T val) {
+        remove(val);
+        add(val);
+    }
+
+    /**
+     * Performs a deep copy of the set, like `Clone.deepClone(LinkedHashSet)`, without tombstones.
+     *
+     * @return a structurally-equivalent set such that mutations of one are not visible within the other.
+     */
+    public IndexedSet<T> deepClone() {
+        IndexedSet<T> cloned = new IndexedSet<>();
+        cloned.elements = new Object[Math.max(MIN_CAPACITY, size)];
+        for (T val : this) {
+            T c = Clone.deepClone(val);
+            cloned.slots.put(c, cloned.end);
+            cloned.elements[cloned.end++] = c;
+        }
+        cloned.size = size;
+        return cloned;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // tombstones are not serializable
+        if (live != null) {
+            compact(elements.length);
+        }
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,51 @@
+package prt.values;
+
+import prt.events.PEvent;
+
+/**
+ * A mutable value stored in a persistent collection, together with the edit token of the
+ * collection that owns it exclusively.
+ *
+ * Persistent collections share their structure, including the values they hold, with their clones.
+ * A value that was stored by a collection under another edit token may be shared, so the collection
+ * clones it before handing it out for mutation, and stores the clone under its own token instead.
+ * Immutable values are stored as-is.
+ */
+final class OwnedValue {
+    final Object value;
+    final Object owner;
+
+    private OwnedValue(Object value, Object owner) {
+        this.value = value;
+        this.owner = owner;
+    }
+
+    /**
+     * Returns whether a value is immutable, and so can be shared between collections as-is.
+     */
+    static boolean isImmutable(Object o) {
+        if (o == null) {
+            return true;
+        }
+        Class<?> clazz = o.getClass();
+        return clazz == Boolean.class || clazz == Integer.class || clazz == Long.class
+                || clazz == Float.class || clazz == Double.class || clazz == String.class
+                || o instanceof Enum<?> || o instanceof PEvent<?>;
+    }
+
+    /**
+     * Wraps a value to store in a collection with the given edit token.
+     */
+    static Object wrap(Object value, Object owner) {
+        return isImmutable(value) ? value : new OwnedValue(value, owner);
+    }
+
+    /**
+     * Returns the value of a stored object, without claiming it.  The cast is unchecked, but a
+     * collection only stores values of its own element type, which the caller asks for.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T unwrap(Object stored) {
+        return (T) ((stored instanceof OwnedValue) ? ((OwnedValue) stored).value : stored);
+    }
+}
@@ -0,0 +1,507 @@
+package prt.values;
+
+import java.util.*;
+
+/**
+ * A persistent representation of a P map, which can be used in place of a HashMap.
+ *
+ * The entries are stored in a hash array mapped trie (HAMT), which branches on 5 bits of the key's
+ * hash at each level, so that accesses and updates are O(log32 n).  A deep clone is O(1): the clone
+ * shares the whole trie with the original, and each of them copies the path to a node the first time
+ * it mutates it (copy-on-write).  Keys are never cloned, since they must not be mutated while in a
+ * map anyway.
+ *
+ * Mutable values (e.g. nested collections and tuples) are also shared with clones, so `get()`
+ * lazily clones such a value the first time it is accessed after a clone, since the caller may
+ * mutate it.  Values returned by the views of the map are shared, and must not be mutated.
+ */
+public class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * A node of the trie, whose array holds key/value pairs, where a null key marks a child node.
+     */
+    private static abstract class Node {
+        Object edit;
+        Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(Object edit, int shift, int hash, Object key, Object val, boolean[] added);
+
+        abstract Node without(Object edit, int shift, int hash, Object key, Object[] removed);
+
+        /**
+         * Returns this node if owned by the edit token, or an owned copy otherwise.
+         */
+        Node editable(Object edit, Object[] newArray) {
+            if (this.edit == edit) {
+                this.array = newArray;
+                return this;
+            }
+            return copy(edit, newArray);
+        }
+
+        abstract Node copy(Object edit, Object[] newArray);
+
+        Node editAndSet(Object edit, int i, Object val) {
+            Object[] newArray = (this.edit == edit) ? array : array.clone();
+            newArray[i] = val;
+            return editable(edit, newArray);
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+        int bitmap;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Node copy(Object edit, Object[] newArray) {
+            return new BitmapNode(edit, bitmap, newArray);
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object val, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * idx];
+                Object v = array[2 * idx + 1];
+                if (k == null) {
+                    Node n = ((Node) v).assoc(edit, shift + BITS, hash, key, val, added);
+                    return (n == v) ? this : editAndSet(edit, 2 * idx + 1, n);
+                }
+                if (key.equals(k)) {
+                    return (v == val) ? this : editAndSet(edit, 2 * idx + 1, val);
+                }
+                added[0] = true;
+                Object[] newArray = (this.edit == edit) ? array : array.clone();
+                newArray[2 * idx] = null;
+                newArray[2 * idx + 1] = createNode(edit, shift + BITS, k, v, hash, key, val);
+                return editable(edit, newArray);
+            }
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = val;
+            System.arraycopy(array, 2 * idx, newArray, 2 * idx + 2, array.length - 2 * idx);
+            BitmapNode n = (BitmapNode) editable(edit, newArray);
+            n.bitmap = bitmap | bit;
+            return n;
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Object[] removed) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node n = ((Node) v).without(edit, shift + BITS, hash, key, removed);
+                if (n == v) {
+                    return this;
+                }
+                if (n != null) {
+                    return editAndSet(edit, 2 * idx + 1, n);
+                }
+            } else if (key.equals(k)) {
+                removed[0] = v;
+            } else {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            System.arraycopy(array, 2 * idx + 2, newArray, 2 * idx, newArray.length - 2 * idx);
+            BitmapNode n = (BitmapNode) editable(edit, newArray);
+            n.bitmap = bitmap ^ bit;
+            return n;
+        }
+    }
+
+    /**
+     * A node holding the entries of keys whose hashes are all equal.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Node copy(Object edit, Object[] newArray) {
+            return new CollisionNode(edit, hash, newArray);
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return (i < 0) ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object val, boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node, which branches on the hashes
+                BitmapNode n = new BitmapNode(edit, 1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return n.assoc(edit, shift, hash, key, val, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                return (array[i + 1] == val) ? this : editAndSet(edit, i + 1, val);
+            }
+            added[0] = true;
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = val;
+            return editable(edit, newArray);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Object[] removed) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            removed[0] = array[i + 1];
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return editable(edit, newArray);
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Node createNode(Object edit, int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+        int h1 = hash(k1);
+        if (h1 == h2) {
+            return new CollisionNode(edit, h1, new Object[]{k1, v1, k2, v2});
+        }
+        boolean[] added = new boolean[1];
+        return new BitmapNode(edit, 0, new Object[0])
+                .assoc(edit, shift, h1, k1, v1, added)
+                .assoc(edit, shift, h2, k2, v2, added);
+    }
+
+    private Node root;
+    private int size;
+    /* HashMap allows a null key, which is kept outside the trie */
+    private boolean hasNull;
+    private Object nullValue;
+    /* Nodes and values created under this token are owned by this map alone. */
+    private Object edit;
+
+    /**
+     * Instantiates a new empty map.
+     */
+    public PersistentMap() {
+        this.edit = new Object();
+        this.root = null;
+        this.size = 0;
+    }
+
+    /**
+     * Instantiates a new map with the entries of another map.
+     *
+     * @param m The entries.
+     */
+    public PersistentMap(Map<? extends K, ? extends V> m) {
+        this();
+        putAll(m);
+    }
+
+    private PersistentMap(Node root, int size, boolean hasNull, Object nullValue) {
+        this.edit = new Object();
+        this.root = root;
+        this.size = size;
+        this.hasNull = hasNull;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Performs a deep copy of the map in O(1), by sharing its structure.
+     *
+     * @return a structurally-equivalent map such that mutations of one are not visible within the other.
+     */
+    public PersistentMap<K, V> deepClone() {
+        // everything created so far is now shared, so neither map may mutate it in place
+        this.edit = new Object();
+        return new PersistentMap<>(root, size, hasNull, nullValue);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Object findStored(Object key) {
+        if (key == null) {
+            return hasNull ? nullValue : NOT_FOUND;
+        }
+        return (root == null) ? NOT_FOUND : root.find(0, hash(key), key);
+    }
+
+    /**
+     * Returns the value of a key without claiming it, so it must not be mutated.
+     */
+    V peek(Object key) {
+        Object stored = findStored(key);
+        return (stored == NOT_FOUND) ? null : OwnedValue.unwrap(stored);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findStored(key) != NOT_FOUND;
+    }
+
+    @Override
+    public V get(Object key) {
+        Object stored = findStored(key);
+        if (stored == NOT_FOUND) {
+            return null;
+        }
+        if (!(stored instanceof OwnedValue) || ((OwnedValue) stored).owner == edit) {
+            return OwnedValue.unwrap(stored);
+        }
+        V copy = Clone.deepClone(OwnedValue.<V>unwrap(stored));
+        store(key, OwnedValue.wrap(copy, edit));
+        return copy;
+    }
+
+    private Object store(Object key, Object stored) {
+        if (key == null) {
+            Object prev = hasNull ? nullValue : NOT_FOUND;
+            if (!hasNull) {
+                hasNull = true;
+                size++;
+            }
+            nullValue = stored;
+            return prev;
+        }
+        int hash = hash(key);
+        Object prev = (root == null) ? NOT_FOUND : root.find(0, hash, key);
+        boolean[] added = new boolean[1];
+        Node r = (root == null) ? new BitmapNode(edit, 0, new Object[0]) : root;
+        root = r.assoc(edit, 0, hash, key, stored, added);
+        if (added[0]) {
+            size++;
+        }
+        return prev;
+    }
+
+    @Override
+    public V put(K key, V val) {
+        Object prev = store(key, OwnedValue.wrap(val, edit));
+        return (prev == NOT_FOUND) ? null : OwnedValue.unwrap(prev);
+    }
+
+    @Override
+    public V remove(Object key) {
+        Object[] removed = {NOT_FOUND};
+        if (key == null) {
+            if (hasNull) {
+                removed[0] = nullValue;
+                hasNull = false;
+                nullValue = null;
+            }
+        } else if (root != null) {
+            root = root.without(edit, 0, hash(key), key, removed);
+        }
+        if (removed[0] == NOT_FOUND) {
+            return null;
+        }
+        size--;
+        return OwnedValue.unwrap(removed[0]);
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        hasNull = false;
+        nullValue = null;
+    }
+
+    /**
+     * Iterates over the entries of the trie, depth-first.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Object[] array;
+        private int pos;
+        private boolean nullPending;
+        private Entry<K, V> next;
+        private K lastKey;
+        private boolean canRemove;
+
+        private EntryIterator() {
+            nullPending = hasNull;
+            array = (root == null) ? new Object[0] : root.array;
+            pos = 0;
+            advance();
+        }
+
+        private void advance() {
+            if (nullPending) {
+                nullPending = false;
+                next = new SimpleImmutableEntry<>(null, OwnedValue.unwrap(nullValue));
+                return;
+            }
+            while (true) {
+                if (pos < array.length) {
+                    Object k = array[pos];
+                    Object v = array[pos + 1];
+                    pos += 2;
+                    if (k == null) {
+                        arrays.push(array);
+                        positions.push(pos);
+                        array = ((Node) v).array;
+                        pos = 0;
+                    } else {
+                        // only put() stores keys, so each one is a K
+                        @SuppressWarnings("unchecked")
+                        K key = (K) k;
+                        next = new SimpleImmutableEntry<>(key, OwnedValue.unwrap(v));
+                        return;
+                    }
+                } else if (!arrays.isEmpty()) {
+                    array = arrays.pop();
+                    pos = positions.pop();
+                } else {
+                    next = null;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> ret = next;
+            lastKey = ret.getKey();
+            canRemove = true;
+            advance();
+            return ret;
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            // removals replace the arrays of nodes rather than shift them, and only update entries
+            // that the iterator already went past, so the iterator can carry on
+            PersistentMap.this.remove(lastKey);
+            canRemove = false;
+        }
+    }
+
+    /**
+     * Returns a view of the entries, whose values are not claimed and so must not be mutated.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) o;
+        if (other.size() != size) {
+            return false;
+        }
+        for (Entry<K, V> e : entrySet()) {
+            if (!other.containsKey(e.getKey())) {
+                return false;
+            }
+            Object v = (other instanceof PersistentMap) ? ((PersistentMap<?, ?>) other).peek(e.getKey()) : other.get(e.getKey());
+            if (!Objects.equals(e.getValue(), v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
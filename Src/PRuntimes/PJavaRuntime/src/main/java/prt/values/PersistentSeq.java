@@ -0,0 +1,305 @@
+package prt.values;
+
+import java.util.*;
+
+/**
+ * A persistent representation of a P seq, which can be used in place of an ArrayList.
+ *
+ * The elements are stored in the leaves of a trie with 32 children per node, so that accesses and
+ * appends are O(log32 n).  A deep clone is O(1): the clone shares the whole trie with the original,
+ * and each of them copies the path to a node the first time it mutates it (copy-on-write).
+ * Inserting or removing an element other than the last rebuilds the trie in O(n).
+ *
+ * Mutable elements (e.g. nested collections and tuples) are also shared with clones, so `get()`
+ * lazily clones such an element the first time it is accessed after a clone, since the caller may
+ * mutate it.  Elements returned by iterators are shared, and must not be mutated.
+ */
+public class PersistentSeq<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final class Node {
+        private final Object edit;
+        private final Object[] array;
+
+        private Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        private Node(Object edit) {
+            this(edit, new Object[WIDTH]);
+        }
+    }
+
+    private Node root;
+    private int shift;
+    private int size;
+    /* Nodes and values created under this token are owned by this seq alone. */
+    private Object edit;
+
+    /**
+     * Instantiates a new empty seq.
+     */
+    public PersistentSeq() {
+        this.edit = new Object();
+        this.root = new Node(edit);
+        this.shift = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Instantiates a new seq with the elements of a collection, in iteration order.
+     *
+     * @param c The elements.
+     */
+    public PersistentSeq(Collection<? extends T> c) {
+        this();
+        for (T val : c) {
+            add(val);
+        }
+    }
+
+    private PersistentSeq(Node root, int shift, int size) {
+        this.edit = new Object();
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Performs a deep copy of the seq in O(1), by sharing its structure.
+     *
+     * @return a structurally-equivalent seq such that mutations of one are not visible within the other.
+     */
+    public PersistentSeq<T> deepClone() {
+        // everything created so far is now shared, so neither seq may mutate it in place
+        this.edit = new Object();
+        return new PersistentSeq<>(root, shift, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void rangeCheck(int i, int bound) {
+        if (i < 0 || i >= bound) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        }
+    }
+
+    private Node leafFor(int i) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(i >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the `i`th element without claiming it, so it must not be mutated.
+     */
+    T peek(int i) {
+        rangeCheck(i, size);
+        return OwnedValue.unwrap(leafFor(i).array[i & MASK]);
+    }
+
+    @Override
+    public T get(int i) {
+        rangeCheck(i, size);
+        Object stored = leafFor(i).array[i & MASK];
+        if (!(stored instanceof OwnedValue) || ((OwnedValue) stored).owner == edit) {
+            return OwnedValue.unwrap(stored);
+        }
+        T copy = Clone.deepClone(OwnedValue.<T>unwrap(stored));
+        store(i, OwnedValue.wrap(copy, edit));
+        return copy;
+    }
+
+    private Node editable(Node node) {
+        return (node.edit == edit) ? node : new Node(edit, node.array.clone());
+    }
+
+    /**
+     * Stores an object at an existing index, copying the nodes along its path that are not owned.
+     */
+    private Object store(int i, Object stored) {
+        root = editable(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int idx = (i >>> level) & MASK;
+            Node child = editable((Node) node.array[idx]);
+            node.array[idx] = child;
+            node = child;
+        }
+        Object prev = node.array[i & MASK];
+        node.array[i & MASK] = stored;
+        return prev;
+    }
+
+    @Override
+    public T set(int i, T val) {
+        rangeCheck(i, size);
+        return OwnedValue.unwrap(store(i, OwnedValue.wrap(val, edit)));
+    }
+
+    private void append(Object stored) {
+        if (size == (1 << (shift + BITS))) {
+            Node newRoot = new Node(edit);
+            newRoot.array[0] = root;
+            root = newRoot;
+            shift += BITS;
+        }
+        root = editable(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int idx = (size >>> level) & MASK;
+            Node child = (Node) node.array[idx];
+            child = (child == null) ? new Node(edit) : editable(child);
+            node.array[idx] = child;
+            node = child;
+        }
+        node.array[size & MASK] = stored;
+        size++;
+    }
+
+    @Override
+    public boolean add(T val) {
+        append(OwnedValue.wrap(val, edit));
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int i, T val) {
+        if (i == size) {
+            add(val);
+            return;
+        }
+        rangeCheck(i, size);
+        Object[] stored = toStoredArray();
+        clear();
+        for (int j = 0; j < stored.length; j++) {
+            if (j == i) {
+                append(OwnedValue.wrap(val, edit));
+            }
+            append(stored[j]);
+        }
+    }
+
+    @Override
+    public T remove(int i) {
+        rangeCheck(i, size);
+        Object prev;
+        if (i == size - 1) {
+            prev = store(i, null);
+            size--;
+            modCount++;
+        } else {
+            Object[] stored = toStoredArray();
+            prev = stored[i];
+            clear();
+            for (int j = 0; j < stored.length; j++) {
+                if (j != i) {
+                    append(stored[j]);
+                }
+            }
+        }
+        return OwnedValue.unwrap(prev);
+    }
+
+    @Override
+    public void clear() {
+        root = new Node(edit);
+        shift = 0;
+        size = 0;
+        modCount++;
+    }
+
+    private Object[] toStoredArray() {
+        Object[] stored = new Object[size];
+        for (int i = 0; i < size; i += WIDTH) {
+            System.arraycopy(leafFor(i).array, 0, stored, i, Math.min(WIDTH, size - i));
+        }
+        return stored;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(o, peek(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an iterator over the elements, which are not claimed and so must not be mutated.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return peek(next++);
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                PersistentSeq.this.remove(--next);
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        if (other.size() != size) {
+            return false;
+        }
+        Iterator<?> it = other.iterator();
+        for (T val : this) {
+            if (!Objects.equals(val, it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as AbstractList#hashCode, which is also that of ArrayList
+        int h = 1;
+        for (T val : this) {
+            h = 31 * h + Objects.hashCode(val);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,129 @@
+package prt.values;
+
+import java.util.*;
+
+/**
+ * A persistent representation of a P set, which can be used in place of a LinkedHashSet: it iterates
+ * over its elements in insertion order, and can access the `i`th element in O(log32 n).
+ *
+ * The elements are held both by a PersistentMap, to test membership, and by a PersistentSeq, to
+ * keep their order, so a deep clone is O(1) and mutations are copy-on-write.  Removing an element
+ * other than the last inserted one rebuilds the order in O(n).  Elements are never cloned, since
+ * they must not be mutated while in a set anyway.
+ */
+public class PersistentSet<T> extends AbstractSet<T> implements PositionalSet<T> {
+    private PersistentMap<T, Boolean> members;
+    private PersistentSeq<T> order;
+
+    /**
+     * Instantiates a new empty set.
+     */
+    public PersistentSet() {
+        this.members = new PersistentMap<>();
+        this.order = new PersistentSeq<>();
+    }
+
+    /**
+     * Instantiates a new set with the elements of a collection, in iteration order.
+     *
+     * @param c The elements.
+     */
+    public PersistentSet(Collection<? extends T> c) {
+        this();
+        addAll(c);
+    }
+
+    private PersistentSet(PersistentMap<T, Boolean> members, PersistentSeq<T> order) {
+        this.members = members;
+        this.order = order;
+    }
+
+    /**
+     * Performs a deep copy of the set in O(1), by sharing its structure.
+     *
+     * @return a structurally-equivalent set such that mutations of one are not visible within the other.
+     */
+    public PersistentSet<T> deepClone() {
+        return new PersistentSet<>(members.deepClone(), order.deepClone());
+    }
+
+    @Override
+    public int size() {
+        return order.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return members.containsKey(o);
+    }
+
+    @Override
+    public T elementAt(long i) throws NoSuchElementException {
+        PositionalSet.checkIndex(i, order.size());
+        return order.peek((int) i);
+    }
+
+    @Override
+    public boolean add(T val) {
+        if (members.containsKey(val)) {
+            return false;
+        }
+        members.put(val, Boolean.TRUE);
+        order.add(val);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (members.remove(o) == null) {
+            return false;
+        }
+        int last = order.size() - 1;
+        if (Objects.equals(order.peek(last), o)) {
+            order.remove(last);
+        } else {
+            order.remove(order.indexOf(o));
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        members.clear();
+        order.clear();
+    }
+
+    /**
+     * Returns an iterator over the elements in insertion order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final Iterator<T> it = order.iterator();
+            private T last;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                last = it.next();
+                canRemove = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                members.remove(last);
+                it.remove();
+                canRemove = false;
+            }
+        };
+    }
+}
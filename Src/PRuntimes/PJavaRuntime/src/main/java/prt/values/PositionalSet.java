@@ -0,0 +1,30 @@
+package prt.values;
+
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A P set that can access its `i`th element in insertion order without walking an iterator, which
+ * `SetIndexing.elementAt()` detects.
+ */
+interface PositionalSet<T> extends Set<T> {
+    /**
+     * Returns the `i`th element in insertion order.
+     *
+     * @param i The index of the element.
+     * @return The ith element.
+     * @throws NoSuchElementException on out-of-bounds accesses.
+     */
+    T elementAt(long i) throws NoSuchElementException;
+
+    /**
+     * Checks that `i` is the index of an element of a set of the given size.
+     *
+     * @throws NoSuchElementException on out-of-bounds accesses.
+     */
+    static void checkIndex(long i, int size) throws NoSuchElementException {
+        if (i < 0 || i >= size) {
+            throw new NoSuchElementException(Long.toString(i));
+        }
+    }
+}
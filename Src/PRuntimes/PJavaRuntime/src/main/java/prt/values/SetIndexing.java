@@ -8,6 +8,8 @@ import java.util.concurrent.atomic.AtomicLong;
  * Handles producing the `ith` element of a LinkedHashSet in as efficient a manner as possible.
  * This is implemented outside the collection type itself, since in contrast to C#'s `HashSet::elementAt()`,
  * Java's `java.util.LinkedHashSet` has no built-in way to iterate to the ith element in the set.
+ * The exceptions are the P sets that index their elements themselves, i.e. `IndexedSet`, which generated code
+ * uses, and `PersistentSet`.
  */
 public class SetIndexing {
 
@@ -59,6 +61,7 @@ public class SetIndexing {
 
     private static final AtomicLong slowPathHits = new AtomicLong();
     private static final AtomicLong fastPathHits = new AtomicLong();
+    private static final AtomicLong indexedHits = new AtomicLong();
 
     /**
      * Returns the proportion of set accesses that were able to use the cached iterator.
@@ -68,6 +71,16 @@ public class SetIndexing {
         return fastPathHits.get() / (double)(slowPathHits.get() + fastPathHits.get());
     }
 
+    /**
+     * Returns the proportion of set accesses that were able to index a PositionalSet directly, rather
+     * than walk an iterator.
+     * @return
+     */
+    public static double GetIndexedHitRate() {
+        long indexed = indexedHits.get();
+        return indexed / (double)(indexed + slowPathHits.get() + fastPathHits.get());
+    }
+
     /**
      * Sets with elements smaller than this bypass the cache, since the overhead of caching exceeds the small O(n)
      * cost of traversing from the beginning.
@@ -83,6 +96,12 @@ public class SetIndexing {
      */
     public static <T> T elementAt(LinkedHashSet<T> s, long i) throws NoSuchElementException
     {
+        /* Generated code's sets are IndexedSets, typed as LinkedHashSets. */
+        if (s instanceof IndexedSet) {
+            indexedHits.getAndIncrement();
+            return ((IndexedSet<T>) s).elementAt(i);
+        }
+
         /* If the index is sufficiently close to the start of the set, the overhead of manipulating
          * the thread-local cache state is greater than just walking the linked list.
          * TODO: MIN_SETSIZE was estimated from benchmarking on a Mac.  Doing this on prod hardware would be better.
@@ -127,6 +146,23 @@ public class SetIndexing {
         }
     }
 
+    /**
+     * Returns the `i`th element in a P set of any representation.
+     * @param s The set.
+     * @param i The index of the element.
+     * @return The ith element.
+     * @throws NoSuchElementException on out-of-bounds accesses.
+     */
+    public static <T> T elementAt(Set<T> s, long i) throws NoSuchElementException
+    {
+        /* Positional sets bypass iterators altogether. */
+        if (s instanceof PositionalSet) {
+            indexedHits.getAndIncrement();
+            return ((PositionalSet<T>) s).elementAt(i);
+        }
+        return elementAt((LinkedHashSet<T>) s, i);
+    }
+
     /**
      * Returns the `ith` element given the current iterator, already pointing to some particular index.
      * As a side-effect, additionally caches the given set, index, and derived iterator to amortize
@@ -2,14 +2,19 @@ package ClientServerTraceParser;
 
 import prt.events.PEvent;
 import parsers.PTraceParserUtils;
+import parsers.PTraceTokenizer;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static testcases.clientserver.PEvents.*;
 import static testcases.clientserver.PTypes.*;
@@ -108,4 +113,62 @@ public class ClientServerTraceParser {
                 .FilterSendLogs(s)       /* We are only interested in SendLog trace messages. */
                 .flatMap(p::msgToEvent); /* For all other messages, do the transformation. */
     }
+
+    /**
+     * The streaming equivalent of `payloadToWithdrawReq`, which reads the payload fields in place.
+     */
+    private static eWithDrawReq tokensToWithdrawReq(PTraceTokenizer t) {
+        t.beginNamedTuple();
+        return new eWithDrawReq(
+                new PTuple_src_accnt_amnt_rId(t.nextMachineId(), t.nextInt(), t.nextInt(), t.nextInt()));
+    }
+
+    /**
+     * The streaming equivalent of `payloadToWithdrawResp`, which reads the payload fields in place.
+     */
+    private static eWithDrawResp tokensToWithdrawResp(PTraceTokenizer t) {
+        t.beginNamedTuple();
+        return new eWithDrawResp(
+                new PTuple_stts_accnt_blnc_rId(
+                        tWithDrawRespStatus.values()[t.nextEnum()], t.nextInt(), t.nextInt(), t.nextInt()));
+    }
+
+    /**
+     * Advances the tokenizer to the next SendLog message of interest, and constructs its
+     * corresponding PObserve event.
+     */
+    private boolean tokensToEvent(PTraceTokenizer t, Consumer<? super PObserveEvent> action) {
+        while (t.nextSendLog()) {
+            PEvent<?> e;
+            if (t.eventNameEquals("eWithDrawReq")) {
+                e = tokensToWithdrawReq(t);
+            } else if (t.eventNameEquals("eWithDrawResp")) {
+                e = tokensToWithdrawResp(t);
+            } else {
+                continue;
+            }
+            ts++;
+            action.accept(new PObserveEvent(new TimestampInterval(ts), e));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The factory method that consumes a P trace through a tokenizer, e.g. over a memory-mapped
+     * trace file, and produces the same stream of PObserveEvent objects as `eventsFrom(Stream)`
+     * without materialising each line.
+     * @param t
+     * @return
+     */
+    public static Stream<PObserveEvent> eventsFrom(PTraceTokenizer t) {
+        ClientServerTraceParser p = new ClientServerTraceParser();
+        return StreamSupport.stream(
+                new Spliterators.AbstractSpliterator<PObserveEvent>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                    @Override
+                    public boolean tryAdvance(Consumer<? super PObserveEvent> action) {
+                        return p.tokensToEvent(t, action);
+                    }
+                }, false);
+    }
 }
@@ -2,9 +2,14 @@ package ClientServerTraceParser;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parsers.PTraceTokenizer;
 import testcases.clientserver.PEvents;
 import testcases.clientserver.PTypes;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -83,4 +88,27 @@ public class ClientServerTraceParserTest {
                                         PTypes.tWithDrawRespStatus.WITHDRAW_SUCCESS,15,99, 42))),
                 it.next());
     }
+
+    @Test
+    @DisplayName("Streaming tokenizer produces the same events as the line-based parser")
+    public void testTokenizerMatchesLineParser(@TempDir Path dir) throws IOException {
+        List<String> lines = List.of(
+            "<MonitorLog> Monitor 'GuaranteedWithDrawProgress' raised event 'GotoStateEvent' in state 'PendingReqs'.",
+            "<SendLog> 'Client(4)' in state 'WithdrawMoney' sent event 'eWithDrawReq with payload (<source:Client(4), accountId:0, amount:2, rId:1, >)' to 'BankServer(3)'.",
+            "<SendLog> 'BankServer(3)' in state 'WaitForWithdrawRequests' sent event 'eReadQuery with payload (<accountId:0, >)' to 'Database(5)'.",
+            "<SendLog> 'Database(5)' in state 'Init_1' sent event 'eWithDrawResp with payload (<status:1, accountId:15, balance:-99, rid:42, >)' to 'BankServer(3)'. ");
+        List<PObserveEvent> expected = ClientServerTraceParser.eventsFrom(lines.stream()).collect(toList());
+        assertEquals(2, expected.size());
+
+        List<PObserveEvent> fromChars = ClientServerTraceParser
+                .eventsFrom(new PTraceTokenizer(String.join("\n", lines)))
+                .collect(toList());
+        assertEquals(expected, fromChars);
+
+        Path trace = dir.resolve("trace.txt");
+        Files.write(trace, lines);
+        try (PTraceTokenizer t = PTraceTokenizer.open(trace)) {
+            assertEquals(expected, ClientServerTraceParser.eventsFrom(t).collect(toList()));
+        }
+    }
 }
@@ -0,0 +1,161 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import prt.Monitor;
+import prt.MonitorHub;
+import prt.State;
+import prt.events.PEvent;
+import prt.exceptions.PAssertionFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonitorHubTest {
+
+    private enum SingleState { INIT_STATE }
+
+    static class AddEvent extends PEvent<Integer> {
+        private final Integer payload;
+        public AddEvent(int payload) { this.payload = payload; }
+        public Integer getPayload() { return payload; }
+    }
+
+    static class MulEvent extends PEvent<Integer> {
+        private final Integer payload;
+        public MulEvent(int payload) { this.payload = payload; }
+        public Integer getPayload() { return payload; }
+    }
+
+    /**
+     * Records the payloads of the events it subscribes to, and asserts that they are not negative.
+     */
+    static class RecordingMonitor extends Monitor<SingleState> {
+        public final List<Integer> seen = new ArrayList<>();
+        private final List<Class<? extends PEvent<?>>> eventTypes;
+
+        public RecordingMonitor(List<Class<? extends PEvent<?>>> eventTypes) {
+            super();
+            this.eventTypes = eventTypes;
+            State.Builder<SingleState> builder = new State.Builder<>(SingleState.INIT_STATE).isInitialState(true);
+            for (Class<? extends PEvent<?>> c : eventTypes) {
+                builder.withEvent((Class<PEvent<Integer>>) c, i -> {
+                    tryAssert(i >= 0, "negative payload");
+                    seen.add(i);
+                });
+            }
+            addState(builder.build());
+            ready();
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() { return eventTypes; }
+    }
+
+    /**
+     * Blocks on its first MulEvent until released or interrupted.
+     */
+    static class BlockingMonitor extends Monitor<SingleState> {
+        public final CountDownLatch started = new CountDownLatch(1);
+        public final CountDownLatch released = new CountDownLatch(1);
+
+        public BlockingMonitor() {
+            super();
+            addState(new State.Builder<>(SingleState.INIT_STATE)
+                    .isInitialState(true)
+                    .withEvent(MulEvent.class, i -> {
+                        started.countDown();
+                        try {
+                            released.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    })
+                    .build());
+            ready();
+        }
+
+        public void reInitializeMonitor() {}
+
+        public List<Class<? extends PEvent<?>>> getEventTypes() { return List.of(MulEvent.class); }
+    }
+
+    @Test
+    @DisplayName("Events are routed to subscribed monitors, in order")
+    public void testRoutingAndOrder() throws InterruptedException {
+        RecordingMonitor adds = new RecordingMonitor(List.of(AddEvent.class));
+        RecordingMonitor muls = new RecordingMonitor(List.of(MulEvent.class));
+        RecordingMonitor both = new RecordingMonitor(List.of(AddEvent.class, MulEvent.class));
+
+        List<Integer> expected = new ArrayList<>();
+        try (MonitorHub hub = new MonitorHub(List.of(adds, muls, both), 3)) {
+            for (int i = 0; i < 100; i++) {
+                List<PEvent<?>> batch = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    int n = 10 * i + j;
+                    batch.add(n % 3 == 0 ? new MulEvent(n) : new AddEvent(n));
+                    expected.add(n);
+                }
+                hub.acceptBatch(batch);
+            }
+            hub.flush();
+        }
+
+        assertEquals(expected, both.seen);
+        assertEquals(334, muls.seen.size());
+        assertEquals(666, adds.seen.size());
+        assertTrue(muls.seen.stream().allMatch(n -> n % 3 == 0));
+        assertTrue(adds.seen.stream().noneMatch(n -> n % 3 == 0));
+    }
+
+    @Test
+    @DisplayName("Assertion failures of a monitor are rethrown by flush()")
+    public void testFailure() throws InterruptedException {
+        RecordingMonitor adds = new RecordingMonitor(List.of(AddEvent.class));
+        RecordingMonitor muls = new RecordingMonitor(List.of(MulEvent.class));
+
+        try (MonitorHub hub = new MonitorHub(List.of(adds, muls), 2)) {
+            hub.acceptBatch(List.of(new AddEvent(1), new MulEvent(-1), new AddEvent(2), new MulEvent(3)));
+            assertThrows(PAssertionFailureException.class, hub::flush);
+            assertTrue(hub.getFailure().isPresent());
+        }
+
+        assertEquals(List.of(1, 2), adds.seen);
+        assertEquals(List.of(), muls.seen);
+    }
+
+    @Test
+    @DisplayName("Tasks rejected by the executor are rethrown by flush()")
+    public void testRejected() throws InterruptedException {
+        RecordingMonitor adds = new RecordingMonitor(List.of(AddEvent.class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        MonitorHub hub = new MonitorHub(List.of(adds), executor);
+        hub.acceptBatch(List.of(new AddEvent(1), new AddEvent(2)));
+        hub.accept(new AddEvent(3));
+        assertThrows(RejectedExecutionException.class, hub::flush);
+        assertEquals(List.of(), adds.seen);
+    }
+
+    @Test
+    @DisplayName("Events dropped by close() are rethrown by flush()")
+    public void testClosed() throws InterruptedException {
+        BlockingMonitor blocking = new BlockingMonitor();
+        RecordingMonitor adds = new RecordingMonitor(List.of(AddEvent.class));
+
+        MonitorHub hub = new MonitorHub(List.of(blocking, adds), 1);
+        hub.accept(new MulEvent(1));
+        blocking.started.await();
+        // queued behind the blocked monitor on the hub's only thread
+        hub.accept(new AddEvent(2));
+        hub.close();
+        assertThrows(IllegalStateException.class, hub::flush);
+        assertEquals(List.of(), adds.seen);
+    }
+}
@@ -5,7 +5,7 @@ import parsers.*;
 
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class PTraceParseUtilsTest {
     @Test
@@ -53,4 +53,43 @@ public class PTraceParseUtilsTest {
         assertEquals("hello:world", PTraceParserUtils.Conversions.kvPairToString("key:hello:world"));
     }
 
+    @Test
+    @DisplayName("Tokenizer reads named tuple fields like the kv pair conversions")
+    public void testTokenizerNamedTuple() {
+        String payload = "<src:Client(4), n:-42, big:9000000000, f:3.14, e:2, s:\"a:string, with:\\\"problems\", >";
+        String trace = "<DequeueLog> ignored\r\n<SendLog> 'Client(4)' in state 'Init' sent event 'eTest with payload (" + payload + ")' to 'Server(3)'.\r\n";
+        List<String> kvs = PTraceParserUtils.Conversions.namedTupleToKVPairs(payload);
+
+        PTraceTokenizer t = new PTraceTokenizer(trace);
+        assertTrue(t.nextSendLog());
+        assertTrue(t.eventNameEquals("eTest"));
+        assertFalse(t.eventNameEquals("eTes"));
+        assertEquals("eTest", t.eventName());
+        assertEquals(payload, t.payload());
+
+        t.beginNamedTuple();
+        assertEquals(PTraceParserUtils.Conversions.kvPairToMachineId(kvs.get(0)), t.nextMachineId());
+        assertEquals(PTraceParserUtils.Conversions.kvPairToInt(kvs.get(1)), t.nextInt());
+        assertEquals(PTraceParserUtils.Conversions.kvPairToLong(kvs.get(2)), t.nextLong());
+        assertEquals(PTraceParserUtils.Conversions.kvPairToFloat(kvs.get(3)), t.nextFloat());
+        assertEquals(PTraceParserUtils.Conversions.kvPairToEnumVal(kvs.get(4)), t.nextEnum());
+        assertEquals(PTraceParserUtils.Conversions.kvPairToString(kvs.get(5)), t.nextString());
+        assertFalse(t.hasNextField());
+        assertFalse(t.nextSendLog());
+    }
+
+    @Test
+    @DisplayName("Tokenizer reads tuple fields and rejects malformed numbers")
+    public void testTokenizerTuple() {
+        PTraceTokenizer t = new PTraceTokenizer(
+                "<SendLog> 'A(1)' in state 'S' sent event 'e with payload (<42,2147483648,0.1,>)' to 'B(2)'.");
+        assertTrue(t.nextSendLog());
+        t.beginTuple();
+        assertEquals(42, t.nextInt());
+        assertThrows(NumberFormatException.class, t::nextInt);
+        t.skipField();
+        assertEquals(0.1f, t.nextFloat());
+        assertFalse(t.hasNextField());
+        assertThrows(RuntimeException.class, t::beginNamedTuple);
+    }
 }
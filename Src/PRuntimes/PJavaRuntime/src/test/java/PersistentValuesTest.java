@@ -0,0 +1,170 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import prt.values.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static prt.values.Clone.deepClone;
+
+/** Tests the persistent representations of P seqs, maps and sets. */
+public class PersistentValuesTest {
+
+    /** Keys whose hashes collide, to exercise the collision nodes of the map. */
+    private static final class CollidingKey {
+        private final int id;
+
+        private CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+    }
+
+    @Test
+    @DisplayName("Persistent seqs behave like lists, and their clones are independent")
+    public void testSeq() {
+        Random r = new Random(0);
+        ArrayList<Long> expected = new ArrayList<>();
+        PersistentSeq<Long> s = new PersistentSeq<>();
+        List<ArrayList<Long>> expectedClones = new ArrayList<>();
+        List<PersistentSeq<Long>> clones = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int op = r.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                expected.add((long) i);
+                s.add((long) i);
+            } else if (op < 8) {
+                int idx = r.nextInt(expected.size());
+                expected.set(idx, -1L * i);
+                s.set(idx, -1L * i);
+            } else if (op < 9) {
+                int idx = r.nextInt(expected.size());
+                assertEquals(expected.remove(idx), s.remove(idx));
+            } else {
+                expected.add(0, (long) i);
+                s.add(0, (long) i);
+            }
+            if (i % 500 == 0) {
+                expectedClones.add(new ArrayList<>(expected));
+                clones.add(deepClone(s));
+            }
+        }
+        assertEquals(expected, s);
+        assertEquals(expected.hashCode(), s.hashCode());
+        for (int i = 0; i < clones.size(); i++) {
+            assertEquals(expectedClones.get(i), clones.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Persistent maps behave like maps, and their clones are independent")
+    public void testMap() {
+        Random r = new Random(0);
+        HashMap<Object, Long> expected = new HashMap<>();
+        PersistentMap<Object, Long> m = new PersistentMap<>();
+        List<HashMap<Object, Long>> expectedClones = new ArrayList<>();
+        List<PersistentMap<Object, Long>> clones = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int k = r.nextInt(1000);
+            Object key = (k < 30) ? new CollidingKey(k) : (k < 40 ? null : (Object) (long) k);
+            if (r.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), m.put(key, (long) i));
+            }
+            assertEquals(expected.size(), m.size());
+            if (i % 500 == 0) {
+                expectedClones.add(new HashMap<>(expected));
+                clones.add(deepClone(m));
+            }
+        }
+        assertEquals(expected, m);
+        assertEquals(m, expected);
+        assertEquals(expected.hashCode(), m.hashCode());
+        for (int i = 0; i < clones.size(); i++) {
+            assertEquals(expectedClones.get(i), clones.get(i));
+        }
+
+        Iterator<Map.Entry<Object, Long>> it = m.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() % 2 == 0) {
+                it.remove();
+            }
+        }
+        expected.values().removeIf(v -> v % 2 == 0);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    @DisplayName("Persistent sets keep insertion order and index their elements")
+    public void testSet() {
+        PersistentSet<Long> s = new PersistentSet<>(List.of(5L, 3L, 9L, 1L));
+        PersistentSet<Long> s2 = deepClone(s);
+
+        s.remove(3L);
+        s.add(3L);
+        s.add(5L);
+        assertEquals(List.of(5L, 9L, 1L, 3L), new ArrayList<>(s));
+        assertEquals(List.of(5L, 3L, 9L, 1L), new ArrayList<>(s2));
+
+        assertEquals(1L, SetIndexing.elementAt(s, 2));
+        assertEquals(3L, SetIndexing.elementAt((Set<Long>) s, 3));
+        assertThrows(NoSuchElementException.class, () -> SetIndexing.elementAt(s, 4));
+        assertEquals(new LinkedHashSet<>(List.of(1L, 3L, 5L, 9L)), s);
+    }
+
+    @Test
+    @DisplayName("Nested values are cloned lazily, when accessed for mutation")
+    public void testNestedClone() {
+        PersistentMap<Long, PersistentSet<Long>> m = new PersistentMap<>();
+        m.put(0L, new PersistentSet<>(List.of(1L, 2L)));
+        m.put(1L, new PersistentSet<>(List.of(3L)));
+        PersistentMap<Long, PersistentSet<Long>> m2 = deepClone(m);
+
+        m.get(0L).add(42L);
+        m2.get(1L).remove(3L);
+        assertEquals(Set.of(1L, 2L, 42L), m.get(0L));
+        assertEquals(Set.of(3L), m.get(1L));
+        assertEquals(Set.of(1L, 2L), m2.get(0L));
+        assertEquals(Set.of(), m2.get(1L));
+
+        // Mutating the same value twice only clones it once.
+        PersistentSet<Long> owned = m.get(0L);
+        assertSame(owned, m.get(0L));
+
+        PersistentSeq<ArrayList<Long>> s = new PersistentSeq<>(List.of(new ArrayList<>(List.of(1L))));
+        PersistentSeq<ArrayList<Long>> s2 = deepClone(s);
+        s2.get(0).add(2L);
+        assertEquals(List.of(List.of(1L)), s);
+        assertEquals(List.of(List.of(1L, 2L)), s2);
+    }
+
+    @Test
+    @DisplayName("Persistent values compare equal to their Java collection counterparts")
+    public void testEquality() {
+        PersistentSeq<Long> s = new PersistentSeq<>(List.of(1L, 2L));
+        assertTrue(Equality.deepEquals(s, new ArrayList<>(List.of(1L, 2L))));
+        assertFalse(Equality.deepEquals(s, new ArrayList<>(List.of(2L, 1L))));
+
+        PersistentMap<String, PersistentSeq<Long>> m = new PersistentMap<>();
+        m.put("a", s);
+        HashMap<String, ArrayList<Long>> hm = new HashMap<>();
+        hm.put("a", new ArrayList<>(List.of(1L, 2L)));
+        assertTrue(Equality.deepEquals(m, hm));
+        assertTrue(Equality.deepEquals(hm, m));
+
+        PersistentSet<Long> ps = new PersistentSet<>(List.of(1L, 2L));
+        assertTrue(Equality.deepEquals(ps, new LinkedHashSet<>(List.of(2L, 1L))));
+    }
+}
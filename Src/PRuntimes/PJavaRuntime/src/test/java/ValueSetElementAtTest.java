@@ -87,4 +87,60 @@ public class ValueSetElementAtTest {
             }
         }
     }
+
+    @Test
+    @DisplayName("Indexed sets index their elements directly, across additions and removals")
+    public void testIndexedSet() {
+        Random r = new Random(0);
+        LinkedHashSet<Long> expected = new LinkedHashSet<>();
+        Set<Long> s = new prt.values.IndexedSet<>();
+
+        for (int i = 0; i < 5000; i++) {
+            Long val = (long) r.nextInt(500);
+            if (r.nextInt(3) == 0) {
+                assertEquals(expected.remove(val), s.remove(val));
+            } else {
+                assertEquals(expected.add(val), s.add(val));
+            }
+            assertEquals(expected.size(), s.size());
+            if (!expected.isEmpty()) {
+                int idx = r.nextInt(expected.size());
+                assertEquals(SetIndexing.elementAt(expected, idx), SetIndexing.elementAt(s, idx));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(s));
+        assertEquals(expected, s);
+        assertEquals(expected.hashCode(), s.hashCode());
+
+        s.removeIf(v -> v % 2 == 0);
+        expected.removeIf(v -> v % 2 == 0);
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(s));
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(prt.values.Clone.deepClone(s)));
+        assertTrue(prt.values.Clone.deepClone(s) instanceof prt.values.IndexedSet);
+
+        assertThrows(NoSuchElementException.class, () -> SetIndexing.elementAt(s, s.size()));
+        assertTrue(SetIndexing.GetIndexedHitRate() > 0);
+    }
+
+    @Test
+    @DisplayName("Indexed sets behave as the LinkedHashSets that generated code types them as")
+    public void testIndexedSetAsLinkedHashSet() {
+        LinkedHashSet<Long> s = new prt.values.IndexedSet<>(List.of(5L, 3L, 8L, 1L));
+        s.remove(3L);
+
+        assertEquals(8L, SetIndexing.elementAt(s, 1));
+        assertArrayEquals(new Long[]{5L, 8L, 1L}, s.toArray(new Long[0]));
+        assertEquals(List.of(5L, 8L, 1L), s.stream().collect(Collectors.toList()));
+
+        LinkedHashSet<Long> cloned = prt.values.Clone.deepClone(s);
+        assertTrue(cloned instanceof prt.values.IndexedSet);
+        assertEquals(s, cloned);
+        assertTrue(prt.values.Equality.deepEquals(s, new LinkedHashSet<>(List.of(1L, 8L, 5L))));
+
+        @SuppressWarnings("unchecked") // LinkedHashSet.clone() is untyped
+        LinkedHashSet<Long> copy = (LinkedHashSet<Long>) s.clone();
+        copy.add(2L);
+        assertEquals(3, s.size());
+        assertEquals(List.of(5L, 8L, 1L, 2L), new ArrayList<>(copy));
+    }
 }
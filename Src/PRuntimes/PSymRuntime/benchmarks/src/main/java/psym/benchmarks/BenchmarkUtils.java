@@ -0,0 +1,69 @@
+package psym.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import psym.PSym;
+import psym.valuesummary.Guard;
+import psym.valuesummary.PrimitiveVS;
+import psym.valuesummary.solvers.SolverEngine;
+
+/** Helpers shared by the PSym micro-benchmarks */
+public class BenchmarkUtils {
+
+  private BenchmarkUtils() {}
+
+  /** Initialize the runtime with the default configuration */
+  public static void initialize() {
+    PSym.initializeDefault("target/output/benchmarks");
+  }
+
+  /** Replace the solver engine with a new one, dropping all its variables and caches */
+  public static void resetSolver() {
+    SolverEngine.resetEngine(SolverEngine.getSolverType(), SolverEngine.getExprLibType());
+  }
+
+  /**
+   * Create fresh Boolean variables
+   *
+   * @param numVars Number of variables
+   * @return Guards of the new variables
+   */
+  public static Guard[] newVars(int numVars) {
+    Guard[] vars = new Guard[numVars];
+    for (int i = 0; i < numVars; i++) {
+      vars[i] = Guard.newVar();
+    }
+    return vars;
+  }
+
+  /**
+   * Get the guard of a minterm over the given variables
+   *
+   * @param vars Variables of the minterm
+   * @param index Bits of the minterm, one per variable
+   * @return Conjunction of each variable or its negation
+   */
+  public static Guard minterm(Guard[] vars, int index) {
+    Guard guard = Guard.constTrue();
+    for (int j = 0; j < vars.length; j++) {
+      guard = guard.and(((index >> j) & 1) == 1 ? vars[j] : vars[j].not());
+    }
+    return guard;
+  }
+
+  /**
+   * Create an integer value summary with a distinct value under each minterm of the given
+   * variables, which is concrete if there are no variables
+   *
+   * @param vars Variables of the value summary
+   * @param offset Value under the first minterm
+   * @return Value summary with 2^vars.length guarded values
+   */
+  public static PrimitiveVS<Integer> symbolicInt(Guard[] vars, int offset) {
+    Map<Integer, Guard> guardedValues = new HashMap<>();
+    for (int i = 0; i < (1 << vars.length); i++) {
+      guardedValues.put(offset + i, minterm(vars, i));
+    }
+    return new PrimitiveVS<>(guardedValues);
+  }
+}
@@ -0,0 +1,52 @@
+package psym.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import psym.runtime.Concretizer;
+import psym.valuesummary.Guard;
+import psym.valuesummary.GuardedValue;
+import psym.valuesummary.ListVS;
+import psym.valuesummary.PrimitiveVS;
+
+/**
+ * Benchmarks concretizing a list whose elements have a distinct value under each minterm of a few
+ * variables, and whose size also depends on one more variable
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcretizerBenchmark {
+  @Param({"16", "64"})
+  public int size;
+
+  @Param({"0", "3"})
+  public int symbolicVars;
+
+  private ListVS<PrimitiveVS<Integer>> list;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkUtils.initialize();
+    Guard[] vars = BenchmarkUtils.newVars(symbolicVars);
+    Guard sizeVar = Guard.newVar();
+    ListVS<PrimitiveVS<Integer>> longer = new ListVS<>(Guard.constTrue());
+    for (int i = 0; i < size; i++) {
+      longer = longer.add(BenchmarkUtils.symbolicInt(vars, i << symbolicVars));
+    }
+    ListVS<PrimitiveVS<Integer>> shorter = longer.removeAt(new PrimitiveVS<>(size - 1));
+    list = longer.restrict(sizeVar).merge(shorter.restrict(sizeVar.not()));
+  }
+
+  @Benchmark
+  public GuardedValue<?> concretize() {
+    return Concretizer.concretize(list);
+  }
+
+  @Benchmark
+  public int getNumConcreteValues() {
+    return Concretizer.getNumConcreteValues(Guard.constTrue(), list);
+  }
+}
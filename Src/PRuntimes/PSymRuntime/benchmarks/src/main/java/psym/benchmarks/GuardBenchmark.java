@@ -0,0 +1,85 @@
+package psym.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import psym.valuesummary.Guard;
+
+/**
+ * Benchmarks the construction of guards over a growing number of variables
+ *
+ * <p>Each invocation works on fresh variables in a new solver, so that its guards are not already in
+ * the operation cache of the solver from earlier invocations, and the solver only holds the
+ * variables of the invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuardBenchmark {
+  @Param({"8", "32"})
+  public int numVars;
+
+  private Guard[] vars;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkUtils.initialize();
+  }
+
+  @Setup(Level.Invocation)
+  public void newVars() {
+    BenchmarkUtils.resetSolver();
+    vars = BenchmarkUtils.newVars(numVars);
+  }
+
+  @Benchmark
+  public Guard and() {
+    Guard result = Guard.constTrue();
+    for (Guard var : vars) {
+      result = result.and(var);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Guard or() {
+    Guard result = Guard.constFalse();
+    for (Guard var : vars) {
+      result = result.or(var.not());
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Guard orMany() {
+    List<Guard> pairs = new ArrayList<>();
+    for (int i = 0; i + 1 < vars.length; i += 2) {
+      pairs.add(vars[i].and(vars[i + 1]));
+    }
+    return Guard.orMany(pairs);
+  }
+
+  /** Parity of all variables, whose BDD grows linearly but needs many intermediate nodes */
+  @Benchmark
+  public Guard parity() {
+    Guard result = Guard.constFalse();
+    for (Guard var : vars) {
+      result = var.ifThenElse(result.not(), result);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public boolean implies() {
+    Guard all = and();
+    boolean result = true;
+    for (Guard var : vars) {
+      result &= all.implies(var).isTrue();
+    }
+    return result;
+  }
+}
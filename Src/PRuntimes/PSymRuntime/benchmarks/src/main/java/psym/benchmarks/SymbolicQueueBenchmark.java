@@ -0,0 +1,68 @@
+package psym.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import psym.runtime.machine.buffer.EventQueue;
+import psym.runtime.machine.events.Event;
+import psym.runtime.machine.events.Message;
+import psym.valuesummary.Guard;
+import psym.valuesummary.PrimitiveVS;
+
+/**
+ * Benchmarks filling and draining an event queue, with messages whose event is either concrete or
+ * different under each minterm of a few variables
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolicQueueBenchmark {
+  @Param({"16", "128"})
+  public int size;
+
+  @Param({"0", "3"})
+  public int symbolicVars;
+
+  private Message[] messages;
+  private EventQueue filled;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkUtils.initialize();
+    Guard[] vars = BenchmarkUtils.newVars(symbolicVars);
+    messages = new Message[size];
+    for (int i = 0; i < size; i++) {
+      Map<Event, Guard> events = new HashMap<>();
+      for (int j = 0; j < (1 << symbolicVars); j++) {
+        events.put(new Event("Event" + ((i + j) % 8)), BenchmarkUtils.minterm(vars, j));
+      }
+      messages[i] = new Message(new PrimitiveVS<>(events), new PrimitiveVS<>());
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void fill() {
+    filled = add();
+  }
+
+  @Benchmark
+  public EventQueue add() {
+    EventQueue queue = new EventQueue(null);
+    for (Message message : messages) {
+      queue.add(message);
+    }
+    return queue;
+  }
+
+  @Benchmark
+  public EventQueue remove() {
+    for (int i = 0; i < size; i++) {
+      filled.remove(Guard.constTrue());
+    }
+    return filled;
+  }
+}
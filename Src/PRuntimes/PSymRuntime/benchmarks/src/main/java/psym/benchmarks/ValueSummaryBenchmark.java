@@ -0,0 +1,138 @@
+package psym.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import psym.valuesummary.*;
+
+/**
+ * Benchmarks the core value summary operations on collections of a given size, whose elements
+ * are either concrete or have a distinct value under each minterm of a few variables
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueSummaryBenchmark {
+  @Param({"16", "128"})
+  public int size;
+
+  @Param({"0", "3"})
+  public int symbolicVars;
+
+  private Guard[] vars;
+  private List<PrimitiveVS<Integer>> elements;
+  /** Pieces of a value summary with a distinct value under each minterm of the variables */
+  private List<PrimitiveVS<Integer>> pieces;
+  /** Index that is symbolic whenever there are variables */
+  private PrimitiveVS<Integer> index;
+  private ListVS<PrimitiveVS<Integer>> list;
+  private MapVS<Integer, PrimitiveVS<Integer>, PrimitiveVS<Integer>> map;
+  private SetVS<PrimitiveVS<Integer>> set;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkUtils.initialize();
+    vars = BenchmarkUtils.newVars(symbolicVars);
+    elements = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      elements.add(BenchmarkUtils.symbolicInt(vars, i << symbolicVars));
+    }
+    pieces = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      pieces.add(new PrimitiveVS<>(i, BenchmarkUtils.minterm(vars, i % (1 << symbolicVars))));
+    }
+    index = BenchmarkUtils.symbolicInt(vars, 0);
+    list = listAdd();
+    map = mapPut();
+    set = setAdd();
+  }
+
+  @Benchmark
+  public PrimitiveVS<Integer> primitiveMerge() {
+    return pieces.get(0).merge(pieces.subList(1, size));
+  }
+
+  @Benchmark
+  public PrimitiveVS<Integer> primitiveApply() {
+    return elements.get(0).apply(elements.get(1), Integer::sum);
+  }
+
+  @Benchmark
+  public PrimitiveVS<Boolean> primitiveSymbolicEquals() {
+    return elements.get(0).symbolicEquals(index, Guard.constTrue());
+  }
+
+  @Benchmark
+  public ListVS<PrimitiveVS<Integer>> listAdd() {
+    ListVS<PrimitiveVS<Integer>> result = new ListVS<>(Guard.constTrue());
+    for (PrimitiveVS<Integer> element : elements) {
+      result = result.add(element);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public void listGet(Blackhole bh) {
+    for (int i = 0; i < size; i++) {
+      bh.consume(list.get(new PrimitiveVS<>(i)));
+    }
+  }
+
+  @Benchmark
+  public PrimitiveVS<Integer> listGetSymbolic() {
+    return list.get(index);
+  }
+
+  @Benchmark
+  public ListVS<PrimitiveVS<Integer>> listSetSymbolic() {
+    return list.set(index, elements.get(0));
+  }
+
+  @Benchmark
+  public ListVS<PrimitiveVS<Integer>> listRemoveAt() {
+    return list.removeAt(new PrimitiveVS<>(0));
+  }
+
+  @Benchmark
+  public ListVS<PrimitiveVS<Integer>> listRemoveAtSymbolic() {
+    return list.removeAt(index);
+  }
+
+  @Benchmark
+  public MapVS<Integer, PrimitiveVS<Integer>, PrimitiveVS<Integer>> mapPut() {
+    MapVS<Integer, PrimitiveVS<Integer>, PrimitiveVS<Integer>> result =
+        new MapVS<>(Guard.constTrue());
+    for (PrimitiveVS<Integer> element : elements) {
+      result = result.put(element, element);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public void mapGet(Blackhole bh) {
+    for (PrimitiveVS<Integer> element : elements) {
+      bh.consume(map.get(element));
+    }
+  }
+
+  @Benchmark
+  public SetVS<PrimitiveVS<Integer>> setAdd() {
+    SetVS<PrimitiveVS<Integer>> result = new SetVS<>(Guard.constTrue());
+    for (PrimitiveVS<Integer> element : elements) {
+      result = result.add(element);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public void setContains(Blackhole bh) {
+    for (PrimitiveVS<Integer> element : elements) {
+      bh.consume(set.contains(element));
+    }
+  }
+}
@@ -0,0 +1,254 @@
+#!/usr/bin/env python3
+"""
+End-to-end search throughput benchmarks of PSym on the bundled example models.
+
+Compiles each model once with the P compiler, runs it with every combination of strategy,
+state-caching mode, symmetry mode and seed, and collects the statistics written by PSym into a
+JSON and a CSV report. If a baseline report is given, runs whose throughput dropped by more than
+the given tolerance are reported and the script exits with a non-zero status.
+
+Usage (from Src/PRuntimes/PSymRuntime, after ./scripts/build.sh):
+
+    python3 scripts/run_benchmarks.py --outdir target/benchmarks --timeout 60
+    python3 scripts/run_benchmarks.py --baseline old/benchmarks.json --tolerance 0.2
+"""
+
+import argparse
+import csv
+import itertools
+import json
+import os
+import shutil
+import subprocess
+import sys
+import time
+
+PBIN = "../../../Bld/Drops/Release/Binaries/net8.0/p.dll"
+
+DEFAULT_MODELS = [
+    "Examples/PLDI/TwoPhaseCommit",
+    "Examples/OLD_CAV/German",
+    "SymbolicRegressionTests/Integration/Correct/TwoPhaseCommit",
+    "SymbolicRegressionTests/Integration/Correct/German",
+    "SymbolicRegressionTests/Integration/Correct/TokenRing",
+    "SymbolicRegressionTests/Integration/Correct/OSR",
+]
+
+# state-caching modes meaningful for each strategy
+STATE_CACHING_MODES = {
+    "symbolic": ["none", "symbolic"],
+    "random": ["none", "fast", "exact"],
+    "dfs": ["none", "fast", "exact"],
+    "learn": ["none", "fast", "exact"],
+}
+
+SYMMETRY_MODES = ["none", "full", "canonical"]
+
+REPORT_FIELDS = [
+    "model", "strategy", "state_caching", "symmetry", "seed",
+    "exit_code", "status", "result",
+    "time_search_seconds", "time_wall_seconds",
+    "schedules", "schedules_per_second",
+    "distinct_states", "distinct_states_per_second",
+    "peak_heap_mb", "bdd_nodes", "time_to_first_bug_seconds",
+]
+
+# exit codes of PSym
+EXIT_CODES = {0: "ok", 2: "bug", 3: "timeout", 4: "memout", 5: "error"}
+
+
+def is_supported(strategy, state_caching, symmetry):
+    # canonical symmetry needs explicit state caching, which PSym rejects otherwise
+    return symmetry != "canonical" or state_caching in ("fast", "exact")
+
+
+def model_name(model):
+    return "".join(c for c in os.path.basename(model.rstrip("/")) if c.isalnum())
+
+
+def compile_model(model, outdir):
+    """Compile a P model into a PSym jar and return the path to the jar, or None on failure"""
+    name = model_name(model)
+    out_path = os.path.abspath(os.path.join(outdir, "compiled", name))
+    if os.path.isdir(out_path):
+        shutil.rmtree(out_path)
+    os.makedirs(out_path)
+    p_files = []
+    for root, _, files in os.walk(model):
+        p_files.extend(os.path.abspath(os.path.join(root, f)) for f in files if f.endswith(".p"))
+    command = ["dotnet", os.path.abspath(PBIN), "compile", "--mode", "verification",
+               "--projname", name, "--outdir", out_path, "--pfiles"] + sorted(p_files)
+    with open(os.path.join(out_path, "compile.out"), "w") as log:
+        subprocess.run(command, stdout=log, stderr=subprocess.STDOUT)
+    jar = os.path.join(out_path, "Symbolic", "target", name + "-jar-with-dependencies.jar")
+    if not os.path.isfile(jar):
+        print("  compilation failed, check %s/compile.out" % out_path)
+        return None
+    return jar
+
+
+def read_stats(stats_file):
+    """Read the key-value pairs written by StatWriter"""
+    stats = {}
+    if not os.path.isfile(stats_file):
+        return stats
+    with open(stats_file) as f:
+        for line in f:
+            key, sep, value = line.partition(":")
+            if sep:
+                stats[key.strip()] = value.strip()
+    return stats
+
+
+def to_number(value):
+    if value is None:
+        return None
+    try:
+        return int(value)
+    except ValueError:
+        try:
+            return float(value)
+        except ValueError:
+            return None
+
+
+def per_second(count, seconds):
+    if count is None or not seconds:
+        return None
+    return round(count / seconds, 3)
+
+
+def run_model(jar, model, strategy, state_caching, symmetry, seed, args):
+    name = model_name(model)
+    run_name = "%s-%s-%s-%s-%d" % (name, strategy, state_caching, symmetry, seed)
+    out_path = os.path.abspath(os.path.join(args.outdir, "runs", run_name))
+    if os.path.isdir(out_path):
+        shutil.rmtree(out_path)
+    os.makedirs(out_path)
+    command = ["java", "-Xmx%s" % args.heap, "-jar", jar,
+               "--strategy", strategy, "--state-caching", state_caching,
+               "--symmetry", symmetry, "--seed", str(seed),
+               "--schedules", str(args.schedules), "--timeout", str(args.timeout),
+               "--projname", name, "--outdir", out_path] + args.psym_args.split()
+    start = time.monotonic()
+    with open(os.path.join(out_path, "run.out"), "w") as log:
+        exit_code = subprocess.run(command, cwd=out_path, stdout=log,
+                                   stderr=subprocess.STDOUT).returncode
+    wall = time.monotonic() - start
+
+    stats = read_stats(os.path.join(out_path, "stats-%s.log" % name))
+    search_time = to_number(stats.get("time-search-seconds"))
+    schedules = to_number(stats.get("#-schedules"))
+    distinct_states = to_number(stats.get("#-distinct-states"))
+    return {
+        "model": model,
+        "strategy": strategy,
+        "state_caching": state_caching,
+        "symmetry": symmetry,
+        "seed": seed,
+        "exit_code": EXIT_CODES.get(exit_code, str(exit_code)),
+        "status": stats.get("status"),
+        "result": stats.get("result"),
+        "time_search_seconds": search_time,
+        "time_wall_seconds": round(wall, 3),
+        "schedules": schedules,
+        "schedules_per_second": per_second(schedules, search_time),
+        "distinct_states": distinct_states,
+        "distinct_states_per_second": per_second(distinct_states, search_time),
+        "peak_heap_mb": to_number(stats.get("memory-max-MB")),
+        "bdd_nodes": to_number(stats.get("solver-#-nodes")),
+        # the search stops at the first bug, so its search time is the time to the bug
+        "time_to_first_bug_seconds": search_time if stats.get("status") == "cex" else None,
+    }
+
+
+def write_report(results, outdir):
+    json_file = os.path.join(outdir, "benchmarks.json")
+    csv_file = os.path.join(outdir, "benchmarks.csv")
+    with open(json_file, "w") as f:
+        json.dump(results, f, indent=2)
+    with open(csv_file, "w", newline="") as f:
+        writer = csv.DictWriter(f, fieldnames=REPORT_FIELDS)
+        writer.writeheader()
+        writer.writerows(results)
+    print("Report written to %s and %s" % (json_file, csv_file))
+
+
+def run_key(result):
+    return (result["model"], result["strategy"], result["state_caching"], result["symmetry"],
+            result["seed"])
+
+
+def compare(results, baseline_file, tolerance):
+    """Report runs whose throughput dropped by more than the tolerance, and return their count"""
+    with open(baseline_file) as f:
+        baseline = {run_key(r): r for r in json.load(f)}
+    regressions = 0
+    for result in results:
+        old = baseline.get(run_key(result))
+        if old is None:
+            continue
+        for metric in ["schedules_per_second", "distinct_states_per_second"]:
+            if old.get(metric) and result.get(metric) is not None:
+                ratio = result[metric] / old[metric]
+                if ratio < 1 - tolerance:
+                    regressions += 1
+                    print("REGRESSION %s %s: %s -> %s (%.0f%%)" % (
+                        "/".join(str(k) for k in run_key(result)), metric,
+                        old[metric], result[metric], 100 * (ratio - 1)))
+        if old.get("status") == "cex" and result.get("status") != "cex":
+            regressions += 1
+            print("REGRESSION %s: bug no longer found" % "/".join(str(k) for k in run_key(result)))
+    return regressions
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Run end-to-end PSym search benchmarks")
+    parser.add_argument("--models", nargs="+", default=DEFAULT_MODELS,
+                        help="P model directories (default: bundled examples)")
+    parser.add_argument("--strategies", nargs="+", default=list(STATE_CACHING_MODES),
+                        help="exploration strategies (default: symbolic random dfs learn)")
+    parser.add_argument("--symmetry", nargs="+", default=SYMMETRY_MODES,
+                        help="symmetry modes (default: none full canonical)")
+    parser.add_argument("--seeds", nargs="+", type=int, default=[0],
+                        help="random seeds (default: 0)")
+    parser.add_argument("--timeout", type=int, default=60, help="time limit per run in seconds")
+    parser.add_argument("--schedules", type=int, default=0,
+                        help="max schedules per run (default: 0, until timeout or exhausted)")
+    parser.add_argument("--heap", default="8G", help="max heap of each run (default: 8G)")
+    parser.add_argument("--psym-args", default="", help="extra arguments passed to every run")
+    parser.add_argument("--outdir", default="target/benchmarks",
+                        help="output directory (default: target/benchmarks)")
+    parser.add_argument("--baseline", help="benchmarks.json of an earlier run to compare with")
+    parser.add_argument("--tolerance", type=float, default=0.1,
+                        help="relative throughput drop reported as regression (default: 0.1)")
+    args = parser.parse_args()
+
+    os.makedirs(args.outdir, exist_ok=True)
+    results = []
+    for model in args.models:
+        print("Compiling %s" % model)
+        jar = compile_model(model, args.outdir)
+        if jar is None:
+            continue
+        for strategy in args.strategies:
+            for state_caching, symmetry, seed in itertools.product(
+                    STATE_CACHING_MODES[strategy], args.symmetry, args.seeds):
+                if not is_supported(strategy, state_caching, symmetry):
+                    continue
+                result = run_model(jar, model, strategy, state_caching, symmetry, seed, args)
+                print("  %-8s caching=%-8s symmetry=%-9s seed=%d  %-7s schedules/s=%s states/s=%s"
+                      % (strategy, state_caching, symmetry, seed, result["exit_code"],
+                         result["schedules_per_second"], result["distinct_states_per_second"]))
+                results.append(result)
+    write_report(results, args.outdir)
+
+    if args.baseline:
+        regressions = compare(results, args.baseline, args.tolerance)
+        print("%d regression(s) compared to %s" % (regressions, args.baseline))
+        if regressions > 0:
+            sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()
@@ -125,11 +125,16 @@ public class EntryPoint {
       PSymGlobal.setStatus("memout");
       throw new Exception("MEMOUT", e);
     } catch (BugFoundException e) {
+      SearchScheduler bugScheduler = searchScheduler;
+      if (searchScheduler instanceof ExplicitSearchScheduler) {
+        ((ExplicitSearchScheduler) searchScheduler).awaitParallelSearch();
+        bugScheduler = ((ExplicitSearchScheduler) searchScheduler).getBugScheduler();
+      }
       PSymGlobal.setStatus("cex");
       PSymGlobal.setResult(String.format(
               "found cex of %slength %d",
               PSymGlobal.getConfiguration().isSymbolic() ? "symbolic " : "",
-              searchScheduler.getDepth()));
+              bugScheduler.getDepth()));
       searchScheduler.isFinalResult = true;
       postprocess(true);
       PSymLogger.info(e.toString());
@@ -145,8 +150,8 @@ public class EntryPoint {
 
       ReplayScheduler replayScheduler =
           new ReplayScheduler(
-              searchScheduler.getProgram(),
-              searchScheduler.getSchedule(),
+              bugScheduler.getProgram(),
+              bugScheduler.getSchedule(),
               pc);
       PSymGlobal.setScheduler(replayScheduler);
       replay(replayScheduler);
@@ -160,8 +165,14 @@ public class EntryPoint {
       //            GlobalData.getChoiceLearningStats().printQTable();
       future.cancel(true);
       executor.shutdownNow();
+      if (searchScheduler instanceof ExplicitSearchScheduler) {
+        ((ExplicitSearchScheduler) searchScheduler).awaitParallelSearch();
+      }
       TraceLogger.setVerbosity(0);
       postprocess(!PSymGlobal.getStatus().equals("cex"));
+      if (searchScheduler instanceof ExplicitSearchScheduler) {
+        ((ExplicitSearchScheduler) searchScheduler).closeStateCache();
+      }
     }
   }
 
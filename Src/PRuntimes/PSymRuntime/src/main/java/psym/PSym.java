@@ -93,6 +93,8 @@ public class PSym {
   private static void setup() {
     PSymLogger.ResetAllConfigurations(
             PSymGlobal.getConfiguration().getVerbosity(), PSymGlobal.getConfiguration().getProjectName(), PSymGlobal.getConfiguration().getOutputFolder());
+    SolverEngine.setNumThreads(PSymGlobal.getConfiguration().getSolverThreads());
+    SolverEngine.setVarOrder(PSymGlobal.getConfiguration().getVarOrder());
     SolverEngine.resetEngine(PSymGlobal.getConfiguration().getSolverType(), PSymGlobal.getConfiguration().getExprLibType());
     PSymGlobal.initializeSymmetryTracker(PSymGlobal.getConfiguration().isSymbolic());
     RandomNumberGenerator.setup(PSymGlobal.getConfiguration().getRandomSeed());
@@ -183,6 +185,7 @@ public class PSym {
     // parse the commandline arguments to create the configuration
     PSymGlobal.setConfiguration(PSymOptions.ParseCommandlineArgs(new String[0]));
     PSymGlobal.getConfiguration().setOutputFolder(outputFolder);
+    PSymLogger.Initialize(PSymGlobal.getConfiguration().getVerbosity());
     setup();
   }
 }
@@ -7,10 +7,12 @@ import psym.runtime.machine.buffer.BufferSemantics;
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceLearningRewardMode;
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceLearningStateMode;
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceOrchestrationMode;
+import psym.runtime.scheduler.search.explicit.PartialOrderReductionMode;
 import psym.runtime.scheduler.search.explicit.StateCachingMode;
 import psym.runtime.scheduler.search.symmetry.SymmetryMode;
 import psym.runtime.scheduler.search.taskorchestration.TaskOrchestrationMode;
 import psym.valuesummary.solvers.SolverType;
+import psym.valuesummary.solvers.SolverVarOrder;
 import psym.valuesummary.solvers.sat.expr.ExprLibType;
 
 /** Represents the configuration of the P Symbolic tool */
@@ -56,8 +58,13 @@ public class PSymConfiguration implements Serializable {
   @Getter @Setter boolean allowSyncEvents = true;
   // mode of state hashing
   @Getter @Setter StateCachingMode stateCachingMode = StateCachingMode.None;
+  // max number of distinct states cached in memory before spilling to disk (0: only near the memory limit)
+  @Getter @Setter int maxStatesInMemory = 0;
   // symmetry mode
   @Getter @Setter SymmetryMode symmetryMode = SymmetryMode.None;
+  // mode of partial-order reduction (explicit-state strategies only)
+  @Getter @Setter
+  PartialOrderReductionMode partialOrderReduction = PartialOrderReductionMode.None;
   // use backtracking
   @Getter @Setter boolean useBacktrack = false;
   // max number of children tasks per execution
@@ -79,10 +86,18 @@ public class PSymConfiguration implements Serializable {
   @Getter @Setter SolverType solverType = SolverType.BDD;
   // type of expression engine
   @Getter @Setter ExprLibType exprLibType = ExprLibType.Bdd;
+  // number of threads of the solver engine (more than 1 shares a thread-safe engine among workers)
+  @Getter @Setter int solverThreads = 1;
+  // whether or not to reuse the choice variables of each choice depth (symbolic strategy only)
+  @Getter @Setter boolean useChoiceVarPool = true;
+  // order of the choice variables in the solver engine
+  @Getter @Setter SolverVarOrder varOrder = SolverVarOrder.Depth;
   // name of the file to read the program state
   @Getter @Setter String readFromFile = "";
   // whether or not to write the program state(s) to file
   @Getter @Setter boolean writeToFile = false;
+  // number of search workers exploring in parallel (explicit-state strategies only)
+  @Getter @Setter int numWorkers = 1;
 
   public String getStrategy() {
     String result = this.strategy;
@@ -106,6 +121,10 @@ public class PSymConfiguration implements Serializable {
     return (schChoiceBound > 0) || (dataChoiceBound > 0);
   }
 
+  public boolean isParallel() {
+    return isExplicit() && (numWorkers > 1);
+  }
+
   public boolean isChoiceOrchestrationLearning() {
     return (getChoiceOrchestration() == ChoiceOrchestrationMode.QLearning)
         || (getChoiceOrchestration() == ChoiceOrchestrationMode.EpsilonGreedy);
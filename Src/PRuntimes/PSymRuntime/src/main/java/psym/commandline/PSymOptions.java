@@ -14,10 +14,12 @@ import psym.runtime.scheduler.search.choiceorchestration.ChoiceLearningRewardMod
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceLearningStateMode;
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceOrchestrationMode;
 import psym.runtime.scheduler.search.choiceorchestration.ChoiceOrchestratorEpsilonGreedy;
+import psym.runtime.scheduler.search.explicit.PartialOrderReductionMode;
 import psym.runtime.scheduler.search.explicit.StateCachingMode;
 import psym.runtime.scheduler.search.symmetry.SymmetryMode;
 import psym.runtime.scheduler.search.taskorchestration.TaskOrchestrationMode;
 import psym.runtime.scheduler.search.taskorchestration.TaskOrchestratorCoverageEpsilonGreedy;
+import psym.valuesummary.solvers.SolverVarOrder;
 
 /** Represents the commandline options for the tool */
 public class PSymOptions {
@@ -171,6 +173,17 @@ public class PSymOptions {
             .build();
     addOption(randomSeed);
 
+    // number of search workers
+    Option numWorkers =
+        Option.builder("w")
+            .longOpt("workers")
+            .desc("Number of parallel search workers for explicit-state strategies (default: 1)")
+            .numberOfArgs(1)
+            .hasArg()
+            .argName("Workers (integer)")
+            .build();
+    addOption(numWorkers);
+
     // max scheduling choice bound for the search
     Option maxSchedBound = Option.builder("sb")
             .longOpt("sch-bound")
@@ -221,17 +234,73 @@ public class PSymOptions {
             .build();
     addHiddenOption(stateCaching);
 
+    // max number of distinct states cached in memory before spilling to disk
+    Option maxStatesInMemory =
+        Option.builder()
+            .longOpt("state-cache-memory")
+            .desc(
+                "Max number of distinct states cached in memory before spilling to disk (default: 0, only near the memory limit)")
+            .numberOfArgs(1)
+            .hasArg()
+            .argName("Max States (integer)")
+            .build();
+    addHiddenOption(maxStatesInMemory);
+
+    // number of threads of the solver engine
+    Option solverThreads =
+        Option.builder()
+            .longOpt("solver-threads")
+            .desc(
+                "Number of threads for parallel solver operations, shared by all workers if more than 1 (default: 1)")
+            .numberOfArgs(1)
+            .hasArg()
+            .argName("Threads (integer)")
+            .build();
+    addHiddenOption(solverThreads);
+
+    // whether or not to disable the pool of choice variables
+    Option choiceVarPool =
+        Option.builder()
+            .longOpt("no-choice-var-pool")
+            .desc("Disable reusing the choice variables of each choice depth (symbolic strategy only)")
+            .numberOfArgs(0)
+            .build();
+    addHiddenOption(choiceVarPool);
+
+    // order of choice variables
+    Option varOrder =
+        Option.builder()
+            .longOpt("var-order")
+            .desc("Order of choice variables in the solver engine: creation, depth (default: depth)")
+            .numberOfArgs(1)
+            .hasArg()
+            .argName("Variable Order (string)")
+            .build();
+    addHiddenOption(varOrder);
+
     // whether or not to enable symmetry
     Option symmetry =
         Option.builder()
             .longOpt("symmetry")
-            .desc("Symmetry-aware exploration mode: none, full (default: none)")
+            .desc("Symmetry-aware exploration mode: none, full, canonical (default: none)")
             .numberOfArgs(1)
             .hasArg()
             .argName("Symmetry Mode (string)")
             .build();
     addHiddenOption(symmetry);
 
+    // whether or not to enable partial-order reduction
+    Option por =
+        Option.builder()
+            .longOpt("por")
+            .desc(
+                "Partial-order reduction mode of explicit-state strategies, which turns off the strategy's default state caching and rejects an explicit one: none, sleep, dpor (default: none)")
+            .numberOfArgs(1)
+            .hasArg()
+            .argName("Reduction Mode (string)")
+            .build();
+    addHiddenOption(por);
+
     // whether or not to disable stateful backtracking
     Option backtrack =
         Option.builder()
@@ -517,6 +586,19 @@ public class PSymOptions {
                 option, String.format("Expected an integer value, got %s", option.getValue()));
           }
           break;
+        case "w":
+        case "workers":
+          try {
+            config.setNumWorkers(Integer.parseInt(option.getValue()));
+          } catch (NumberFormatException ex) {
+            optionError(
+                option, String.format("Expected an integer value, got %s", option.getValue()));
+          }
+          if (config.getNumWorkers() < 1) {
+            optionError(
+                option, String.format("Expected a positive integer value, got %s", option.getValue()));
+          }
+          break;
         case "sb":
         case "sch-bound":
           try {
@@ -560,6 +642,42 @@ public class PSymOptions {
                   String.format("Unrecognized state hashing mode, got %s", option.getValue()));
           }
           break;
+        case "state-cache-memory":
+          try {
+            config.setMaxStatesInMemory(Integer.parseInt(option.getValue()));
+          } catch (NumberFormatException ex) {
+            optionError(
+                option, String.format("Expected an integer value, got %s", option.getValue()));
+          }
+          break;
+        case "solver-threads":
+          try {
+            config.setSolverThreads(Integer.parseInt(option.getValue()));
+          } catch (NumberFormatException ex) {
+            optionError(
+                option, String.format("Expected an integer value, got %s", option.getValue()));
+          }
+          if (config.getSolverThreads() < 1) {
+            optionError(
+                option, String.format("Expected a positive integer value, got %s", option.getValue()));
+          }
+          break;
+        case "no-choice-var-pool":
+          config.setUseChoiceVarPool(false);
+          break;
+        case "var-order":
+          switch (option.getValue()) {
+            case "creation":
+              config.setVarOrder(SolverVarOrder.Creation);
+              break;
+            case "depth":
+              config.setVarOrder(SolverVarOrder.Depth);
+              break;
+            default:
+              optionError(
+                  option, String.format("Unrecognized variable order, got %s", option.getValue()));
+          }
+          break;
         case "symmetry":
           switch (option.getValue()) {
             case "none":
@@ -568,11 +686,32 @@ public class PSymOptions {
             case "full":
               config.setSymmetryMode(SymmetryMode.Full);
               break;
+            case "canonical":
+              config.setSymmetryMode(SymmetryMode.Canonical);
+              break;
             default:
               optionError(
                   option, String.format("Unrecognized symmetry mode, got %s", option.getValue()));
           }
           break;
+        case "por":
+          switch (option.getValue()) {
+            case "none":
+              config.setPartialOrderReduction(PartialOrderReductionMode.None);
+              break;
+            case "sleep":
+              config.setPartialOrderReduction(PartialOrderReductionMode.SleepSets);
+              break;
+            case "dpor":
+              config.setPartialOrderReduction(PartialOrderReductionMode.Dynamic);
+              break;
+            default:
+              optionError(
+                  option,
+                  String.format(
+                      "Unrecognized partial-order reduction mode, got %s", option.getValue()));
+          }
+          break;
         case "no-backtrack":
           config.setUseBacktrack(false);
           break;
@@ -740,6 +879,47 @@ public class PSymOptions {
     if (!config.isChoiceOrchestrationLearning()) {
       config.setChoiceLearningRewardMode(ChoiceLearningRewardMode.None);
     }
+    if (config.isParallel() && config.getSymmetryMode() != SymmetryMode.None) {
+      optionError(
+          allOptions.getOption("workers"),
+          "Parallel search workers are not supported with symmetry-aware exploration");
+    }
+    if (config.getSymmetryMode() == SymmetryMode.Canonical
+        && (!config.isExplicit()
+            || config.getStateCachingMode() == StateCachingMode.None
+            || config.getStateCachingMode() == StateCachingMode.Symbolic)) {
+      optionError(
+          allOptions.getOption("symmetry"),
+          "Canonical symmetry requires an explicit-state strategy with explicit state caching");
+    }
+    if (config.getPartialOrderReduction() != PartialOrderReductionMode.None) {
+      if (!config.isExplicit()) {
+        optionError(
+            allOptions.getOption("por"),
+            "Partial-order reduction is only supported by explicit-state strategies");
+      }
+      if (config.getSymmetryMode() != SymmetryMode.None) {
+        optionError(
+            allOptions.getOption("por"),
+            "Partial-order reduction is not supported with symmetry-aware exploration");
+      }
+      if (config.getPartialOrderReduction() == PartialOrderReductionMode.Dynamic
+          && (config.isParallel()
+              || config.getTaskOrchestration() != TaskOrchestrationMode.DepthFirst)) {
+        // races can add backtracks to choices shared with other backtrack tasks
+        optionError(
+            allOptions.getOption("por"),
+            "Dynamic partial-order reduction requires a depth-first search with a single worker");
+      }
+      // revisiting a cached state does not imply that its sleep set was explored
+      if (cmd.hasOption("state-caching")
+          && config.getStateCachingMode() != StateCachingMode.None) {
+        optionError(
+            allOptions.getOption("por"),
+            "Partial-order reduction is not supported with state caching, use --state-caching none");
+      }
+      config.setStateCachingMode(StateCachingMode.None);
+    }
     return config;
   }
 
@@ -22,7 +22,9 @@ public class Concretizer {
    * @return a concrete value represented by the value summary
    */
   public static GuardedValue concretize(Object valueSummary) {
-    if (valueSummary instanceof PrimitiveVS<?>) {
+    if (valueSummary instanceof BitVectorVS) {
+      return concretize(((BitVectorVS) valueSummary).toPrimitiveVS());
+    } else if (valueSummary instanceof PrimitiveVS<?>) {
       List<? extends GuardedValue<?>> list = ((PrimitiveVS<?>) valueSummary).getGuardedValues();
       if (list.size() > 0) {
         GuardedValue<?> item = list.get(0);
@@ -154,7 +156,9 @@ public class Concretizer {
    * @return a concrete value represented by the value summary
    */
   public static GuardedValue<? extends PValue<?>> concretizePType(Object valueSummary) {
-    if (valueSummary instanceof PrimitiveVS<?>) {
+    if (valueSummary instanceof BitVectorVS) {
+      return concretizePType(((BitVectorVS) valueSummary).toPrimitiveVS());
+    } else if (valueSummary instanceof PrimitiveVS<?>) {
       List<? extends GuardedValue<?>> list = ((PrimitiveVS<?>) valueSummary).getGuardedValues();
       if (list.size() > 0) {
         GuardedValue<?> item = list.get(0);
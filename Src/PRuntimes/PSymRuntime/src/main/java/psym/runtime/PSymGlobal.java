@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Getter;
 import lombok.Setter;
 import psym.commandline.PSymConfiguration;
@@ -19,6 +20,7 @@ import psym.runtime.scheduler.search.choiceorchestration.ChoiceLearningStats;
 import psym.runtime.scheduler.search.explicit.ExplicitSymmetryTracker;
 import psym.runtime.scheduler.search.symbolic.SymbolicSymmetryTracker;
 import psym.runtime.scheduler.search.symmetry.SymmetryTracker;
+import psym.runtime.scheduler.search.taskorchestration.TaskOrchestrator;
 import psym.runtime.statistics.CoverageStats;
 
 /**
@@ -30,6 +32,11 @@ public class PSymGlobal implements Serializable {
      */
     private static PSymGlobal PSymGlobal = null;
 
+    /**
+     * Object of the search worker running on the current thread (unset outside a parallel search)
+     */
+    private static final ThreadLocal<PSymGlobal> workerInstance = new ThreadLocal<>();
+
     /**
      * Global configuration
      */
@@ -51,12 +58,12 @@ public class PSymGlobal implements Serializable {
     /**
      * Mapping of each machine's state with its corresponding event handlers
      */
-    private final Map<String, StateEvents> allStateEvents = new HashMap<>();
+    private final Map<String, StateEvents> allStateEvents;
 
     /**
      * Set of sync event names
      */
-    private final Map<String, Set<String>> syncEvents = new HashMap<>();
+    private final Map<String, Set<String>> syncEvents;
 
     /**
      * Global coverage statistics
@@ -73,21 +80,68 @@ public class PSymGlobal implements Serializable {
      */
     private SymmetryTracker symmetryTracker = null;
 
+    /**
+     * Task orchestrator for the pending backtrack tasks
+     */
+    private transient TaskOrchestrator taskOrchestrator = null;
+
     /**
      * Private constructor to enable singleton class object
      */
-    private PSymGlobal() {}
+    private PSymGlobal() {
+        this.allStateEvents = new ConcurrentHashMap<>();
+        this.syncEvents = new HashMap<>();
+    }
+
+    /**
+     * Private constructor for the object of a search worker, sharing the program data with the parent
+     *
+     * @param parent Global data singleton object
+     */
+    private PSymGlobal(PSymGlobal parent) {
+        this.allStateEvents = parent.allStateEvents;
+        this.syncEvents = parent.syncEvents;
+        if (parent.symmetryTracker != null) {
+            this.symmetryTracker = parent.symmetryTracker.getCopy();
+        }
+    }
+
+    /**
+     * Get/create the singleton class object, or the object of the search worker on the current thread
+     */
+    public static PSymGlobal getInstance() {
+        PSymGlobal worker = workerInstance.get();
+        if (worker != null) {
+            return worker;
+        }
+        return getGlobalInstance();
+    }
 
     /**
      * Get/create the singleton class object
      */
-    public static synchronized PSymGlobal getInstance() {
+    private static synchronized PSymGlobal getGlobalInstance() {
         if (PSymGlobal == null) {
             setInstance(new PSymGlobal());
         }
         return PSymGlobal;
     }
 
+    /**
+     * Set up a search worker on the current thread with its own coverage, learning and symmetry
+     * data, while sharing the configuration and program data with the singleton object
+     */
+    public static void initializeWorker() {
+        workerInstance.set(new PSymGlobal(getGlobalInstance()));
+    }
+
+    /**
+     * Remove the search worker from the current thread
+     */
+    public static void clearWorker() {
+        workerInstance.remove();
+    }
+
     /**
      * Set the global data singleton object after resuming a run
      *
@@ -98,18 +152,18 @@ public class PSymGlobal implements Serializable {
     }
 
     public static PSymConfiguration getConfiguration() {
-        return getInstance().configuration;
+        return configuration;
     }
     public static void setConfiguration(PSymConfiguration config) {
-        getInstance().configuration = config;
+        configuration = config;
     }
 
     public static Scheduler getScheduler() {
-        return getInstance().scheduler;
+        return scheduler;
     }
 
     public static void setScheduler(Scheduler s) {
-        getInstance().scheduler = s;
+        scheduler = s;
     }
 
     public static Map<String, StateEvents> getAllStateEvents() {
@@ -154,6 +208,14 @@ public class PSymGlobal implements Serializable {
         getInstance().symmetryTracker = rhs;
     }
 
+    public static TaskOrchestrator getTaskOrchestrator() {
+        return getInstance().taskOrchestrator;
+    }
+
+    public static void setTaskOrchestrator(TaskOrchestrator rhs) {
+        getInstance().taskOrchestrator = rhs;
+    }
+
     public static void initializeSymmetryTracker(boolean isSymbolic) {
         getInstance().symmetryTracker =
             isSymbolic ? new SymbolicSymmetryTracker() : new ExplicitSymmetryTracker();
@@ -36,14 +36,17 @@ public class StatWriter {
         "#-op",
         String.format(
             "%d",
-            SolverStats.andOperations + SolverStats.orOperations + SolverStats.notOperations));
+            SolverStats.andOperations.sum()
+                + SolverStats.orOperations.sum()
+                + SolverStats.notOperations.sum()));
     log("solver-#-nodes", String.format("%d", SolverEngine.getSolver().getNodeCount()));
-    log("solver-#-sat-ops", String.format("%d", SolverStats.isSatOperations));
-    log("solver-#-sat-ops-sat", String.format("%d", SolverStats.isSatResult));
+    log("solver-#-sat-ops", String.format("%d", SolverStats.isSatOperations.sum()));
+    log("solver-#-sat-ops-sat", String.format("%d", SolverStats.isSatResult.sum()));
     log(
         "solver-%-sat-ops-sat",
         String.format(
             "%.1f",
-            SolverStats.isSatPercent(SolverStats.isSatOperations, SolverStats.isSatResult)));
+            SolverStats.isSatPercent(
+                SolverStats.isSatOperations.sum(), SolverStats.isSatResult.sum())));
   }
 }
@@ -2,6 +2,8 @@ package psym.runtime.machine;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import psym.runtime.PSymGlobal;
@@ -24,8 +26,11 @@ import psym.valuesummary.*;
 public abstract class Machine implements Serializable, Comparable<Machine> {
   @Getter
   private static final int mainMachineId = 2;
-  @Getter private static final Map<String, Machine> nameToMachine = new HashMap<>();
-  protected static int globalMachineId = mainMachineId;
+  @Getter private static final Map<String, Machine> nameToMachine = new ConcurrentHashMap<>();
+  protected static final AtomicInteger globalMachineId = new AtomicInteger(mainMachineId);
+  /** Ids shared by the machines of a type created at the same index, e.g., by search workers */
+  private static final Map<ImmutablePair<Class<? extends Machine>, Integer>, Integer> sharedIds =
+      new ConcurrentHashMap<>();
   public final Map<
           String,
           SerializableFunction<
@@ -54,7 +59,7 @@ public abstract class Machine implements Serializable, Comparable<Machine> {
   public Machine(String name, int id, State startState, State... states) {
     this.name = name;
     //        this.instanceId = id;
-    this.instanceId = globalMachineId++;
+    this.instanceId = globalMachineId.getAndIncrement();
     nameToMachine.put(toString(), this);
 
     this.startState = startState;
@@ -82,6 +87,19 @@ public abstract class Machine implements Serializable, Comparable<Machine> {
     this.happensBeforePairs = new HashSet<>();
   }
 
+  /**
+   * Replace the id of a new machine by the one shared by all machines of its type created at the
+   * same index, so that the same state has the same fingerprint in every search worker. Must be
+   * called before the machine is added to any scheduler.
+   *
+   * @param index Index of the machine among the machines of its type, in order of creation
+   */
+  public void useSharedId(int index) {
+    nameToMachine.remove(toString(), this);
+    instanceId = sharedIds.computeIfAbsent(new ImmutablePair<>(getClass(), index), k -> instanceId);
+    nameToMachine.put(toString(), this);
+  }
+
   public void setScheduler(Scheduler scheduler) {
     this.scheduler = scheduler;
   }
@@ -117,6 +135,9 @@ public abstract class Machine implements Serializable, Comparable<Machine> {
   public void reset() {
     this.currentState = new PrimitiveVS<>(startState);
     this.sendBuffer = new EventQueue(this);
+    if (scheduler != null) {
+      scheduler.updateSendBuffer(this);
+    }
     this.deferredQueue = new DeferQueue(this);
     this.receives = new PrimitiveVS<>();
     for (Runnable r : clearContinuationVars) {
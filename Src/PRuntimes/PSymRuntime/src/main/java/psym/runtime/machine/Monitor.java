@@ -4,7 +4,7 @@ public class Monitor extends Machine {
     public Monitor(String name, int id, State startState, State... states) {
         super(name, id, startState, states);
         this.instanceId = 0;
-        globalMachineId--;
+        globalMachineId.decrementAndGet();
     }
 
     @Override
@@ -6,10 +6,8 @@ import psym.runtime.PSymGlobal;
 import psym.runtime.logger.ScheduleWriter;
 import psym.runtime.logger.TextWriter;
 import psym.runtime.logger.TraceLogger;
-import psym.runtime.machine.eventhandlers.DeferEventHandler;
 import psym.runtime.machine.eventhandlers.EventHandler;
 import psym.runtime.machine.eventhandlers.EventHandlerReturnReason;
-import psym.runtime.machine.eventhandlers.IgnoreEventHandler;
 import psym.runtime.machine.events.Event;
 import psym.runtime.machine.events.Message;
 import psym.runtime.machine.events.StateEvents;
@@ -22,6 +20,8 @@ public abstract class State implements Serializable {
   public final String name;
   public final String machineName;
   public final StateTemperature temperature;
+  // Event handlers of the state, resolved from the global data on first use
+  private transient StateEvents stateEvents;
 
   public State(
       String name,
@@ -50,35 +50,35 @@ public abstract class State implements Serializable {
   }
 
   private StateEvents getStateEvents() {
-    String key = getStateKey();
-    if (!PSymGlobal.getAllStateEvents().containsKey(key))
-      PSymGlobal.getAllStateEvents().put(key, new StateEvents());
-    return PSymGlobal.getAllStateEvents().get(key);
+    StateEvents result = stateEvents;
+    if (result == null) {
+      result = PSymGlobal.getAllStateEvents().computeIfAbsent(getStateKey(), k -> new StateEvents());
+      stateEvents = result;
+    }
+    return result;
   }
 
   public void addHandlers(EventHandler... eventHandlers) {
+    // resolve again, in case the global data was reset since the state was last used
+    stateEvents = null;
+    StateEvents events = getStateEvents();
     for (EventHandler handler : eventHandlers) {
-      getStateEvents().eventHandlers.put(handler.event, handler);
-      if (handler instanceof IgnoreEventHandler) {
-        getStateEvents().ignored.add(handler.event);
-      } else if (handler instanceof DeferEventHandler) {
-        getStateEvents().deferred.add(handler.event);
-      }
+      events.addHandler(handler);
     }
   }
 
   public Boolean isIgnored(Event event) {
-    return getStateEvents().ignored.contains(event);
+    return getStateEvents().isIgnored(event);
   }
 
   public Boolean isDeferred(Event event) {
-    return getStateEvents().deferred.contains(event);
+    return getStateEvents().isDeferred(event);
   }
 
   public PrimitiveVS<Boolean> hasHandler(Message message) {
     Guard has = Guard.constFalse();
     for (GuardedValue<Event> entry : message.getEvent().getGuardedValues()) {
-      if (getStateEvents().eventHandlers.containsKey(entry.getValue())) {
+      if (getStateEvents().hasHandler(entry.getValue())) {
         has = has.or(entry.getGuard());
       }
     }
@@ -110,17 +110,13 @@ public abstract class State implements Serializable {
 
       Guard handledPc = Guard.constFalse();
       for (GuardedValue<State> guardedValue : current.getGuardedValues()) {
-        if (guardedValue.getValue().getStateEvents().eventHandlers.containsKey(event)) {
-          guardedValue
-              .getValue()
-              .getStateEvents()
-              .eventHandlers
-              .get(event)
-              .handleEvent(
-                  eventPc.and(guardedValue.getGuard()),
-                  machine,
-                  message.restrict(guardedValue.getGuard()).getPayload(),
-                  outcome);
+        EventHandler handler = guardedValue.getValue().getStateEvents().getHandler(event);
+        if (handler != null) {
+          handler.handleEvent(
+              eventPc.and(guardedValue.getGuard()),
+              machine,
+              message.restrict(guardedValue.getGuard()).getPayload(),
+              outcome);
           handledPc = handledPc.or(guardedValue.getGuard());
         }
       }
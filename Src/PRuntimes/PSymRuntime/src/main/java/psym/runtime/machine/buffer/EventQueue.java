@@ -67,5 +67,12 @@ public class EventQueue extends SymbolicQueue implements EventBuffer, Serializab
     super.add(event);
   }
 
+  @Override
+  protected void onUpdate() {
+    if (sender != null && sender.getScheduler() != null) {
+      sender.getScheduler().updateSendBuffer(sender);
+    }
+  }
+
 
 }
@@ -28,6 +28,9 @@ public abstract class SymbolicQueue implements Serializable {
     peek = null;
   }
 
+  /** Called after every update of the elements of the queue */
+  protected void onUpdate() {}
+
   public PrimitiveVS<Integer> size() {
     return elements.size();
   }
@@ -67,6 +70,7 @@ public abstract class SymbolicQueue implements Serializable {
     if (dequeue) {
       elements = elements.removeAt(idxVs);
       resetPeek();
+      onUpdate();
     }
     assert (!pc.isFalse());
     return ret;
@@ -77,6 +81,7 @@ public abstract class SymbolicQueue implements Serializable {
       PSymGlobal.getSymmetryTracker().updateSymmetrySet(owner, e.getUniverse());
     }
     elements = elements.add(e);
+    onUpdate();
   }
 
   public PrimitiveVS<Boolean> satisfiesPredUnderGuard(
@@ -109,6 +114,7 @@ public abstract class SymbolicQueue implements Serializable {
   public void setEvents(ValueSummary events) {
     this.elements = (ListVS<Message>) events;
     resetPeek();
+    onUpdate();
   }
 
 
@@ -1,10 +1,19 @@
 package psym.runtime.machine.events;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Represents a P event (Event Name) */
 public class Event implements Serializable {
+  // Dense integer id of each event name
+  private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private static final AtomicInteger numIds = new AtomicInteger(0);
+
   // Special event send to a machine on creation
   public static final Event createMachine = new Event("createMachine");
   // Special halt event
@@ -12,9 +21,30 @@ public class Event implements Serializable {
 
   // Name of the Event
   final String name;
+  // Id of the Event, assigned per run since it depends on the order events are created
+  private transient int id;
 
   public Event(String name) {
     this.name = name;
+    this.id = idOf(name);
+  }
+
+  private static int idOf(String name) {
+    return ids.computeIfAbsent(name, k -> numIds.getAndIncrement());
+  }
+
+  /**
+   * Get the id of the event, which is the same for all events with the same name
+   *
+   * @return Dense integer id of the event
+   */
+  public int getId() {
+    return id;
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.id = idOf(name);
   }
 
   @Override
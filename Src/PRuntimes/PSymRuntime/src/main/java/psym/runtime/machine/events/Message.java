@@ -1,19 +1,19 @@
 package psym.runtime.machine.events;
 
+import java.io.Serializable;
 import java.util.*;
-import lombok.Getter;
 import psym.runtime.PSymGlobal;
 import psym.runtime.machine.Machine;
 import psym.valuesummary.*;
 
 /** Represents a message in the sender buffer of a state machine */
 public class Message implements ValueSummary<Message> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final ConcreteMessage concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient ConcreteMessage concreteValue = null;
+  private transient boolean hasConcreteValue = false;
   // the target machine to which the message is being sent
   private final PrimitiveVS<Machine> target;
   // the event sent to the target machine
@@ -25,8 +25,6 @@ public class Message implements ValueSummary<Message> {
     this.event = names;
     this.target = machine;
     this.payload = new HashMap<>(map);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   public Message(Event name, PrimitiveVS<Machine> machine) {
@@ -58,8 +56,6 @@ public class Message implements ValueSummary<Message> {
         this.payload.put(event.getValue(), payload.restrict(event.getGuard()));
       }
     }
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -273,6 +269,24 @@ public class Message implements ValueSummary<Message> {
     return event.getUniverse();
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public ConcreteMessage getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
@@ -338,7 +352,7 @@ public class Message implements ValueSummary<Message> {
     return out.toString();
   }
 
-  static class ConcreteMessage {
+  static class ConcreteMessage implements Serializable {
     private final Machine target;
     private final Event event;
     private final Map<Event, Object> payload;
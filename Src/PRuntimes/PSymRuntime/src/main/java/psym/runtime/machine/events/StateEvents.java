@@ -1,18 +1,61 @@
 package psym.runtime.machine.events;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
+import psym.runtime.machine.eventhandlers.DeferEventHandler;
 import psym.runtime.machine.eventhandlers.EventHandler;
+import psym.runtime.machine.eventhandlers.IgnoreEventHandler;
 
+/**
+ * Event handlers of a state, indexed by event id.
+ *
+ * <p>Handlers are added when machines are constructed, possibly by several search workers at once,
+ * while other workers dispatch events. Adding a handler replaces the table by an updated copy, so
+ * dispatching is a lock-free array lookup.
+ */
 public class StateEvents implements Serializable {
-    public final Map<Event, EventHandler> eventHandlers;
-    public final Set<Event> ignored;
-    public final Set<Event> deferred;
-
-    public StateEvents() {
-        this.eventHandlers = new HashMap<>();
-        this.ignored = new HashSet<>();
-        this.deferred = new HashSet<>();
+    private transient volatile EventHandler[] handlers = new EventHandler[0];
+
+    public synchronized void addHandler(EventHandler handler) {
+        int id = handler.event.getId();
+        // write to a copy and publish it, so readers never see a partly updated table
+        EventHandler[] table = Arrays.copyOf(handlers, Math.max(handlers.length, id + 1));
+        table[id] = handler;
+        handlers = table;
+    }
+
+    public EventHandler getHandler(Event event) {
+        EventHandler[] table = handlers;
+        int id = event.getId();
+        return (id < table.length) ? table[id] : null;
+    }
+
+    public boolean hasHandler(Event event) {
+        return getHandler(event) != null;
+    }
+
+    public boolean isIgnored(Event event) {
+        return getHandler(event) instanceof IgnoreEventHandler;
+    }
+
+    public boolean isDeferred(Event event) {
+        return getHandler(event) instanceof DeferEventHandler;
     }
 
+    // event ids depend on the run, so only the handlers are written, without their indices
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(Arrays.stream(handlers).filter(Objects::nonNull).toArray(EventHandler[]::new));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        handlers = new EventHandler[0];
+        for (EventHandler handler : (EventHandler[]) in.readObject()) {
+            addHandler(handler);
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package psym.runtime.scheduler;
+
+import java.io.Serializable;
+import java.util.*;
+import psym.runtime.machine.Machine;
+import psym.runtime.machine.buffer.SymbolicQueue;
+
+/**
+ * Index of the machines of a scheduler by the messages pending in their send buffers.
+ *
+ * <p>Machines are numbered in the order they are added, and each set of machines is a bit set over
+ * these numbers, so that iterating over a set follows the order of the list of machines. Send
+ * buffers notify the index of every update, and updated machines are classified again lazily, the
+ * next time the index is queried.
+ */
+public class MachineIndex implements Serializable {
+  /** List of all machines, in the order they were added */
+  private final List<Machine> machines;
+  /** Number of each machine in the list of all machines */
+  private final Map<Machine, Integer> numbers = new HashMap<>();
+  /** Machines whose send buffer was updated since the latest query */
+  private final BitSet updated = new BitSet();
+  /** Machines with a non-empty send buffer */
+  private final BitSet pending = new BitSet();
+  /** Machines with a create machine message at the head of their send buffer */
+  private final BitSet pendingCreate = new BitSet();
+  /** Machines with a synchronous event at the head of their send buffer */
+  private final BitSet pendingSync = new BitSet();
+
+  /**
+   * Make a new index
+   *
+   * @param machines List of all machines of the scheduler, added to through this index
+   */
+  public MachineIndex(List<Machine> machines) {
+    this.machines = machines;
+    for (int i = 0; i < machines.size(); i++) {
+      numbers.putIfAbsent(machines.get(i), i);
+    }
+    updated.set(0, machines.size());
+  }
+
+  /**
+   * Add a machine to the list of all machines, unless already present
+   *
+   * @param machine Machine to add
+   */
+  public void add(Machine machine) {
+    Integer number = numbers.get(machine);
+    if (number == null) {
+      number = machines.size();
+      numbers.put(machine, number);
+      machines.add(machine);
+    }
+    updated.set(number);
+  }
+
+  public boolean contains(Machine machine) {
+    return numbers.containsKey(machine);
+  }
+
+  /**
+   * Record an update of the send buffer of a machine
+   *
+   * @param machine Machine whose send buffer was updated
+   */
+  public void update(Machine machine) {
+    Integer number = numbers.get(machine);
+    if (number != null) {
+      updated.set(number);
+    }
+  }
+
+  private void classify() {
+    for (int i = updated.nextSetBit(0); i >= 0; i = updated.nextSetBit(i + 1)) {
+      SymbolicQueue buffer = machines.get(i).getEventBuffer();
+      if (buffer.isEmpty()) {
+        pending.clear(i);
+        pendingCreate.clear(i);
+        pendingSync.clear(i);
+      } else {
+        pending.set(i);
+        pendingCreate.set(i, !buffer.hasCreateMachineUnderGuard().getGuardFor(true).isFalse());
+        pendingSync.set(i, !buffer.hasSyncEventUnderGuard().getGuardFor(true).isFalse());
+      }
+    }
+    updated.clear();
+  }
+
+  private List<Machine> getMachines(BitSet set) {
+    classify();
+    List<Machine> result = new ArrayList<>(set.cardinality());
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      result.add(machines.get(i));
+    }
+    return result;
+  }
+
+  /** Get the machines with a non-empty send buffer */
+  public List<Machine> getPendingMachines() {
+    return getMachines(pending);
+  }
+
+  /** Get the machines that may have a create machine message at the head of their send buffer */
+  public List<Machine> getPendingCreateMachines() {
+    return getMachines(pendingCreate);
+  }
+
+  /** Get the machines that may have a synchronous event at the head of their send buffer */
+  public List<Machine> getPendingSyncMachines() {
+    return getMachines(pendingSync);
+  }
+}
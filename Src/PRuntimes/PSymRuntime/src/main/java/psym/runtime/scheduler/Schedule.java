@@ -8,6 +8,8 @@ import lombok.Setter;
 import psym.runtime.PSymGlobal;
 import psym.runtime.machine.Machine;
 import psym.runtime.machine.MachineLocalState;
+import psym.runtime.scheduler.search.explicit.PartialOrderReductionMode;
+import psym.runtime.scheduler.search.explicit.PartialOrderState;
 import psym.runtime.scheduler.search.symmetry.SymmetryTracker;
 import psym.valuesummary.*;
 
@@ -148,7 +150,10 @@ public class Schedule implements Serializable {
     if (depth >= choices.size()) {
       choices.add(newChoice());
     }
-    if (machines.isEmpty()) {
+    // dynamic partial-order reduction can add backtracks to any scheduling choice later on
+    if (machines.isEmpty()
+        && PSymGlobal.getConfiguration().getPartialOrderReduction()
+            != PartialOrderReductionMode.Dynamic) {
       choices
           .get(depth)
           .storeState(schedulerDepth, schedulerChoiceDepth, null, filter, schedulerSymmetry);
@@ -157,7 +162,9 @@ public class Schedule implements Serializable {
           .get(depth)
           .storeState(
               schedulerDepth, schedulerChoiceDepth, schedulerState, filter, schedulerSymmetry);
-      numBacktracks++;
+      if (!machines.isEmpty()) {
+        numBacktracks++;
+      }
     }
     for (PrimitiveVS<Machine> choice : machines) {
       choices.get(depth).addBacktrackSchedulingChoice(choice);
@@ -409,6 +416,8 @@ public class Schedule implements Serializable {
     @Getter ChoiceState choiceState = null;
     @Getter Guard filter = null;
     @Getter SymmetryTracker symmetry = null;
+    /** State of the partial-order reduction at a scheduling choice of an explicit search */
+    @Getter @Setter PartialOrderState partialOrderState = null;
 
     public Choice() {}
 
@@ -432,6 +441,9 @@ public class Schedule implements Serializable {
       choiceState = old.choiceState;
       filter = old.filter;
       symmetry = old.symmetry;
+      if (old.partialOrderState != null) {
+        partialOrderState = old.partialOrderState.getCopy();
+      }
     }
 
     /**
@@ -538,6 +550,7 @@ public class Schedule implements Serializable {
           this.choiceState,
           this.filter,
           this.symmetry);
+      c.partialOrderState = this.partialOrderState;
       return c;
     }
 
@@ -595,6 +608,7 @@ public class Schedule implements Serializable {
       clearRepeat();
       clearBacktrack();
       handledUniverse = Guard.constFalse();
+      partialOrderState = null;
     }
   }
 }
@@ -24,10 +24,12 @@ public abstract class Scheduler implements SchedulerInterface {
   @Getter
   /** List of all machines along any path constraints */
   protected final List<Machine> machines;
+  /** Index of the machines by the messages pending in their send buffers */
+  protected final MachineIndex machineIndex;
   /** Set of machines along current schedule */
   protected final SortedSet<Machine> currentMachines;
   /** Search statistics */
-  protected final SearchStats searchStats = new SearchStats();
+  protected SearchStats searchStats = new SearchStats();
   /** Program */
   @Getter private final Program program;
   /** The scheduling choices made */
@@ -65,11 +67,12 @@ public abstract class Scheduler implements SchedulerInterface {
     program = p;
     this.schedule = getNewSchedule(PSymGlobal.getSymmetryTracker());
     this.machines = new ArrayList<>();
+    this.machineIndex = new MachineIndex(this.machines);
     this.currentMachines = new TreeSet<>();
     this.machineCounters = new HashMap<>();
 
     for (Machine machine : machines) {
-      this.machines.add(machine);
+      this.machineIndex.add(machine);
       this.currentMachines.add(machine);
       if (this.machineCounters.containsKey(machine.getClass())) {
         this.machineCounters.put(
@@ -163,9 +166,24 @@ public abstract class Scheduler implements SchedulerInterface {
     return choices;
   }
 
+  /**
+   * Get a nondeterministic choice among candidates at the current choice depth, reusing the choice
+   * variables of the depth from the pool in a symbolic search
+   *
+   * @param candidates candidate choices
+   * @return the choice
+   */
+  protected PrimitiveVS getNondetChoice(List<PrimitiveVS> candidates) {
+    if (PSymGlobal.getConfiguration().isSymbolic()
+        && PSymGlobal.getConfiguration().isUseChoiceVarPool()) {
+      return NondetUtil.getNondetChoice(candidates, choiceDepth);
+    }
+    return NondetUtil.getNondetChoice(candidates);
+  }
+
   public PrimitiveVS<Integer> getNextInteger(List<PrimitiveVS> candidateIntegers) {
     PrimitiveVS<Integer> choices =
-        (PrimitiveVS<Integer>) NondetUtil.getNondetChoice(candidateIntegers);
+        (PrimitiveVS<Integer>) getNondetChoice(candidateIntegers);
     schedule.addRepeatInt(choices, choiceDepth);
     choiceDepth++;
     return choices;
@@ -185,7 +203,7 @@ public abstract class Scheduler implements SchedulerInterface {
 
   public PrimitiveVS<Boolean> getNextBoolean(List<PrimitiveVS> candidateBooleans) {
     PrimitiveVS<Boolean> choices =
-        (PrimitiveVS<Boolean>) NondetUtil.getNondetChoice(candidateBooleans);
+        (PrimitiveVS<Boolean>) getNondetChoice(candidateBooleans);
     schedule.addRepeatBool(choices, choiceDepth);
     choiceDepth++;
     return choices;
@@ -221,7 +239,7 @@ public abstract class Scheduler implements SchedulerInterface {
 
   public PrimitiveVS<ValueSummary> getNextElementHelper(List<ValueSummary> candidates) {
     PrimitiveVS<ValueSummary> choices =
-            NondetUtil.getNondetChoice(
+            getNondetChoice(
                     candidates.stream()
                             .map(x -> new PrimitiveVS(x).restrict(x.getUniverse()))
                             .collect(Collectors.toList()));
@@ -285,7 +303,7 @@ public abstract class Scheduler implements SchedulerInterface {
       this.machineCounters.put(machine.getClass(), new PrimitiveVS<>(1));
     }
 
-    machines.add(machine);
+    machineIndex.add(machine);
     currentMachines.add(machine);
     start = machine;
     TraceLogger.onCreateMachine(Guard.constTrue(), machine);
@@ -295,6 +313,14 @@ public abstract class Scheduler implements SchedulerInterface {
     performEffect(new Message(Event.createMachine, new PrimitiveVS<>(machine), null));
   }
 
+  /** Set up the monitors of the program, unless already done by initializing the search */
+  protected void setupMonitors() {
+    if (monitors == null) {
+      listeners = program.getListeners();
+      monitors = new ArrayList<>(program.getMonitors());
+    }
+  }
+
   public void initializeSearch() {
     assert (getDepth() == 0);
 
@@ -346,7 +372,7 @@ public abstract class Scheduler implements SchedulerInterface {
 
   protected void removeHalted() {
     // remove messages with halted target
-    for (Machine machine : machines) {
+    for (Machine machine : machineIndex.getPendingMachines()) {
       while (!machine.getEventBuffer().isEmpty()) {
         Guard targetHalted =
                 machine.getEventBuffer().satisfiesPredUnderGuard(x -> x.targetHalted()).getGuardFor(true);
@@ -365,9 +391,7 @@ public abstract class Scheduler implements SchedulerInterface {
       Function<Integer, ? extends Machine> constructor) {
     Machine newMachine = constructor.apply(IntegerVS.maxValue(guardedCount));
 
-    if (!machines.contains(newMachine)) {
-      machines.add(newMachine);
-    }
+    machineIndex.add(newMachine);
     currentMachines.add(newMachine);
     assert (machines.size() >= currentMachines.size());
 
@@ -377,6 +401,15 @@ public abstract class Scheduler implements SchedulerInterface {
     return newMachine;
   }
 
+  /**
+   * Record an update of the send buffer of a machine
+   *
+   * @param machine Machine whose send buffer was updated
+   */
+  public void updateSendBuffer(Machine machine) {
+    machineIndex.update(machine);
+  }
+
   public void runMonitors(Message event) {
     Map<Monitor, Guard> monitorConstraints = new HashMap<>();
     for (Monitor m : monitors) {
@@ -398,6 +431,22 @@ public abstract class Scheduler implements SchedulerInterface {
     }
   }
 
+  /**
+   * Check whether or not any monitor listens to an event
+   *
+   * @param event Event to check
+   * @return Whether or not the event is observed by a monitor
+   */
+  protected boolean isMonitored(Message event) {
+    for (GuardedValue<Event> e : event.getEvent().getGuardedValues()) {
+      List<Monitor> listenersForEvent = listeners.get(e.getValue());
+      if (listenersForEvent != null && !listenersForEvent.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public void performEffect(Message event) {
     for (GuardedValue<Machine> target : event.getTarget().getGuardedValues()) {
       target
@@ -159,9 +159,7 @@ public class ReplayScheduler extends Scheduler {
       Machine m = (Machine) gv.getValue();
       assert (!BooleanVS.isEverTrue(m.hasStarted().restrict(g)));
       TraceLogger.onCreateMachine(pc.and(g), m);
-      if (!machines.contains(m)) {
-        machines.add(m);
-      }
+      machineIndex.add(m);
       currentMachines.add(m);
       assert (machines.size() >= currentMachines.size());
       m.setScheduler(this);
@@ -1,5 +1,12 @@
 package psym.runtime.scheduler.search;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.*;
@@ -21,11 +28,14 @@ import psym.runtime.scheduler.Scheduler;
 import psym.runtime.scheduler.search.choiceorchestration.*;
 import psym.runtime.scheduler.search.symmetry.SymmetryMode;
 import psym.runtime.scheduler.search.taskorchestration.BacktrackTask;
+import psym.runtime.scheduler.search.taskorchestration.BacktrackTaskPool;
+import psym.runtime.scheduler.search.taskorchestration.BacktrackTaskSnapshot;
+import psym.runtime.scheduler.search.taskorchestration.ChoiceTrieNode;
 import psym.runtime.scheduler.search.taskorchestration.TaskOrchestrationMode;
+import psym.runtime.statistics.CoverageStats;
 import psym.runtime.statistics.SearchStats;
 import psym.utils.Assert;
 import psym.utils.monitor.MemoryMonitor;
-import psym.utils.random.NondetUtil;
 import psym.valuesummary.*;
 
 /** Represents the search scheduler */
@@ -47,9 +57,19 @@ public abstract class SearchScheduler extends Scheduler {
   @Getter private int latestTaskId = 0;
   private int numPendingBacktracks = 0;
   private int numPendingDataBacktracks = 0;
+  /** Node of the choice trie of the latest backtrack task */
+  private transient ChoiceTrieNode latestChoiceNode = null;
   /** Time of last report */
   @Getter @Setter
   private transient Instant lastReportTime = Instant.now();
+  /** Pool of backtrack tasks shared with other workers during a parallel search */
+  @Getter @Setter private transient BacktrackTaskPool taskPool = null;
+  /** Id of the worker running this scheduler during a parallel search */
+  @Getter @Setter private transient int workerId = 0;
+  /** Number of tasks merged from other schedulers after a parallel search */
+  private transient int numMergedTasks = 0;
+  /** Number of finished tasks merged from other schedulers after a parallel search */
+  private transient int numMergedFinishedTasks = 0;
   protected SearchScheduler(Program p) {
     super(p);
     switch (PSymGlobal.getConfiguration().getChoiceOrchestration()) {
@@ -125,6 +145,37 @@ public abstract class SearchScheduler extends Scheduler {
     }
   }
 
+  /**
+   * Search the backtracks of a task snapshot donated by another worker during a parallel search,
+   * in place of the current schedule
+   *
+   * @param snapshot Backtrack task snapshot
+   * @throws TimeoutException Throw error if search times out
+   * @throws InterruptedException Throw error if search is interrupted
+   */
+  public void searchSnapshot(BacktrackTaskSnapshot snapshot)
+      throws TimeoutException, InterruptedException {
+    if (!allTasks.isEmpty()) {
+      // initial task of the previous snapshot is the snapshot itself
+      numMergedTasks += allTasks.size() - 1;
+      numMergedFinishedTasks += finishedTasks.size() - 1;
+    }
+    allTasks.clear();
+    finishedTasks.clear();
+    latestTaskId = 0;
+    resetBacktrackTasks();
+    isDoneIterating = false;
+    readSnapshot(snapshot);
+    postIterationCleanup();
+    while (!isDoneIterating) {
+      iter++;
+      SearchLogger.logStartExecution(iter, getDepth());
+      searchStats.startNewIteration(iter, backtrackDepth);
+      performSearch();
+      summarizeIteration(backtrackDepth);
+    }
+  }
+
   @Override
   protected void performSearch() throws TimeoutException {
     schedule.setNumBacktracksInSchedule();
@@ -168,9 +219,7 @@ public abstract class SearchScheduler extends Scheduler {
         Machine m = (Machine) gv.getValue();
         assert (!BooleanVS.isEverTrue(m.hasStarted().restrict(g)));
         TraceLogger.onCreateMachine(pc.and(g), m);
-        if (!machines.contains(m)) {
-          machines.add(m);
-        }
+        machineIndex.add(m);
         currentMachines.add(m);
         assert (machines.size() >= currentMachines.size());
         m.setScheduler(this);
@@ -236,8 +285,12 @@ public abstract class SearchScheduler extends Scheduler {
     if (PSymGlobal.getConfiguration().getVerbosity() > 3) {
       SearchLogger.logIterationStats(searchStats.getIterationStats().get(iter));
     }
+    int numSchedules = (taskPool == null) ? (iter - start_iter) : taskPool.addSchedule();
     if (PSymGlobal.getConfiguration().getMaxExecutions() > 0) {
-      isDoneIterating = ((iter - start_iter) >= PSymGlobal.getConfiguration().getMaxExecutions());
+      isDoneIterating = (numSchedules >= PSymGlobal.getConfiguration().getMaxExecutions());
+      if (isDoneIterating && taskPool != null) {
+        taskPool.stop();
+      }
     }
     PSymGlobal.getCoverage()
             .updateIterationCoverage(
@@ -254,12 +307,231 @@ public abstract class SearchScheduler extends Scheduler {
         }
       }
     }
+    if (taskPool != null) {
+      if (taskPool.isStopped()) {
+        isDoneIterating = true;
+      } else {
+        donateBacktrackTasks();
+      }
+    }
     printProgress(false);
     if (!isDoneIterating) {
       postIterationCleanup();
     }
   }
 
+  /** Donate backtracks to the task pool while some worker of a parallel search is idle */
+  private void donateBacktrackTasks() throws InterruptedException {
+    while (taskPool.isHungry()) {
+      if (!pendingTasks.isEmpty()) {
+        donatePendingTask();
+        continue;
+      }
+      int shallowest = -1;
+      int numBacktrackDepths = 0;
+      for (int i = 0; i < schedule.size(); i++) {
+        if (schedule.getChoice(i).isBacktrackNonEmpty()) {
+          if (shallowest == -1) {
+            shallowest = i;
+          }
+          numBacktrackDepths++;
+        }
+      }
+      // keep the last backtrack to continue the search locally
+      if (numBacktrackDepths < 2) {
+        break;
+      }
+      donateBacktrackAtDepth(shallowest);
+    }
+    schedule.setNumBacktracksInSchedule();
+  }
+
+  /** Donate the next pending backtrack task to the task pool */
+  private void donatePendingTask() throws InterruptedException {
+    BacktrackTask task = BacktrackTask.getNextTask();
+    removePendingTask(task);
+
+    List<Schedule.Choice> originalChoices = schedule.getChoices();
+    List<CoverageStats.CoverageChoiceDepthStats> originalCoverage =
+        PSymGlobal.getCoverage().getPerChoiceDepthStats();
+    schedule.setChoices(task.getChoices());
+    PSymGlobal.getCoverage().setPerChoiceDepthStats(task.getPerChoiceDepthStats());
+    try {
+      taskPool.push(workerId, createSnapshot(task.getChoiceDepth()));
+    } finally {
+      schedule.setChoices(originalChoices);
+      PSymGlobal.getCoverage().setPerChoiceDepthStats(originalCoverage);
+    }
+    finishedTasks.add(task.getId());
+    task.cleanup();
+  }
+
+  /**
+   * Donate the backtracks at a given choice depth to the task pool
+   *
+   * @param backtrackChoiceDepth Choice depth of the backtracks to donate
+   */
+  private void donateBacktrackAtDepth(int backtrackChoiceDepth) {
+    // create a copy of original choices
+    List<Schedule.Choice> originalChoices = clearAndReturnOriginalTask(backtrackChoiceDepth);
+    // clear the complete choice information (including repeats and backtracks) at all successor
+    // depths
+    for (int i = backtrackChoiceDepth + 1; i < schedule.size(); i++) {
+      schedule.clearChoice(i);
+    }
+    try {
+      taskPool.push(workerId, createSnapshot(backtrackChoiceDepth));
+    } finally {
+      // restore schedule to original choices
+      schedule.setChoices(originalChoices);
+    }
+    schedule.clearBacktrack(backtrackChoiceDepth);
+  }
+
+  /** Schedule prefix and path coverage of a backtrack task snapshot */
+  private static class SnapshotState implements Serializable {
+    private final Schedule schedule;
+    private final ArrayList<CoverageStats.CoverageChoiceDepthStats> coverage;
+
+    private SnapshotState(
+        Schedule schedule, ArrayList<CoverageStats.CoverageChoiceDepthStats> coverage) {
+      this.schedule = schedule;
+      this.coverage = coverage;
+    }
+  }
+
+  /**
+   * Reads the state of a backtrack task snapshot, where machines already known to the reading
+   * scheduler are replaced by their instances in this scheduler
+   */
+  private static class SnapshotInputStream extends ObjectInputStream {
+    private final Map<Machine, Machine> knownMachines;
+
+    private SnapshotInputStream(InputStream in, Map<Machine, Machine> knownMachines)
+        throws IOException {
+      super(in);
+      this.knownMachines = knownMachines;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      if (obj instanceof Machine) {
+        return knownMachines.getOrDefault(obj, (Machine) obj);
+      }
+      return obj;
+    }
+  }
+
+  /**
+   * Serialize the current schedule and path coverage, i.e., the schedule prefix of the backtracks
+   * to donate, without the rest of the scheduler
+   *
+   * @param backtrackChoiceDepth Choice depth of the shallowest backtrack in the schedule
+   * @return Snapshot of the backtrack task
+   */
+  private BacktrackTaskSnapshot createSnapshot(int backtrackChoiceDepth) {
+    int numBacktracks = 0;
+    int numDataBacktracks = 0;
+    for (int i = 0; i < schedule.size(); i++) {
+      Schedule.Choice choice = schedule.getChoice(i);
+      if (choice.isBacktrackNonEmpty()) {
+        numBacktracks++;
+        if (choice.isDataBacktrackNonEmpty()) {
+          numDataBacktracks++;
+        }
+      }
+    }
+
+    ArrayList<CoverageStats.CoverageChoiceDepthStats> coverage = new ArrayList<>();
+    for (CoverageStats.CoverageChoiceDepthStats stat :
+        PSymGlobal.getCoverage().getPerChoiceDepthStats()) {
+      coverage.add(stat.getCopy());
+    }
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(bos);
+      oos.writeObject(new SnapshotState(schedule, coverage));
+      oos.close();
+      return new BacktrackTaskSnapshot(
+          bos.toByteArray(), backtrackChoiceDepth, numBacktracks, numDataBacktracks);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write backtrack snapshot", e);
+    }
+  }
+
+  /**
+   * Replace the current schedule and path coverage with those of a backtrack task snapshot
+   *
+   * @param snapshot Backtrack task snapshot
+   */
+  private void readSnapshot(BacktrackTaskSnapshot snapshot) {
+    Map<Machine, Machine> knownMachines = new HashMap<>();
+    for (Machine machine : machines) {
+      knownMachines.put(machine, machine);
+    }
+    for (Machine monitor : getProgram().getMonitors()) {
+      knownMachines.putIfAbsent(monitor, monitor);
+    }
+    knownMachines.putIfAbsent(getProgram().getStart(), getProgram().getStart());
+
+    SnapshotState state;
+    try {
+      ObjectInputStream ois =
+          new SnapshotInputStream(new ByteArrayInputStream(snapshot.getData()), knownMachines);
+      state = (SnapshotState) ois.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new RuntimeException("Failed to read backtrack snapshot", e);
+    }
+    schedule = state.schedule;
+    // add the machines in order of creation, same as in the scheduler that donated the snapshot
+    for (Machine machine : new TreeSet<>(schedule.getMachines())) {
+      machineIndex.add(machine);
+      machine.setScheduler(this);
+    }
+    setupMonitors();
+    PSymGlobal.getCoverage().setPerChoiceDepthStats(state.coverage);
+  }
+
+  /**
+   * Merge the results of a scheduler that finished searching a task snapshot
+   *
+   * @param other Scheduler to merge from
+   */
+  protected void mergeWorkerResults(SearchScheduler other) {
+    iter += other.iter - other.start_iter;
+    numMergedTasks += other.allTasks.size() + other.numMergedTasks;
+    numMergedFinishedTasks += other.finishedTasks.size() + other.numMergedFinishedTasks;
+    if (!other.allTasks.isEmpty()) {
+      // initial task of the other scheduler is the task snapshot itself
+      numMergedTasks--;
+      numMergedFinishedTasks--;
+    }
+    mergePendingBacktracks(
+        other.getTotalNumBacktracks(),
+        other.schedule.getNumDataBacktracksInSchedule() + other.numPendingDataBacktracks);
+    searchStats.merge(other.searchStats);
+  }
+
+  /**
+   * Merge the backtracks of a task snapshot left unexplored after a parallel search
+   *
+   * @param numBacktracks Number of backtracks left
+   * @param numDataBacktracks Number of data backtracks left
+   */
+  public void mergePendingBacktracks(int numBacktracks, int numDataBacktracks) {
+    numPendingBacktracks += numBacktracks;
+    numPendingDataBacktracks += numDataBacktracks;
+  }
+
+  /** Get number of schedules explored, including by all workers of a parallel search */
+  protected int getNumSchedules() {
+    if (taskPool != null) {
+      return taskPool.getNumSchedules();
+    }
+    return iter - start_iter;
+  }
+
   private void postIterationCleanup() {
     schedule.resetFilter();
     for (int d = schedule.size() - 1; d >= 0; d--) {
@@ -345,6 +617,7 @@ public abstract class SearchScheduler extends Scheduler {
     pendingTasks.clear();
     numPendingBacktracks = 0;
     numPendingDataBacktracks = 0;
+    latestChoiceNode = null;
     BacktrackTask.initialize(PSymGlobal.getConfiguration().getTaskOrchestration());
   }
 
@@ -368,6 +641,12 @@ public abstract class SearchScheduler extends Scheduler {
                       parentTask, parentTask.getDepth(), parentTask.getParentTask()));
     }
 
+    ChoiceTrieNode choiceNode =
+        ChoiceTrieNode.create(
+            (latestTaskId == 0) ? null : latestChoiceNode,
+            parentTask.getChoiceDepth(),
+            schedule.getChoices(),
+            PSymGlobal.getCoverage().getPerChoiceDepthStats());
     int numBacktracksAdded = 0;
     for (int i = 0; i < schedule.size(); i++) {
       Schedule.Choice choice = schedule.getChoice(i);
@@ -375,16 +654,16 @@ public abstract class SearchScheduler extends Scheduler {
       if (choice.isBacktrackNonEmpty()) {
         if (PSymGlobal.getConfiguration().getMaxBacktrackTasksPerExecution() > 0
                 && numBacktracksAdded == (PSymGlobal.getConfiguration().getMaxBacktrackTasksPerExecution() - 1)) {
-          setBacktrackTaskAtDepthCombined(parentTask, i);
+          setBacktrackTaskAtDepthCombined(parentTask, choiceNode, i);
           break;
         }
         if (PSymGlobal.getConfiguration().getMaxPendingBacktrackTasks() > 0
                 && pendingTasks.size() >= PSymGlobal.getConfiguration().getMaxPendingBacktrackTasks()) {
-          setBacktrackTaskAtDepthCombined(parentTask, i);
+          setBacktrackTaskAtDepthCombined(parentTask, choiceNode, i);
           break;
         }
         // top backtrack should be never combined
-        setBacktrackTaskAtDepthExact(parentTask, i);
+        setBacktrackTaskAtDepthExact(parentTask, choiceNode, i);
         numBacktracksAdded++;
       }
     }
@@ -408,43 +687,35 @@ public abstract class SearchScheduler extends Scheduler {
     assert (taskId < allTasks.size());
   }
 
-  private void setBacktrackTaskAtDepthExact(BacktrackTask parentTask, int backtrackChoiceDepth) {
-    setBacktrackTaskAtDepth(parentTask, backtrackChoiceDepth, true);
+  private void setBacktrackTaskAtDepthExact(
+          BacktrackTask parentTask, ChoiceTrieNode choiceNode, int backtrackChoiceDepth) {
+    setBacktrackTaskAtDepth(parentTask, choiceNode, backtrackChoiceDepth, true);
   }
 
-  private void setBacktrackTaskAtDepthCombined(BacktrackTask parentTask, int backtrackChoiceDepth) {
-    setBacktrackTaskAtDepth(parentTask, backtrackChoiceDepth, false);
+  private void setBacktrackTaskAtDepthCombined(
+          BacktrackTask parentTask, ChoiceTrieNode choiceNode, int backtrackChoiceDepth) {
+    setBacktrackTaskAtDepth(parentTask, choiceNode, backtrackChoiceDepth, false);
   }
 
   private void setBacktrackTaskAtDepth(
-          BacktrackTask parentTask, int backtrackChoiceDepth, boolean isExact) {
-    // create a copy of original choices
-    List<Schedule.Choice> originalChoices = clearAndReturnOriginalTask(backtrackChoiceDepth);
-    if (isExact) {
-      // clear the complete choice information (including repeats and backtracks) at all successor
-      // depths
-      for (int i = backtrackChoiceDepth + 1; i < schedule.size(); i++) {
-        schedule.clearChoice(i);
-      }
-    }
-
+          BacktrackTask parentTask,
+          ChoiceTrieNode choiceNode,
+          int backtrackChoiceDepth,
+          boolean isExact) {
     BigDecimal prefixCoverage =
             PSymGlobal.getCoverage().getPathCoverageAtDepth(backtrackChoiceDepth);
 
+    // the task only references the choices of this execution in the shared choice trie, which
+    // are copied once the task is loaded
     BacktrackTask newTask = new BacktrackTask(allTasks.size());
     newTask.setPrefixCoverage(prefixCoverage);
     newTask.setDepth(schedule.getChoice(backtrackChoiceDepth).getSchedulerDepth());
-    newTask.setChoiceDepth(backtrackChoiceDepth);
-    newTask.setChoices(schedule.getChoices());
-    newTask.setPerChoiceDepthStats(PSymGlobal.getCoverage().getPerChoiceDepthStats());
+    newTask.setChoices(choiceNode, backtrackChoiceDepth, isExact);
     newTask.setParentTask(parentTask);
     newTask.setPriority();
     allTasks.add(newTask);
     parentTask.addChild(newTask);
     addPendingTask(newTask);
-
-    // restore schedule to original choices
-    schedule.setChoices(originalChoices);
   }
 
   protected List<Schedule.Choice> clearAndReturnOriginalTask(int backtrackChoiceDepth) {
@@ -476,6 +747,7 @@ public abstract class SearchScheduler extends Scheduler {
 
     schedule.setChoices(latestTask.getChoices());
     PSymGlobal.getCoverage().setPerChoiceDepthStats(latestTask.getPerChoiceDepthStats());
+    latestChoiceNode = latestTask.getChoiceNode();
     return latestTask;
   }
 
@@ -610,7 +882,7 @@ public abstract class SearchScheduler extends Scheduler {
             schedule::getBacktrackSchedulingChoice,
             schedule::clearBacktrack,
             schedule::addRepeatSchedulingChoice,
-            schedule::addBacktrackSchedulingChoice,
+            this::addBacktrackSchedulingChoices,
             this::getNextSchedulingChoices,
             this::getNextSchedulingChoiceSummary,
             false);
@@ -697,9 +969,11 @@ public abstract class SearchScheduler extends Scheduler {
             "learn-#-qvalues", String.format("%d", PSymGlobal.getChoiceLearningStats().numQValues()));
 
     // print task statistics
-    StatWriter.log("#-tasks-finished", String.format("%d", getFinishedTasks().size()));
+    int numFinishedTasks = getFinishedTasks().size() + numMergedFinishedTasks;
+    StatWriter.log("#-tasks-finished", String.format("%d", numFinishedTasks));
     StatWriter.log(
-            "#-tasks-remaining", String.format("%d", (allTasks.size() - getFinishedTasks().size())));
+            "#-tasks-remaining",
+            String.format("%d", (allTasks.size() + numMergedTasks - numFinishedTasks)));
     StatWriter.log("#-backtracks", String.format("%d", getTotalNumBacktracks()));
     StatWriter.log("%-backtracks-data", String.format("%.2f", getTotalDataBacktracksPercent()));
     StatWriter.log("#-schedules", String.format("%d", (getIter() - getStart_iter())));
@@ -708,9 +982,19 @@ public abstract class SearchScheduler extends Scheduler {
     StatWriter.logSolverStats();
   }
 
+  /**
+   * Add the scheduling choices not chosen at a choice depth as backtracks
+   *
+   * @param backtracks Scheduling choices not chosen
+   * @param depth Choice depth
+   */
+  protected void addBacktrackSchedulingChoices(List<PrimitiveVS<Machine>> backtracks, int depth) {
+    schedule.addBacktrackSchedulingChoice(backtracks, depth);
+  }
+
   private PrimitiveVS<Machine> getNextSchedulingChoiceSummary(List<PrimitiveVS> candidates) {
     PrimitiveVS<Machine> choices =
-        (PrimitiveVS<Machine>) NondetUtil.getNondetChoice(candidates);
+        (PrimitiveVS<Machine>) getNondetChoice(candidates);
     schedule.addRepeatSchedulingChoice(choices, choiceDepth);
     choiceDepth++;
     return choices;
@@ -718,24 +1002,20 @@ public abstract class SearchScheduler extends Scheduler {
 
   protected List<PrimitiveVS> getNextSchedulingChoices() {
     // prioritize the create actions
-    for (Machine machine : machines) {
-      if (!machine.getEventBuffer().isEmpty()) {
-        Guard initCond = machine.getEventBuffer().hasCreateMachineUnderGuard().getGuardFor(true).and(schedule.getFilter());
-        if (!initCond.isFalse()) {
-          PrimitiveVS<Machine> ret = new PrimitiveVS<>(machine).restrict(initCond);
-          return new ArrayList<>(Collections.singletonList(ret));
-        }
+    for (Machine machine : machineIndex.getPendingCreateMachines()) {
+      Guard initCond = machine.getEventBuffer().hasCreateMachineUnderGuard().getGuardFor(true).and(schedule.getFilter());
+      if (!initCond.isFalse()) {
+        PrimitiveVS<Machine> ret = new PrimitiveVS<>(machine).restrict(initCond);
+        return new ArrayList<>(Collections.singletonList(ret));
       }
     }
 
     // prioritize the sync actions i.e. events that are marked as synchronous
-    for (Machine machine : machines) {
-      if (!machine.getEventBuffer().isEmpty()) {
-        Guard syncCond = machine.getEventBuffer().hasSyncEventUnderGuard().getGuardFor(true).and(schedule.getFilter());
-        if (!syncCond.isFalse()) {
-          PrimitiveVS<Machine> ret = new PrimitiveVS<>(machine).restrict(syncCond);
-          return new ArrayList<>(Collections.singletonList(ret));
-        }
+    for (Machine machine : machineIndex.getPendingSyncMachines()) {
+      Guard syncCond = machine.getEventBuffer().hasSyncEventUnderGuard().getGuardFor(true).and(schedule.getFilter());
+      if (!syncCond.isFalse()) {
+        PrimitiveVS<Machine> ret = new PrimitiveVS<>(machine).restrict(syncCond);
+        return new ArrayList<>(Collections.singletonList(ret));
       }
     }
 
@@ -743,15 +1023,13 @@ public abstract class SearchScheduler extends Scheduler {
     List<GuardedValue<Machine>> guardedMachines = new ArrayList<>();
 
     allMachinesHalted = Guard.constTrue();
-    for (Machine machine : machines) {
-      if (!machine.getEventBuffer().isEmpty()) {
-        Guard canRun =
-            machine.getEventBuffer().satisfiesPredUnderGuard(x -> x.canRun()).getGuardFor(true).and(schedule.getFilter());
-        if (!canRun.isFalse()) {
-          guardedMachines.add(new GuardedValue(machine, canRun));
-        }
-        allMachinesHalted = allMachinesHalted.and(canRun.not());
+    for (Machine machine : machineIndex.getPendingMachines()) {
+      Guard canRun =
+          machine.getEventBuffer().satisfiesPredUnderGuard(x -> x.canRun()).getGuardFor(true).and(schedule.getFilter());
+      if (!canRun.isFalse()) {
+        guardedMachines.add(new GuardedValue(machine, canRun));
       }
+      allMachinesHalted = allMachinesHalted.and(canRun.not());
     }
 
     List<PrimitiveVS> candidates = new ArrayList<>();
@@ -9,6 +9,8 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import psym.runtime.Concretizer;
 import psym.runtime.PSymGlobal;
@@ -36,15 +38,24 @@ public class ExplicitSearchScheduler extends SearchScheduler {
   private int totalStateCount = 0;
   /** Total number of distinct states */
   private int totalDistinctStateCount = 0;
-  /** Map of distinct concrete state to schedule when first visited */
-  private transient Map<Object, Integer> distinctStates = new HashMap<>();
+  /** Cache of distinct concrete states with search id and schedule when first visited */
+  @Setter private transient StateCache distinctStates = newStateCache(1);
   /** Guard corresponding on distinct states at a step */
   private transient boolean isDistinctState = true;
+  /** Id of this search among all searches of a parallel search (0 for the main search) */
+  @Setter private transient long searchId = 0;
+  /** Parallel search started by this scheduler */
+  private transient ParallelExplicitSearch parallelSearch = null;
+  /** Partial-order reduction of the search, or null if disabled */
+  private final PartialOrderReducer partialOrderReducer;
 
   public ExplicitSearchScheduler(Program p) {
     super(p);
     assert (PSymGlobal.getConfiguration().getSchChoiceBound() == 1);
     assert (PSymGlobal.getConfiguration().getDataChoiceBound() == 1);
+    PartialOrderReductionMode porMode = PSymGlobal.getConfiguration().getPartialOrderReduction();
+    partialOrderReducer =
+        (porMode == PartialOrderReductionMode.None) ? null : new PartialOrderReducer(porMode);
   }
 
   /**
@@ -72,6 +83,116 @@ public class ExplicitSearchScheduler extends SearchScheduler {
     return result;
   }
 
+  /**
+   * Write scheduler state before a parallel search, from which each worker reads its own copy of
+   * the scheduler and program
+   *
+   * @return Serialized scheduler state
+   */
+  byte[] writeWorkerCopy() {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(bos);
+      oos.writeObject(this);
+      oos.close();
+      return bos.toByteArray();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write scheduler state for parallel workers", e);
+    }
+  }
+
+  /**
+   * Read the copy of the scheduler of a parallel worker, which then searches the backtrack task
+   * snapshots taken by the worker
+   *
+   * @param data Serialized scheduler state
+   * @return A scheduler object
+   */
+  static ExplicitSearchScheduler readWorkerCopy(byte[] data) {
+    ExplicitSearchScheduler result;
+    try {
+      ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+      result = (ExplicitSearchScheduler) ois.readObject();
+      result.reinitialize();
+      result.totalStateCount = 0;
+      result.totalDistinctStateCount = 0;
+    } catch (IOException | ClassNotFoundException e) {
+      throw new RuntimeException("Failed to read scheduler state of a parallel worker", e);
+    }
+    return result;
+  }
+
+  @Override
+  public void doSearch() throws TimeoutException, InterruptedException {
+    if (PSymGlobal.getConfiguration().isParallel()) {
+      parallelSearch = new ParallelExplicitSearch(this);
+      parallelSearch.run();
+    } else {
+      super.doSearch();
+    }
+  }
+
+  /** Run the search of this scheduler as the first worker of a parallel search */
+  void searchAsWorker() throws TimeoutException, InterruptedException {
+    super.doSearch();
+  }
+
+  /**
+   * Merge the results of a scheduler that finished searching a task snapshot
+   *
+   * @param other Scheduler to merge from
+   */
+  void mergeWorkerResults(ExplicitSearchScheduler other) {
+    super.mergeWorkerResults(other);
+    totalStateCount += other.totalStateCount;
+    totalDistinctStateCount += other.totalDistinctStateCount;
+  }
+
+  /**
+   * Get the scheduler that found a bug, which differs from this scheduler if the bug is found by
+   * another worker of a parallel search
+   *
+   * @return Scheduler that found a bug
+   */
+  public ExplicitSearchScheduler getBugScheduler() {
+    if (parallelSearch != null && parallelSearch.getBugScheduler() != null) {
+      return parallelSearch.getBugScheduler();
+    }
+    return this;
+  }
+
+  /** Wait until all workers of a parallel search are finished and their results are merged */
+  public void awaitParallelSearch() {
+    if (parallelSearch != null) {
+      parallelSearch.awaitMerged();
+    }
+  }
+
+  /** Release the cache of distinct states, including its files on disk, once the search is over */
+  public void closeStateCache() {
+    if (distinctStates != null) {
+      distinctStates.close();
+    }
+  }
+
+  /**
+   * Make a new cache of distinct states for the configured state caching mode
+   *
+   * @param numSegments Number of independently locked segments of the cache
+   * @return A state cache
+   */
+  static StateCache newStateCache(int numSegments) {
+    return new StateCache(
+        numSegments,
+        PSymGlobal.getConfiguration().getStateCachingMode() == StateCachingMode.ExplicitExact,
+        PSymGlobal.getConfiguration().getOutputFolder() + "/states",
+        PSymGlobal.getConfiguration().getMaxStatesInMemory());
+  }
+
+  public int getTotalDistinctStateCount() {
+    return totalDistinctStateCount;
+  }
+
   @Override
   protected void step() throws TimeoutException {
     srcState.clear();
@@ -108,7 +229,7 @@ public class ExplicitSearchScheduler extends SearchScheduler {
       }
     }
 
-    if (PSymGlobal.getConfiguration().getSymmetryMode() != SymmetryMode.None) {
+    if (PSymGlobal.getConfiguration().getSymmetryMode() == SymmetryMode.Full) {
       PSymGlobal.getSymmetryTracker().mergeAllSymmetryClasses();
     }
 
@@ -122,10 +243,18 @@ public class ExplicitSearchScheduler extends SearchScheduler {
 
     removeHalted();
 
+    int schedulingChoiceDepth = getChoiceDepth();
+    if (partialOrderReducer != null) {
+      partialOrderReducer.beginChoice();
+    }
     PrimitiveVS<Machine> schedulingChoices = getNextSchedulingChoice();
 
     if (schedulingChoices.isEmptyVS()) {
       done = Guard.constTrue();
+      if (partialOrderReducer != null && partialOrderReducer.isBlocked()) {
+        // early termination since all continuations are covered by other executions
+        terminalLivenessEnabled = false;
+      }
       SearchLogger.finishedExecution(depth);
     }
 
@@ -147,6 +276,9 @@ public class ExplicitSearchScheduler extends SearchScheduler {
     Machine machine = schedulingChoice.getValue();
     Guard guard = schedulingChoice.getGuard();
     Message removed = rmBuffer(machine, guard);
+    if (partialOrderReducer != null) {
+      partialOrderReducer.beginStep(machine, removed);
+    }
 
     if (PSymGlobal.getConfiguration().getVerbosity() > 5) {
       System.out.println("  Machine " + machine);
@@ -170,6 +302,12 @@ public class ExplicitSearchScheduler extends SearchScheduler {
 
     performEffect(effect);
 
+    if (partialOrderReducer != null) {
+      // data choices made by the handler follow the scheduling choice
+      partialOrderReducer.finishStep(
+          schedule, schedulingChoiceDepth, getChoiceDepth() > schedulingChoiceDepth + 1);
+    }
+
     // simplify engine
     //        SolverEngine.simplifyEngineAuto();
 
@@ -177,6 +315,9 @@ public class ExplicitSearchScheduler extends SearchScheduler {
     //        SolverEngine.switchEngineAuto();
 
     double memoryUsed = MemoryMonitor.getMemSpent();
+    if ((MemoryMonitor.getMemLimit() > 0) && (memoryUsed > (0.8 * MemoryMonitor.getMemLimit()))) {
+      distinctStates.spill();
+    }
 
     // record depth statistics
     SearchStats.DepthStats depthStats =
@@ -250,6 +391,52 @@ public class ExplicitSearchScheduler extends SearchScheduler {
     }
   }
 
+  @Override
+  protected List<PrimitiveVS> getNextSchedulingChoices() {
+    List<PrimitiveVS> candidates = super.getNextSchedulingChoices();
+    if (partialOrderReducer != null) {
+      candidates = partialOrderReducer.reduceCandidates(schedule, getChoiceDepth(), candidates);
+    }
+    return candidates;
+  }
+
+  @Override
+  protected void addBacktrackSchedulingChoices(List<PrimitiveVS<Machine>> backtracks, int depth) {
+    if (partialOrderReducer != null) {
+      backtracks = partialOrderReducer.getBacktracks(backtracks);
+    }
+    super.addBacktrackSchedulingChoices(backtracks, depth);
+  }
+
+  @Override
+  public PrimitiveVS<Machine> allocateMachine(
+      Guard pc,
+      Class<? extends Machine> machineType,
+      Function<Integer, ? extends Machine> constructor) {
+    if (partialOrderReducer != null) {
+      partialOrderReducer.recordCreate(machineType);
+    }
+    // machines are reused by index, which is thus the same for the same machine in every worker
+    return super.allocateMachine(
+        pc,
+        machineType,
+        index -> {
+          Machine machine = constructor.apply(index);
+          machine.useSharedId(index);
+          // a worker may already have the machine from a snapshot it searched before
+          int known = machines.indexOf(machine);
+          return (known < 0) ? machine : machines.get(known);
+        });
+  }
+
+  @Override
+  public void runMonitors(Message event) {
+    if (partialOrderReducer != null && isMonitored(event)) {
+      partialOrderReducer.recordMonitored();
+    }
+    super.runMonitors(event);
+  }
+
   @Override
   protected void printCurrentStatus(double newRuntime) {
     StringBuilder s = new StringBuilder(100);
@@ -261,7 +448,7 @@ public class ExplicitSearchScheduler extends SearchScheduler {
 
     s.append(String.format("\n      Progress:         %.12f",
             PSymGlobal.getCoverage().getEstimatedCoverage(12)));
-    s.append(String.format("\n      Schedules:        %d", (getIter() - getStart_iter())));
+    s.append(String.format("\n      Schedules:        %d", getNumSchedules()));
     s.append(String.format("\n      Finished:         %d", getFinishedTasks().size()));
     s.append(String.format("\n      Remaining:        %d", getTotalNumBacktracks()));
 
@@ -297,6 +484,10 @@ public class ExplicitSearchScheduler extends SearchScheduler {
 
   @Override
   protected void printProgress(boolean forcePrint) {
+    if (searchId != 0) {
+      // only the main search reports progress
+      return;
+    }
     if (forcePrint || (TimeMonitor.getInstance().findInterval(getLastReportTime()) > 5)) {
       setLastReportTime(Instant.now());
       double newRuntime = TimeMonitor.getInstance().getRuntime();
@@ -323,7 +514,7 @@ public class ExplicitSearchScheduler extends SearchScheduler {
             StringUtils.center(String.format("%.1f GB", MemoryMonitor.getMemSpent() / 1024), 9));
         s.append(StringUtils.center(String.format("%d", getDepth()), 7));
 
-        s.append(StringUtils.center(String.format("%d", (getIter() - getStart_iter())), 12));
+        s.append(StringUtils.center(String.format("%d", getNumSchedules()), 12));
         s.append(
             StringUtils.center(
                 String.format(
@@ -361,6 +552,8 @@ public class ExplicitSearchScheduler extends SearchScheduler {
     // print states statistics
     StatWriter.log("#-states", String.format("%d", totalStateCount));
     StatWriter.log("#-distinct-states", String.format("%d", totalDistinctStateCount));
+    StatWriter.log(
+        "#-distinct-states-on-disk", String.format("%d", distinctStates.getSpilledSize()));
 
     // print symmetry statistics
     StatWriter.log("#-pruned-symmetry", String.format("%d", ExplicitSymmetryTracker.getPruneCount()));
@@ -441,10 +634,10 @@ public class ExplicitSearchScheduler extends SearchScheduler {
   }
 
   /** Reinitialize scheduler */
-  private void reinitialize() {
+  void reinitialize() {
     // set all transient data structures
     srcState = new HashMap<>();
-    distinctStates = new HashMap<>();
+    distinctStates = newStateCache(1);
     isDistinctState = true;
     for (Machine machine : schedule.getMachines()) {
       machine.setScheduler(this);
@@ -570,39 +763,74 @@ public class ExplicitSearchScheduler extends SearchScheduler {
       return new int[] {0, 0, -1};
     }
 
-    List<List<Object>> globalStateConcrete = new ArrayList<>();
-    for (Machine m : currentMachines) {
+    // concrete state is only kept for exact verification or logging
+    List<List<Object>> globalStateConcrete = null;
+    if ((mode == StateCachingMode.ExplicitExact)
+        || (PSymGlobal.getConfiguration().getVerbosity() > 4)) {
+      globalStateConcrete = new ArrayList<>();
+    }
+    // with canonical symmetry, each machine's place is taken by the one mapped to it, with renamed
+    // machine references
+    Map<Machine, Machine> canonicalMapping = Collections.emptyMap();
+    Map<Machine, Machine> canonicalPlaces = Collections.emptyMap();
+    if (PSymGlobal.getConfiguration().getSymmetryMode() == SymmetryMode.Canonical) {
+      canonicalMapping = ExplicitSymmetryTracker.getCanonicalMapping(currentMachines, srcState);
+      canonicalPlaces = new HashMap<>();
+      for (Map.Entry<Machine, Machine> entry : canonicalMapping.entrySet()) {
+        canonicalPlaces.put(entry.getValue(), entry.getKey());
+      }
+    }
+    long fingerprint = currentMachines.size();
+    for (Machine place : currentMachines) {
+      Machine m = canonicalPlaces.getOrDefault(place, place);
       assert (srcState.containsKey(m));
       List<ValueSummary> machineStateSymbolic = srcState.get(m).getLocals();
-      List<Object> machineStateConcrete = new ArrayList<>();
+      List<Object> machineStateConcrete = null;
+      if (globalStateConcrete != null) {
+        machineStateConcrete = new ArrayList<>();
+        globalStateConcrete.add(machineStateConcrete);
+      }
+      long machineFingerprint = machineStateSymbolic.size();
       for (int j = 0; j < machineStateSymbolic.size(); j++) {
+        ValueSummary local = machineStateSymbolic.get(j);
+        if (!canonicalMapping.isEmpty()) {
+          local = local.swap(canonicalMapping);
+        }
         Object varValue = null;
+        int varHash;
         if (mode == StateCachingMode.ExplicitFast) {
-          varValue = machineStateSymbolic.get(j).getConcreteHash();
+          varHash = local.getConcreteHash();
+          varValue = varHash;
         } else {
-          GuardedValue<?> guardedValue = Concretizer.concretize(machineStateSymbolic.get(j));
+          GuardedValue<?> guardedValue = Concretizer.concretize(local);
           if (guardedValue != null) {
             varValue = guardedValue.getValue();
           }
+          varHash = Objects.hashCode(varValue);
+        }
+        machineFingerprint = StateCache.combine(machineFingerprint, varHash);
+        if (machineStateConcrete != null) {
+          machineStateConcrete.add(varValue);
         }
-        machineStateConcrete.add(varValue);
       }
-      globalStateConcrete.add(machineStateConcrete);
+      fingerprint = StateCache.combine(fingerprint, machineFingerprint);
     }
+    fingerprint = StateCache.mix(fingerprint);
 
-    String concreteState = globalStateConcrete.toString();
     totalStateCount += 1;
-    if (distinctStates.containsKey(concreteState)) {
+    long visit = (searchId << 32) | getIter();
+    long firstVisit = distinctStates.putIfAbsent(fingerprint, globalStateConcrete, visit);
+    if (firstVisit != StateCache.NOT_FOUND) {
       if (PSymGlobal.getConfiguration().getVerbosity() > 5) {
         PSymLogger.info("Repeated State: " + getConcreteStateString(globalStateConcrete));
       }
       isDistinctState = false;
-      return new int[] {1, 0, distinctStates.get(concreteState)};
+      int firstVisitIter = ((firstVisit >>> 32) == searchId) ? (int) firstVisit : -1;
+      return new int[] {1, 0, firstVisitIter};
     } else {
       if (PSymGlobal.getConfiguration().getVerbosity() > 4) {
         PSymLogger.info("New State:      " + getConcreteStateString(globalStateConcrete));
       }
-      distinctStates.put(concreteState, getIter());
       totalDistinctStateCount += 1;
       isDistinctState = true;
       return new int[] {1, 1, -1};
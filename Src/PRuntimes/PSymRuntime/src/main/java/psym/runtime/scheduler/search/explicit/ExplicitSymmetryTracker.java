@@ -4,6 +4,7 @@ import java.util.*;
 import lombok.Getter;
 import psym.runtime.PSymGlobal;
 import psym.runtime.machine.Machine;
+import psym.runtime.machine.MachineLocalState;
 import psym.runtime.machine.Monitor;
 import psym.runtime.scheduler.search.symmetry.SymmetryTracker;
 import psym.valuesummary.*;
@@ -344,6 +345,59 @@ public class ExplicitSymmetryTracker extends SymmetryTracker {
     return true;
   }
 
+  /**
+   * Get the canonical permutation of the symmetric machines in a state, which sorts the machines of
+   * each symmetric type by a fingerprint of their local state, such that symmetric states have the
+   * same image under their canonical permutations (up to ties between fingerprints).
+   *
+   * <p>The fingerprint of a machine does not depend on the identities of symmetric machines, since
+   * it is computed after mapping every symmetric machine to a representative of its type. Sorting
+   * costs O(n log n) per type, instead of checking each pair of machines by swapping them.
+   *
+   * @param machines machines in the state, in creation order
+   * @param states local state of each machine
+   * @return mapping from each machine to the one whose place it takes, without fixed points
+   */
+  public static Map<Machine, Machine> getCanonicalMapping(
+      Collection<Machine> machines, Map<Machine, MachineLocalState> states) {
+    Map<String, List<Machine>> typeToMachines = new HashMap<>();
+    Map<Machine, Machine> representatives = new HashMap<>();
+    for (Machine m : machines) {
+      if (typeToAllSymmetricMachines.containsKey(m.getName())) {
+        List<Machine> symMachines =
+            typeToMachines.computeIfAbsent(m.getName(), k -> new ArrayList<>());
+        representatives.put(m, symMachines.isEmpty() ? m : symMachines.get(0));
+        symMachines.add(m);
+      }
+    }
+
+    Map<Machine, Machine> mapping = new HashMap<>();
+    for (List<Machine> symMachines : typeToMachines.values()) {
+      if (symMachines.size() < 2) {
+        continue;
+      }
+      Map<Machine, Long> fingerprints = new HashMap<>();
+      for (Machine m : symMachines) {
+        long fingerprint = 0;
+        for (ValueSummary local : states.get(m).getLocals()) {
+          fingerprint =
+              StateCache.combine(fingerprint, local.swap(representatives).getConcreteHash());
+        }
+        fingerprints.put(m, fingerprint);
+      }
+      List<Machine> sorted = new ArrayList<>(symMachines);
+      sorted.sort(
+          Comparator.comparingLong((Machine m) -> fingerprints.get(m))
+              .thenComparingInt(Machine::getInstanceId));
+      for (int i = 0; i < sorted.size(); i++) {
+        if (sorted.get(i) != symMachines.get(i)) {
+          mapping.put(sorted.get(i), symMachines.get(i));
+        }
+      }
+    }
+    return mapping;
+  }
+
   private void getMappingWithDependencies(Machine m1, Machine m2, Map<Machine, Machine> mapping) {
     assert (m1 != m2);
     mapping.put(m1, m2);
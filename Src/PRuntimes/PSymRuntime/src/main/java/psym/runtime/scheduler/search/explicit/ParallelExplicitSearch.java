@@ -0,0 +1,247 @@
+package psym.runtime.scheduler.search.explicit;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import psym.runtime.PSymGlobal;
+import psym.runtime.logger.PSymLogger;
+import psym.runtime.scheduler.search.taskorchestration.BacktrackTaskPool;
+import psym.runtime.scheduler.search.taskorchestration.BacktrackTaskSnapshot;
+import psym.runtime.statistics.CoverageStats;
+import psym.utils.exception.BugFoundException;
+import psym.valuesummary.solvers.SolverEngine;
+
+/**
+ * Represents a parallel explicit-state search, where multiple workers explore the backtracks of
+ * a shared work-stealing pool of backtrack tasks.
+ *
+ * <p>The first worker starts the search with the main scheduler, and every worker donates
+ * backtracks to the pool whenever some other worker is idle. Each worker has its own solver
+ * engine, guard table and coverage statistics, and its own copy of the scheduler and program, read
+ * once from the main scheduler before the search. A task snapshot only holds the schedule prefix
+ * and path coverage of its backtracks, which the worker searches in place of the schedule of its
+ * copy. Distinct states are tracked in a segmented state cache shared by all workers.
+ */
+class ParallelExplicitSearch {
+  /** Main scheduler, into which the results of all workers are merged */
+  private final ExplicitSearchScheduler mainScheduler;
+
+  private final int numWorkers;
+  private final BacktrackTaskPool taskPool;
+  /** Cache of distinct concrete states with search id and schedule when first visited */
+  private final StateCache distinctStates;
+  /** Id of the latest search started by any worker */
+  private final AtomicLong latestSearchId = new AtomicLong(0);
+  /** Serialized main scheduler before the search, copied by each worker */
+  private byte[] workerCopy = null;
+  /** Scheduler searching the task snapshots taken by each worker */
+  private final ExplicitSearchScheduler[] workerSchedulers;
+  /** Coverage statistics of each worker */
+  private final CoverageStats[] workerCoverage;
+  /** Signals that the results of all workers are merged */
+  private final CountDownLatch merged = new CountDownLatch(1);
+  /** Scheduler that found a bug, if any */
+  @Getter private ExplicitSearchScheduler bugScheduler = null;
+  /** Serialized scheduler and exception of a bug found by a worker search */
+  private byte[] bugReport = null;
+  /** First failure in any worker */
+  private Throwable failure = null;
+
+  ParallelExplicitSearch(ExplicitSearchScheduler mainScheduler) {
+    this.mainScheduler = mainScheduler;
+    this.numWorkers = PSymGlobal.getConfiguration().getNumWorkers();
+    this.taskPool = new BacktrackTaskPool(numWorkers);
+    this.distinctStates = ExplicitSearchScheduler.newStateCache(numWorkers * 16);
+    this.workerSchedulers = new ExplicitSearchScheduler[numWorkers];
+    this.workerCoverage = new CoverageStats[numWorkers];
+  }
+
+  /**
+   * Run the parallel search, with the first worker on the current thread
+   *
+   * @throws TimeoutException Throw error if search times out
+   * @throws InterruptedException Throw error if search is interrupted
+   */
+  void run() throws TimeoutException, InterruptedException {
+    PSymLogger.info(String.format("... Searching with %d parallel workers", numWorkers));
+    workerCopy = mainScheduler.writeWorkerCopy();
+    ExecutorService executor = Executors.newFixedThreadPool(numWorkers - 1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 1; i < numWorkers; i++) {
+        final int workerId = i;
+        futures.add(executor.submit(() -> runWorker(workerId)));
+      }
+      mainScheduler.setDistinctStates(distinctStates);
+      mainScheduler.setTaskPool(taskPool);
+      try {
+        mainScheduler.searchAsWorker();
+      } catch (Throwable e) {
+        recordFailure(mainScheduler, e);
+      }
+      runWorker(0);
+    } finally {
+      taskPool.stop();
+      executor.shutdown();
+      for (Future<?> future : futures) {
+        awaitUninterruptibly(future);
+      }
+      mergeResults();
+      merged.countDown();
+    }
+    rethrowFailure();
+  }
+
+  /** Wait until the results of all workers are merged into the main scheduler */
+  void awaitMerged() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        merged.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Search the tasks of the pool until the pool is exhausted or the search is stopped
+   *
+   * @param workerId Id of the worker
+   */
+  private void runWorker(int workerId) {
+    PSymGlobal.initializeWorker();
+    SolverEngine.initializeWorker();
+    try {
+      ExplicitSearchScheduler scheduler = null;
+      BacktrackTaskSnapshot snapshot;
+      while ((snapshot = taskPool.take(workerId)) != null) {
+        if (scheduler == null) {
+          scheduler = ExplicitSearchScheduler.readWorkerCopy(workerCopy);
+          scheduler.setTaskPool(taskPool);
+          scheduler.setWorkerId(workerId);
+          scheduler.setDistinctStates(distinctStates);
+          workerSchedulers[workerId] = scheduler;
+        }
+        scheduler.setSearchId(latestSearchId.incrementAndGet());
+        try {
+          scheduler.searchSnapshot(snapshot);
+        } catch (Throwable e) {
+          recordFailure(scheduler, e);
+          break;
+        }
+      }
+    } catch (Throwable e) {
+      recordFailure(null, e);
+    } finally {
+      workerCoverage[workerId] = PSymGlobal.getCoverage();
+      SolverEngine.clearWorker();
+      PSymGlobal.clearWorker();
+    }
+  }
+
+  /**
+   * Record a failure in a worker and stop all workers
+   *
+   * @param scheduler Scheduler that failed
+   * @param e Failure
+   */
+  private void recordFailure(ExplicitSearchScheduler scheduler, Throwable e) {
+    synchronized (this) {
+      if (e instanceof BugFoundException && bugScheduler == null && bugReport == null) {
+        if (scheduler == mainScheduler) {
+          bugScheduler = scheduler;
+        } else {
+          // guards of a worker are confined to its solver engine, so hand over a serialized copy
+          bugReport = writeBugReport(scheduler, (BugFoundException) e);
+        }
+        failure = e;
+      } else if (failure == null) {
+        failure = e;
+      }
+    }
+    taskPool.stop();
+  }
+
+  private byte[] writeBugReport(ExplicitSearchScheduler scheduler, BugFoundException e) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(bos);
+      oos.writeObject(scheduler);
+      oos.writeObject(e);
+      oos.close();
+      return bos.toByteArray();
+    } catch (IOException ex) {
+      throw new RuntimeException("Failed to write bug report of a parallel worker", ex);
+    }
+  }
+
+  /** Merge the results of all workers into the main scheduler and the global statistics */
+  private void mergeResults() {
+    for (int i = 0; i < numWorkers; i++) {
+      if (workerSchedulers[i] != null) {
+        mainScheduler.mergeWorkerResults(workerSchedulers[i]);
+      }
+      if (workerCoverage[i] != null && workerCoverage[i] != PSymGlobal.getCoverage()) {
+        PSymGlobal.getCoverage().merge(workerCoverage[i]);
+      }
+    }
+    for (BacktrackTaskSnapshot snapshot : taskPool.drain()) {
+      mainScheduler.mergePendingBacktracks(
+          snapshot.getNumBacktracks(), snapshot.getNumDataBacktracks());
+    }
+    if (bugReport != null) {
+      try {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bugReport));
+        ExplicitSearchScheduler scheduler = (ExplicitSearchScheduler) ois.readObject();
+        failure = (BugFoundException) ois.readObject();
+        scheduler.reinitialize();
+        SolverEngine.resumeEngine();
+        bugScheduler = scheduler;
+      } catch (IOException | ClassNotFoundException e) {
+        throw new RuntimeException("Failed to read bug report of a parallel worker", e);
+      }
+    }
+  }
+
+  private void rethrowFailure() throws TimeoutException, InterruptedException {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof TimeoutException) {
+      throw (TimeoutException) failure;
+    } else if (failure instanceof InterruptedException) {
+      throw (InterruptedException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new RuntimeException("Parallel worker failed", failure);
+  }
+
+  private static void awaitUninterruptibly(Future<?> future) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        future.get();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      } catch (ExecutionException e) {
+        // failures are recorded by the worker itself
+        break;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
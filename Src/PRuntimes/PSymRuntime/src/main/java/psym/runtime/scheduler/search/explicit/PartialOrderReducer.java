@@ -0,0 +1,259 @@
+package psym.runtime.scheduler.search.explicit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import psym.runtime.machine.Machine;
+import psym.runtime.machine.events.Message;
+import psym.runtime.scheduler.Schedule;
+import psym.valuesummary.PrimitiveVS;
+
+/**
+ * Implements partial-order reduction of the explicit-state search.
+ *
+ * <p>The footprint of each scheduling step is recorded while the step executes, and stored in the
+ * partial-order state of its scheduling choice. Sleep sets skip a machine at a choice if its next
+ * step was already explored from the choice (or from an ancestor choice) and no dependent step
+ * executed since. With dynamic partial-order reduction, a new choice only schedules one machine,
+ * and a machine is added as backtrack to an earlier choice only if its step races with the step
+ * of that choice (source-DPOR), using the happens-before relation of the current execution.
+ */
+public class PartialOrderReducer implements Serializable {
+  private final PartialOrderReductionMode mode;
+  /** Sleep set after the latest step, used by the next new scheduling choice */
+  private Map<Machine, StepFootprint> nextSleepSet = new LinkedHashMap<>();
+  /** Whether or not the latest scheduling choice generated new choices */
+  @Getter private boolean newChoice = false;
+  /** Whether or not all candidates of the latest scheduling choice were covered */
+  @Getter private boolean blocked = false;
+  /** Machine scheduled by the current step */
+  private Machine stepMachine = null;
+  /** Machines accessed by the current step */
+  private final Set<Machine> stepMachines = new HashSet<>();
+  /** Types of machines created by the current step */
+  private final Set<Class<? extends Machine>> stepCreatedTypes = new HashSet<>();
+  /** Whether or not the current step is observed by a monitor */
+  private boolean stepMonitored = false;
+
+  public PartialOrderReducer(PartialOrderReductionMode mode) {
+    assert (mode != PartialOrderReductionMode.None);
+    this.mode = mode;
+  }
+
+  private PartialOrderState getState(Schedule schedule, int depth) {
+    if (depth >= schedule.size()) {
+      schedule.getChoices().add(schedule.newChoice());
+    }
+    Schedule.Choice choice = schedule.getChoice(depth);
+    if (choice.getPartialOrderState() == null) {
+      choice.setPartialOrderState(new PartialOrderState(nextSleepSet));
+    }
+    return choice.getPartialOrderState();
+  }
+
+  /** Start a new scheduling choice */
+  public void beginChoice() {
+    newChoice = false;
+    blocked = false;
+  }
+
+  /**
+   * Remove the candidates of a new scheduling choice that are covered by other executions
+   *
+   * @param schedule Schedule of the search
+   * @param depth Choice depth of the scheduling choice
+   * @param candidates Candidate machines that can be scheduled, each a single machine
+   * @return Candidates that are not covered
+   */
+  public <T extends PrimitiveVS<?>> List<T> reduceCandidates(
+      Schedule schedule, int depth, List<T> candidates) {
+    PartialOrderState state = getState(schedule, depth);
+    List<Machine> enabled = new ArrayList<>();
+    List<T> result = new ArrayList<>();
+    for (T candidate : candidates) {
+      Machine machine = (Machine) candidate.getGuardedValues().get(0).getValue();
+      enabled.add(machine);
+      if (!state.isCovered(machine)) {
+        result.add(candidate);
+      }
+    }
+    state.setEnabled(enabled);
+    newChoice = true;
+    blocked = result.isEmpty() && !candidates.isEmpty();
+    return result;
+  }
+
+  /**
+   * Get the scheduling choices to backtrack to, among the ones not chosen at the latest choice
+   *
+   * @param backtracks Scheduling choices not chosen
+   * @return Scheduling choices to add as backtracks
+   */
+  public List<PrimitiveVS<Machine>> getBacktracks(List<PrimitiveVS<Machine>> backtracks) {
+    if (mode == PartialOrderReductionMode.Dynamic && newChoice) {
+      // backtracks of new choices are added lazily, once they race with a later step
+      return Collections.emptyList();
+    }
+    return backtracks;
+  }
+
+  /**
+   * Start recording the footprint of a step
+   *
+   * @param machine Machine scheduled by the step
+   * @param message Message dequeued from the send buffer of the machine
+   */
+  public void beginStep(Machine machine, Message message) {
+    stepMachine = machine;
+    stepMachines.clear();
+    stepMachines.addAll(message.getTarget().getValues());
+    stepCreatedTypes.clear();
+    stepMonitored = false;
+  }
+
+  /**
+   * Record a machine creation by the current step
+   *
+   * @param machineType Type of the created machine
+   */
+  public void recordCreate(Class<? extends Machine> machineType) {
+    stepCreatedTypes.add(machineType);
+  }
+
+  /** Record an event of the current step that is observed by a monitor */
+  public void recordMonitored() {
+    stepMonitored = true;
+  }
+
+  /**
+   * Finish recording the footprint of a step, computing the sleep set after the step and, with
+   * dynamic partial-order reduction, the backtracks of the races of the step
+   *
+   * @param schedule Schedule of the search
+   * @param depth Choice depth of the scheduling choice of the step
+   * @param opaque Whether or not the step made data choices
+   */
+  public void finishStep(Schedule schedule, int depth, boolean opaque) {
+    PartialOrderState state = getState(schedule, depth);
+    StepFootprint footprint =
+        new StepFootprint(stepMachine, stepMachines, stepCreatedTypes, stepMonitored, opaque);
+    state.setFootprint(footprint);
+
+    Map<Machine, StepFootprint> sleepSet = new LinkedHashMap<>();
+    addIndependent(sleepSet, state.getSleepSet(), footprint);
+    addIndependent(sleepSet, state.getExplored(), footprint);
+    nextSleepSet = sleepSet;
+    state.getExplored().put(stepMachine, footprint);
+
+    if (mode == PartialOrderReductionMode.Dynamic) {
+      addRaceBacktracks(schedule, depth, state);
+    }
+  }
+
+  private static void addIndependent(
+      Map<Machine, StepFootprint> result,
+      Map<Machine, StepFootprint> steps,
+      StepFootprint footprint) {
+    for (Map.Entry<Machine, StepFootprint> entry : steps.entrySet()) {
+      if (!entry.getKey().equals(footprint.getMachine())
+          && !entry.getValue().isDependent(footprint)) {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private static StepFootprint getFootprint(Schedule schedule, int depth) {
+    PartialOrderState state = schedule.getChoice(depth).getPartialOrderState();
+    return (state == null) ? null : state.getFootprint();
+  }
+
+  /**
+   * Compute the happens-before relation of a step with all earlier steps of the execution, and add
+   * backtracks for the earlier steps it races with
+   */
+  private void addRaceBacktracks(Schedule schedule, int depth, PartialOrderState state) {
+    StepFootprint footprint = state.getFootprint();
+    BitSet happensBefore = new BitSet();
+    List<Integer> races = new ArrayList<>();
+    for (int i = depth - 1; i >= 0; i--) {
+      StepFootprint other = getFootprint(schedule, i);
+      if (other == null || !other.isDependent(footprint)) {
+        continue;
+      }
+      // a dependent step races with this step unless they are ordered through a later step
+      if (!happensBefore.get(i) && !other.getMachine().equals(footprint.getMachine())) {
+        races.add(i);
+      }
+      happensBefore.or(schedule.getChoice(i).getPartialOrderState().getHappensBefore());
+    }
+    happensBefore.set(depth);
+    state.setHappensBefore(happensBefore);
+
+    for (int i : races) {
+      addRaceBacktrack(schedule, i, depth);
+    }
+  }
+
+  /**
+   * Add a backtrack to the choice of an earlier step that races with a step, unless one of the
+   * machines that can start the reversed race is already covered at that choice
+   */
+  private void addRaceBacktrack(Schedule schedule, int raceDepth, int depth) {
+    // machines of the first steps after the race that do not happen after it
+    List<Integer> notAfter = new ArrayList<>();
+    List<Machine> initials = new ArrayList<>();
+    for (int k = raceDepth + 1; k <= depth; k++) {
+      StepFootprint footprint = getFootprint(schedule, k);
+      if (footprint == null) {
+        continue;
+      }
+      BitSet happensBefore = schedule.getChoice(k).getPartialOrderState().getHappensBefore();
+      if (k != depth && happensBefore.get(raceDepth)) {
+        continue;
+      }
+      boolean isInitial = true;
+      for (int prev : notAfter) {
+        if (happensBefore.get(prev)) {
+          isInitial = false;
+          break;
+        }
+      }
+      notAfter.add(k);
+      if (isInitial) {
+        initials.add(footprint.getMachine());
+      }
+    }
+
+    Schedule.Choice choice = schedule.getChoice(raceDepth);
+    PartialOrderState state = choice.getPartialOrderState();
+    Set<Machine> covered = new HashSet<>(state.getSleepSet().keySet());
+    covered.addAll(state.getExplored().keySet());
+    for (PrimitiveVS<Machine> backtrack : choice.getBacktrackSchedulingChoice()) {
+      covered.addAll(backtrack.getValues());
+    }
+    for (Machine machine : initials) {
+      if (covered.contains(machine)) {
+        return;
+      }
+    }
+    for (Machine machine : initials) {
+      if (state.getEnabled().contains(machine)) {
+        choice.addBacktrackSchedulingChoice(new PrimitiveVS<>(machine));
+        return;
+      }
+    }
+    // the reversed race cannot start with a single machine, so try all of them
+    for (Machine machine : state.getEnabled()) {
+      if (!covered.contains(machine)) {
+        choice.addBacktrackSchedulingChoice(new PrimitiveVS<>(machine));
+      }
+    }
+  }
+}
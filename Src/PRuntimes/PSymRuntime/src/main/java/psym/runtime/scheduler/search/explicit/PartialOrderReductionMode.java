@@ -0,0 +1,7 @@
+package psym.runtime.scheduler.search.explicit;
+
+public enum PartialOrderReductionMode {
+  None,
+  SleepSets,
+  Dynamic
+}
@@ -0,0 +1,52 @@
+package psym.runtime.scheduler.search.explicit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import psym.runtime.machine.Machine;
+
+/** Represents the partial-order reduction state at a scheduling choice of the explicit search */
+public class PartialOrderState implements Serializable {
+  /** Machines whose next step is covered by other executions, with the footprints of the steps */
+  @Getter private final Map<Machine, StepFootprint> sleepSet;
+  /** Machines scheduled at this choice so far, with the footprints of their steps */
+  @Getter private final Map<Machine, StepFootprint> explored;
+  /** Machines that could be scheduled at this choice */
+  @Getter @Setter private List<Machine> enabled = new ArrayList<>();
+  /** Footprint of the step of the current scheduling choice */
+  @Getter @Setter private StepFootprint footprint = null;
+  /** Choice depths of the steps that happen before the current step, including itself */
+  @Getter @Setter private BitSet happensBefore = new BitSet();
+
+  public PartialOrderState(Map<Machine, StepFootprint> sleepSet) {
+    this.sleepSet = new LinkedHashMap<>(sleepSet);
+    this.explored = new LinkedHashMap<>();
+  }
+
+  private PartialOrderState(PartialOrderState old) {
+    this.sleepSet = new LinkedHashMap<>(old.sleepSet);
+    this.explored = new LinkedHashMap<>(old.explored);
+    this.enabled = new ArrayList<>(old.enabled);
+    this.footprint = old.footprint;
+    this.happensBefore = (BitSet) old.happensBefore.clone();
+  }
+
+  public PartialOrderState getCopy() {
+    return new PartialOrderState(this);
+  }
+
+  /**
+   * Check whether or not scheduling a machine at this choice is covered by other executions
+   *
+   * @param machine Machine to check
+   * @return Whether or not the machine is asleep or was already scheduled at this choice
+   */
+  public boolean isCovered(Machine machine) {
+    return sleepSet.containsKey(machine) || explored.containsKey(machine);
+  }
+}
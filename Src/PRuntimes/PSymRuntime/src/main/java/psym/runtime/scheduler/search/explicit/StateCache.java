@@ -0,0 +1,563 @@
+package psym.runtime.scheduler.search.explicit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Represents the cache of distinct states visited during an explicit-state search.
+ *
+ * <p>Each state is stored as a 64-bit fingerprint in an open-addressing table of primitive longs,
+ * mapped to the visit (search id and schedule) when the state was first visited. With exact
+ * verification, the concrete state is also kept for each fingerprint, so that states with
+ * colliding fingerprints are still told apart. The table is split into independently locked
+ * segments, so it can be shared by the workers of a parallel search.
+ *
+ * <p>Without exact verification, the in-memory table is a hot tier that can be spilled to disk.
+ * Each spill writes all hot entries as a batch sorted by fingerprint into a memory-mapped file,
+ * which is searched by binary search whenever a fingerprint misses the hot tier. Spill files are
+ * compacted by a sorted merge once there are too many of them. Spill files are unmapped and deleted
+ * when the cache is cleared or closed.
+ */
+public class StateCache implements AutoCloseable {
+  /** Returned if a state is not yet in the cache */
+  public static final long NOT_FOUND = -1;
+  /** Marks an empty slot in the table, fingerprints equal to it are remapped */
+  private static final long EMPTY = 0;
+  private static final long EMPTY_REPLACEMENT = 0x9E3779B97F4A7C15L;
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  private static final double MAX_LOAD = 0.7;
+  /** Min number of hot entries worth a spill */
+  private static final long MIN_SPILL_SIZE = 1 << 16;
+  /** Max number of spill files before compacting them into one */
+  private static final int MAX_SPILL_FILES = 8;
+  /** Max length of an array of (fingerprint, visit) pairs spilled at once */
+  private static final long MAX_SPILL_LENGTH = (Integer.MAX_VALUE - 8) & ~1L;
+
+  private final Segment[] segments;
+  private final int segmentShift;
+  private final boolean exact;
+  /** Directory for spill files, or null if spilling is disabled */
+  private final Path spillDirectory;
+  /** Max number of hot entries before spilling (0 means spill only on request) */
+  private final long maxHotSize;
+  /** Number of entries in the hot tier */
+  private final AtomicLong hotSize = new AtomicLong(0);
+  /** Spill files, from oldest to newest */
+  private final List<SpillFile> spillFiles = new ArrayList<>();
+  /** Excludes spilling while entries are added */
+  private final ReentrantReadWriteLock spillLock = new ReentrantReadWriteLock();
+  /** Whether the cache is closed, after which it no longer spills */
+  private boolean closed = false;
+
+  /**
+   * Make a new state cache that is kept in memory
+   *
+   * @param numSegments Number of independently locked segments (rounded up to a power of two)
+   * @param exact Whether or not to verify fingerprint hits against the concrete states
+   */
+  public StateCache(int numSegments, boolean exact) {
+    this(numSegments, exact, null, 0);
+  }
+
+  /**
+   * Make a new state cache
+   *
+   * @param numSegments Number of independently locked segments (rounded up to a power of two)
+   * @param exact Whether or not to verify fingerprint hits against the concrete states
+   * @param spillDirectory Directory for spill files, or null to disable spilling
+   * @param maxHotSize Max number of entries in memory before spilling (0 means spill on request)
+   */
+  public StateCache(int numSegments, boolean exact, String spillDirectory, long maxHotSize) {
+    int n = 1;
+    while (n < numSegments) {
+      n <<= 1;
+    }
+    this.segments = new Segment[n];
+    for (int i = 0; i < n; i++) {
+      segments[i] = new Segment();
+    }
+    this.segmentShift = 64 - Integer.numberOfTrailingZeros(n);
+    this.exact = exact;
+    this.spillDirectory = (exact || spillDirectory == null) ? null : Paths.get(spillDirectory);
+    this.maxHotSize = maxHotSize;
+  }
+
+  /**
+   * Mix the bits of a 64-bit hash (finalizer of MurmurHash3)
+   *
+   * @param h Hash to mix
+   * @return Mixed hash
+   */
+  public static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Extend a running 64-bit hash with the hash of the next element of a sequence
+   *
+   * @param running Running hash of the sequence so far
+   * @param next Hash of the next element
+   * @return Running hash of the extended sequence
+   */
+  public static long combine(long running, long next) {
+    return (running * 0x100000001B3L) ^ mix(next + 0x9E3779B97F4A7C15L);
+  }
+
+  /**
+   * Add a state to the cache, unless already present
+   *
+   * @param fingerprint Fingerprint of the state
+   * @param state Concrete state, only used with exact verification
+   * @param visit Visit when the state is first visited (non-negative)
+   * @return Visit when the state was first visited, or NOT_FOUND if the state is new
+   */
+  public long putIfAbsent(long fingerprint, Object state, long visit) {
+    assert (visit >= 0);
+    if (fingerprint == EMPTY) {
+      fingerprint = EMPTY_REPLACEMENT;
+    }
+    Segment segment = segments[(segmentShift == 64) ? 0 : (int) (fingerprint >>> segmentShift)];
+    long result;
+    spillLock.readLock().lock();
+    try {
+      synchronized (segment) {
+        result = segment.putIfAbsent(fingerprint, state, visit);
+      }
+    } finally {
+      spillLock.readLock().unlock();
+    }
+    if (result == NOT_FOUND && maxHotSize > 0 && hotSize.get() > maxHotSize) {
+      spill();
+    }
+    return result;
+  }
+
+  /**
+   * Spill all entries in memory to a new file on disk, if spilling is enabled and enough entries
+   * are in memory
+   */
+  public void spill() {
+    if (spillDirectory == null) {
+      return;
+    }
+    long minSize = (maxHotSize > 0) ? Math.min(maxHotSize, MIN_SPILL_SIZE) : MIN_SPILL_SIZE;
+    spillLock.writeLock().lock();
+    try {
+      if (closed || hotSize.get() < minSize) {
+        return;
+      }
+      // too many entries for one array are spilled in batches of whole segments, each to its own
+      // file, which a segment always fits in since its table has at most 2^30 slots
+      long length = 2 * hotSize.get();
+      long[] entries = new long[(int) Math.min(length, MAX_SPILL_LENGTH)];
+      int numEntries = 0;
+      for (Segment segment : segments) {
+        if (2L * (numEntries + segment.size) > entries.length) {
+          spillBatch(entries, numEntries);
+          numEntries = 0;
+        }
+        numEntries = segment.drainTo(entries, numEntries);
+      }
+      hotSize.set(0);
+      spillBatch(entries, numEntries);
+      if (spillFiles.size() > MAX_SPILL_FILES) {
+        SpillFile merged = SpillFile.merge(spillDirectory, spillFiles);
+        for (SpillFile file : spillFiles) {
+          file.delete();
+        }
+        spillFiles.clear();
+        spillFiles.add(merged);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to spill state cache to " + spillDirectory, e);
+    } finally {
+      spillLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sort a batch of (fingerprint, visit) pairs and write them to a new spill file
+   *
+   * @param entries Array of pairs
+   * @param numEntries Number of pairs in the batch
+   */
+  private void spillBatch(long[] entries, int numEntries) throws IOException {
+    if (numEntries > 0) {
+      sortEntries(entries, 0, numEntries - 1);
+      spillFiles.add(SpillFile.write(spillDirectory, entries, numEntries));
+    }
+  }
+
+  /** Get number of distinct states in the cache */
+  public long size() {
+    return hotSize.get() + getSpilledSize();
+  }
+
+  /** Get number of distinct states spilled to disk */
+  public long getSpilledSize() {
+    spillLock.readLock().lock();
+    try {
+      long result = 0;
+      for (SpillFile file : spillFiles) {
+        result += file.size;
+      }
+      return result;
+    } finally {
+      spillLock.readLock().unlock();
+    }
+  }
+
+  /** Remove all states from the cache */
+  public void clear() {
+    spillLock.writeLock().lock();
+    try {
+      for (Segment segment : segments) {
+        segment.clear();
+      }
+      hotSize.set(0);
+      for (SpillFile file : spillFiles) {
+        file.delete();
+      }
+      spillFiles.clear();
+    } finally {
+      spillLock.writeLock().unlock();
+    }
+  }
+
+  /** Remove all states from the cache, and stop spilling to disk */
+  @Override
+  public void close() {
+    spillLock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      spillLock.writeLock().unlock();
+    }
+    clear();
+  }
+
+  /**
+   * Find a fingerprint in the spill files
+   *
+   * @param fingerprint Fingerprint to find
+   * @return Visit of the fingerprint, or NOT_FOUND if not spilled
+   */
+  private long findSpilled(long fingerprint) {
+    for (int i = spillFiles.size() - 1; i >= 0; i--) {
+      long visit = spillFiles.get(i).find(fingerprint);
+      if (visit != NOT_FOUND) {
+        return visit;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Sort (fingerprint, visit) pairs by fingerprint, in place
+   *
+   * @param entries Array of pairs, with the fingerprint followed by the visit
+   * @param lo Index of the first pair to sort
+   * @param hi Index of the last pair to sort
+   */
+  private static void sortEntries(long[] entries, int lo, int hi) {
+    while (lo < hi) {
+      long pivot = entries[2 * (lo + ((hi - lo) >>> 1))];
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (entries[2 * i] < pivot) {
+          i++;
+        }
+        while (entries[2 * j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swapEntries(entries, i++, j--);
+        }
+      }
+      // recurse into the smaller part to bound the stack depth
+      if (j - lo < hi - i) {
+        sortEntries(entries, lo, j);
+        lo = i;
+      } else {
+        sortEntries(entries, i, hi);
+        hi = j;
+      }
+    }
+  }
+
+  private static void swapEntries(long[] entries, int i, int j) {
+    long key = entries[2 * i];
+    long value = entries[2 * i + 1];
+    entries[2 * i] = entries[2 * j];
+    entries[2 * i + 1] = entries[2 * j + 1];
+    entries[2 * j] = key;
+    entries[2 * j + 1] = value;
+  }
+
+  private class Segment {
+    private long[] keys;
+    private long[] values;
+    private int size;
+    /** Concrete state of each fingerprint, only used with exact verification */
+    private final Map<Long, Object> states = new HashMap<>();
+    /** Visits of states whose fingerprint collides with a different state */
+    private final Map<Object, Long> collisions = new HashMap<>();
+
+    Segment() {
+      clear();
+    }
+
+    void clear() {
+      keys = new long[INITIAL_CAPACITY];
+      values = new long[INITIAL_CAPACITY];
+      size = 0;
+      states.clear();
+      collisions.clear();
+    }
+
+    long putIfAbsent(long fingerprint, Object state, long visit) {
+      int mask = keys.length - 1;
+      int idx = (int) fingerprint & mask;
+      while (keys[idx] != EMPTY) {
+        if (keys[idx] == fingerprint) {
+          if (exact && !states.get(fingerprint).equals(state)) {
+            Long first = collisions.putIfAbsent(state, visit);
+            if (first == null) {
+              hotSize.incrementAndGet();
+              return NOT_FOUND;
+            }
+            return first;
+          }
+          return values[idx];
+        }
+        idx = (idx + 1) & mask;
+      }
+      if (!spillFiles.isEmpty()) {
+        long spilled = findSpilled(fingerprint);
+        if (spilled != NOT_FOUND) {
+          return spilled;
+        }
+      }
+      keys[idx] = fingerprint;
+      values[idx] = visit;
+      size++;
+      hotSize.incrementAndGet();
+      if (exact) {
+        states.put(fingerprint, state);
+      }
+      if (size > keys.length * MAX_LOAD) {
+        grow();
+      }
+      return NOT_FOUND;
+    }
+
+    /**
+     * Move all entries of this segment into an array of (fingerprint, visit) pairs
+     *
+     * @param entries Array to move entries into
+     * @param from Number of pairs already in the array
+     * @return Number of pairs in the array after moving
+     */
+    int drainTo(long[] entries, int from) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != EMPTY) {
+          entries[2 * from] = keys[i];
+          entries[2 * from + 1] = values[i];
+          from++;
+        }
+      }
+      clear();
+      return from;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      long[] oldValues = values;
+      keys = new long[oldKeys.length << 1];
+      values = new long[oldKeys.length << 1];
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != EMPTY) {
+          int idx = (int) oldKeys[i] & mask;
+          while (keys[idx] != EMPTY) {
+            idx = (idx + 1) & mask;
+          }
+          keys[idx] = oldKeys[i];
+          values[idx] = oldValues[i];
+        }
+      }
+    }
+  }
+
+  /** Represents a memory-mapped file of (fingerprint, visit) pairs sorted by fingerprint */
+  private static class SpillFile {
+    /** Number of pairs per mapped chunk, keeping each chunk below the 2 GB mapping limit */
+    private static final int CHUNK_SIZE = 1 << 26;
+
+    /** Unmaps a mapped buffer, or null if unsupported by the JVM */
+    private static final Method INVOKE_CLEANER;
+
+    private static final Object UNSAFE;
+
+    static {
+      Method invokeCleaner = null;
+      Object unsafe = null;
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // mappings are then released once the buffers are garbage collected
+      }
+      INVOKE_CLEANER = invokeCleaner;
+      UNSAFE = unsafe;
+    }
+
+    private final Path path;
+    private final long size;
+    private final MappedByteBuffer[] chunks;
+
+    private SpillFile(Path path, long size) throws IOException {
+      this.path = path;
+      this.size = size;
+      this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        for (int i = 0; i < chunks.length; i++) {
+          long start = (long) i * CHUNK_SIZE;
+          long length = Math.min(CHUNK_SIZE, size - start);
+          chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start * 16, length * 16);
+        }
+      }
+    }
+
+    /**
+     * Write sorted (fingerprint, visit) pairs to a new spill file
+     *
+     * @param directory Directory for the file
+     * @param entries Sorted array of pairs
+     * @param numEntries Number of pairs
+     * @return The spill file
+     */
+    static SpillFile write(Path directory, long[] entries, int numEntries) throws IOException {
+      Path path = newPath(directory);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+        for (int i = 0; i < 2 * numEntries; i++) {
+          out.writeLong(entries[i]);
+        }
+      }
+      return new SpillFile(path, numEntries);
+    }
+
+    /**
+     * Merge spill files into a new spill file
+     *
+     * @param directory Directory for the file
+     * @param files Spill files to merge, with pairwise distinct fingerprints
+     * @return The merged spill file
+     */
+    static SpillFile merge(Path directory, List<SpillFile> files) throws IOException {
+      Path path = newPath(directory);
+      long total = 0;
+      long[] positions = new long[files.size()];
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+        while (true) {
+          int next = -1;
+          for (int i = 0; i < files.size(); i++) {
+            if (positions[i] < files.get(i).size
+                && (next == -1
+                    || files.get(i).getKey(positions[i])
+                        < files.get(next).getKey(positions[next]))) {
+              next = i;
+            }
+          }
+          if (next == -1) {
+            break;
+          }
+          out.writeLong(files.get(next).getKey(positions[next]));
+          out.writeLong(files.get(next).getValue(positions[next]));
+          positions[next]++;
+          total++;
+        }
+      }
+      return new SpillFile(path, total);
+    }
+
+    private static Path newPath(Path directory) throws IOException {
+      Files.createDirectories(directory);
+      Path path = Files.createTempFile(directory, "states", ".bin");
+      path.toFile().deleteOnExit();
+      return path;
+    }
+
+    long getKey(long i) {
+      return chunks[(int) (i / CHUNK_SIZE)].getLong((int) (16 * (i % CHUNK_SIZE)));
+    }
+
+    long getValue(long i) {
+      return chunks[(int) (i / CHUNK_SIZE)].getLong((int) (16 * (i % CHUNK_SIZE) + 8));
+    }
+
+    long find(long fingerprint) {
+      long lo = 0;
+      long hi = size - 1;
+      while (lo <= hi) {
+        long mid = (lo + hi) >>> 1;
+        long key = getKey(mid);
+        if (key < fingerprint) {
+          lo = mid + 1;
+        } else if (key > fingerprint) {
+          hi = mid - 1;
+        } else {
+          return getValue(mid);
+        }
+      }
+      return NOT_FOUND;
+    }
+
+    /** Unmap and delete the file, after which it must not be read */
+    void delete() {
+      if (INVOKE_CLEANER != null) {
+        for (MappedByteBuffer chunk : chunks) {
+          try {
+            INVOKE_CLEANER.invoke(UNSAFE, chunk);
+          } catch (ReflectiveOperationException e) {
+            // mapping is released once the buffer is garbage collected otherwise
+          }
+        }
+      }
+      Arrays.fill(chunks, null);
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        // file is deleted on exit otherwise
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package psym.runtime.scheduler.search.explicit;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Getter;
+import psym.runtime.machine.Machine;
+
+/**
+ * Represents the machines and shared resources accessed by one scheduling step of the explicit
+ * search, as observed while executing the step.
+ *
+ * <p>A step dequeues the next message from the send buffer of the scheduled machine and runs the
+ * handler of its target, which only accesses the local state and send buffer of the target. Two
+ * steps of different machines commute unless they access a common machine, create machines of a
+ * common type (which share a machine counter), or are both observed by monitors.
+ */
+public class StepFootprint implements Serializable {
+  /** Machine whose send buffer the step dequeued from */
+  @Getter private final Machine machine;
+  /** Machines accessed by the step, including the scheduled machine */
+  private final Set<Machine> machines;
+  /** Types of machines created by the step */
+  private final Set<Class<? extends Machine>> createdTypes;
+  /** Whether or not the step sent or announced an event observed by a monitor */
+  private final boolean monitored;
+  /** Whether or not the step made data choices, in which case its accesses may vary */
+  private final boolean opaque;
+
+  StepFootprint(
+      Machine machine,
+      Set<Machine> machines,
+      Set<Class<? extends Machine>> createdTypes,
+      boolean monitored,
+      boolean opaque) {
+    this.machine = machine;
+    this.machines = new HashSet<>(machines);
+    this.machines.add(machine);
+    this.createdTypes = new HashSet<>(createdTypes);
+    this.monitored = monitored;
+    this.opaque = opaque;
+  }
+
+  /**
+   * Check whether or not this step may not commute with another step
+   *
+   * @param other Footprint of the other step
+   * @return Whether or not the two steps are dependent
+   */
+  public boolean isDependent(StepFootprint other) {
+    if (opaque || other.opaque || (monitored && other.monitored)) {
+      return true;
+    }
+    for (Machine m : other.machines) {
+      if (machines.contains(m)) {
+        return true;
+      }
+    }
+    for (Class<? extends Machine> type : other.createdTypes) {
+      if (createdTypes.contains(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
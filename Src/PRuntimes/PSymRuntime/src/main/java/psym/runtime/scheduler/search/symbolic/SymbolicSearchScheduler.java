@@ -46,6 +46,9 @@ public class SymbolicSearchScheduler extends SearchScheduler {
 
   @Override
   protected void step() throws TimeoutException {
+    if (SolverEngine.needsCleanup()) {
+      cleanup();
+    }
     srcState.clear();
     allMachinesHalted = Guard.constFalse();
 
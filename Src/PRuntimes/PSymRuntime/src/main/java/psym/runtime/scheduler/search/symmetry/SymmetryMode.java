@@ -2,5 +2,7 @@ package psym.runtime.scheduler.search.symmetry;
 
 public enum SymmetryMode {
   None,
-  Full
+  Full,
+  /** Identify symmetric states in the explicit state cache, by their canonical permutation */
+  Canonical
 }
@@ -7,17 +7,16 @@ import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
+import psym.runtime.PSymGlobal;
 import psym.runtime.scheduler.Schedule;
 import psym.runtime.statistics.CoverageStats;
 
 public class BacktrackTask implements Serializable {
   @Setter private static TaskOrchestrationMode orchestration;
-  private static TaskOrchestrator taskOrchestrator = null;
-  @Getter private final List<Schedule.Choice> choices = new ArrayList<>();
-
-  @Getter
-  private final List<CoverageStats.CoverageChoiceDepthStats> perChoiceDepthStats =
-      new ArrayList<>();
+  /** Node of the shared choice trie holding the choices and path coverage of the task */
+  @Getter private ChoiceTrieNode choiceNode = null;
+  /** Whether or not the choices at all successor depths are cleared */
+  @Getter private boolean exact = true;
 
   @Getter private final int id;
   @Getter private final List<BacktrackTask> children = new ArrayList<>();
@@ -42,16 +41,16 @@ public class BacktrackTask implements Serializable {
         // do nothing
         break;
       case Random:
-        taskOrchestrator = new TaskOrchestratorRandom();
+        PSymGlobal.setTaskOrchestrator(new TaskOrchestratorRandom());
         break;
       case CoverageAStar:
-        taskOrchestrator = new TaskOrchestratorCoverageAStar();
+        PSymGlobal.setTaskOrchestrator(new TaskOrchestratorCoverageAStar());
         break;
       case CoverageEstimate:
-        taskOrchestrator = new TaskOrchestratorCoverageEstimate();
+        PSymGlobal.setTaskOrchestrator(new TaskOrchestratorCoverageEstimate());
         break;
       case CoverageEpsilonGreedy:
-        taskOrchestrator = new TaskOrchestratorCoverageEpsilonGreedy();
+        PSymGlobal.setTaskOrchestrator(new TaskOrchestratorCoverageEpsilonGreedy());
         break;
       default:
         throw new RuntimeException("Unrecognized orchestration mode: " + orchestration);
@@ -67,26 +66,38 @@ public class BacktrackTask implements Serializable {
       case CoverageAStar:
       case CoverageEstimate:
       case CoverageEpsilonGreedy:
-        result = taskOrchestrator.getNext();
+        result = PSymGlobal.getTaskOrchestrator().getNext();
         break;
       default:
         throw new RuntimeException("Unrecognized orchestration mode: " + orchestration);
     }
-    taskOrchestrator.remove(result);
+    PSymGlobal.getTaskOrchestrator().remove(result);
     return result;
   }
 
   public void cleanup() {
-    choices.clear();
+    choiceNode = null;
     numBacktracks = 0;
     numDataBacktracks = 0;
-    perChoiceDepthStats.clear();
   }
 
-  public void setChoices(List<Schedule.Choice> inputChoices) {
-    assert (choices.isEmpty());
-    for (Schedule.Choice choice : inputChoices) {
-      choices.add(choice.getCopy());
+  /**
+   * Set the choices of the task as a reference into the shared choice trie, with the backtracks
+   * at all predecessor depths cleared
+   *
+   * @param node Node of the execution that created the task
+   * @param backtrackChoiceDepth Choice depth of the backtrack of the task
+   * @param isExact Whether or not to clear the choices at all successor depths
+   */
+  public void setChoices(ChoiceTrieNode node, int backtrackChoiceDepth, boolean isExact) {
+    assert (choiceNode == null);
+    choiceNode = node;
+    choiceDepth = backtrackChoiceDepth;
+    exact = isExact;
+    List<Schedule.Choice> sharedChoices = node.getSharedChoices();
+    int end = isExact ? (backtrackChoiceDepth + 1) : sharedChoices.size();
+    for (int i = backtrackChoiceDepth; i < end; i++) {
+      Schedule.Choice choice = sharedChoices.get(i);
       if (choice.isBacktrackNonEmpty()) {
         numBacktracks++;
         if (choice.isDataBacktrackNonEmpty()) {
@@ -96,11 +107,42 @@ public class BacktrackTask implements Serializable {
     }
   }
 
-  public void setPerChoiceDepthStats(List<CoverageStats.CoverageChoiceDepthStats> inputStats) {
-    assert (perChoiceDepthStats.isEmpty());
-    for (CoverageStats.CoverageChoiceDepthStats stat : inputStats) {
-      perChoiceDepthStats.add(stat.getCopy());
+  /**
+   * Get a fresh copy of the choices of the task, which can be modified by a schedule
+   *
+   * @return List of choices
+   */
+  public List<Schedule.Choice> getChoices() {
+    List<Schedule.Choice> result = new ArrayList<>();
+    if (choiceNode == null) {
+      return result;
+    }
+    for (Schedule.Choice sharedChoice : choiceNode.getSharedChoices()) {
+      Schedule.Choice choice = sharedChoice.getCopy();
+      if (result.size() < choiceDepth) {
+        choice.clearBacktrack();
+      } else if (exact && result.size() > choiceDepth) {
+        choice.clear();
+      }
+      result.add(choice);
     }
+    return result;
+  }
+
+  /**
+   * Get a fresh copy of the path coverage statistics of the task
+   *
+   * @return List of path coverage statistics
+   */
+  public List<CoverageStats.CoverageChoiceDepthStats> getPerChoiceDepthStats() {
+    List<CoverageStats.CoverageChoiceDepthStats> result = new ArrayList<>();
+    if (choiceNode == null) {
+      return result;
+    }
+    for (CoverageStats.CoverageChoiceDepthStats stat : choiceNode.getSharedStats()) {
+      result.add(stat.getCopy());
+    }
+    return result;
   }
 
   public boolean isInitialTask() {
@@ -166,7 +208,7 @@ public class BacktrackTask implements Serializable {
       default:
         throw new RuntimeException("Unrecognized orchestration mode: " + orchestration);
     }
-    taskOrchestrator.addPriority(this);
+    PSymGlobal.getTaskOrchestrator().addPriority(this);
   }
 
   public void postProcess(BigDecimal inputCoverage) {
@@ -192,7 +234,7 @@ public class BacktrackTask implements Serializable {
           for (BacktrackTask t : parentTask.getChildren()) {
             if (!t.completed) {
               t.setCoverageEstimate();
-              taskOrchestrator.addPriority(t);
+              PSymGlobal.getTaskOrchestrator().addPriority(t);
             }
           }
         }
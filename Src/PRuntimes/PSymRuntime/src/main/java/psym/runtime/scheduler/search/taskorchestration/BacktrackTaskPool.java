@@ -0,0 +1,140 @@
+package psym.runtime.scheduler.search.taskorchestration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+
+/**
+ * Represents the pool of backtrack tasks shared by the workers of a parallel search.
+ *
+ * <p>Each worker donates tasks to its own queue while other workers are idle. An idle worker takes
+ * the latest task from its own queue, or otherwise steals the oldest task from the queue of
+ * another worker. The search terminates once all workers are idle and no task is left.
+ */
+public class BacktrackTaskPool {
+  private final List<Deque<BacktrackTaskSnapshot>> queues = new ArrayList<>();
+  @Getter private final int numWorkers;
+  /** Number of schedules explored by all workers */
+  private final AtomicInteger numSchedules = new AtomicInteger(0);
+  private int numIdle = 0;
+  private int numQueued = 0;
+  /** Whether or not some worker is waiting for a task that is not yet donated */
+  private volatile boolean hungry = false;
+  /** Whether or not the search is stopped before all tasks are explored */
+  private volatile boolean stopped = false;
+  /** Whether or not all tasks are explored */
+  private boolean finished = false;
+
+  public BacktrackTaskPool(int numWorkers) {
+    this.numWorkers = numWorkers;
+    for (int i = 0; i < numWorkers; i++) {
+      queues.add(new ArrayDeque<>());
+    }
+  }
+
+  public boolean isHungry() {
+    return hungry && !stopped;
+  }
+
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  public int getNumSchedules() {
+    return numSchedules.get();
+  }
+
+  /**
+   * Record a schedule explored by some worker
+   *
+   * @return Number of schedules explored by all workers
+   */
+  public int addSchedule() {
+    return numSchedules.incrementAndGet();
+  }
+
+  /**
+   * Donate a task from a worker
+   *
+   * @param workerId Worker donating the task
+   * @param task Snapshot of the task
+   */
+  public synchronized void push(int workerId, BacktrackTaskSnapshot task) {
+    queues.get(workerId).addLast(task);
+    numQueued++;
+    updateHungry();
+    notifyAll();
+  }
+
+  /**
+   * Take the next task for a worker, waiting while other workers may still donate tasks
+   *
+   * @param workerId Worker taking the task
+   * @return Snapshot of the task, or null if the search is finished or stopped
+   * @throws InterruptedException If interrupted while waiting
+   */
+  public synchronized BacktrackTaskSnapshot take(int workerId) throws InterruptedException {
+    numIdle++;
+    try {
+      while (true) {
+        if (stopped || finished) {
+          return null;
+        }
+        BacktrackTaskSnapshot task = poll(workerId);
+        if (task != null) {
+          return task;
+        }
+        if (numIdle == numWorkers) {
+          finished = true;
+          notifyAll();
+          return null;
+        }
+        updateHungry();
+        wait();
+      }
+    } finally {
+      numIdle--;
+      updateHungry();
+    }
+  }
+
+  /** Stop the search, waking up all idle workers */
+  public synchronized void stop() {
+    stopped = true;
+    notifyAll();
+  }
+
+  /**
+   * Remove all tasks that are left unexplored
+   *
+   * @return List of unexplored tasks
+   */
+  public synchronized List<BacktrackTaskSnapshot> drain() {
+    List<BacktrackTaskSnapshot> result = new ArrayList<>();
+    for (Deque<BacktrackTaskSnapshot> queue : queues) {
+      result.addAll(queue);
+      queue.clear();
+    }
+    numQueued = 0;
+    updateHungry();
+    return result;
+  }
+
+  private BacktrackTaskSnapshot poll(int workerId) {
+    BacktrackTaskSnapshot task = queues.get(workerId).pollLast();
+    for (int i = 1; task == null && i < numWorkers; i++) {
+      task = queues.get((workerId + i) % numWorkers).pollFirst();
+    }
+    if (task != null) {
+      numQueued--;
+    }
+    return task;
+  }
+
+  private void updateHungry() {
+    hungry = (numIdle > numQueued);
+  }
+}
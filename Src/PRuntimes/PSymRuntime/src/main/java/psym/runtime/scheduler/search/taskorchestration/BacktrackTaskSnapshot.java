@@ -0,0 +1,24 @@
+package psym.runtime.scheduler.search.taskorchestration;
+
+import lombok.Getter;
+
+/**
+ * Represents a backtrack task handed over from one search worker to another, as the serialized
+ * schedule prefix and path coverage of the backtracks of the task
+ */
+public class BacktrackTaskSnapshot {
+  /** Serialized schedule prefix and path coverage */
+  @Getter private final byte[] data;
+  /** Choice depth of the shallowest backtrack in the task */
+  @Getter private final int choiceDepth;
+  @Getter private final int numBacktracks;
+  @Getter private final int numDataBacktracks;
+
+  public BacktrackTaskSnapshot(
+      byte[] data, int choiceDepth, int numBacktracks, int numDataBacktracks) {
+    this.data = data;
+    this.choiceDepth = choiceDepth;
+    this.numBacktracks = numBacktracks;
+    this.numDataBacktracks = numDataBacktracks;
+  }
+}
@@ -0,0 +1,131 @@
+package psym.runtime.scheduler.search.taskorchestration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import psym.runtime.scheduler.Schedule;
+import psym.runtime.statistics.CoverageStats;
+
+/**
+ * Represents a node of the choice trie shared by the backtrack tasks of a search.
+ *
+ * <p>Each node stores the choices and path coverage of one execution, starting from the choice
+ * depth at which the execution diverged from the execution of its parent node. All shallower
+ * choices are shared with the parent node, so sibling tasks only reference their common prefix.
+ * Nodes are never modified once created, and mutable copies of the choices are only materialized
+ * when a task is loaded into a schedule.
+ */
+public class ChoiceTrieNode implements Serializable {
+  private final ChoiceTrieNode parent;
+  /** Choice depth of the first choice stored in this node */
+  private final int startDepth;
+  /** Choice depth of the first path coverage statistics stored in this node */
+  private final int statsStartDepth;
+  private final List<Schedule.Choice> choices = new ArrayList<>();
+  private final List<CoverageStats.CoverageChoiceDepthStats> perChoiceDepthStats =
+      new ArrayList<>();
+  /** Number of choices, including the ones shared with the parent node */
+  @Getter private final int size;
+  /** Number of path coverage statistics, including the ones shared with the parent node */
+  @Getter private final int numStats;
+
+  private ChoiceTrieNode(
+      ChoiceTrieNode parent,
+      int startDepth,
+      int statsStartDepth,
+      List<Schedule.Choice> inputChoices,
+      List<CoverageStats.CoverageChoiceDepthStats> inputStats) {
+    this.parent = parent;
+    this.startDepth = startDepth;
+    this.statsStartDepth = statsStartDepth;
+    for (int i = startDepth; i < inputChoices.size(); i++) {
+      choices.add(inputChoices.get(i).getCopy());
+    }
+    for (int i = statsStartDepth; i < inputStats.size(); i++) {
+      perChoiceDepthStats.add(inputStats.get(i).getCopy());
+    }
+    this.size = inputChoices.size();
+    this.numStats = inputStats.size();
+  }
+
+  /**
+   * Create a node for the choices of an execution
+   *
+   * <p>The execution must have replayed the choices of the parent node until the given depth,
+   * without any backtracks left at shallower depths. Otherwise, all choices are copied into a new
+   * root node.
+   *
+   * @param parent Node of the task that started the execution, or null if there is no such task
+   * @param divergeDepth Choice depth at which the execution diverged from the parent node
+   * @param inputChoices Choices of the execution
+   * @param inputStats Path coverage statistics of the execution
+   * @return New node of the trie
+   */
+  public static ChoiceTrieNode create(
+      ChoiceTrieNode parent,
+      int divergeDepth,
+      List<Schedule.Choice> inputChoices,
+      List<CoverageStats.CoverageChoiceDepthStats> inputStats) {
+    if (parent == null
+        || divergeDepth > inputChoices.size()
+        || divergeDepth > parent.getSize()
+        || hasBacktrackBefore(inputChoices, divergeDepth)) {
+      return new ChoiceTrieNode(null, 0, 0, inputChoices, inputStats);
+    }
+    int statsDivergeDepth =
+        Math.min(divergeDepth, Math.min(inputStats.size(), parent.getNumStats()));
+    return new ChoiceTrieNode(parent, divergeDepth, statsDivergeDepth, inputChoices, inputStats);
+  }
+
+  private static boolean hasBacktrackBefore(List<Schedule.Choice> inputChoices, int depth) {
+    for (int i = 0; i < depth; i++) {
+      if (inputChoices.get(i).isBacktrackNonEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the (shared) choices along the path from the root node, which must not be modified
+   *
+   * @return List of choices of this node, including the ones shared with its ancestors
+   */
+  public List<Schedule.Choice> getSharedChoices() {
+    List<Schedule.Choice> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(null);
+    }
+    int end = size;
+    for (ChoiceTrieNode node = this; node != null; node = node.parent) {
+      for (int i = node.startDepth; i < end; i++) {
+        result.set(i, node.choices.get(i - node.startDepth));
+      }
+      end = node.startDepth;
+    }
+    return result;
+  }
+
+  /**
+   * Get the (shared) path coverage statistics along the path from the root node, which must not be
+   * modified
+   *
+   * @return List of path coverage statistics of this node, including the ones shared with its
+   *     ancestors
+   */
+  public List<CoverageStats.CoverageChoiceDepthStats> getSharedStats() {
+    List<CoverageStats.CoverageChoiceDepthStats> result = new ArrayList<>(numStats);
+    for (int i = 0; i < numStats; i++) {
+      result.add(null);
+    }
+    int end = numStats;
+    for (ChoiceTrieNode node = this; node != null; node = node.parent) {
+      for (int i = node.statsStartDepth; i < end; i++) {
+        result.set(i, node.perChoiceDepthStats.get(i - node.statsStartDepth));
+      }
+      end = node.statsStartDepth;
+    }
+    return result;
+  }
+}
@@ -157,6 +157,26 @@ public class CoverageStats implements Serializable {
     }
   }
 
+  /**
+   * Merge the coverage statistics of a worker after a parallel search
+   *
+   * @param other Coverage statistics to merge from
+   */
+  public void merge(CoverageStats other) {
+    estimatedCoverage = estimatedCoverage.add(other.estimatedCoverage);
+    while (other.perDepthStats.size() > perDepthStats.size()) {
+      perDepthStats.add(new CoverageDepthStats());
+    }
+    for (int d = 0; d < other.perDepthStats.size(); d++) {
+      CoverageDepthStats val = perDepthStats.get(d);
+      CoverageDepthStats otherVal = other.perDepthStats.get(d);
+      val.numScheduleExplored += otherVal.numScheduleExplored;
+      val.numDataExplored += otherVal.numDataExplored;
+      val.numScheduleRemaining += otherVal.numScheduleRemaining;
+      val.numDataRemaining += otherVal.numDataRemaining;
+    }
+  }
+
   /** Reset coverage statistics after a resumed run */
   public void resetCoverage() {
     estimatedCoverage = new BigDecimal(0);
@@ -1,7 +1,10 @@
 package psym.runtime.statistics;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -72,6 +75,27 @@ public class SearchStats implements Serializable {
     iterationStats.clear();
   }
 
+  /**
+   * Merge the completed schedules of another search, numbering them after the completed schedules
+   * of this search
+   *
+   * @param other Search statistics to merge from
+   */
+  public void merge(SearchStats other) {
+    iterationStats.keySet().removeIf(i -> i > lastCompletedIteration);
+    List<Integer> schedules = new ArrayList<>(other.iterationStats.keySet());
+    Collections.sort(schedules);
+    int offset = lastCompletedIteration;
+    for (int i : schedules) {
+      if (i > other.lastCompletedIteration) {
+        break;
+      }
+      offset++;
+      iterationStats.put(offset, other.iterationStats.get(i));
+    }
+    lastCompletedIteration = offset;
+  }
+
   /** Represents the statistics at each depth per schedule */
   @AllArgsConstructor
   @Getter
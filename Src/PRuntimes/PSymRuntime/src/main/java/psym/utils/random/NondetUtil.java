@@ -1,7 +1,7 @@
 package psym.utils.random;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.IntFunction;
 import psym.valuesummary.Guard;
 import psym.valuesummary.GuardedValue;
 import psym.valuesummary.PrimitiveVS;
@@ -14,19 +14,24 @@ public class NondetUtil {
     return 31 - Integer.numberOfLeadingZeros(bits);
   }
 
+  /**
+   * Generate the 2^n conjunctions of the choice variables and their negations, in the order where
+   * the first variable is the most significant
+   */
   private static List<Guard> generateAllCombos(List<Guard> bdds) {
-    Guard thisGuard = bdds.get(0);
-    List<Guard> remaining = bdds.subList(1, bdds.size());
-    if (remaining.size() == 0) {
-      List<Guard> res = new ArrayList<>();
-      res.add(thisGuard);
-      res.add(thisGuard.not());
-      return res;
+    Guard[] res = new Guard[1 << bdds.size()];
+    res[0] = Guard.constTrue();
+    int size = 1;
+    for (int i = bdds.size() - 1; i >= 0; i--) {
+      Guard thisGuard = bdds.get(i);
+      Guard notGuard = thisGuard.not();
+      for (int j = 0; j < size; j++) {
+        res[size + j] = res[j].and(notGuard);
+        res[j] = res[j].and(thisGuard);
+      }
+      size *= 2;
     }
-    List<Guard> rec = generateAllCombos(remaining);
-    List<Guard> res = rec.stream().map(x -> x.and(thisGuard)).collect(Collectors.toList());
-    res.addAll(rec.stream().map(x -> x.and(thisGuard.not())).collect(Collectors.toList()));
-    return res;
+    return Arrays.asList(res);
   }
 
   public static PrimitiveVS getNondetChoiceAlt(List<PrimitiveVS> choices) {
@@ -68,6 +73,23 @@ public class NondetUtil {
   }
 
   public static PrimitiveVS getNondetChoice(List<PrimitiveVS> choices) {
+    return getNondetChoice(choices, i -> Guard.newVar());
+  }
+
+  /**
+   * Get a nondeterministic choice with the choice variables of a choice depth, reused by every
+   * choice made at that depth
+   *
+   * @param choices candidate choices
+   * @param choiceDepth choice depth
+   * @return the choice
+   */
+  public static PrimitiveVS getNondetChoice(List<PrimitiveVS> choices, int choiceDepth) {
+    return getNondetChoice(choices, i -> Guard.choiceVar(choiceDepth, i));
+  }
+
+  private static PrimitiveVS getNondetChoice(
+      List<PrimitiveVS> choices, IntFunction<Guard> newChoiceVar) {
     if (choices.size() == 0) return new PrimitiveVS<>();
     if (choices.size() == 1) return choices.get(0);
     List<PrimitiveVS> results = new ArrayList<>();
@@ -93,7 +115,7 @@ public class NondetUtil {
     }
 
     for (int i = 0; i < numVars; i++) {
-      choiceVars.add(Guard.newVar());
+      choiceVars.add(newChoiceVar.apply(i));
     }
 
     List<Guard> choiceConds = generateAllCombos(choiceVars);
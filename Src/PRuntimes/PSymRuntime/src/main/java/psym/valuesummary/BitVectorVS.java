@@ -0,0 +1,311 @@
+package psym.valuesummary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import psym.runtime.machine.Machine;
+
+/**
+ * Represents an Integer value summary encoded as a vector of guards, one per bit of a 32-bit two's
+ * complement integer, such that bit i is set exactly under the i-th guard
+ *
+ * <p>Arithmetic and comparisons are built from guard operations over the bits (e.g., ripple-carry
+ * addition), so they cost O(32) guard operations however many values the summary represents,
+ * instead of one per pair of values as with a {@link PrimitiveVS}. The summary is converted back to
+ * a primitive value summary where its values are needed.
+ */
+public class BitVectorVS implements ValueSummary<BitVectorVS> {
+  /** Number of bits of an integer */
+  public static final int WIDTH = Integer.SIZE;
+
+  /** Guard under which the summary has a value */
+  private final Guard universe;
+  /** Guard under which each bit is set, least significant bit first; each one implies universe */
+  private final Guard[] bits;
+
+  /** Primitive value summary with the same values (computed lazily) */
+  private transient PrimitiveVS<Integer> primitiveVS = null;
+
+  private BitVectorVS(Guard universe, Guard[] bits) {
+    this.universe = universe;
+    this.bits = bits;
+  }
+
+  /**
+   * Make a bit-vector value summary with the largest possible universe (restrict = true) containing
+   * only the specified value
+   *
+   * @param value the value
+   */
+  public BitVectorVS(int value) {
+    this(Guard.constTrue(), new Guard[WIDTH]);
+    for (int i = 0; i < WIDTH; i++) {
+      bits[i] = ((value >>> i) & 1) == 1 ? Guard.constTrue() : Guard.constFalse();
+    }
+  }
+
+  /**
+   * Make a bit-vector value summary with the same values as a primitive value summary
+   *
+   * @param primitiveVS Integer primitive value summary
+   */
+  public BitVectorVS(PrimitiveVS<Integer> primitiveVS) {
+    this(primitiveVS.getUniverse(), new Guard[WIDTH]);
+    IntegerGuards values = IntegerGuards.of(primitiveVS.getGuardedValuesMap());
+    Arrays.fill(bits, Guard.constFalse());
+    for (int k = 0; k < values.size(); k++) {
+      int value = values.intAt(k);
+      for (int i = 0; i < WIDTH; i++) {
+        if (((value >>> i) & 1) == 1) {
+          bits[i] = bits[i].or(values.guardAt(k));
+        }
+      }
+    }
+    this.primitiveVS = primitiveVS;
+  }
+
+  /**
+   * Get the primitive value summary with the same values, by enumerating the satisfiable
+   * assignments of the bits
+   *
+   * @return Integer primitive value summary
+   */
+  public PrimitiveVS<Integer> toPrimitiveVS() {
+    if (primitiveVS == null) {
+      IntegerGuards.Builder builder = new IntegerGuards.Builder(1);
+      enumerate(WIDTH - 1, 0, universe, builder);
+      primitiveVS = PrimitiveVS.of(builder.build());
+    }
+    return primitiveVS;
+  }
+
+  /** Enumerate the values in increasing order, i.e., with the sign bit set first */
+  private void enumerate(int bit, int prefix, Guard guard, IntegerGuards.Builder builder) {
+    if (guard.isFalse()) {
+      return;
+    }
+    if (bit < 0) {
+      builder.add(prefix, guard);
+      return;
+    }
+    Guard set = guard.and(bits[bit]);
+    Guard unset = guard.and(bits[bit].not());
+    if (bit == WIDTH - 1) {
+      enumerate(bit - 1, prefix | (1 << bit), set, builder);
+      enumerate(bit - 1, prefix, unset, builder);
+    } else {
+      enumerate(bit - 1, prefix, unset, builder);
+      enumerate(bit - 1, prefix | (1 << bit), set, builder);
+    }
+  }
+
+  private static Guard xor(Guard a, Guard b) {
+    return a.ifThenElse(b.not(), b);
+  }
+
+  private static Guard majority(Guard a, Guard b, Guard c) {
+    return a.and(b).or(c.and(a.or(b)));
+  }
+
+  /** Add the bits of two summaries restricted to a common universe, with an initial carry */
+  private static BitVectorVS add(Guard universe, Guard[] a, Guard[] b, Guard carry) {
+    Guard[] sum = new Guard[WIDTH];
+    for (int i = 0; i < WIDTH; i++) {
+      sum[i] = xor(xor(a[i], b[i]), carry);
+      if (i < WIDTH - 1) {
+        carry = majority(a[i], b[i], carry);
+      }
+    }
+    return new BitVectorVS(universe, sum);
+  }
+
+  private Guard[] restrictBits(Guard guard) {
+    Guard[] result = new Guard[WIDTH];
+    for (int i = 0; i < WIDTH; i++) {
+      result[i] = bits[i].and(guard);
+    }
+    return result;
+  }
+
+  /**
+   * Add two bit-vector value summaries, wrapping around on overflow
+   *
+   * @param other the other summand
+   * @return The value summary representing the arguments' sum
+   */
+  public BitVectorVS add(BitVectorVS other) {
+    Guard common = universe.and(other.universe);
+    return add(common, restrictBits(common), other.restrictBits(common), Guard.constFalse());
+  }
+
+  /**
+   * Subtract a bit-vector value summary from this one, wrapping around on overflow
+   *
+   * @param other the subtrahend
+   * @return The value summary representing the arguments' difference
+   */
+  public BitVectorVS subtract(BitVectorVS other) {
+    Guard common = universe.and(other.universe);
+    // a - b = a + ~b + 1
+    Guard[] negated = new Guard[WIDTH];
+    for (int i = 0; i < WIDTH; i++) {
+      negated[i] = other.bits[i].not().and(common);
+    }
+    return add(common, restrictBits(common), negated, common);
+  }
+
+  /**
+   * Get the guard under which this summary is less than another, comparing the bits from the most
+   * significant one
+   */
+  private Guard lessThanGuard(BitVectorVS other, Guard common) {
+    // the sign bit decides unless both are equal
+    Guard a = bits[WIDTH - 1];
+    Guard b = other.bits[WIDTH - 1];
+    Guard lessThan = a.and(b.not());
+    Guard equal = a.ifThenElse(b, b.not());
+    for (int i = WIDTH - 2; i >= 0 && !equal.isFalse(); i--) {
+      a = bits[i];
+      b = other.bits[i];
+      lessThan = lessThan.or(equal.and(a.not()).and(b));
+      equal = equal.and(a.ifThenElse(b, b.not()));
+    }
+    return lessThan.and(common);
+  }
+
+  private Guard equalToGuard(BitVectorVS other, Guard common) {
+    Guard equal = common;
+    for (int i = 0; i < WIDTH && !equal.isFalse(); i++) {
+      equal = equal.and(bits[i].ifThenElse(other.bits[i], other.bits[i].not()));
+    }
+    return equal;
+  }
+
+  /**
+   * Detect whether this summary is less than another, as signed integers
+   *
+   * @param other Value summary of the other integer
+   * @return The value summary representing whether this summary is less than the argument
+   */
+  public PrimitiveVS<Boolean> lessThan(BitVectorVS other) {
+    Guard common = universe.and(other.universe);
+    Guard lessThan = lessThanGuard(other, common);
+    return PrimitiveVS.of(BooleanGuards.of(lessThan, common.and(lessThan.not())));
+  }
+
+  /**
+   * Detect whether this summary is equal to another
+   *
+   * @param other Value summary of the other integer
+   * @return The value summary representing whether this summary is equal to the argument
+   */
+  public PrimitiveVS<Boolean> equalTo(BitVectorVS other) {
+    Guard common = universe.and(other.universe);
+    Guard equal = equalToGuard(other, common);
+    return PrimitiveVS.of(BooleanGuards.of(equal, common.and(equal.not())));
+  }
+
+  /**
+   * Compare this summary with another, as signed integers
+   *
+   * @param other Value summary of the other integer
+   * @return The value summary representing the comparison result, with -1 indicating this is less
+   *     than the argument, 1 indicating it is greater, and 0 indicating they are equal.
+   */
+  public PrimitiveVS<Integer> compare(BitVectorVS other) {
+    Guard common = universe.and(other.universe);
+    Guard lessThan = lessThanGuard(other, common);
+    Guard equal = equalToGuard(other, common);
+    IntegerGuards.Builder builder = new IntegerGuards.Builder(3);
+    builder.add(-1, lessThan);
+    builder.add(0, equal);
+    builder.add(1, common.and(lessThan.or(equal).not()));
+    return PrimitiveVS.of(builder.build());
+  }
+
+  @Override
+  public boolean isEmptyVS() {
+    return universe.isFalse();
+  }
+
+  @Override
+  public BitVectorVS restrict(Guard guard) {
+    if (guard.isKnownTrue()) return this;
+    return new BitVectorVS(universe.and(guard), restrictBits(guard));
+  }
+
+  @Override
+  public BitVectorVS merge(Iterable<BitVectorVS> summaries) {
+    Guard mergedUniverse = universe;
+    Guard[] mergedBits = bits.clone();
+    for (BitVectorVS summary : summaries) {
+      mergedUniverse = mergedUniverse.or(summary.universe);
+      for (int i = 0; i < WIDTH; i++) {
+        mergedBits[i] = mergedBits[i].or(summary.bits[i]);
+      }
+    }
+    return new BitVectorVS(mergedUniverse, mergedBits);
+  }
+
+  @Override
+  public BitVectorVS merge(BitVectorVS summary) {
+    return merge(Collections.singletonList(summary));
+  }
+
+  @Override
+  public BitVectorVS updateUnderGuard(Guard guard, BitVectorVS updateVal) {
+    return this.restrict(guard.not()).merge(updateVal.restrict(guard));
+  }
+
+  @Override
+  public PrimitiveVS<Boolean> symbolicEquals(BitVectorVS cmp, Guard pc) {
+    Guard common = universe.and(cmp.universe);
+    Guard equalCond = equalToGuard(cmp, common).or(common.not());
+    return BooleanVS.trueUnderGuard(pc.and(equalCond)).restrict(common);
+  }
+
+  @Override
+  public Guard getUniverse() {
+    return universe;
+  }
+
+  @Override
+  public BitVectorVS getCopy() {
+    return new BitVectorVS(universe, bits.clone());
+  }
+
+  @Override
+  public BitVectorVS swap(Map<Machine, Machine> mapping) {
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return toPrimitiveVS().toString();
+  }
+
+  @Override
+  public String toStringDetailed() {
+    return toPrimitiveVS().toStringDetailed();
+  }
+
+  @Override
+  public int computeConcreteHash() {
+    return toPrimitiveVS().computeConcreteHash();
+  }
+
+  @Override
+  public int getConcreteHash() {
+    return toPrimitiveVS().getConcreteHash();
+  }
+
+  @Override
+  public Integer computeConcreteValue() {
+    return toPrimitiveVS().computeConcreteValue();
+  }
+
+  @Override
+  public Integer getConcreteValue() {
+    return toPrimitiveVS().getConcreteValue();
+  }
+}
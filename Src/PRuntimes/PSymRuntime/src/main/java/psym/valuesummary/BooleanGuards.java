@@ -0,0 +1,93 @@
+package psym.valuesummary;
+
+/**
+ * Represents the guarded values of a Boolean primitive value summary as just the guards of `true`
+ * and `false`, which are null when the value is not a possibility. Like a hash map of Booleans, it
+ * iterates over `false` before `true`.
+ */
+final class BooleanGuards extends GuardedValueArray<Boolean> {
+  private final Guard trueGuard;
+  private final Guard falseGuard;
+
+  private BooleanGuards(Guard trueGuard, Guard falseGuard) {
+    this.trueGuard = trueGuard;
+    this.falseGuard = falseGuard;
+  }
+
+  /**
+   * Get the guarded values with the given guards, dropping the values under a false guard
+   *
+   * @param trueGuard guard of `true`, which must be mutually exclusive with that of `false`
+   * @param falseGuard guard of `false`
+   * @return the guarded values
+   */
+  static BooleanGuards of(Guard trueGuard, Guard falseGuard) {
+    return new BooleanGuards(
+        trueGuard.isFalse() ? null : trueGuard, falseGuard.isFalse() ? null : falseGuard);
+  }
+
+  /**
+   * Get the guard of `true`
+   *
+   * @return guard of `true`, which is false if `true` is not a possibility
+   */
+  Guard getTrueGuard() {
+    return trueGuard == null ? Guard.constFalse() : trueGuard;
+  }
+
+  /**
+   * Get the guard of `false`
+   *
+   * @return guard of `false`, which is false if `false` is not a possibility
+   */
+  Guard getFalseGuard() {
+    return falseGuard == null ? Guard.constFalse() : falseGuard;
+  }
+
+  @Override
+  public int size() {
+    return (trueGuard == null ? 0 : 1) + (falseGuard == null ? 0 : 1);
+  }
+
+  @Override
+  Boolean valueAt(int i) {
+    return !(i == 0 && falseGuard != null);
+  }
+
+  @Override
+  int valueHashAt(int i) {
+    return Boolean.hashCode(valueAt(i));
+  }
+
+  @Override
+  Guard guardAt(int i) {
+    return (i == 0 && falseGuard != null) ? falseGuard : trueGuard;
+  }
+
+  @Override
+  int indexOf(Object value) {
+    if (Boolean.FALSE.equals(value)) {
+      return falseGuard == null ? -1 : 0;
+    }
+    if (Boolean.TRUE.equals(value)) {
+      return trueGuard == null ? -1 : (falseGuard == null ? 0 : 1);
+    }
+    return -1;
+  }
+
+  @Override
+  boolean sameAs(GuardedValueArray<?> other) {
+    BooleanGuards that = (BooleanGuards) other;
+    return sameSolverGuard(trueGuard, that.trueGuard)
+        && sameSolverGuard(falseGuard, that.falseGuard);
+  }
+
+  private static boolean sameSolverGuard(Guard a, Guard b) {
+    return (a == null) ? b == null : (b != null && a.getSolverGuard() == b.getSolverGuard());
+  }
+
+  @Override
+  BooleanGuards restrict(Guard guard) {
+    return of(getTrueGuard().and(guard), getFalseGuard().and(guard));
+  }
+}
@@ -1,9 +1,13 @@
 package psym.valuesummary;
 
-import java.util.HashMap;
 import java.util.Map;
 
-/** Class containing static methods that are useful for Boolean primitive value summaries */
+/**
+ * Class containing static methods that are useful for Boolean primitive value summaries
+ *
+ * <p>The operations work directly on the guards of `true` and `false`, without boxing values or
+ * allocating intermediate maps.
+ */
 public final class BooleanVS {
   private BooleanVS() {}
 
@@ -15,18 +19,29 @@ public final class BooleanVS {
    */
   public static PrimitiveVS<Boolean> trueUnderGuard(Guard guard) {
     if (guard.isFalse()) {
-      return new PrimitiveVS<>(false);
+      return PrimitiveVS.of(false);
     }
 
     if (guard.isTrue()) {
-      return new PrimitiveVS<>(true);
+      return PrimitiveVS.of(true);
     }
 
     // return a value summary which is true under the guard
-    final Map<Boolean, Guard> values = new HashMap<>();
-    values.put(true, guard);
-    values.put(false, guard.not());
-    return new PrimitiveVS<>(values);
+    return PrimitiveVS.of(BooleanGuards.of(guard, guard.not()));
+  }
+
+  /**
+   * Get the guards of `true` and `false` in a Boolean value summary
+   *
+   * @param primVS A primitive boolean value summary
+   * @return Guards of the values of the primitive value summary
+   */
+  private static BooleanGuards guards(PrimitiveVS<Boolean> primVS) {
+    Map<Boolean, Guard> guardedValues = primVS.getGuardedValuesMap();
+    if (guardedValues instanceof BooleanGuards) {
+      return (BooleanGuards) guardedValues;
+    }
+    return BooleanGuards.of(primVS.getGuardFor(true), primVS.getGuardFor(false));
   }
 
   /**
@@ -57,7 +72,13 @@ public final class BooleanVS {
    * @return Boolean value summary for the arguments' conjunction
    */
   public static PrimitiveVS<Boolean> and(PrimitiveVS<Boolean> a, PrimitiveVS<Boolean> b) {
-    return a.apply(b, (x, y) -> x && y);
+    BooleanGuards x = guards(a);
+    BooleanGuards y = guards(b);
+    Guard yUniverse = y.getTrueGuard().or(y.getFalseGuard());
+    Guard trueGuard = x.getTrueGuard().and(y.getTrueGuard());
+    Guard falseGuard =
+        x.getFalseGuard().and(yUniverse).or(x.getTrueGuard().and(y.getFalseGuard()));
+    return PrimitiveVS.of(BooleanGuards.of(trueGuard, falseGuard));
   }
 
   /**
@@ -68,7 +89,10 @@ public final class BooleanVS {
    * @return Boolean value summary for the arguments' conjunction
    */
   public static PrimitiveVS<Boolean> and(PrimitiveVS<Boolean> a, boolean b) {
-    return a.apply(x -> x && b);
+    if (b) {
+      return a;
+    }
+    return PrimitiveVS.of(BooleanGuards.of(Guard.constFalse(), a.getUniverse()));
   }
 
   /**
@@ -90,7 +114,12 @@ public final class BooleanVS {
    * @return Boolean value summary for the arguments' disjunction
    */
   public static PrimitiveVS<Boolean> or(PrimitiveVS<Boolean> a, PrimitiveVS<Boolean> b) {
-    return a.apply(b, (x, y) -> x || y);
+    BooleanGuards x = guards(a);
+    BooleanGuards y = guards(b);
+    Guard yUniverse = y.getTrueGuard().or(y.getFalseGuard());
+    Guard trueGuard = x.getTrueGuard().and(yUniverse).or(x.getFalseGuard().and(y.getTrueGuard()));
+    Guard falseGuard = x.getFalseGuard().and(y.getFalseGuard());
+    return PrimitiveVS.of(BooleanGuards.of(trueGuard, falseGuard));
   }
 
   /**
@@ -7,6 +7,10 @@ import psym.valuesummary.solvers.SolverGuard;
 /**
  * Represents the Schedule, Control, Input (SCI) restrict in the guarded value of a value summary
  * Currently, the guards are implemented using BDDs.
+ *
+ * <p>Operations with an operand already known to be true or false are folded without calling the
+ * solver. This is only constant folding: explicit searches still run on value summaries with guard
+ * maps, and there is no separate concrete execution mode.
  */
 public class Guard implements Serializable {
   /** Represents the boolean formula for the restrict */
@@ -44,10 +48,31 @@ public class Guard implements Serializable {
     return bddGuards.stream().reduce(Guard.constFalse(), Guard::or);
   }
 
+  /**
+   * Get the solver guard of this restrict, which is unique per formula in its guard table
+   *
+   * @return the solver guard
+   */
+  SolverGuard getSolverGuard() {
+    return guard;
+  }
+
   public static Guard newVar() {
     return new Guard(SolverGuard.newVar());
   }
 
+  /**
+   * Get the choice variable at a choice depth and index, which is reused by every choice made at
+   * that depth
+   *
+   * @param depth choice depth
+   * @param index index of the variable among those of the choice depth
+   * @return the choice variable
+   */
+  public static Guard choiceVar(int depth, int index) {
+    return new Guard(SolverGuard.choiceVar(depth, index));
+  }
+
   /**
    * ValueSummaryChecks whether the logical restrict evaluates to true
    *
@@ -66,6 +91,24 @@ public class Guard implements Serializable {
     return guard.isFalse();
   }
 
+  /**
+   * Checks whether the restrict is already known to be true, without calling the solver
+   *
+   * @return True iff the restrict is constant true or was already found to be valid
+   */
+  public boolean isKnownTrue() {
+    return guard.isKnownTrue();
+  }
+
+  /**
+   * Checks whether the restrict is already known to be false, without calling the solver
+   *
+   * @return True iff the restrict is constant false or was already found to be unsatisfiable
+   */
+  public boolean isKnownFalse() {
+    return guard.isKnownFalse();
+  }
+
   /**
    * Performs logical `and` of two guards
    *
@@ -73,6 +116,8 @@ public class Guard implements Serializable {
    * @return restrict that is the `and` of two guards
    */
   public Guard and(Guard other) {
+    if (guard.isKnownTrue() || other.guard.isKnownFalse()) return other;
+    if (guard.isKnownFalse() || other.guard.isKnownTrue()) return this;
     return new Guard(guard.and(other.guard));
   }
 
@@ -83,6 +128,8 @@ public class Guard implements Serializable {
    * @return restrict that is the `or` of two guards
    */
   public Guard or(Guard other) {
+    if (guard.isKnownFalse() || other.guard.isKnownTrue()) return other;
+    if (guard.isKnownTrue() || other.guard.isKnownFalse()) return this;
     return new Guard(guard.or(other.guard));
   }
 
@@ -93,6 +140,8 @@ public class Guard implements Serializable {
    * @return
    */
   public Guard implies(Guard other) {
+    if (guard.isKnownFalse() || other.guard.isKnownTrue()) return constTrue();
+    if (guard.isKnownTrue()) return other;
     return new Guard(guard.implies(other.guard));
   }
 
@@ -102,6 +151,8 @@ public class Guard implements Serializable {
    * @return negated restrict `not`
    */
   public Guard not() {
+    if (guard.isKnownTrue()) return constFalse();
+    if (guard.isKnownFalse()) return constTrue();
     return new Guard(guard.not());
   }
 
@@ -113,6 +164,8 @@ public class Guard implements Serializable {
    * @return resultant ITE Guard
    */
   public Guard ifThenElse(Guard thenCase, Guard elseCase) {
+    if (guard.isKnownTrue()) return thenCase;
+    if (guard.isKnownFalse()) return elseCase;
     return new Guard(guard.ifThenElse(thenCase.guard, elseCase.guard));
   }
 
@@ -0,0 +1,111 @@
+package psym.valuesummary;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Represents the guarded values of a primitive value summary as a fixed sequence of (value, guard)
+ * pairs, stored without boxing by subclasses specialized to one type of value.
+ *
+ * <p>It is an immutable map, so a primitive value summary can use it in place of a hash map, and
+ * value summary operations specialized to its type can read its values and guards by index.
+ *
+ * @param <T> Type of the values
+ */
+abstract class GuardedValueArray<T> extends AbstractMap<T, Guard> implements Serializable {
+  /**
+   * Get the value at an index, boxing it
+   *
+   * @param i index of the value
+   * @return the value at index i
+   */
+  abstract T valueAt(int i);
+
+  /**
+   * Get the hash of the value at an index, which is the same as that of the boxed value
+   *
+   * @param i index of the value
+   * @return the hash of the value at index i
+   */
+  abstract int valueHashAt(int i);
+
+  /**
+   * Get the guard at an index
+   *
+   * @param i index of the guard
+   * @return the guard of the value at index i
+   */
+  abstract Guard guardAt(int i);
+
+  /**
+   * Get the index of a value
+   *
+   * @param value the value
+   * @return the index of the value, or -1 if there is none
+   */
+  abstract int indexOf(Object value);
+
+  /**
+   * Check if the pairs at the same indices of this and another array of the same class are the
+   * same values under the same solver guards
+   *
+   * @param other another array of the same class and size
+   * @return whether the arrays are the same
+   */
+  abstract boolean sameAs(GuardedValueArray<?> other);
+
+  /**
+   * Get the array restricted to a guard, dropping the values that become unreachable
+   *
+   * @param guard the guard to restrict to
+   * @return the restricted array
+   */
+  abstract GuardedValueArray<T> restrict(Guard guard);
+
+  @Override
+  public boolean containsKey(Object value) {
+    return indexOf(value) >= 0;
+  }
+
+  @Override
+  public Guard get(Object value) {
+    int i = indexOf(value);
+    return (i < 0) ? null : guardAt(i);
+  }
+
+  @Override
+  public Set<Map.Entry<T, Guard>> entrySet() {
+    return new AbstractSet<Map.Entry<T, Guard>>() {
+      @Override
+      public Iterator<Map.Entry<T, Guard>> iterator() {
+        return new Iterator<Map.Entry<T, Guard>>() {
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return next < GuardedValueArray.this.size();
+          }
+
+          @Override
+          public Map.Entry<T, Guard> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            int i = next++;
+            return new SimpleImmutableEntry<>(valueAt(i), guardAt(i));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return GuardedValueArray.this.size();
+      }
+    };
+  }
+}
@@ -0,0 +1,157 @@
+package psym.valuesummary;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Represents the guarded values of an Integer primitive value summary as a sorted array of
+ * primitive values, with a parallel array of their guards
+ */
+final class IntegerGuards extends GuardedValueArray<Integer> {
+  private final int[] values;
+  private final Guard[] guards;
+  private final int size;
+
+  private IntegerGuards(int[] values, Guard[] guards, int size) {
+    this.values = values;
+    this.guards = guards;
+    this.size = size;
+  }
+
+  /**
+   * Get the guarded values of a map from integers to guards
+   *
+   * @param guardedValues map from non-null integers to mutually exclusive guards
+   * @return the guarded values
+   */
+  static IntegerGuards of(Map<Integer, Guard> guardedValues) {
+    if (guardedValues instanceof IntegerGuards) {
+      return (IntegerGuards) guardedValues;
+    }
+    Builder builder = new Builder(guardedValues.size());
+    for (Map.Entry<Integer, Guard> entry : guardedValues.entrySet()) {
+      builder.add(entry.getKey(), entry.getValue());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Get the value at an index, without boxing it
+   *
+   * @param i index of the value
+   * @return the value at index i
+   */
+  int intAt(int i) {
+    return values[i];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  Integer valueAt(int i) {
+    return values[i];
+  }
+
+  @Override
+  int valueHashAt(int i) {
+    return Integer.hashCode(values[i]);
+  }
+
+  @Override
+  Guard guardAt(int i) {
+    return guards[i];
+  }
+
+  @Override
+  int indexOf(Object value) {
+    if (!(value instanceof Integer)) {
+      return -1;
+    }
+    int i = Arrays.binarySearch(values, 0, size, (Integer) value);
+    return (i < 0) ? -1 : i;
+  }
+
+  @Override
+  boolean sameAs(GuardedValueArray<?> other) {
+    IntegerGuards that = (IntegerGuards) other;
+    for (int i = 0; i < size; i++) {
+      if (values[i] != that.values[i]
+          || guards[i].getSolverGuard() != that.guards[i].getSolverGuard()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  IntegerGuards restrict(Guard guard) {
+    Builder builder = new Builder(size);
+    for (int i = 0; i < size; i++) {
+      builder.add(values[i], guards[i].and(guard));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Builds integer guarded values from (value, guard) pairs, taking the disjunction of the guards
+   * of equal values and dropping the values under a false guard
+   */
+  static final class Builder {
+    private int[] values;
+    private Guard[] guards;
+    private int size = 0;
+
+    /**
+     * Make a builder
+     *
+     * @param capacity expected number of distinct values
+     */
+    Builder(int capacity) {
+      this.values = new int[Math.max(1, capacity)];
+      this.guards = new Guard[Math.max(1, capacity)];
+    }
+
+    /**
+     * Add a value under a guard
+     *
+     * @param value the value
+     * @param guard the guard, which must be mutually exclusive with those of other values
+     */
+    void add(int value, Guard guard) {
+      if (guard.isFalse()) {
+        return;
+      }
+      // values often arrive in order, so check for appending first
+      int i =
+          (size == 0 || values[size - 1] < value)
+              ? -(size + 1)
+              : Arrays.binarySearch(values, 0, size, value);
+      if (i >= 0) {
+        guards[i] = guards[i].or(guard);
+        return;
+      }
+      i = -(i + 1);
+      if (size == values.length) {
+        values = Arrays.copyOf(values, 2 * size);
+        guards = Arrays.copyOf(guards, 2 * size);
+      }
+      System.arraycopy(values, i, values, i + 1, size - i);
+      System.arraycopy(guards, i, guards, i + 1, size - i);
+      values[i] = value;
+      guards[i] = guard;
+      size++;
+    }
+
+    /**
+     * Get the guarded values added so far; the builder must not be used afterwards
+     *
+     * @return the guarded values
+     */
+    IntegerGuards build() {
+      return new IntegerGuards(values, guards, size);
+    }
+  }
+}
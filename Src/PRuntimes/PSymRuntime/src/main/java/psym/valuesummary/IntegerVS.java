@@ -1,7 +1,109 @@
 package psym.valuesummary;
 
-/** Class containing static methods that are useful for Integer primitive value summaries */
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * Class containing static methods that are useful for Integer primitive value summaries
+ *
+ * <p>The operations work directly on the sorted primitive values and guards of the summaries,
+ * without boxing values or allocating intermediate maps. Binary operations on summaries with many
+ * possible values are instead computed on their {@link BitVectorVS} encodings, to avoid going
+ * through every pair of values. Comparisons then yield their Boolean summary directly, but sums and
+ * differences are still converted back to primitive value summaries, by enumerating each of their
+ * possible results.
+ */
 public class IntegerVS {
+  /** Min number of pairs of values from which binary operations use bit-vector encodings */
+  private static final long BIT_VECTOR_THRESHOLD = 1024;
+  /** Represents a comparison of two primitive integers */
+  private interface IntComparison {
+    boolean test(int x, int y);
+  }
+
+  /**
+   * Get the sorted primitive values and guards of an Integer value summary
+   *
+   * @param a Value summary
+   * @return The guarded values of the value summary
+   */
+  private static IntegerGuards ints(PrimitiveVS<Integer> a) {
+    return IntegerGuards.of(a.getGuardedValuesMap());
+  }
+
+  /**
+   * Check if a binary operation on two Integer value summaries is cheaper on their bit-vector
+   * encodings than on every pair of their values
+   *
+   * @param a First value summary
+   * @param b Second value summary
+   * @return Whether to use bit-vector encodings
+   */
+  private static boolean useBitVectors(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
+    return (long) a.getGuardedValuesMap().size() * b.getGuardedValuesMap().size()
+        >= BIT_VECTOR_THRESHOLD;
+  }
+
+  private static PrimitiveVS<Integer> combine(
+      PrimitiveVS<Integer> a, PrimitiveVS<Integer> b, IntBinaryOperator op) {
+    IntegerGuards x = ints(a);
+    IntegerGuards y = ints(b);
+    IntegerGuards.Builder result = new IntegerGuards.Builder(x.size() * y.size());
+    for (int i = 0; i < x.size(); i++) {
+      for (int j = 0; j < y.size(); j++) {
+        Guard guard = x.guardAt(i).and(y.guardAt(j));
+        if (!guard.isFalse()) {
+          result.add(op.applyAsInt(x.intAt(i), y.intAt(j)), guard);
+        }
+      }
+    }
+    return PrimitiveVS.of(result.build());
+  }
+
+  private static PrimitiveVS<Integer> shift(PrimitiveVS<Integer> a, int i) {
+    IntegerGuards x = ints(a);
+    IntegerGuards.Builder result = new IntegerGuards.Builder(x.size());
+    for (int k = 0; k < x.size(); k++) {
+      result.add(x.intAt(k) + i, x.guardAt(k));
+    }
+    return PrimitiveVS.of(result.build());
+  }
+
+  private static PrimitiveVS<Boolean> test(
+      PrimitiveVS<Integer> a, PrimitiveVS<Integer> b, IntComparison cmp) {
+    IntegerGuards x = ints(a);
+    IntegerGuards y = ints(b);
+    Guard trueGuard = Guard.constFalse();
+    Guard falseGuard = Guard.constFalse();
+    for (int i = 0; i < x.size(); i++) {
+      for (int j = 0; j < y.size(); j++) {
+        Guard guard = x.guardAt(i).and(y.guardAt(j));
+        if (guard.isFalse()) {
+          continue;
+        }
+        if (cmp.test(x.intAt(i), y.intAt(j))) {
+          trueGuard = trueGuard.or(guard);
+        } else {
+          falseGuard = falseGuard.or(guard);
+        }
+      }
+    }
+    return PrimitiveVS.of(BooleanGuards.of(trueGuard, falseGuard));
+  }
+
+  private static PrimitiveVS<Boolean> test(PrimitiveVS<Integer> a, IntPredicate predicate) {
+    IntegerGuards x = ints(a);
+    Guard trueGuard = Guard.constFalse();
+    Guard falseGuard = Guard.constFalse();
+    for (int i = 0; i < x.size(); i++) {
+      if (predicate.test(x.intAt(i))) {
+        trueGuard = trueGuard.or(x.guardAt(i));
+      } else {
+        falseGuard = falseGuard.or(x.guardAt(i));
+      }
+    }
+    return PrimitiveVS.of(BooleanGuards.of(trueGuard, falseGuard));
+  }
   /**
    * Add two Integer primitive value summaries
    *
@@ -10,7 +112,10 @@ public class IntegerVS {
    * @return The value summary representing the arguments' sum
    */
   public static PrimitiveVS<Integer> add(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
-    return a.apply(b, Integer::sum);
+    if (useBitVectors(a, b)) {
+      return new BitVectorVS(a).add(new BitVectorVS(b)).toPrimitiveVS();
+    }
+    return combine(a, b, Integer::sum);
   }
 
   /**
@@ -21,7 +126,7 @@ public class IntegerVS {
    * @return The value summary representing the arguments' sum
    */
   public static PrimitiveVS<Integer> add(PrimitiveVS<Integer> a, int i) {
-    return a.apply(x -> x + i);
+    return shift(a, i);
   }
 
   /**
@@ -32,7 +137,10 @@ public class IntegerVS {
    * @return The value summary representing the arguments' difference
    */
   public static PrimitiveVS<Integer> subtract(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
-    return a.apply(b, (x, y) -> x - y);
+    if (useBitVectors(a, b)) {
+      return new BitVectorVS(a).subtract(new BitVectorVS(b)).toPrimitiveVS();
+    }
+    return combine(a, b, (x, y) -> x - y);
   }
 
   /**
@@ -43,7 +151,7 @@ public class IntegerVS {
    * @return The value summary representing the arguments' difference
    */
   public static PrimitiveVS<Integer> subtract(PrimitiveVS<Integer> a, int i) {
-    return a.apply(x -> x - i);
+    return shift(a, -i);
   }
 
   /**
@@ -54,7 +162,10 @@ public class IntegerVS {
    * @return The value summary representing whether the first argument is less than the second
    */
   public static PrimitiveVS<Boolean> lessThan(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
-    return a.apply(b, (x, y) -> x < y);
+    if (useBitVectors(a, b)) {
+      return new BitVectorVS(a).lessThan(new BitVectorVS(b));
+    }
+    return test(a, b, (x, y) -> x < y);
   }
 
   /**
@@ -65,7 +176,7 @@ public class IntegerVS {
    * @return The value summary representing whether the first argument is less than the second
    */
   public static PrimitiveVS<Boolean> lessThan(int a, PrimitiveVS<Integer> b) {
-    return b.apply(x -> a < x);
+    return test(b, x -> a < x);
   }
 
   /**
@@ -76,7 +187,7 @@ public class IntegerVS {
    * @return The value summary representing whether the first argument is less than the second
    */
   public static PrimitiveVS<Boolean> lessThan(PrimitiveVS<Integer> a, int b) {
-    return a.apply(x -> x < b);
+    return test(a, x -> x < b);
   }
 
   /**
@@ -88,7 +199,10 @@ public class IntegerVS {
    *     positive indicating b < a, and 0 indicating a = b.
    */
   public static PrimitiveVS<Integer> compare(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
-    return a.apply(b, Integer::compareTo);
+    if (useBitVectors(a, b)) {
+      return new BitVectorVS(a).compare(new BitVectorVS(b));
+    }
+    return combine(a, b, Integer::compare);
   }
 
   /**
@@ -97,7 +211,8 @@ public class IntegerVS {
    * @return The maximum possible value
    */
   public static Integer maxValue(PrimitiveVS<Integer> a) {
-    return a.getValues().stream().max(Integer::compare).orElse(null);
+    IntegerGuards x = ints(a);
+    return x.isEmpty() ? null : x.valueAt(x.size() - 1);
   }
 
   /**
@@ -106,12 +221,8 @@ public class IntegerVS {
    * @return The maximum possible value
    */
   public static Boolean hasPositiveValue(PrimitiveVS<Integer> a) {
-    for (Integer val : a.getValues()) {
-      if (val > 0) {
-        return true;
-      }
-    }
-    return false;
+    IntegerGuards x = ints(a);
+    return !x.isEmpty() && x.intAt(x.size() - 1) > 0;
   }
 
   /**
@@ -120,7 +231,8 @@ public class IntegerVS {
    * @return The minimum possible value
    */
   public static Integer minValue(PrimitiveVS<Integer> a) {
-    return a.getValues().stream().min(Integer::compare).orElse(null);
+    IntegerGuards x = ints(a);
+    return x.isEmpty() ? null : x.valueAt(0);
   }
 
   /**
@@ -131,6 +243,9 @@ public class IntegerVS {
    * @return The value summary representing whether the first argument is equal to the second
    */
   public static PrimitiveVS<Boolean> equalTo(PrimitiveVS<Integer> a, PrimitiveVS<Integer> b) {
-    return a.apply(b, Integer::equals);
+    if (useBitVectors(a, b)) {
+      return new BitVectorVS(a).equalTo(new BitVectorVS(b));
+    }
+    return test(a, b, (x, y) -> x == y);
   }
 }
@@ -13,12 +13,12 @@ import psym.utils.exception.BugFoundException;
 
 /** Represents the list value summaries. */
 public class ListVS<T extends ValueSummary<T>> implements ValueSummary<ListVS<T>> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final List<Object> concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient List<Object> concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /** The size of the list under all guards */
   private final PrimitiveVS<Integer> size;
@@ -31,8 +31,6 @@ public class ListVS<T extends ValueSummary<T>> implements ValueSummary<ListVS<T>
   public ListVS(PrimitiveVS<Integer> size, List<T> items) {
     this.size = size;
     this.items = items;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -507,6 +505,24 @@ public class ListVS<T extends ValueSummary<T>> implements ValueSummary<ListVS<T>
     return getUniverse().and(size.getGuardFor(0).not());
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public List<Object> getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
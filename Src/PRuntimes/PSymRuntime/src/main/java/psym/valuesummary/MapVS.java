@@ -1,7 +1,6 @@
 package psym.valuesummary;
 
 import java.util.*;
-import lombok.Getter;
 import psym.runtime.machine.Machine;
 import psym.utils.Assert;
 
@@ -13,12 +12,12 @@ public class MapVS<K, T extends ValueSummary<T>, V extends ValueSummary<V>>
   /** The mapping from all possible keys to values */
   public final Map<K, V> entries;
   /** The mapping from all possible keys to values */
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final Map<K, Object> concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient Map<K, Object> concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /**
    * Make a new MapVS with the specified set of keys and mapping
@@ -29,8 +28,6 @@ public class MapVS<K, T extends ValueSummary<T>, V extends ValueSummary<V>>
   public MapVS(SetVS<T> keys, Map<K, V> entries) {
     this.keys = keys;
     this.entries = entries;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -41,8 +38,6 @@ public class MapVS<K, T extends ValueSummary<T>, V extends ValueSummary<V>>
   public MapVS(Guard universe) {
     this.keys = new SetVS<>(universe);
     this.entries = new HashMap<>();
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -373,6 +368,24 @@ public class MapVS<K, T extends ValueSummary<T>, V extends ValueSummary<V>>
     return keys.contains(keySummary);
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public Map<K, Object> getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
@@ -10,12 +10,12 @@ import psym.runtime.values.PString;
 
 /** Class for named tuple value summaries */
 public class NamedTupleVS implements ValueSummary<NamedTupleVS> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final Object[] concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient Object[] concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /** List of names of the fields in the declared order */
   private final List<String> names;
@@ -25,8 +25,6 @@ public class NamedTupleVS implements ValueSummary<NamedTupleVS> {
   private NamedTupleVS(List<String> names, TupleVS tuple) {
     this.names = names;
     this.tuple = tuple;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
     storeSymmetricTuple();
   }
 
@@ -38,8 +36,6 @@ public class NamedTupleVS implements ValueSummary<NamedTupleVS> {
   public NamedTupleVS(NamedTupleVS old) {
     this.names = new ArrayList<>(old.names);
     this.tuple = new TupleVS(old.tuple);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
     storeSymmetricTuple();
   }
 
@@ -57,13 +53,11 @@ public class NamedTupleVS implements ValueSummary<NamedTupleVS> {
       names.add((String) namesAndFields[i]);
     }
     tuple = new TupleVS(vs);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
     storeSymmetricTuple();
   }
 
   private void storeSymmetricTuple() {
-    if (PSymGlobal.getConfiguration().getSymmetryMode() == SymmetryMode.Full) {
+    if (PSymGlobal.getConfiguration().getSymmetryMode() != SymmetryMode.None) {
       if (this.names.size() == 3 && !isEmptyVS()) {
         if (this.names.get(0).equals("symtag")
               && this.names.get(1).equals("name")
@@ -240,6 +234,24 @@ public class NamedTupleVS implements ValueSummary<NamedTupleVS> {
     return tuple.getUniverse();
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public Object[] getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     return tuple.getConcreteHash();
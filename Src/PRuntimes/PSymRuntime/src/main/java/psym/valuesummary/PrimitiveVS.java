@@ -4,21 +4,27 @@ import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import lombok.Getter;
 import psym.runtime.machine.Machine;
 
 /**
  * Represents a primitive value summary (Boolean, Integer, Float, String)
  *
+ * <p>Summaries returned by the static factories and by operations on summaries are interned, so
+ * equal (value, guard) sets share one instance and can be compared by reference.
+ *
+ * <p>The guarded values of Boolean and Integer summaries built by the factories are stored without
+ * boxing (see {@link BooleanVS} and {@link IntegerVS}), as just two guards and as a sorted array of
+ * values with their guards, respectively.
+ *
  * @param <T> Type of value stored in the primitive value summary
  */
 public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final T concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient T concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /**
    * A primitive value is a collection of guarded values
@@ -47,8 +53,6 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
    */
   public PrimitiveVS(T value, Guard guard) {
     this.guardedValues = Collections.singletonMap(value, guard);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -67,8 +71,6 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
    */
   public PrimitiveVS(Map<T, Guard> guardedValues) {
     this.guardedValues = guardedValues;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -83,8 +85,6 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
         this.guardedValues.put(entry.getKey(), entry.getValue());
       }
     }
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -101,6 +101,96 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
     this(new HashMap<>());
   }
 
+  /**
+   * Get the interned PrimitiveVS containing only the specified value under the `true` restrict
+   *
+   * @param value The value
+   * @return A shared, immutable primitive value summary
+   */
+  public static <T> PrimitiveVS<T> of(T value) {
+    return of(value, Guard.constTrue());
+  }
+
+  /**
+   * Get the interned PrimitiveVS containing only the specified value under the given restrict
+   *
+   * @param value The value
+   * @param guard The restrict
+   * @return A shared, immutable primitive value summary
+   */
+  public static <T> PrimitiveVS<T> of(T value, Guard guard) {
+    return PrimitiveVSTable.intern(Collections.singletonMap(value, guard));
+  }
+
+  /**
+   * Get the interned PrimitiveVS with the given guarded values, which must not be modified
+   * afterwards. Caution: The caller must take care to ensure that the guards on the provided values
+   * are mutually exclusive.
+   *
+   * @param guardedValues Map from values to their restricts
+   * @return A shared, immutable primitive value summary
+   */
+  public static <T> PrimitiveVS<T> of(Map<T, Guard> guardedValues) {
+    return PrimitiveVSTable.intern(compact(guardedValues));
+  }
+
+  /**
+   * Get the guarded values in their unboxed representation if all the values are Booleans or all
+   * are Integers, or otherwise as they are
+   */
+  private static <T> Map<T, Guard> compact(Map<T, Guard> guardedValues) {
+    if (guardedValues instanceof GuardedValueArray || guardedValues.isEmpty()) {
+      return guardedValues;
+    }
+    boolean allBoolean = true;
+    boolean allInteger = true;
+    for (T value : guardedValues.keySet()) {
+      allBoolean &= value instanceof Boolean;
+      allInteger &= value instanceof Integer;
+    }
+    if (allBoolean) {
+      return asGuardedValues(
+          BooleanGuards.of(
+              guardedValues.getOrDefault(true, Guard.constFalse()),
+              guardedValues.getOrDefault(false, Guard.constFalse())));
+    }
+    if (allInteger) {
+      IntegerGuards.Builder builder = new IntegerGuards.Builder(guardedValues.size());
+      for (Map.Entry<T, Guard> entry : guardedValues.entrySet()) {
+        builder.add((Integer) entry.getKey(), entry.getValue());
+      }
+      return asGuardedValues(builder.build());
+    }
+    return guardedValues;
+  }
+
+  /**
+   * Get unboxed guarded values as guarded values of type T, whose values were all checked to be of
+   * the unboxed type
+   */
+  @SuppressWarnings("unchecked") // T is the unboxed type, as checked by the caller
+  private static <T> Map<T, Guard> asGuardedValues(GuardedValueArray<?> guardedValues) {
+    return (Map<T, Guard>) guardedValues;
+  }
+
+  /**
+   * Get the interned empty PrimitiveVS
+   *
+   * @return A shared, immutable empty primitive value summary
+   */
+  public static <T> PrimitiveVS<T> empty() {
+    return PrimitiveVSTable.intern(Collections.emptyMap());
+  }
+
+  /**
+   * Get the guarded values, which must not be modified
+   *
+   * @return map from values to their guards
+   */
+  Map<T, Guard> getGuardedValuesMap() {
+    return guardedValues;
+  }
+
   /** Get all the different possible guarded values */
   public List<GuardedValue<T>> getGuardedValues() {
     if (guardedValuesList == null)
@@ -158,7 +248,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
       newGuardedValues.put(key, entry.getValue());
     }
     if (swapped) {
-      return new PrimitiveVS<>(newGuardedValues);
+      return of(newGuardedValues);
     } else {
       return this;
     }
@@ -231,7 +321,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
       results.merge(mapped, guardedValue.getGuard(), Guard::or);
     }
 
-    return new PrimitiveVS<U>(results);
+    return of(results);
   }
 
   /**
@@ -265,7 +355,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
       }
     }
 
-    return new PrimitiveVS<>(results);
+    return of(results);
   }
 
   public <Target> PrimitiveVS<Target> apply(
@@ -274,7 +364,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
 
     for (GuardedValue<T> guardedValue : getGuardedValues()) {
       final Target mapped = function.apply(guardedValue.getValue());
-      toMerge.add(new PrimitiveVS<>(mapped).restrict(guardedValue.getGuard()));
+      toMerge.add(of(mapped).restrict(guardedValue.getGuard()));
     }
 
     return mergeWith.merge(toMerge);
@@ -287,7 +377,13 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
 
   @Override
   public PrimitiveVS<T> restrict(Guard guard) {
-    if (guard.equals(getUniverse())) return new PrimitiveVS<>(this);
+    if (guard.isKnownTrue()) return this;
+    if (guard.isKnownFalse()) return empty();
+    // primitive value summaries are never modified, so there's no need to copy
+    if (guard.equals(getUniverse())) return this;
+    if (guardedValues instanceof GuardedValueArray) {
+      return of(((GuardedValueArray<T>) guardedValues).restrict(guard));
+    }
 
     final Map<T, Guard> result = new HashMap<>();
 
@@ -297,7 +393,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
         result.put(entry.getKey(), newEntryGuard);
       }
     }
-    return new PrimitiveVS<>(result);
+    return of(result);
   }
 
   @Override
@@ -338,7 +434,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
       result.put(null, remainingUniverse);
     }
 
-    return new PrimitiveVS<>(result);
+    return of(result);
   }
 
   @Override
@@ -352,7 +448,7 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
     boolean isNullCompare = false;
     if (cmp_orig == null) {
       isNullCompare = true;
-      cmp = new PrimitiveVS<>((T) null);
+      cmp = of((T) null);
     } else {
       cmp = cmp_orig;
     }
@@ -373,6 +469,24 @@ public class PrimitiveVS<T> implements ValueSummary<PrimitiveVS<T>> {
         .restrict(getUniverse().and(cmp.getUniverse()));
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public T getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     if (!guardedValues.isEmpty()) {
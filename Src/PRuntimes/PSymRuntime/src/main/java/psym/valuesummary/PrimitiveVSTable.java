@@ -0,0 +1,157 @@
+package psym.valuesummary;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import psym.valuesummary.solvers.SolverGuard;
+
+/**
+ * Hash-consing table of primitive value summaries, so that equal summaries share one instance.
+ *
+ * <p>Summaries are keyed on their (value, guard) pairs, and held with weak references, so an
+ * interned summary is reclaimed once nothing else refers to it. Guards are compared by the identity
+ * of their solver guards, which are unique per formula, since the hash of a guard may change once
+ * the solver finds it to be constant.
+ *
+ * <p>Only summaries over immutable values (booleans, numbers, strings and enums) are interned.
+ * Other values, such as machines, may be equal without being interchangeable, e.g. the copies of a
+ * machine in different search workers.
+ *
+ * <p>Each thread has its own table, since search workers have their own guards, and the table is
+ * cleared whenever the guard table of the thread is reset.
+ */
+final class PrimitiveVSTable {
+  private static final ThreadLocal<PrimitiveVSTable> tables =
+      ThreadLocal.withInitial(PrimitiveVSTable::new);
+
+  private final Map<Key, Entry> table = new HashMap<>();
+  private final ReferenceQueue<PrimitiveVS<?>> reclaimed = new ReferenceQueue<>();
+  /** Version of the guard table that the interned guards belong to */
+  private Object guardTableVersion = null;
+
+  private PrimitiveVSTable() {}
+
+  /**
+   * Get the interned primitive value summary with the given guarded values, interning a new one if
+   * there is none. The map must not be modified afterwards.
+   *
+   * @param guardedValues map from values to mutually exclusive guards
+   * @return the interned primitive value summary
+   */
+  static <T> PrimitiveVS<T> intern(Map<T, Guard> guardedValues) {
+    return tables.get().get(guardedValues);
+  }
+
+  private <T> PrimitiveVS<T> get(Map<T, Guard> guardedValues) {
+    if (!(guardedValues instanceof GuardedValueArray)) {
+      for (T value : guardedValues.keySet()) {
+        if (!isInternable(value)) {
+          return new PrimitiveVS<>(guardedValues);
+        }
+      }
+    }
+    validate();
+    expunge();
+    Key key = new Key(guardedValues);
+    Entry entry = table.get(key);
+    if (entry != null) {
+      @SuppressWarnings("unchecked") // equal keys have equal values, and thus the same value type
+      PrimitiveVS<T> interned = (PrimitiveVS<T>) entry.get();
+      if (interned != null) {
+        return interned;
+      }
+    }
+    PrimitiveVS<T> result = new PrimitiveVS<>(guardedValues);
+    table.put(key, new Entry(result, key, reclaimed));
+    return result;
+  }
+
+  private static boolean isInternable(Object value) {
+    return value == null
+        || value instanceof Boolean
+        || value instanceof Integer
+        || value instanceof Long
+        || value instanceof Float
+        || value instanceof Double
+        || value instanceof String
+        || value instanceof Enum;
+  }
+
+  private void validate() {
+    Object version = SolverGuard.getTableVersion();
+    if (guardTableVersion != version) {
+      table.clear();
+      while (reclaimed.poll() != null) {}
+      guardTableVersion = version;
+    }
+  }
+
+  /** Remove the entries of all summaries reclaimed by the garbage collector */
+  private void expunge() {
+    Entry entry;
+    while ((entry = (Entry) reclaimed.poll()) != null) {
+      table.remove(entry.key, entry);
+    }
+  }
+
+  /** Represents the guarded values of a summary, compared as (value, solver guard) pairs */
+  private static final class Key {
+    private final Map<?, Guard> guardedValues;
+    private final int hash;
+
+    private Key(Map<?, Guard> guardedValues) {
+      this.guardedValues = guardedValues;
+      int h = 0;
+      if (guardedValues instanceof GuardedValueArray) {
+        GuardedValueArray<?> array = (GuardedValueArray<?>) guardedValues;
+        for (int i = 0; i < array.size(); i++) {
+          h += array.valueHashAt(i) ^ System.identityHashCode(array.guardAt(i).getSolverGuard());
+        }
+      } else {
+        for (Map.Entry<?, Guard> entry : guardedValues.entrySet()) {
+        h +=
+            Objects.hashCode(entry.getKey())
+                ^ System.identityHashCode(entry.getValue().getSolverGuard());
+        }
+      }
+      this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      if (hash != that.hash || guardedValues.size() != that.guardedValues.size()) return false;
+      if (guardedValues.getClass() == that.guardedValues.getClass()
+          && guardedValues instanceof GuardedValueArray) {
+        return ((GuardedValueArray<?>) guardedValues)
+            .sameAs((GuardedValueArray<?>) that.guardedValues);
+      }
+      for (Map.Entry<?, Guard> entry : guardedValues.entrySet()) {
+        Guard other = that.guardedValues.get(entry.getKey());
+        if (other == null || other.getSolverGuard() != entry.getValue().getSolverGuard()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** Represents a weak reference to an interned summary, keeping the key it is interned with */
+  private static class Entry extends WeakReference<PrimitiveVS<?>> {
+    private final Key key;
+
+    private Entry(PrimitiveVS<?> summary, Key key, ReferenceQueue<PrimitiveVS<?>> queue) {
+      super(summary, queue);
+      this.key = key;
+    }
+  }
+}
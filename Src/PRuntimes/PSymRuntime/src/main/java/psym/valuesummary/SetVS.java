@@ -1,31 +1,34 @@
 package psym.valuesummary;
 
 import java.util.*;
-import lombok.Getter;
 import psym.runtime.machine.Machine;
 
 /** Class for set value summaries */
 public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final Set<Object> concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient Set<Object> concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /** The underlying set */
   private final ListVS<T> elements;
 
+  /** Hash index of the elements with concrete keys, built lazily */
+  private transient ElementIndex index = null;
+
   public SetVS(ListVS<T> elements) {
     this.elements = elements;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
+  }
+
+  private SetVS(ListVS<T> elements, ElementIndex index) {
+    this(elements);
+    this.index = index;
   }
 
   public SetVS(Guard universe) {
     this.elements = new ListVS<>(universe);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -35,8 +38,6 @@ public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>>
    */
   public SetVS(SetVS<T> old) {
     this.elements = new ListVS<>(old.elements);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /** Get all the different possible guarded values */
@@ -148,14 +149,31 @@ public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>>
       return new PrimitiveVS<>();
     }
 
-    // check if each item in the set is symbolically equal
     Guard cond = element.getUniverse().and(getUniverse());
 
-    Guard containsCond = Guard.constFalse();
-    for (T lhs : this.elements.getItems()) {
-      containsCond = containsCond.or(BooleanVS.getTrueGuard(element.symbolicEquals(lhs, cond)));
+    List<? extends GuardedValue<?>> keys = getIndexKeys(element);
+    if (keys == null) {
+      // check if each item in the set is symbolically equal
+      Guard containsCond = Guard.constFalse();
+      for (T lhs : this.elements.getItems()) {
+        containsCond = containsCond.or(BooleanVS.getTrueGuard(element.symbolicEquals(lhs, cond)));
+      }
+      return BooleanVS.trueUnderGuard(containsCond).restrict(cond);
     }
 
+    // look up items with the same concrete keys, and only compare items without concrete keys
+    ElementIndex elementIndex = getIndex();
+    Guard containsCond = Guard.constFalse();
+    for (GuardedValue<?> key : keys) {
+      for (GuardedValue<Integer> position : elementIndex.get(key.getValue())) {
+        containsCond = containsCond.or(key.getGuard().and(position.getGuard()));
+      }
+    }
+    for (int i : elementIndex.symbolicItems) {
+      containsCond =
+          containsCond.or(
+              BooleanVS.getTrueGuard(element.symbolicEquals(elements.getItems().get(i), cond)));
+    }
     return BooleanVS.trueUnderGuard(containsCond).restrict(cond);
   }
 
@@ -176,6 +194,19 @@ public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>>
    */
   public SetVS<T> add(T itemSummary) {
     Guard absent = contains(itemSummary.restrict(getUniverse())).getGuardFor(false);
+    if (absent.isFalse()) {
+      return this;
+    }
+    if (absent.equals(getUniverse()) && itemSummary.getUniverse().equals(getUniverse())) {
+      // item is absent under the whole universe, so append it and extend the index if possible
+      ListVS<T> newElements = elements.add(itemSummary);
+      ElementIndex newIndex = null;
+      if (index != null && elements.size().getValues().size() == 1) {
+        int position = elements.size().getValues().iterator().next();
+        newIndex = index.extend(position, getIndexKeys(itemSummary));
+      }
+      return new SetVS<>(newElements, newIndex);
+    }
     ListVS<T> newElements = elements.updateUnderGuard(absent, elements.add(itemSummary));
     return new SetVS<>(newElements);
   }
@@ -188,7 +219,7 @@ public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>>
    * @return The SetVS with the element removed.
    */
   public SetVS<T> remove(T itemSummary) {
-    PrimitiveVS<Integer> idx = elements.indexOf(itemSummary);
+    PrimitiveVS<Integer> idx = indexOf(itemSummary);
     idx = idx.restrict(elements.inRange(idx).getGuardFor(true));
     if (idx.isEmptyVS()) return this;
     ListVS<T> newElements = elements.removeAt(idx);
@@ -205,6 +236,148 @@ public class SetVS<T extends ValueSummary<T>> implements ValueSummary<SetVS<T>>
     return elements.get(indexSummary);
   }
 
+  /**
+   * Get the index of an item in the underlying list, using the hash index if possible
+   *
+   * @param itemSummary The item to look up
+   * @return The index of the item
+   */
+  private PrimitiveVS<Integer> indexOf(T itemSummary) {
+    List<? extends GuardedValue<?>> keys = getIndexKeys(itemSummary);
+    if (keys == null || itemSummary.getUniverse().isFalse()) {
+      return elements.indexOf(itemSummary);
+    }
+    ElementIndex elementIndex = getIndex();
+    if (!elementIndex.symbolicItems.isEmpty()) {
+      return elements.indexOf(itemSummary);
+    }
+    Map<Integer, Guard> positions = new HashMap<>();
+    for (GuardedValue<?> key : keys) {
+      for (GuardedValue<Integer> position : elementIndex.get(key.getValue())) {
+        Guard guard = key.getGuard().and(position.getGuard());
+        if (!guard.isFalse()) {
+          positions.merge(position.getValue(), guard, Guard::or);
+        }
+      }
+    }
+    return new PrimitiveVS<>(positions);
+  }
+
+  /**
+   * Get the hash index of the elements, building it if needed
+   *
+   * @return The hash index of the elements
+   */
+  private ElementIndex getIndex() {
+    if (index == null) {
+      index = new ElementIndex();
+      List<T> items = elements.getItems();
+      for (int i = 0; i < items.size(); i++) {
+        index.add(i, getIndexKeys(items.get(i)));
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Get the concrete keys of an element under which it can be hash indexed, same as the keys of a
+   * MapVS
+   *
+   * @param element The element
+   * @return The concrete keys of the element along with their guards, or null if the element type
+   *     has no concrete keys
+   */
+  private static List<? extends GuardedValue<?>> getIndexKeys(ValueSummary<?> element) {
+    if (element instanceof PrimitiveVS) {
+      return ((PrimitiveVS<?>) element).getGuardedValues();
+    } else if (element instanceof TupleVS || element instanceof NamedTupleVS) {
+      try {
+        return ValueSummary.getGuardedValues(element);
+      } catch (RuntimeException e) {
+        // tuples with composite fields have no concrete keys
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Represents a hash index from the concrete keys of the elements to their positions in the
+   * underlying list, along with the positions of elements without concrete keys
+   */
+  private static class ElementIndex {
+    private final Map<Object, List<GuardedValue<Integer>>> positions;
+    private final List<Integer> symbolicItems;
+
+    private ElementIndex() {
+      this(new HashMap<>(), new ArrayList<>());
+    }
+
+    private ElementIndex(
+        Map<Object, List<GuardedValue<Integer>>> positions, List<Integer> symbolicItems) {
+      this.positions = positions;
+      this.symbolicItems = symbolicItems;
+    }
+
+    private List<GuardedValue<Integer>> get(Object key) {
+      return positions.getOrDefault(key, Collections.emptyList());
+    }
+
+    private void add(int position, List<? extends GuardedValue<?>> keys) {
+      if (keys == null) {
+        symbolicItems.add(position);
+        return;
+      }
+      for (GuardedValue<?> key : keys) {
+        positions
+            .computeIfAbsent(key.getValue(), k -> new ArrayList<>())
+            .add(new GuardedValue<>(position, key.getGuard()));
+      }
+    }
+
+    /**
+     * Copy the index with an element added at a given position
+     *
+     * @param position Position of the element in the underlying list
+     * @param keys Concrete keys of the element
+     * @return The extended copy of the index
+     */
+    private ElementIndex extend(int position, List<? extends GuardedValue<?>> keys) {
+      Map<Object, List<GuardedValue<Integer>>> newPositions = new HashMap<>(positions);
+      List<Integer> newSymbolicItems = symbolicItems;
+      if (keys == null) {
+        newSymbolicItems = new ArrayList<>(symbolicItems);
+        newSymbolicItems.add(position);
+      } else {
+        for (GuardedValue<?> key : keys) {
+          List<GuardedValue<Integer>> list =
+              new ArrayList<>(newPositions.getOrDefault(key.getValue(), Collections.emptyList()));
+          list.add(new GuardedValue<>(position, key.getGuard()));
+          newPositions.put(key.getValue(), list);
+        }
+      }
+      return new ElementIndex(newPositions, newSymbolicItems);
+    }
+  }
+
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public Set<Object> getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
@@ -3,18 +3,17 @@ package psym.valuesummary;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import lombok.Getter;
 import psym.runtime.machine.Machine;
 
 /** Represents a tuple value summaries */
 @SuppressWarnings("unchecked")
 public class TupleVS implements ValueSummary<TupleVS> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final Object[] concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient Object[] concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /** The fields of the tuple */
   private final ValueSummary[] fields;
@@ -30,8 +29,6 @@ public class TupleVS implements ValueSummary<TupleVS> {
   public TupleVS(ValueSummary[] inpFields, Class[] inpClasses) {
     this.fields = Arrays.copyOf(inpFields, inpFields.length);
     this.classes = Arrays.copyOf(inpClasses, inpClasses.length);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
     assert (IntStream.range(0, this.fields.length).allMatch(x -> this.fields[x].getUniverse().equals(this.fields[0].getUniverse()))) :
             "Error in tuple field guards";
   }
@@ -62,8 +59,6 @@ public class TupleVS implements ValueSummary<TupleVS> {
             .map(x -> x.getClass())
             .collect(Collectors.toList())
             .toArray(new Class[items.length]);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
     assert (IntStream.range(0, this.fields.length).allMatch(x -> this.fields[x].getUniverse().equals(this.fields[0].getUniverse()))) :
             "Error in tuple field guards";
   }
@@ -216,6 +211,24 @@ public class TupleVS implements ValueSummary<TupleVS> {
     return result;
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public Object[] getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
@@ -1,19 +1,18 @@
 package psym.valuesummary;
 
 import java.util.*;
-import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 import psym.runtime.machine.Machine;
 
 /** Represents a value of "any" type It stores a pair (type T, value of type T) */
 @SuppressWarnings("ALL")
 public class UnionVS implements ValueSummary<UnionVS> {
-  @Getter
-  /** Concrete hash used for hashing in explicit-state search */
-  private final int concreteHash;
-  @Getter
-  /** Concrete value used in explicit-state search */
-  private final Map<UnionVStype, Object> concreteValue;
+  /** Concrete hash used for hashing in explicit-state search (computed lazily) */
+  private transient int concreteHash;
+  private transient boolean concreteHashValid = false;
+  /** Concrete value used in explicit-state search (computed lazily) */
+  private transient Map<UnionVStype, Object> concreteValue = null;
+  private transient boolean hasConcreteValue = false;
 
   /* Type of value stored in the any type variable */
   private final PrimitiveVS<UnionVStype> type;
@@ -24,8 +23,6 @@ public class UnionVS implements ValueSummary<UnionVS> {
       @NotNull PrimitiveVS<UnionVStype> type, @NotNull Map<UnionVStype, ValueSummary> values) {
     this.type = type;
     this.value = values;
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   public UnionVS(Guard pc, UnionVStype type, ValueSummary values) {
@@ -33,8 +30,6 @@ public class UnionVS implements ValueSummary<UnionVS> {
     this.value = new HashMap<>();
     // TODO: why are we not restricting the values?
     this.value.put(type, values);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   public UnionVS() {
@@ -42,8 +37,6 @@ public class UnionVS implements ValueSummary<UnionVS> {
     this.type = new PrimitiveVS<>(type);
     this.value = new HashMap<>();
     this.value.put(type, new PrimitiveVS(null, Guard.constTrue()));
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -54,8 +47,6 @@ public class UnionVS implements ValueSummary<UnionVS> {
   public UnionVS(UnionVS old) {
     this.type = new PrimitiveVS<>(old.type);
     this.value = new HashMap<>(old.value);
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   public UnionVS(ValueSummary vs) {
@@ -79,8 +70,6 @@ public class UnionVS implements ValueSummary<UnionVS> {
       this.value.put(type, vs);
       assert (this.type != null);
     }
-    this.concreteHash = computeConcreteHash();
-    this.concreteValue = computeConcreteValue();
   }
 
   /**
@@ -251,6 +240,24 @@ public class UnionVS implements ValueSummary<UnionVS> {
     return this.type.getGuardFor(type);
   }
 
+  @Override
+  public int getConcreteHash() {
+    if (!concreteHashValid) {
+      concreteHash = computeConcreteHash();
+      concreteHashValid = true;
+    }
+    return concreteHash;
+  }
+
+  @Override
+  public Map<UnionVStype, Object> getConcreteValue() {
+    if (!hasConcreteValue) {
+      concreteValue = computeConcreteValue();
+      hasConcreteValue = true;
+    }
+    return concreteValue;
+  }
+
   @Override
   public int computeConcreteHash() {
     int hashCode = 1;
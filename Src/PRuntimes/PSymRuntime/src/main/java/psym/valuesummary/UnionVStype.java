@@ -2,10 +2,11 @@ package psym.valuesummary;
 
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class UnionVStype implements Serializable {
-  private static final HashMap<String, UnionVStype> allTypes = new HashMap<>();
+  private static final Map<String, UnionVStype> allTypes = new ConcurrentHashMap<>();
 
   final Class<? extends ValueSummary> typeClass;
   final String[] names;
@@ -16,21 +17,12 @@ public class UnionVStype implements Serializable {
   }
 
   public static UnionVStype getUnionVStype(Class<? extends ValueSummary> tc, String[] n) {
-    UnionVStype result;
-
     String typeName = tc.toString();
     if (n != null) {
       typeName += String.format("[%s]", String.join(",", n));
     }
 
-    if (!allTypes.containsKey(typeName)) {
-      result = new UnionVStype(tc, n);
-      allTypes.put(typeName, result);
-    } else {
-      result = allTypes.get(typeName);
-    }
-
-    return result;
+    return allTypes.computeIfAbsent(typeName, k -> new UnionVStype(tc, n));
   }
 
   @Override
@@ -121,7 +121,10 @@ public interface ValueSummary<T extends ValueSummary<T>> extends Serializable {
    */
   static List<GuardedValue<?>> getGuardedValues(ValueSummary<?> valueSummary) {
     List<GuardedValue<?>> guardedValueList = new ArrayList<>();
-    if (valueSummary instanceof PrimitiveVS<?>) {
+    if (valueSummary instanceof BitVectorVS) {
+      guardedValueList.addAll(((BitVectorVS) valueSummary).toPrimitiveVS().getGuardedValues());
+      return guardedValueList;
+    } else if (valueSummary instanceof PrimitiveVS<?>) {
       guardedValueList.addAll(((PrimitiveVS<?>) valueSummary).getGuardedValues());
       return guardedValueList;
     } else if (valueSummary instanceof TupleVS) {
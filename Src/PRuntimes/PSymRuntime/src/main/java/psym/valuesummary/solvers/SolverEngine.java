@@ -9,9 +9,26 @@ import psym.valuesummary.solvers.sat.expr.ExprLibType;
 
 /** Represents the generic backend engine */
 public class SolverEngine {
-  @Getter @Setter private static SolverLib solver;
+  @Setter private static SolverLib solver;
+  /** Solver of the search worker on the current thread (unset outside a parallel search) */
+  private static final ThreadLocal<SolverLib> workerSolver = new ThreadLocal<>();
   @Getter @Setter private static SolverType solverType = SolverType.BDD;
   @Getter @Setter private static ExprLibType exprLibType = ExprLibType.Bdd;
+  /**
+   * Number of threads for parallel solver operations, where more than 1 thread makes the solver
+   * engine thread-safe and shared by all search workers
+   */
+  @Getter @Setter private static int numThreads = 1;
+  /** Order of the choice variables from the pool in the solver backend */
+  @Getter @Setter private static SolverVarOrder varOrder = SolverVarOrder.Creation;
+
+  public static SolverLib getSolver() {
+    SolverLib worker = workerSolver.get();
+    if (worker != null) {
+      return worker;
+    }
+    return solver;
+  }
 
   public static void resumeEngine() {
     if (SearchLogger.getVerbosity() > 1) {
@@ -31,25 +48,73 @@ public class SolverEngine {
     SolverGuard.reset();
   }
 
+  /**
+   * Set up a solver engine confined to the current thread for a search worker, unless the solver
+   * engine is shared. Guards read from a backtrack snapshot are lazily recreated in this engine,
+   * same as when resuming a run.
+   */
+  public static void initializeWorker() {
+    if (isShared()) {
+      SolverGuard.initializeSharedWorker();
+      return;
+    }
+    workerSolver.set(createSolver(getSolverType(), getExprLibType()));
+    SolverGuard.initializeWorker();
+  }
+
+  /** Remove the solver engine of the search worker from the current thread */
+  public static void clearWorker() {
+    workerSolver.remove();
+    SolverGuard.clearWorker();
+  }
+
+  /**
+   * Check if the solver engine is thread-safe and shared by all search workers
+   *
+   * @return true iff the solver engine is shared
+   */
+  public static boolean isShared() {
+    return numThreads > 1;
+  }
+
+  /**
+   * Reclaim the solver guards that are no longer referenced, and clean up the unused nodes of the
+   * solver backend along with them
+   */
   public static void cleanupEngine() {
-    solver.cleanup();
+    SolverGuard.cleanup();
+    getSolver().cleanup();
+  }
+
+  /**
+   * Check if enough solver guards are reclaimed since the last cleanup to clean up the engine
+   *
+   * @return true iff the engine should be cleaned up
+   */
+  public static boolean needsCleanup() {
+    return SolverGuard.needsCleanup();
   }
 
   public static void setSolver(SolverType type, ExprLibType etype) {
     setSolverType(type);
     setExprLibType(etype);
+    solver = createSolver(type, etype);
+  }
+
+  private static SolverLib createSolver(SolverType type, ExprLibType etype) {
     if (Objects.requireNonNull(type) == SolverType.BDD) {
-      solver = new PJBDDImpl(false);
+      return new PJBDDImpl(false, numThreads);
     } else {
       assert false
           : String.format(
               "Unrecognized solver or expression type: solver type %s with expression type %s",
               type, etype);
+      return null;
     }
   }
 
   public static int getVarCount() {
-    return solver.getVarCount();
+    return getSolver().getVarCount();
   }
 
   public static int getGuardCount() {
@@ -58,6 +123,6 @@ public class SolverEngine {
   }
 
   public static String getStats() {
-    return solver.getStats();
+    return getSolver().getStats();
   }
 }
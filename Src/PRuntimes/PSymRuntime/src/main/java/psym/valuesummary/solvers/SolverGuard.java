@@ -2,18 +2,27 @@ package psym.valuesummary.solvers;
 
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import psym.runtime.statistics.SolverStats;
 
 /** Represents the generic solver based implementation of Guard */
 public class SolverGuard implements Serializable {
-  private static final List<SolverGuard> varList = new ArrayList<>();
-  private static final List<SolverGuard> guardList = new ArrayList<>();
-  private static final HashMap<Object, SolverGuard> table = new HashMap<Object, SolverGuard>();
-  private static boolean resume = false;
+  private static final GuardTable globalTable = new GuardTable();
+  /** Guard table of the search worker on the current thread (unset outside a parallel search) */
+  private static final ThreadLocal<GuardTable> workerTable = new ThreadLocal<>();
+  /** Whether the search worker on the current thread recreates guards in the shared guard table */
+  private static final ThreadLocal<Boolean> sharedWorkerResume =
+      ThreadLocal.withInitial(() -> false);
+  /** Cache of recent guard operations on the current thread */
+  private static final ThreadLocal<OperationCache> operationCache =
+      ThreadLocal.withInitial(OperationCache::new);
   private final SolverGuardType type;
   private final String name;
   private final ImmutableList<SolverGuard> children;
@@ -28,50 +37,134 @@ public class SolverGuard implements Serializable {
    * @param formula formula represented in solver backend
    * @param type type of the solver guard
    * @param children list of children
+   * @param id unique id of the solver guard in its guard table
    */
-  public SolverGuard(
-      Object formula, SolverGuardType type, String name, ImmutableList<SolverGuard> children) {
+  private SolverGuard(
+      Object formula,
+      SolverGuardType type,
+      String name,
+      ImmutableList<SolverGuard> children,
+      int id) {
     this.formula = formula;
     this.type = type;
     this.name = name;
     this.children = children;
     this.statusTrue = SolverTrueStatus.Unknown;
     this.statusFalse = SolverFalseStatus.Unknown;
-    this.id = guardList.size();
-    table.put(formula, this);
-    guardList.add(this);
+    this.id = id;
+  }
+
+  /**
+   * Get the guard table of the current thread
+   *
+   * @return guard table of the search worker on the current thread, or the global guard table
+   */
+  private static GuardTable getGuardTable() {
+    GuardTable worker = workerTable.get();
+    if (worker != null) {
+      return worker;
+    }
+    return globalTable;
   }
 
   /** Global reset for the solver guard class */
   public static void reset() {
-    table.clear();
+    GuardTable guardTable = getGuardTable();
+    guardTable.clear();
+    guardTable.choiceVarPool.clear();
+    guardTable.choiceVarStart.clear();
+    guardTable.resume = false;
+  }
+
+  /**
+   * Remove the solver guards that are no longer referenced from the guard table of the current
+   * thread, so that the solver backend can reclaim their formulas
+   */
+  public static void cleanup() {
+    GuardTable guardTable = getGuardTable();
+    guardTable.expunge();
+    guardTable.numReclaimedSinceCleanup.set(0);
+  }
+
+  /**
+   * Check if enough solver guards are reclaimed since the last cleanup to clean up the solver
+   * backend, i.e., at least as many as the solver guards still alive
+   *
+   * @return true iff the solver backend should be cleaned up
+   */
+  public static boolean needsCleanup() {
+    GuardTable guardTable = getGuardTable();
+    guardTable.expunge();
+    int numReclaimed = guardTable.numReclaimedSinceCleanup.get();
+    return numReclaimed >= GuardTable.MIN_RECLAIMED_FOR_CLEANUP
+        && numReclaimed >= guardTable.table.size();
+  }
+
+  /**
+   * Set up a guard table confined to the current thread for a search worker, where guards from
+   * other solver backends are lazily recreated
+   */
+  public static void initializeWorker() {
+    GuardTable guardTable = new GuardTable();
+    guardTable.resume = true;
+    workerTable.set(guardTable);
+  }
+
+  /**
+   * Set up the current thread for a search worker sharing the thread-safe guard table of the main
+   * thread, where guards read from a backtrack snapshot are lazily recreated
+   */
+  public static void initializeSharedWorker() {
+    sharedWorkerResume.set(true);
+  }
+
+  /**
+   * Get the version of the guard table of the current thread, which changes whenever the table is
+   * reset, so that guards cached elsewhere can be invalidated
+   *
+   * @return an object identifying the current version of the guard table
+   */
+  public static Object getTableVersion() {
+    return getGuardTable().version;
+  }
+
+  /** Remove the guard table of the search worker from the current thread */
+  public static void clearWorker() {
+    workerTable.remove();
+    sharedWorkerResume.remove();
+    operationCache.remove();
   }
 
   /** Resume solver guard implementation to the new solver backend */
   public static void resumeSolverGuard() {
+    GuardTable guardTable = getGuardTable();
+
     // reset the old table
-    table.clear();
+    guardTable.clear();
 
     // recreate all vars first (in order)
-    for (SolverGuard oldGuard : varList) {
+    for (SolverGuard oldGuard : guardTable.varList) {
       recreateSolverGuard(oldGuard);
     }
 
-    resume = true;
+    guardTable.resume = true;
   }
 
   /** (Experimental) Simplify the solver guard */
   public static void simplifySolverGuard() {
-    // reset the old table
-    table.clear();
+    GuardTable guardTable = getGuardTable();
+
+    // reset the old table, keeping the guards that are still alive
+    List<SolverGuard> liveGuards = guardTable.getLiveGuards();
+    guardTable.clear();
 
     // recreate all vars first (in order)
-    for (SolverGuard oldGuard : varList) {
+    for (SolverGuard oldGuard : guardTable.varList) {
       simplifySolverGuard(oldGuard);
     }
 
     // recreate remaining guards
-    for (SolverGuard oldGuard : guardList) {
+    for (SolverGuard oldGuard : liveGuards) {
       simplifySolverGuard(oldGuard);
     }
   }
@@ -82,30 +175,36 @@ public class SolverGuard implements Serializable {
    * @param original the original solver guard
    */
   private static void simplifySolverGuard(SolverGuard original) {
+    GuardTable guardTable = getGuardTable();
+
     // return if already cached in new table
-    if (table.containsKey(original.formula)) {
-      original.formula = table.get(original.formula).formula;
+    SolverGuard cached = guardTable.get(original.formula);
+    if (cached != null) {
+      original.formula = cached.formula;
       return;
     }
 
     original.formula = SolverEngine.getSolver().simplify(original.formula);
 
     // cache result
-    table.put(original.formula, original);
+    guardTable.put(original);
   }
 
   /** Switch solver guard implementation to the new solver backend */
   public static void switchSolverGuard() {
-    // reset the old table
-    table.clear();
+    GuardTable guardTable = getGuardTable();
+
+    // reset the old table, keeping the guards that are still alive
+    List<SolverGuard> liveGuards = guardTable.getLiveGuards();
+    guardTable.clear();
 
     // recreate all vars first (in order)
-    for (SolverGuard oldGuard : varList) {
+    for (SolverGuard oldGuard : guardTable.varList) {
       recreateSolverGuard(oldGuard);
     }
 
     // recreate remaining guards
-    for (SolverGuard oldGuard : guardList) {
+    for (SolverGuard oldGuard : liveGuards) {
       recreateSolverGuard(oldGuard);
     }
   }
@@ -116,9 +215,12 @@ public class SolverGuard implements Serializable {
    * @param original original solver guard
    */
   private static void recreateSolverGuard(SolverGuard original) {
+    GuardTable guardTable = getGuardTable();
+
     // return if already cached in new table
-    if (original.formula != null && table.containsKey(original.formula)) {
-      original.formula = table.get(original.formula).formula;
+    SolverGuard cached = (original.formula == null) ? null : guardTable.get(original.formula);
+    if (cached != null) {
+      original.formula = cached.formula;
       return;
     }
 
@@ -164,7 +266,7 @@ public class SolverGuard implements Serializable {
     // SolverEngine.getSolver().hashCode(original.formula));
 
     // cache result
-    table.put(original.formula, original);
+    guardTable.put(original);
   }
 
   /**
@@ -177,10 +279,7 @@ public class SolverGuard implements Serializable {
    */
   private static SolverGuard getSolverGuard(
       Object formula, SolverGuardType type, String name, ImmutableList<SolverGuard> children) {
-    if (table.containsKey(formula)) {
-      return table.get(formula);
-    }
-    return new SolverGuard(formula, type, name, children);
+    return getGuardTable().getOrCreate(formula, type, name, children);
   }
 
   /**
@@ -189,7 +288,7 @@ public class SolverGuard implements Serializable {
    * @return the number of solver guards
    */
   public static int getGuardCount() {
-    return table.size();
+    return getGuardTable().table.size();
   }
 
   /**
@@ -198,11 +297,17 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing logical `true`
    */
   private static SolverGuard createTrue() {
-    SolverGuard g =
+    GuardTable guardTable = getGuardTable();
+    SolverGuard g = guardTable.trueGuard;
+    if (g != null) {
+      return g;
+    }
+    g =
         getSolverGuard(
             SolverEngine.getSolver().constTrue(), SolverGuardType.TRUE, "true", ImmutableList.of());
     g.statusTrue = SolverTrueStatus.True;
     g.statusFalse = SolverFalseStatus.NotFalse;
+    guardTable.trueGuard = g;
     return g;
   }
 
@@ -212,7 +317,12 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing logical `false`
    */
   private static SolverGuard createFalse() {
-    SolverGuard g =
+    GuardTable guardTable = getGuardTable();
+    SolverGuard g = guardTable.falseGuard;
+    if (g != null) {
+      return g;
+    }
+    g =
         getSolverGuard(
             SolverEngine.getSolver().constFalse(),
             SolverGuardType.FALSE,
@@ -220,6 +330,7 @@ public class SolverGuard implements Serializable {
             ImmutableList.of());
     g.statusTrue = SolverTrueStatus.NotTrue;
     g.statusFalse = SolverFalseStatus.False;
+    guardTable.falseGuard = g;
     return g;
   }
 
@@ -247,26 +358,104 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing a new Boolean variable
    */
   public static SolverGuard newVar() {
+    GuardTable guardTable = getGuardTable();
+    synchronized (guardTable.varList) {
+      return createVar(guardTable, guardTable.varList.size());
+    }
+  }
+
+  /**
+   * Get solver guard representing a choice variable from a pool indexed by choice depth, where the
+   * same variable is returned for the same choice depth and index, so that the number of variables
+   * is bounded by the choice depth instead of growing with every choice across iterations
+   *
+   * @param depth choice depth
+   * @param index index of the variable among those of the choice depth
+   * @return solver guard representing the choice variable
+   */
+  public static SolverGuard choiceVar(int depth, int index) {
+    GuardTable guardTable = getGuardTable();
+    synchronized (guardTable.varList) {
+      List<List<SolverGuard>> pool = guardTable.choiceVarPool;
+      while (pool.size() <= depth) {
+        pool.add(new ArrayList<>());
+      }
+      List<SolverGuard> depthVars = pool.get(depth);
+      while (depthVars.size() <= index) {
+        depthVars.add(createChoiceVar(guardTable, depth));
+      }
+      return depthVars.get(index);
+    }
+  }
+
+  /**
+   * Create a new choice variable of a choice depth, placed before the choice variables of deeper
+   * choice depths when ordering by depth, or last otherwise
+   *
+   * @param guardTable guard table, whose list of variables is locked by the caller
+   * @param depth choice depth of the new variable
+   * @return solver guard representing the new variable
+   */
+  private static SolverGuard createChoiceVar(GuardTable guardTable, int depth) {
+    List<Integer> starts = guardTable.choiceVarStart;
+    while (starts.size() <= depth) {
+      starts.add(-1);
+    }
+    int position = guardTable.varList.size();
+    if (SolverEngine.getVarOrder() == SolverVarOrder.Depth) {
+      for (int d = depth + 1; d < starts.size(); d++) {
+        if (starts.get(d) >= 0) {
+          position = starts.get(d);
+          break;
+        }
+      }
+    }
+    SolverGuard g = createVar(guardTable, position);
+    // the variables from the new one on are shifted by one
+    for (int d = 0; d < starts.size(); d++) {
+      if (starts.get(d) >= position) {
+        starts.set(d, starts.get(d) + 1);
+      }
+    }
+    if (starts.get(depth) < 0) {
+      starts.set(depth, position);
+    }
+    return g;
+  }
+
+  /**
+   * Create a new variable, keeping the list of variables in the same order as the solver backend,
+   * so that recreating them in order preserves it
+   *
+   * @param guardTable guard table, whose list of variables is locked by the caller
+   * @param position index of the new variable in the list of variables
+   * @return solver guard representing the new variable
+   */
+  private static SolverGuard createVar(GuardTable guardTable, int position) {
+    List<SolverGuard> varList = guardTable.varList;
     String name = "x" + varList.size();
-    SolverGuard g =
-        getSolverGuard(
-            SolverEngine.getSolver().newVar(name),
-            SolverGuardType.VARIABLE,
-            name,
-            ImmutableList.of());
+    @SuppressWarnings("unchecked") // formulas of solver guards all come from the current backend
+    SolverLib<Object> solver = SolverEngine.getSolver();
+    Object formula =
+        (position == varList.size())
+            ? solver.newVar(name)
+            : solver.newVarBefore(name, varList.get(position).formula);
+    SolverGuard g = getSolverGuard(formula, SolverGuardType.VARIABLE, name, ImmutableList.of());
     g.statusTrue = SolverTrueStatus.NotTrue;
     g.statusFalse = SolverFalseStatus.NotFalse;
-    varList.add(g);
+    varList.add(position, g);
     return g;
   }
 
   /** Sanity check if the list of input solver guards are already stored */
   private static void checkInput(List<SolverGuard> inputs) {
+    GuardTable guardTable = getGuardTable();
+    boolean resume = guardTable.resume || sharedWorkerResume.get();
     for (SolverGuard input : inputs) {
       if (resume) {
         recreateSolverGuard(input);
       } else {
-        if (input.formula == null || !table.containsKey(input.formula)) {
+        if (input.formula == null || guardTable.get(input.formula) == null) {
           System.out.println("\tMissing SolverGuard: " + input);
           System.out.println("\tSolverGuard: " + input);
           System.out.println("\thashcode: " + SolverEngine.getSolver().hashCode(input.formula));
@@ -286,6 +475,24 @@ public class SolverGuard implements Serializable {
     return others.stream().reduce(SolverGuard.constFalse(), SolverGuard::or);
   }
 
+  /**
+   * Check if the solver guard is already known to be logical `true`, without calling the solver
+   *
+   * @return true iff solver guard is the constant `true` or was found to be valid
+   */
+  public boolean isKnownTrue() {
+    return statusTrue == SolverTrueStatus.True;
+  }
+
+  /**
+   * Check if the solver guard is already known to be logical `false`, without calling the solver
+   *
+   * @return true iff solver guard is the constant `false` or was found to be unsatisfiable
+   */
+  public boolean isKnownFalse() {
+    return statusFalse == SolverFalseStatus.False;
+  }
+
   /**
    * Check if the solver guard is logical `true`
    *
@@ -350,12 +557,18 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing logical `not` on this
    */
   public SolverGuard not() {
+    OperationCache cache = getOperationCache();
+    SolverGuard cached = cache.get(SolverGuardType.NOT, this, null);
+    if (cached != null) {
+      return cached;
+    }
     checkInput(List.of(this));
-    SolverStats.notOperations++;
+    SolverStats.notOperations.increment();
     //        Instant start = Instant.now();
     SolverGuard result =
         getSolverGuard(
             SolverEngine.getSolver().not(formula), SolverGuardType.NOT, "", ImmutableList.of(this));
+    cache.put(SolverGuardType.NOT, this, null, result);
     //        SolverStats.updateCreateGuardTime((Duration.between(start,
     // Instant.now()).toMillis()));
     return result;
@@ -368,8 +581,13 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing logical `and` on this and other
    */
   public SolverGuard and(SolverGuard other) {
+    OperationCache cache = getOperationCache();
+    SolverGuard cached = cache.get(SolverGuardType.AND, this, other);
+    if (cached != null) {
+      return cached;
+    }
     checkInput(Arrays.asList(this, other));
-    SolverStats.andOperations++;
+    SolverStats.andOperations.increment();
     //        Instant start = Instant.now();
     SolverGuard result =
         getSolverGuard(
@@ -377,6 +595,7 @@ public class SolverGuard implements Serializable {
             SolverGuardType.AND,
             "",
             ImmutableList.of(this, other));
+    cache.put(SolverGuardType.AND, this, other, result);
     //        SolverStats.updateCreateGuardTime((Duration.between(start,
     // Instant.now()).toMillis()));
     return result;
@@ -389,8 +608,13 @@ public class SolverGuard implements Serializable {
    * @return solver guard representing logical `or` on this and other
    */
   public SolverGuard or(SolverGuard other) {
+    OperationCache cache = getOperationCache();
+    SolverGuard cached = cache.get(SolverGuardType.OR, this, other);
+    if (cached != null) {
+      return cached;
+    }
     checkInput(Arrays.asList(this, other));
-    SolverStats.orOperations++;
+    SolverStats.orOperations.increment();
     //        Instant start = Instant.now();
     SolverGuard result =
         getSolverGuard(
@@ -398,6 +622,7 @@ public class SolverGuard implements Serializable {
             SolverGuardType.OR,
             "",
             ImmutableList.of(this, other));
+    cache.put(SolverGuardType.OR, this, other, result);
     //        SolverStats.updateCreateGuardTime((Duration.between(start,
     // Instant.now()).toMillis()));
     return result;
@@ -505,4 +730,182 @@ public class SolverGuard implements Serializable {
     if (formula == null) return id;
     return SolverEngine.getSolver().hashCode(formula);
   }
+
+  /**
+   * Get the operation cache of the current thread, cleared whenever the current guard table is
+   * reset
+   *
+   * @return operation cache of the current thread
+   */
+  private static OperationCache getOperationCache() {
+    OperationCache cache = operationCache.get();
+    cache.validate(getGuardTable());
+    return cache;
+  }
+
+  /**
+   * Represents the solver guards created in a solver backend.
+   *
+   * <p>Guards are interned by formula with weak references, so a guard is reclaimed once no guard
+   * or value summary refers to it, after which its entry is expunged and the solver backend can
+   * clean up its formula. Variables are always kept alive.
+   *
+   * <p>The table is safe to share between threads: formulas are looked up without locking, and
+   * only the creation of a missing guard locks one of a fixed set of stripes selected by the
+   * formula hash.
+   */
+  private static class GuardTable {
+    private static final int NUM_STRIPES = 64;
+    /** Min number of reclaimed guards before the solver backend is cleaned up */
+    private static final int MIN_RECLAIMED_FOR_CLEANUP = 10000;
+    private final List<SolverGuard> varList = new ArrayList<>();
+    /** Choice variables reused across iterations, per choice depth */
+    private final List<List<SolverGuard>> choiceVarPool = new ArrayList<>();
+    /** Index in the list of variables of the first choice variable of each choice depth, or -1 */
+    private final List<Integer> choiceVarStart = new ArrayList<>();
+    private final Map<Object, GuardReference> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<SolverGuard> reclaimed = new ReferenceQueue<>();
+    private final Object[] stripes = new Object[NUM_STRIPES];
+    private final AtomicInteger numGuards = new AtomicInteger(0);
+    private final AtomicInteger numReclaimedSinceCleanup = new AtomicInteger(0);
+    /** Number of times the table is reset, to invalidate cached operations */
+    private volatile int epoch = 0;
+    /** Version of the table, replaced whenever the table is reset */
+    private volatile Object version = new Object();
+    private volatile boolean resume = false;
+    /** Guards of the constants `true` and `false`, cached until the table is reset */
+    private volatile SolverGuard trueGuard = null;
+    private volatile SolverGuard falseGuard = null;
+
+    private GuardTable() {
+      for (int i = 0; i < NUM_STRIPES; i++) {
+        stripes[i] = new Object();
+      }
+    }
+
+    /**
+     * Get the guard cached for a formula, or otherwise create and cache a new guard
+     *
+     * @param formula formula in solver backend
+     * @param type type of solver guard
+     * @param name name of solver guard
+     * @param children solver guard children
+     * @return a cached solver guard or a new one
+     */
+    private SolverGuard getOrCreate(
+        Object formula, SolverGuardType type, String name, ImmutableList<SolverGuard> children) {
+      SolverGuard cached = get(formula);
+      if (cached != null) {
+        return cached;
+      }
+      expunge();
+      synchronized (stripes[(formula.hashCode() & 0x7fffffff) % NUM_STRIPES]) {
+        cached = get(formula);
+        if (cached != null) {
+          return cached;
+        }
+        SolverGuard guard =
+            new SolverGuard(formula, type, name, children, numGuards.getAndIncrement());
+        put(guard);
+        return guard;
+      }
+    }
+
+    private SolverGuard get(Object formula) {
+      GuardReference ref = table.get(formula);
+      return (ref == null) ? null : ref.get();
+    }
+
+    private void put(SolverGuard guard) {
+      table.put(guard.formula, new GuardReference(guard, reclaimed));
+    }
+
+    private List<SolverGuard> getLiveGuards() {
+      List<SolverGuard> result = new ArrayList<>();
+      for (GuardReference ref : table.values()) {
+        SolverGuard guard = ref.get();
+        if (guard != null) {
+          result.add(guard);
+        }
+      }
+      return result;
+    }
+
+    private void clear() {
+      table.clear();
+      trueGuard = null;
+      falseGuard = null;
+      epoch++;
+      version = new Object();
+    }
+
+    /** Remove the entries of all guards reclaimed by the garbage collector */
+    private void expunge() {
+      GuardReference ref;
+      while ((ref = (GuardReference) reclaimed.poll()) != null) {
+        if (table.remove(ref.formula, ref)) {
+          numReclaimedSinceCleanup.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  /** Represents a weak reference to a solver guard, keeping the formula it is interned with */
+  private static class GuardReference extends WeakReference<SolverGuard> {
+    private final Object formula;
+
+    private GuardReference(SolverGuard guard, ReferenceQueue<SolverGuard> queue) {
+      super(guard, queue);
+      this.formula = guard.formula;
+    }
+  }
+
+  /**
+   * Represents a direct-mapped cache of recent `not`, `and` and `or` operations on solver guards,
+   * confined to one thread to avoid any synchronization
+   */
+  private static class OperationCache {
+    private static final int SIZE = 1 << 12;
+    private final SolverGuardType[] types = new SolverGuardType[SIZE];
+    private final SolverGuard[] lefts = new SolverGuard[SIZE];
+    private final SolverGuard[] rights = new SolverGuard[SIZE];
+    private final SolverGuard[] results = new SolverGuard[SIZE];
+    private GuardTable guardTable = null;
+    private int epoch = 0;
+
+    private void validate(GuardTable currentTable) {
+      if (guardTable != currentTable || epoch != currentTable.epoch) {
+        Arrays.fill(types, null);
+        Arrays.fill(lefts, null);
+        Arrays.fill(rights, null);
+        Arrays.fill(results, null);
+        guardTable = currentTable;
+        epoch = currentTable.epoch;
+      }
+    }
+
+    private static int index(SolverGuardType type, SolverGuard left, SolverGuard right) {
+      int h = System.identityHashCode(left) * 31 + System.identityHashCode(right);
+      h = h * 31 + type.ordinal();
+      h ^= (h >>> 16);
+      return h & (SIZE - 1);
+    }
+
+    private SolverGuard get(SolverGuardType type, SolverGuard left, SolverGuard right) {
+      int i = index(type, left, right);
+      if (types[i] == type && lefts[i] == left && rights[i] == right) {
+        return results[i];
+      }
+      return null;
+    }
+
+    private void put(
+        SolverGuardType type, SolverGuard left, SolverGuard right, SolverGuard result) {
+      int i = index(type, left, right);
+      types[i] = type;
+      lefts[i] = left;
+      rights[i] = right;
+      results[i] = result;
+    }
+  }
 }
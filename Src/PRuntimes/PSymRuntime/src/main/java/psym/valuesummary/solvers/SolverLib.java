@@ -15,6 +15,8 @@ public interface SolverLib<T> {
 
     T newVar(String name);
 
+    T newVarBefore(String name, T next);
+
     T simplify(T formula);
 
     String toString(T bdd);
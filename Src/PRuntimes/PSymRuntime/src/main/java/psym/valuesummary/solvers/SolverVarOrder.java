@@ -0,0 +1,6 @@
+package psym.valuesummary.solvers;
+
+public enum SolverVarOrder {
+    Creation,
+    Depth
+}
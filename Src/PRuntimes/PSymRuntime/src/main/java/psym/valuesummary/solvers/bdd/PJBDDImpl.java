@@ -19,23 +19,38 @@ public class PJBDDImpl implements SolverLib<DD> {
 
   // configurable parameters for PJBDD
   // TODO: Explore different options for these parameters
-  private final int numThreads = Runtime.getRuntime().availableProcessors();
   private final int cacheSize = 100000;
 
   public PJBDDImpl(boolean cbdd) {
+    this(cbdd, 1);
+  }
+
+  /**
+   * Creates a BDD engine
+   *
+   * @param cbdd whether or not to use chained BDDs
+   * @param numThreads number of threads for parallel BDD operations, where more than 1 thread also
+   *     makes the engine safe to share between threads
+   */
+  public PJBDDImpl(boolean cbdd, int numThreads) {
     CreatorBuilder creatorBuilder = Builders.cbddBuilder();
     if (!cbdd) {
       creatorBuilder = Builders.bddBuilder();
     }
-    c =
-        creatorBuilder
-            .setVarCount(0)
-            .disableThreadSafety()
-            // .setParallelism(numThreads)
-            .setParallelizationType(Builders.ParallelizationType.NONE)
-            .setTableSize(10000)
-            .setCacheSize(cacheSize)
-            .build();
+    creatorBuilder = creatorBuilder.setVarCount(0).setTableSize(10000).setCacheSize(cacheSize);
+    if (numThreads > 1) {
+      creatorBuilder =
+          creatorBuilder
+              .setThreads(numThreads)
+              .setParallelism(numThreads)
+              .setParallelizationType(Builders.ParallelizationType.FORK_JOIN);
+    } else {
+      creatorBuilder =
+          creatorBuilder
+              .disableThreadSafety()
+              .setParallelizationType(Builders.ParallelizationType.NONE);
+    }
+    c = creatorBuilder.build();
     e = new DotExporter();
     i = new BDDStringImporter(c);
     //        System.out.println("Using BDDs");
@@ -50,10 +65,10 @@ public class PJBDDImpl implements SolverLib<DD> {
   }
 
   public boolean isSat(DD bdd) {
-    SolverStats.isSatOperations++;
+    SolverStats.isSatOperations.increment();
     boolean result = !bdd.isFalse();
     if (result) {
-      SolverStats.isSatResult++;
+      SolverStats.isSatResult.increment();
     }
     return result;
   }
@@ -82,6 +97,10 @@ public class PJBDDImpl implements SolverLib<DD> {
     return c.makeVariable();
   }
 
+  public DD newVarBefore(String name, DD next) {
+    return c.makeVariableBefore(next);
+  }
+
   public DD simplify(DD bdd) {
     return bdd;
   }
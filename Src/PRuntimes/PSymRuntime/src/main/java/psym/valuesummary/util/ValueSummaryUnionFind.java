@@ -4,22 +4,30 @@ import java.util.*;
 import psym.valuesummary.Guard;
 import psym.valuesummary.PrimitiveVS;
 
+/**
+ * Partitions value summaries into sets whose universes are connected by overlaps, such that the
+ * universes of different sets are disjoint.
+ *
+ * <p>The universes of the sets found so far are the leaves of a binary tree, where each node holds
+ * the disjunction of the universes below it. A new value summary is compared with a subtree only if
+ * it overlaps the subtree's disjunction, so adding it costs O((k + 1) log n) guard operations for k
+ * overlapping sets, instead of one per value summary added before.
+ */
 public class ValueSummaryUnionFind extends UnionFind<PrimitiveVS> {
 
   final Map<PrimitiveVS, Guard> universe = new HashMap<>();
 
   public ValueSummaryUnionFind(Collection<PrimitiveVS> c) {
     super();
+    UniverseTree tree = new UniverseTree(c.size());
     for (PrimitiveVS elt : c) {
-      List<PrimitiveVS> values = new ArrayList<>(new HashSet<>(parents.values()));
       addElement(elt);
-      Guard eltUniverse = elt.getUniverse();
-      for (int i = 0; i < values.size(); i++) {
-        Guard unionUniverse = universe.get(find(values.get(i)));
-        if (!eltUniverse.and(unionUniverse).isFalse()) {
-          union(elt, values.get(i));
-        }
+      for (int leaf : tree.findOverlapping(elt.getUniverse())) {
+        union(elt, tree.getRoot(leaf));
+        tree.remove(leaf);
       }
+      PrimitiveVS root = find(elt);
+      tree.add(root, universe.get(root));
     }
   }
 
@@ -33,20 +41,12 @@ public class ValueSummaryUnionFind extends UnionFind<PrimitiveVS> {
   }
 
   public boolean sanityCheck(Map<Set<PrimitiveVS>, Guard> universeMap) {
-    if (universeMap.size() > 1) {
-      for (Map.Entry<Set<PrimitiveVS>, Guard> entry1 : universeMap.entrySet()) {
-        Set<PrimitiveVS> val1 = entry1.getKey();
-        Guard g1 = entry1.getValue();
-        for (Map.Entry<Set<PrimitiveVS>, Guard> entry2 : universeMap.entrySet()) {
-          Set<PrimitiveVS> val2 = entry2.getKey();
-          Guard g2 = entry2.getValue();
-          if (val1 != val2) {
-            if (!g1.and(g2).isFalse()) {
-              return false;
-            }
-          }
-        }
+    Guard covered = Guard.constFalse();
+    for (Guard g : universeMap.values()) {
+      if (!g.and(covered).isFalse()) {
+        return false;
       }
+      covered = covered.or(g);
     }
     return true;
   }
@@ -64,4 +64,70 @@ public class ValueSummaryUnionFind extends UnionFind<PrimitiveVS> {
     universe.put(find(e1), universe1.or(universe2));
     return true;
   }
+
+  /**
+   * Represents the universes of the current sets as the leaves of a complete binary tree, where each
+   * node holds the disjunction of its children
+   */
+  private static class UniverseTree {
+    /** Nodes in heap order, with the leaves starting at index `capacity` */
+    private final Guard[] nodes;
+    private final PrimitiveVS[] roots;
+    private final int capacity;
+    private int numLeaves = 0;
+
+    private UniverseTree(int maxLeaves) {
+      int c = 1;
+      while (c < maxLeaves) {
+        c <<= 1;
+      }
+      this.capacity = c;
+      this.nodes = new Guard[2 * c];
+      Arrays.fill(nodes, Guard.constFalse());
+      this.roots = new PrimitiveVS[c];
+    }
+
+    private PrimitiveVS getRoot(int leaf) {
+      return roots[leaf];
+    }
+
+    private void add(PrimitiveVS root, Guard guard) {
+      roots[numLeaves] = root;
+      update(numLeaves++, guard);
+    }
+
+    private void remove(int leaf) {
+      roots[leaf] = null;
+      update(leaf, Guard.constFalse());
+    }
+
+    private void update(int leaf, Guard guard) {
+      int i = capacity + leaf;
+      nodes[i] = guard;
+      for (i >>= 1; i > 0; i >>= 1) {
+        nodes[i] = nodes[2 * i].or(nodes[2 * i + 1]);
+      }
+    }
+
+    /** Get the leaves whose universes overlap a guard */
+    private List<Integer> findOverlapping(Guard guard) {
+      List<Integer> result = new ArrayList<>();
+      if (numLeaves > 0) {
+        findOverlapping(1, guard, result);
+      }
+      return result;
+    }
+
+    private void findOverlapping(int i, Guard guard, List<Integer> result) {
+      if (nodes[i].and(guard).isFalse()) {
+        return;
+      }
+      if (i >= capacity) {
+        result.add(i - capacity);
+        return;
+      }
+      findOverlapping(2 * i, guard, result);
+      findOverlapping(2 * i + 1, guard, result);
+    }
+  }
 }
@@ -0,0 +1,218 @@
+package psym;
+
+import java.util.List;
+import java.util.Map;
+import psym.runtime.PTestDriver;
+import psym.runtime.Program;
+import psym.runtime.machine.Machine;
+import psym.runtime.machine.Monitor;
+import psym.runtime.machine.State;
+import psym.runtime.machine.StateTemperature;
+import psym.runtime.machine.buffer.EventQueue;
+import psym.runtime.machine.eventhandlers.EventHandler;
+import psym.runtime.machine.eventhandlers.EventHandlerReturnReason;
+import psym.runtime.machine.events.Event;
+import psym.utils.Assert;
+import psym.valuesummary.*;
+
+/**
+ * Hand-written equivalent of the code the P compiler generates for a small client-server model.
+ *
+ * <p>The server creates {@link #numClients} clients, and each client sends {@link #numPings} pings
+ * to the server. The server folds the ids of the senders into a history, so different
+ * interleavings of pings reach different states. When {@link #buggy} is set, the server fails an
+ * assertion if the first ping it receives is from the last client it created. When {@link
+ * #privateServers} is set, each client instead creates a server of its own to ping, so the pings of
+ * different clients commute. When {@link #anonymousPings} is also set, pings carry no sender id, so
+ * the pairs of clients and private servers are symmetric. When {@link #extraClients} is set, the
+ * server creates one more client if the second ping it receives is from the last client, so only
+ * some schedules create it, and sums the sender ids into its history, so that different
+ * interleavings reach the same states.
+ */
+public class ClientServerProgram implements Program {
+  public static int numClients = 3;
+  public static int numPings = 2;
+  public static boolean buggy = false;
+  public static boolean privateServers = false;
+  public static boolean anonymousPings = false;
+  public static boolean extraClients = false;
+
+  public static Event ePing = new Event("ePing");
+
+  public static class Server extends Machine {
+
+    static State Init =
+        new State("Init", "Server", StateTemperature.Warm) {
+          @Override
+          public void entry(
+              Guard pc, Machine machine, EventHandlerReturnReason outcome, UnionVS payload) {
+            super.entry(pc, machine, outcome, payload);
+            // only the main server, which has no payload, creates clients
+            if (payload == null) {
+              ((Server) machine).Init_entry(pc, machine.getSendBuffer());
+            }
+          }
+        };
+
+    private PrimitiveVS<Integer> var_history = new PrimitiveVS<Integer>(0);
+    private PrimitiveVS<Integer> var_count = new PrimitiveVS<Integer>(0);
+    private PrimitiveVS<Integer> var_lastClient = new PrimitiveVS<Integer>(0);
+
+    public Server(int id) {
+      super("Server", id, Init, Init);
+      Init.addHandlers(
+          new EventHandler(ePing) {
+            @Override
+            public void handleEvent(
+                Guard pc, Machine machine, UnionVS payload, EventHandlerReturnReason outcome) {
+              ((Server) machine)
+                  .Init_ePing(
+                      pc,
+                      machine.getSendBuffer(),
+                      (PrimitiveVS<Integer>)
+                          ValueSummary.castFromAny(pc, new PrimitiveVS<Integer>(0), payload));
+            }
+          });
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      var_history = new PrimitiveVS<Integer>(0);
+      var_count = new PrimitiveVS<Integer>(0);
+      var_lastClient = new PrimitiveVS<Integer>(0);
+    }
+
+    @Override
+    protected List<ValueSummary> getLocalVars() {
+      List<ValueSummary> res = super.getLocalVars();
+      res.add(var_history);
+      res.add(var_count);
+      res.add(var_lastClient);
+      return res;
+    }
+
+    @Override
+    protected int setLocalVars(List<ValueSummary> localVars) {
+      int idx = super.setLocalVars(localVars);
+      var_history = (PrimitiveVS<Integer>) localVars.get(idx++);
+      var_count = (PrimitiveVS<Integer>) localVars.get(idx++);
+      var_lastClient = (PrimitiveVS<Integer>) localVars.get(idx++);
+      return idx;
+    }
+
+    void Init_entry(Guard pc, EventQueue effects) {
+      PrimitiveVS<Machine> self = new PrimitiveVS<Machine>(this).restrict(pc);
+      for (int i = 0; i < numClients; i++) {
+        PrimitiveVS<Machine> client =
+            effects.create(pc, getScheduler(), Client.class, new UnionVS(self), (j) -> new Client(j));
+        var_lastClient =
+            var_lastClient.updateUnderGuard(
+                pc, client.apply(m -> m.getInstanceId()).restrict(pc));
+      }
+    }
+
+    void Init_ePing(Guard pc, EventQueue effects, PrimitiveVS<Integer> sender) {
+      if (buggy) {
+        Guard isFirst = IntegerVS.lessThan(var_count, 1).getGuardFor(true).and(pc);
+        Guard fromLast = sender.symbolicEquals(var_lastClient, pc).getGuardFor(true);
+        Guard bug = isFirst.and(fromLast);
+        Assert.prop(bug.isFalse(), "first ping is from the last client", bug);
+      }
+      if (extraClients) {
+        Guard extra =
+            var_count
+                .symbolicEquals(new PrimitiveVS<Integer>(1), pc)
+                .getGuardFor(true)
+                .and(sender.symbolicEquals(var_lastClient, pc).getGuardFor(true));
+        if (!extra.isFalse()) {
+          PrimitiveVS<Machine> self = new PrimitiveVS<Machine>(this).restrict(extra);
+          effects.create(
+              extra, getScheduler(), Client.class, new UnionVS(self), (j) -> new Client(j));
+        }
+        // sum the ids of the senders, so that different interleavings reach the same states
+        var_history =
+            var_history.updateUnderGuard(
+                pc, var_history.apply(sender, (h, s) -> h + s).restrict(pc));
+      } else {
+        var_history =
+            var_history.updateUnderGuard(
+                pc, var_history.apply(sender, (h, s) -> (h * 7 + s) % 1000003).restrict(pc));
+      }
+      var_count = var_count.updateUnderGuard(pc, IntegerVS.add(var_count, 1).restrict(pc));
+    }
+  }
+
+  public static class Client extends Machine {
+
+    static State Init =
+        new State("Init", "Client", StateTemperature.Warm) {
+          @Override
+          public void entry(
+              Guard pc, Machine machine, EventHandlerReturnReason outcome, UnionVS payload) {
+            super.entry(pc, machine, outcome, payload);
+            ((Client) machine)
+                .Init_entry(
+                    pc,
+                    machine.getSendBuffer(),
+                    (PrimitiveVS<Machine>)
+                        ValueSummary.castFromAny(pc, new PrimitiveVS<Machine>(), payload));
+          }
+        };
+
+    public Client(int id) {
+      super("Client", id, Init, Init);
+    }
+
+    void Init_entry(Guard pc, EventQueue effects, PrimitiveVS<Machine> server) {
+      if (privateServers) {
+        server =
+            effects.create(
+                pc,
+                getScheduler(),
+                Server.class,
+                new UnionVS(new PrimitiveVS<Machine>(this).restrict(pc)),
+                (j) -> new Server(j));
+      }
+      for (int i = 0; i < numPings; i++) {
+        effects.send(
+            pc,
+            server,
+            new PrimitiveVS<Event>(ePing).restrict(pc),
+            new UnionVS(
+                new PrimitiveVS<Integer>(anonymousPings ? 0 : getInstanceId()).restrict(pc)));
+      }
+    }
+  }
+
+  public static class DefaultImpl extends PTestDriver {
+    @Override
+    public void configure() {
+      mainMachine = new Server(0);
+      monitorList.clear();
+      observerMap.clear();
+    }
+  }
+
+  PTestDriver testDriver = null;
+
+  public PTestDriver getTestDriver() {
+    return testDriver;
+  }
+
+  public void setTestDriver(PTestDriver input) {
+    testDriver = input;
+  }
+
+  public Machine getStart() {
+    return testDriver.getStart();
+  }
+
+  public List<Monitor> getMonitors() {
+    return testDriver.getMonitors();
+  }
+
+  public Map<Event, List<Monitor>> getListeners() {
+    return testDriver.getListeners();
+  }
+}
@@ -47,7 +47,7 @@ public class TestBuffers {
 
   @Test
   public void testQueue() {
-    PSym.initializeDefault("output/testCases/testQueue");
+    PSym.initializeDefault("target/output/testCases/testQueue");
     testBuffer(new EventQueue(null));
   }
 }
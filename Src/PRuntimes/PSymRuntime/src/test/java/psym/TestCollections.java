@@ -0,0 +1,93 @@
+package psym;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import psym.valuesummary.Guard;
+import psym.valuesummary.MapVS;
+import psym.valuesummary.PrimitiveVS;
+import psym.valuesummary.SetVS;
+
+/** Checks the collection value summaries on a mix of concrete and symbolic elements */
+public class TestCollections {
+
+  @BeforeEach
+  public void initialize() {
+    PSym.initializeDefault("target/output/testCases/testCollections");
+  }
+
+  private static PrimitiveVS<Integer> symbolicInt(Guard cond, int thenValue, int elseValue) {
+    return new PrimitiveVS<>(thenValue)
+        .restrict(cond)
+        .merge(new PrimitiveVS<>(elseValue).restrict(cond.not()));
+  }
+
+  private static void assertEqualVS(PrimitiveVS<Integer> expected, PrimitiveVS<Integer> actual) {
+    Assertions.assertTrue(
+        expected.symbolicEquals(actual, Guard.constTrue()).getGuardFor(true).isTrue(),
+        String.format("expected: %s but was: %s", expected, actual));
+  }
+
+  private static Guard containsGuard(SetVS<PrimitiveVS<Integer>> set, PrimitiveVS<Integer> e) {
+    return set.contains(e).getGuardFor(true);
+  }
+
+  @Test
+  public void testSetVS() {
+    Guard x = Guard.newVar();
+    SetVS<PrimitiveVS<Integer>> set = new SetVS<>(Guard.constTrue());
+    for (int i = 0; i < 50; i++) {
+      set = set.add(new PrimitiveVS<>(i));
+    }
+    set = set.add(symbolicInt(x, 100, 101));
+    set = set.add(new PrimitiveVS<>(5));
+    assertEqualVS(new PrimitiveVS<>(51), set.size());
+
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(7)).isTrue());
+    Assertions.assertEquals(x, containsGuard(set, new PrimitiveVS<>(100)));
+    Assertions.assertEquals(x.not(), containsGuard(set, new PrimitiveVS<>(101)));
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(200)).isFalse());
+    Assertions.assertEquals(x, containsGuard(set, symbolicInt(x, 3, 200)));
+
+    set = set.add(new PrimitiveVS<>(101));
+    Assertions.assertEquals(x, set.size().getGuardFor(52));
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(101)).isTrue());
+
+    set = set.remove(new PrimitiveVS<>(10));
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(10)).isFalse());
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(11)).isTrue());
+    set = set.remove(symbolicInt(x, 100, 300));
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(100)).isFalse());
+    Assertions.assertTrue(containsGuard(set, new PrimitiveVS<>(101)).isTrue());
+    assertEqualVS(new PrimitiveVS<>(50), set.size());
+  }
+
+  @Test
+  public void testMapVS() {
+    Guard x = Guard.newVar();
+    MapVS<Integer, PrimitiveVS<Integer>, PrimitiveVS<Integer>> map =
+        new MapVS<>(Guard.constTrue());
+    for (int i = 0; i < 50; i++) {
+      map = map.put(new PrimitiveVS<>(i), new PrimitiveVS<>(i * i));
+    }
+    map = map.put(symbolicInt(x, 3, 100), new PrimitiveVS<>(-1));
+
+    assertEqualVS(symbolicInt(x, -1, 9), map.get(new PrimitiveVS<>(3)));
+    Assertions.assertEquals(x.not(), map.containsKey(new PrimitiveVS<>(100)).getGuardFor(true));
+    assertEqualVS(new PrimitiveVS<>(16), map.get(new PrimitiveVS<>(4)));
+
+    map = map.remove(new PrimitiveVS<>(4));
+    Assertions.assertTrue(map.containsKey(new PrimitiveVS<>(4)).getGuardFor(true).isFalse());
+    assertEqualVS(symbolicInt(x, 49, 50), map.size());
+  }
+
+  @Test
+  public void testInternedPrimitiveVS() {
+    Guard x = Guard.newVar();
+    Assertions.assertSame(PrimitiveVS.of(3), PrimitiveVS.of(3));
+    Assertions.assertSame(PrimitiveVS.empty(), PrimitiveVS.of(3).restrict(Guard.constFalse()));
+    Assertions.assertSame(symbolicInt(x, 1, 2), symbolicInt(x, 1, 2));
+    Assertions.assertSame(PrimitiveVS.of(2, x.not()), symbolicInt(x, 1, 2).restrict(x.not()));
+    Assertions.assertNotSame(PrimitiveVS.of(1, x), PrimitiveVS.of(1, x.not()));
+  }
+}
@@ -0,0 +1,237 @@
+package psym;
+
+import java.io.File;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import psym.runtime.PSymGlobal;
+import psym.runtime.scheduler.search.explicit.ExplicitSearchScheduler;
+import psym.runtime.scheduler.search.explicit.PartialOrderReductionMode;
+import psym.runtime.scheduler.search.explicit.StateCachingMode;
+import psym.runtime.scheduler.search.symmetry.SymmetryMode;
+import psym.runtime.scheduler.search.symmetry.SymmetryTracker;
+import psym.runtime.scheduler.search.taskorchestration.TaskOrchestrationMode;
+import psym.utils.exception.BugFoundException;
+import psym.utils.random.RandomNumberGenerator;
+import psym.valuesummary.solvers.SolverEngine;
+
+/** Runs the explicit-state search end-to-end on the hand-written {@link ClientServerProgram} */
+public class TestExplicitSearch {
+
+  private static void initialize(String testName, boolean buggy) {
+    PSymGlobal.setInstance(null);
+    PSym.initializeDefault("target/output/testCases/" + testName);
+    PSymGlobal.getConfiguration().setToDfs();
+    PSymGlobal.getConfiguration().setMaxExecutions(0);
+    PSymGlobal.getConfiguration().setRandomSeed(0);
+    // the generator was already seeded from the clock by initializeDefault
+    RandomNumberGenerator.setup(0);
+    ClientServerProgram.buggy = buggy;
+    ClientServerProgram.privateServers = false;
+  }
+
+  private static void run() throws Exception {
+    ClientServerProgram p = new ClientServerProgram();
+    p.setTestDriver(new ClientServerProgram.DefaultImpl());
+    EntryPoint.run(p);
+  }
+
+  private static int getDistinctStateCount() {
+    return ((ExplicitSearchScheduler) PSymGlobal.getScheduler()).getTotalDistinctStateCount();
+  }
+
+  private static int getNumSchedules() {
+    return ((ExplicitSearchScheduler) PSymGlobal.getScheduler()).getIter();
+  }
+
+  @Test
+  public void testDfs() throws Exception {
+    initialize("testDfs", false);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+  }
+
+  @Test
+  public void testDfsBug() {
+    initialize("testDfsBug", true);
+    Assertions.assertThrows(BugFoundException.class, TestExplicitSearch::run);
+  }
+
+  @Test
+  public void testDfsExactStateCaching() throws Exception {
+    initialize("testDfsExactStateCaching", false);
+    run();
+    int numDistinctStates = getDistinctStateCount();
+
+    initialize("testDfsExactStateCaching", false);
+    PSymGlobal.getConfiguration().setStateCachingMode(StateCachingMode.ExplicitExact);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+  }
+
+  @Test
+  public void testDfsSpilledStateCaching() throws Exception {
+    initialize("testDfsSpilledStateCaching", false);
+    run();
+    int numDistinctStates = getDistinctStateCount();
+
+    initialize("testDfsSpilledStateCaching", false);
+    PSymGlobal.getConfiguration().setMaxStatesInMemory(16);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+    // spill files are deleted once the search is over
+    File[] spillFiles =
+        new File(PSymGlobal.getConfiguration().getOutputFolder() + "/states").listFiles();
+    Assertions.assertNotNull(spillFiles);
+    Assertions.assertEquals(0, spillFiles.length);
+  }
+
+  @Test
+  public void testDfsCanonicalSymmetry() throws Exception {
+    initialize("testDfsCanonicalSymmetry", false);
+    ClientServerProgram.privateServers = true;
+    ClientServerProgram.anonymousPings = true;
+    int numDistinctStates;
+    try {
+      run();
+      numDistinctStates = getDistinctStateCount();
+    } finally {
+      ClientServerProgram.privateServers = false;
+      ClientServerProgram.anonymousPings = false;
+    }
+
+    initialize("testDfsCanonicalSymmetry", false);
+    ClientServerProgram.privateServers = true;
+    ClientServerProgram.anonymousPings = true;
+    PSymGlobal.getConfiguration().setSymmetryMode(SymmetryMode.Canonical);
+    SymmetryTracker.addSymmetryType("Client");
+    SymmetryTracker.addSymmetryType("Server");
+    try {
+      run();
+    } finally {
+      SymmetryTracker.typeToAllSymmetricMachines.clear();
+      ClientServerProgram.privateServers = false;
+      ClientServerProgram.anonymousPings = false;
+    }
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertTrue(getDistinctStateCount() < numDistinctStates);
+  }
+
+  private static int runPartialOrderReduction(String testName, PartialOrderReductionMode mode)
+      throws Exception {
+    initialize(testName, false);
+    ClientServerProgram.privateServers = true;
+    PSymGlobal.getConfiguration().setStateCachingMode(StateCachingMode.None);
+    PSymGlobal.getConfiguration().setPartialOrderReduction(mode);
+    try {
+      run();
+    } finally {
+      ClientServerProgram.privateServers = false;
+    }
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    return getNumSchedules();
+  }
+
+  @Test
+  public void testDfsPartialOrderReduction() throws Exception {
+    String testName = "testDfsPartialOrderReduction";
+    int numSchedules = runPartialOrderReduction(testName, PartialOrderReductionMode.None);
+    int numSleepSetSchedules =
+        runPartialOrderReduction(testName, PartialOrderReductionMode.SleepSets);
+    int numDynamicSchedules = runPartialOrderReduction(testName, PartialOrderReductionMode.Dynamic);
+    Assertions.assertTrue(numSleepSetSchedules < numSchedules);
+    Assertions.assertTrue(numDynamicSchedules <= numSleepSetSchedules);
+  }
+
+  @Test
+  public void testDfsPartialOrderReductionBug() {
+    initialize("testDfsPartialOrderReductionBug", true);
+    PSymGlobal.getConfiguration().setStateCachingMode(StateCachingMode.None);
+    PSymGlobal.getConfiguration().setPartialOrderReduction(PartialOrderReductionMode.Dynamic);
+    Assertions.assertThrows(BugFoundException.class, TestExplicitSearch::run);
+  }
+
+  @Test
+  public void testDfsBacktrackTasks() throws Exception {
+    initialize("testDfsBacktrackTasks", false);
+    run();
+    int numDistinctStates = getDistinctStateCount();
+
+    initialize("testDfsBacktrackTasks", false);
+    PSymGlobal.getConfiguration().setTaskOrchestration(TaskOrchestrationMode.CoverageEstimate);
+    PSymGlobal.getConfiguration().setMaxBacktrackTasksPerExecution(2);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+  }
+
+  @Test
+  public void testParallelDfs() throws Exception {
+    initialize("testParallelDfs", false);
+    run();
+    int numDistinctStates = getDistinctStateCount();
+
+    initialize("testParallelDfs", false);
+    PSymGlobal.getConfiguration().setNumWorkers(4);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+  }
+
+  @Test
+  public void testParallelDfsSharedSolver() throws Exception {
+    initialize("testParallelDfsSharedSolver", false);
+    run();
+    int numDistinctStates = getDistinctStateCount();
+
+    initialize("testParallelDfsSharedSolver", false);
+    PSymGlobal.getConfiguration().setNumWorkers(4);
+    PSymGlobal.getConfiguration().setSolverThreads(2);
+    SolverEngine.setNumThreads(2);
+    SolverEngine.resetEngine(
+        PSymGlobal.getConfiguration().getSolverType(),
+        PSymGlobal.getConfiguration().getExprLibType());
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+  }
+
+  @Test
+  public void testParallelDfsCreatedMachines() throws Exception {
+    initialize("testParallelDfsCreatedMachines", false);
+    ClientServerProgram.extraClients = true;
+    int numDistinctStates;
+    try {
+      run();
+      numDistinctStates = getDistinctStateCount();
+
+      // workers create the machines missing from the schedules they were donated, and must give
+      // them the same ids as the other workers do, so that they find the states visited by others
+      initialize("testParallelDfsCreatedMachines", false);
+      ClientServerProgram.extraClients = true;
+      PSymGlobal.getConfiguration().setNumWorkers(4);
+      run();
+    } finally {
+      ClientServerProgram.extraClients = false;
+    }
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numDistinctStates, getDistinctStateCount());
+  }
+
+  @Test
+  public void testParallelRandom() throws Exception {
+    initialize("testParallelRandom", false);
+    PSymGlobal.getConfiguration().setToRandom();
+    PSymGlobal.getConfiguration().setNumWorkers(4);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+  }
+
+  @Test
+  public void testParallelDfsBug() {
+    initialize("testParallelDfsBug", true);
+    PSymGlobal.getConfiguration().setNumWorkers(4);
+    Assertions.assertThrows(BugFoundException.class, TestExplicitSearch::run);
+  }
+}
@@ -0,0 +1,154 @@
+package psym;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import psym.utils.random.NondetUtil;
+import psym.valuesummary.BitVectorVS;
+import psym.valuesummary.BooleanVS;
+import psym.valuesummary.Guard;
+import psym.valuesummary.IntegerVS;
+import psym.valuesummary.PrimitiveVS;
+import psym.valuesummary.util.ValueSummaryUnionFind;
+
+/** Checks the Boolean and Integer operations on symbolic values against their generic versions */
+public class TestPrimitiveVS {
+
+  @BeforeEach
+  public void initialize() {
+    PSym.initializeDefault("target/output/testCases/testPrimitiveVS");
+  }
+
+  private static <T> void assertEqualVS(PrimitiveVS<T> expected, PrimitiveVS<T> actual) {
+    Assertions.assertTrue(
+        expected.getUniverse().equals(actual.getUniverse())
+            && expected
+                .symbolicEquals(actual, Guard.constTrue())
+                .getGuardFor(true)
+                .equals(expected.getUniverse()),
+        String.format("expected: %s but was: %s", expected, actual));
+  }
+
+  /** Makes integer summaries over a few variables, with values in a different order each */
+  private static List<PrimitiveVS<Integer>> symbolicInts() {
+    Guard x = Guard.newVar();
+    Guard y = Guard.newVar();
+    List<PrimitiveVS<Integer>> result = new ArrayList<>();
+    result.add(new PrimitiveVS<>(4));
+    result.add(new PrimitiveVS<>(7).restrict(x).merge(new PrimitiveVS<>(-2).restrict(x.not())));
+    result.add(
+        new PrimitiveVS<>(3)
+            .restrict(x.and(y))
+            .merge(new PrimitiveVS<>(9).restrict(x.and(y.not())))
+            .merge(new PrimitiveVS<>(0).restrict(x.not())));
+    result.add(new PrimitiveVS<>(1).restrict(y));
+    return result;
+  }
+
+  @Test
+  public void testIntegerVS() {
+    List<PrimitiveVS<Integer>> ints = symbolicInts();
+    for (PrimitiveVS<Integer> a : ints) {
+      for (PrimitiveVS<Integer> b : ints) {
+        assertEqualVS(a.apply(b, Integer::sum), IntegerVS.add(a, b));
+        assertEqualVS(a.apply(b, (x, y) -> x - y), IntegerVS.subtract(a, b));
+        assertEqualVS(a.apply(b, (x, y) -> x < y), IntegerVS.lessThan(a, b));
+        assertEqualVS(a.apply(b, Integer::compareTo), IntegerVS.compare(a, b));
+        assertEqualVS(a.apply(b, Integer::equals), IntegerVS.equalTo(a, b));
+      }
+      assertEqualVS(a.apply(x -> x - 3), IntegerVS.subtract(a, 3));
+      assertEqualVS(a.apply(x -> 3 < x), IntegerVS.lessThan(3, a));
+      assertEqualVS(a.apply(x -> x < 3), IntegerVS.lessThan(a, 3));
+    }
+    Assertions.assertEquals(9, IntegerVS.maxValue(ints.get(2)));
+    Assertions.assertEquals(-2, IntegerVS.minValue(ints.get(1)));
+    Assertions.assertFalse(IntegerVS.hasPositiveValue(new PrimitiveVS<>(-1)));
+  }
+
+  @Test
+  public void testBooleanVS() {
+    List<PrimitiveVS<Boolean>> bools = new ArrayList<>();
+    for (PrimitiveVS<Integer> a : symbolicInts()) {
+      bools.add(IntegerVS.lessThan(a, 3));
+    }
+    bools.add(new PrimitiveVS<>(true));
+    bools.add(new PrimitiveVS<>(false).restrict(Guard.newVar()));
+    for (PrimitiveVS<Boolean> a : bools) {
+      for (PrimitiveVS<Boolean> b : bools) {
+        assertEqualVS(a.apply(b, (x, y) -> x && y), BooleanVS.and(a, b));
+        assertEqualVS(a.apply(b, (x, y) -> x || y), BooleanVS.or(a, b));
+      }
+      assertEqualVS(a.apply(x -> x && false), BooleanVS.and(a, false));
+      Assertions.assertSame(a, BooleanVS.and(a, true));
+    }
+  }
+
+  /** Makes an integer summary with a random value under each assignment to some variables */
+  private static PrimitiveVS<Integer> randomInt(Random random, List<Guard> vars) {
+    PrimitiveVS<Integer> result = new PrimitiveVS<>();
+    for (int m = 0; m < (1 << vars.size()); m++) {
+      Guard minterm = Guard.constTrue();
+      for (int v = 0; v < vars.size(); v++) {
+        minterm = minterm.and(((m >> v) & 1) == 1 ? vars.get(v) : vars.get(v).not());
+      }
+      int value = (m % 3 == 0) ? Integer.MAX_VALUE - random.nextInt(3) : random.nextInt(200) - 100;
+      result = result.merge(new PrimitiveVS<>(value).restrict(minterm));
+    }
+    return result;
+  }
+
+  @Test
+  public void testBitVectorVS() {
+    Random random = new Random(0);
+    List<Guard> vars = new ArrayList<>();
+    for (int v = 0; v < 6; v++) {
+      vars.add(Guard.newVar());
+    }
+    PrimitiveVS<Integer> a = randomInt(random, vars.subList(0, 6));
+    PrimitiveVS<Integer> b = randomInt(random, vars.subList(2, 6)).restrict(vars.get(0));
+
+    assertEqualVS(a, new BitVectorVS(a).add(new BitVectorVS(0)).toPrimitiveVS());
+    assertEqualVS(
+        a.apply(b, Integer::sum), new BitVectorVS(a).add(new BitVectorVS(b)).toPrimitiveVS());
+    assertEqualVS(
+        b.apply(a, (x, y) -> x - y),
+        new BitVectorVS(b).subtract(new BitVectorVS(a)).toPrimitiveVS());
+    assertEqualVS(a.apply(b, (x, y) -> x < y), new BitVectorVS(a).lessThan(new BitVectorVS(b)));
+    assertEqualVS(a.apply(b, Integer::compareTo), new BitVectorVS(a).compare(new BitVectorVS(b)));
+    assertEqualVS(a.apply(a, Integer::equals), new BitVectorVS(a).equalTo(new BitVectorVS(a)));
+
+    // large enough for the integer operations to use bit vectors
+    PrimitiveVS<Integer> c = randomInt(random, vars);
+    assertEqualVS(c.apply(a, Integer::sum), IntegerVS.add(c, a));
+    assertEqualVS(c.apply(a, (x, y) -> x < y), IntegerVS.lessThan(c, a));
+  }
+
+  @Test
+  public void testNondetChoice() {
+    Guard x = Guard.newVar();
+    Guard y = Guard.newVar();
+    PrimitiveVS<Integer> a = new PrimitiveVS<>(0).restrict(x.and(y));
+    PrimitiveVS<Integer> b = new PrimitiveVS<>(1).restrict(x.and(y.not()));
+    PrimitiveVS<Integer> c = new PrimitiveVS<>(2).restrict(x.not());
+    PrimitiveVS<Integer> d = new PrimitiveVS<>(3).restrict(y);
+    List<PrimitiveVS> choices = new ArrayList<>(Arrays.asList(a, b, c, d));
+
+    // d overlaps a and c, which are otherwise disjoint from each other, but not b
+    ValueSummaryUnionFind uf = new ValueSummaryUnionFind(choices);
+    Set<Set<PrimitiveVS>> expected = new HashSet<>();
+    expected.add(new HashSet<>(Arrays.asList(a, c, d)));
+    expected.add(new HashSet<>(Collections.singletonList(b)));
+    Assertions.assertEquals(expected, new HashSet<>(uf.getDisjointSets()));
+
+    PrimitiveVS<Integer> choice = NondetUtil.getNondetChoice(choices);
+    Assertions.assertTrue(choice.getUniverse().isTrue());
+    Assertions.assertEquals(b.getUniverse(), choice.getGuardFor(1));
+  }
+}
@@ -23,7 +23,7 @@ import psym.runtime.logger.Log4JConfig;
  * ../Tst/SymbolicRegressionTests/
  */
 public class TestSymbolicRegression {
-  private static final String outputDirectory = "output/testCases";
+  private static final String outputDirectory = "target/output/testCases";
   private static final List<String> excluded = new ArrayList<>();
   private static String mode = "verification";
   private static String timeout = "60";
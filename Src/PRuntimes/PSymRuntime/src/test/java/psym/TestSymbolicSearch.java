@@ -0,0 +1,86 @@
+package psym;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import psym.runtime.PSymGlobal;
+import psym.runtime.scheduler.search.SearchScheduler;
+import psym.utils.exception.BugFoundException;
+import psym.utils.random.RandomNumberGenerator;
+import psym.valuesummary.solvers.SolverEngine;
+import psym.valuesummary.solvers.SolverVarOrder;
+
+/** Runs the symbolic search end-to-end on the hand-written {@link ClientServerProgram} */
+public class TestSymbolicSearch {
+
+  private static void initialize(String testName, boolean buggy) {
+    PSymGlobal.setInstance(null);
+    PSym.initializeDefault("target/output/testCases/" + testName);
+    PSymGlobal.getConfiguration().setToSymbolicBounded();
+    PSymGlobal.getConfiguration().setMaxExecutions(0);
+    PSymGlobal.getConfiguration().setRandomSeed(0);
+    // the generator was already seeded from the clock by initializeDefault
+    RandomNumberGenerator.setup(0);
+    ClientServerProgram.buggy = buggy;
+    ClientServerProgram.privateServers = false;
+  }
+
+  private static void run() throws Exception {
+    ClientServerProgram p = new ClientServerProgram();
+    p.setTestDriver(new ClientServerProgram.DefaultImpl());
+    EntryPoint.run(p);
+  }
+
+  private static int getNumSchedules() {
+    return ((SearchScheduler) PSymGlobal.getScheduler()).getIter();
+  }
+
+  private static BigDecimal getEstimatedCoverage() {
+    return PSymGlobal.getCoverage().getEstimatedCoverage(22);
+  }
+
+  @Test
+  public void testSymbolicBounded() throws Exception {
+    initialize("testSymbolicBounded", false);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+  }
+
+  @Test
+  public void testSymbolicBoundedBug() {
+    initialize("testSymbolicBoundedBug", true);
+    Assertions.assertThrows(BugFoundException.class, TestSymbolicSearch::run);
+  }
+
+  @Test
+  public void testChoiceVarPool() throws Exception {
+    initialize("testChoiceVarPool", false);
+    PSymGlobal.getConfiguration().setUseChoiceVarPool(false);
+    run();
+    int numVars = SolverEngine.getVarCount();
+
+    for (SolverVarOrder varOrder : SolverVarOrder.values()) {
+      initialize("testChoiceVarPool", false);
+      PSymGlobal.getConfiguration().setVarOrder(varOrder);
+      SolverEngine.setVarOrder(varOrder);
+      run();
+      Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+      Assertions.assertTrue(SolverEngine.getVarCount() < numVars);
+    }
+  }
+
+  @Test
+  public void testChoiceVarPoolSameSearch() throws Exception {
+    initialize("testChoiceVarPoolSameSearch", false);
+    PSymGlobal.getConfiguration().setUseChoiceVarPool(false);
+    run();
+    int numSchedules = getNumSchedules();
+    BigDecimal coverage = getEstimatedCoverage();
+
+    initialize("testChoiceVarPoolSameSearch", false);
+    run();
+    Assertions.assertEquals("correct for any depth", PSymGlobal.getResult());
+    Assertions.assertEquals(numSchedules, getNumSchedules());
+    Assertions.assertEquals(coverage, getEstimatedCoverage());
+  }
+}
@@ -1,6 +1,5 @@
 package punit;
 
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configuration;
@@ -8,6 +7,7 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.InvocationInterceptor;
 import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
 import prt.Monitor;
+import prt.MonitorHub;
 import prt.events.PEvent;
 import prt.exceptions.PAssertionFailureException;
 import punit.annotations.PAssertExpected;
@@ -15,9 +15,11 @@ import punit.annotations.PSpecTest;
 import punit.exceptions.PAssertMismatchExeception;
 
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -49,19 +51,21 @@ public class PSpecInterceptor implements InvocationInterceptor {
         Function<String, Stream<? extends PEvent<?>>> parser = params.parser().getConstructor().newInstance().get();
         Monitor m = params.spec().getConstructor().newInstance().get();
 
+        // The spec processes the events on the hub's thread, in order.
+        MonitorHub hub = new MonitorHub(List.of(m), 1);
+
         // Stash any thrown exception from the other thread here; throw upon completion.
         AtomicReference<Throwable> actualException = new AtomicReference<>();
 
         // Set up the Log4J appender that we will shim into the class under test, that
-        // will synchronously process all log messages and send them through the effectful Flow
-        // to the spec.
+        // will synchronously parse all log messages and send the events of each message
+        // as one batch to the spec.
         LoggerContext ctx = (LoggerContext) LogManager.getContext();
         Configuration config = ctx.getConfiguration();
         ObservableAppender appender = new ObservableAppender(config.getFilter());
         appender.observe()
-                .subscribeOn(Schedulers.single())
                 .subscribe(
-                        s -> parser.apply(s).forEach(m::accept),
+                        s -> hub.acceptBatch(parser.apply(s).collect(Collectors.toList())),
                         t -> actualException.compareAndSet(null, t));
         appender.start();
 
@@ -69,8 +73,20 @@ public class PSpecInterceptor implements InvocationInterceptor {
         var implLogger = (org.apache.logging.log4j.core.Logger) LogManager.getLogger(params.impl());
         implLogger.addAppender(appender);
 
-        // Now that everything is correctly set up, run the test method.
-        invocation.proceed();
+        // Now that everything is correctly set up, run the test method, and wait for the spec to
+        // process all the events it logged.  Whether or not the test method throws, reset the
+        // logger to its previous state by removing our appender, and shut down the hub.
+        try {
+            invocation.proceed();
+            try {
+                hub.flush();
+            } catch (RuntimeException | Error t) {
+                actualException.compareAndSet(null, t);
+            }
+        } finally {
+            implLogger.removeAppender(appender);
+            hub.close();
+        }
 
         // Compare any thrown exceptions against what the test claims should be thrown, if any.
         Optional<PAssertMismatchExeception> error =
@@ -80,9 +96,6 @@ public class PSpecInterceptor implements InvocationInterceptor {
         if (error.isPresent()) {
             throw error.get();
         }
-
-        // Reset the logger to its previous state by removing our appender.
-        implLogger.removeAppender(appender);
     }
 
 }